@@ -1,13 +1,17 @@
 package personal.gym;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.text.ParseException;
 
@@ -17,17 +21,26 @@ import java.time.ZoneId;
 
 import java.time.temporal.TemporalAdjusters;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import personal.gym.accounting.*;
 
 import personal.gym.exception.*;
 
+import personal.gym.history.*;
+
 import personal.gym.person.*;
 
 import personal.gym.receipt.*;
@@ -38,6 +51,8 @@ import personal.gym.service.*;
 
 import personal.gym.session.*;
 
+import personal.gym.storage.*;
+
 import personal.gym.util.*;
 
 import personal.gym.validation.*;
@@ -53,173 +68,1452 @@ import personal.gym.validation.*;
  */
 public class DataCenterApplication {
 
-    private AccountingUtils accountUtils;
+    /**
+     * Maximum number of repositories deserialized at the same time on startup.
+     */
+    public static final int LOADER_THREADS =
+    Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Whether members and professionals are kept in memory-mapped stores
+     * rather than deserialized onto the heap. Setting the
+     * {@code gym.personStore} system property to {@code heap} disables the
+     * mapped stores.
+     */
+    public static final boolean MAPPED_PERSONS =
+    ! "heap".equals(System.getProperty("gym.personStore"));
+
+    /**
+     * Whether members, professionals, services and sessions are kept in
+     * log-structured storage engines under {@code res/engine} rather than in
+     * whole-file snapshots. Setting the {@code gym.storageEngine} system
+     * property to {@code lsm} enables the engines, which take precedence over
+     * the mapped stores.
+     */
+    public static final boolean ENGINE_STORAGE =
+    "lsm".equals(System.getProperty("gym.storageEngine"));
+
+    /**
+     * Maximum number of seconds a change waits before a background checkpoint
+     * writes it, set by the {@code gym.checkpointInterval} system property.
+     */
+    public static final long CHECKPOINT_INTERVAL =
+    Long.getLong("gym.checkpointInterval", 60);
+
+    /**
+     * Number of pending changes triggering a background checkpoint before the
+     * interval elapses, set by the {@code gym.checkpointThreshold} system
+     * property.
+     */
+    public static final long CHECKPOINT_THRESHOLD =
+    Long.getLong("gym.checkpointThreshold", 500);
+
+    /**
+     * Number of journal records past which a file whose previous generation
+     * still needs them is written again, so that the journal can drop them,
+     * set by the {@code gym.journalRetention} system property.
+     */
+    public static final long JOURNAL_RETENTION =
+    Long.getLong("gym.journalRetention", 20 * CHECKPOINT_THRESHOLD);
+
+    /**
+     * Maximum number of persons displayed by a search by name.
+     */
+    public static final int SEARCH_LIMIT = 20;
+
+    /**
+     * Maximum number of entries depending on deleted members purged at once
+     * by the background compactor, set by the {@code gym.compactionBatch}
+     * system property.
+     */
+    public static final int COMPACTION_BATCH =
+    Integer.getInteger("gym.compactionBatch", 256);
+
+    // Files of the repositories changed by the journal records
+    private static final String[] JOURNALED_FILES = {"members.dat",
+    "professionals.dat", "tombstones.dat", "services.dat", "sessions.dat",
+    "servicesNameNoDirectory.dat", "registrations.dat", "validations.dat",
+    "bills.dat", "paymentNotices.dat", "sessionsFee.dat",
+    "profsSessionsProvided.dat"};
+
     private ListPersons listPersons;
-    private ListReceipts listReceipts;
     private ListRegistrations listRegistrations;
     private ListServices listServices;
     private ListSessions listSessions;
-    private ListValidations listValidations;
     private ServicesDirectory servicesDirectory;
+    private Journal journal;
+    private final HistoryArchive history =
+    new HistoryArchive(new File("res" + File.separator + "history"));
+    private final ReceiptArchive receiptArchive =
+    new ReceiptArchive(new File("res" + File.separator + "receipts"));
+    
+    // Repositories not needed by the first commands, loaded in background
+    private CompletableFuture<AccountingUtils> accountUtils;
+    private CompletableFuture<ListReceipts> listReceipts;
+    private CompletableFuture<ListValidations> listValidations;
+    
+    private RepositoryLoader loader;
+    private final Recovery recovery = new Recovery();
+    
+    // <file name, epoch of its repository when last written or loaded>
+    private final Map<String, Long> savedEpochs = new HashMap<>();
+    
+    // <file name, LSN of the last journal record held by the loaded file>,
+    // written by the loading threads
+    private final Map<String, Long> loadedLsns = new ConcurrentHashMap<>();
+    
+    // Files whose previous generation holds back the journal, written again
+    // by the next checkpoint
+    private final Set<String> staleFiles = ConcurrentHashMap.newKeySet();
+    
+    // Commands hold the lock of this controller while changing repositories,
+    // or reading those changed by the compactor or an import in background
+    private final Checkpointer checkpointer = new Checkpointer(this,
+    this::capture, this::pendingChanges, CHECKPOINT_INTERVAL * 1000,
+    CHECKPOINT_THRESHOLD);
+    
+    // Purges what deleted members leave behind, a batch at a time
+    private final Compactor compactor = new Compactor(this,
+    budget -> listPersons.compact(budget), COMPACTION_BATCH);
     
     /**
      * Constructor method for initializing the app controller. Loads appropriate
-     * {@code .dat} files if present.
+     * {@code .dat} files if present. Independent files are deserialized
+     * concurrently; the accounting, receipts and validations repositories keep
+     * loading in background once the prompt is available and are awaited by
+     * the first command needing them. The persons are indexed in background
+     * as well.
      */
     @SuppressWarnings("unchecked")
     public DataCenterApplication() {
         
+        loader = new RepositoryLoader(LOADER_THREADS);
+        CompletableFuture<Void> eagerReady = new CompletableFuture<>();
+        
         try {
-
-            accountUtils = new AccountingUtils(
-            (Map<String, Integer>)
-            loadData(new File("res" + File.separator + "sessionsFee.dat")),
-            (Map<String, List<String>>)
-            loadData(new File("res" + File.separator +
-            "profsSessionsProvided.dat")));
+            
+            CompletableFuture<Object> members;
+            CompletableFuture<Object> professionals;
+            
+            CompletableFuture<Object> services;
+            CompletableFuture<Object> sessions;
+            
+            if (ENGINE_STORAGE) {
+                
+                members = loadEngine("members", "members.dat",
+                PersonCodec.MEMBER, Member::getCode);
+                professionals = loadEngine("professionals", "professionals.dat",
+                PersonCodec.PROFESSIONAL, Professional::getCode);
+            } else if (MAPPED_PERSONS) {
+                
+                members = loader.load("members.map", () -> openStore(
+                "members.map", MappedPersonStore::openMembers, "members.dat",
+                PersonCodec.MEMBER, Member::getCode));
+                professionals = loader.load("professionals.map",
+                () -> openStore("professionals.map",
+                MappedPersonStore::openProfessionals, "professionals.dat",
+                PersonCodec.PROFESSIONAL, Professional::getCode));
+            } else {
+                
+                members = loadMap("members.dat", PersonCodec.MEMBER,
+                Member::getCode);
+                professionals = loadMap("professionals.dat",
+                PersonCodec.PROFESSIONAL, Professional::getCode);
+            }
+            
+            if (ENGINE_STORAGE) {
+                
+                services = loadEngine("services", "services.dat",
+                ServiceCodec.INSTANCE, Service::getCode);
+                sessions = loadEngine("sessions", "sessions.dat",
+                SessionCodec.INSTANCE, Session::getSessionNo);
+            } else {
+                
+                services = loadMap("services.dat", ServiceCodec.INSTANCE,
+                Service::getCode);
+                sessions = loadMap("sessions.dat", SessionCodec.INSTANCE,
+                Session::getSessionNo);
+            }
+            
+            CompletableFuture<Object> registrations =
+            loadList("registrations.dat", RegistrationCodec.INSTANCE);
+            CompletableFuture<Object> servicesNameNo =
+            load("servicesNameNoDirectory.dat");
+            CompletableFuture<Object> currentMemberId =
+            load("currentMemberId.dat");
+            CompletableFuture<Object> currentProfId = load("currentProfId.dat");
+            CompletableFuture<Object> currentServiceId =
+            load("currentServiceId.dat");
+            CompletableFuture<Object> noElements = load("noElements.dat");
+            CompletableFuture<Object> tombstones = load("tombstones.dat");
+            
+            CompletableFuture<Object> sessionsFee = load("sessionsFee.dat");
+            CompletableFuture<Object> profsSessionsProvided =
+            load("profsSessionsProvided.dat");
+            CompletableFuture<Object> bills = loadMap("bills.dat",
+            BillMemberCodec.INSTANCE, bill -> bill.getRecipient().getCode());
+            CompletableFuture<Object> paymentNotices =
+            loadMap("paymentNotices.dat", PaymentNoticeProfCodec.INSTANCE,
+            notice -> notice.getRecipient().getCode());
+            CompletableFuture<Object> validations =
+            loadList("validations.dat", ValidationCodec.INSTANCE);
+            
+            accountUtils = sessionsFee.thenCombine(profsSessionsProvided,
+            (fees, provided) -> new AccountingUtils(
+            (Map<String, Integer>) fees,
+            (Map<String, List<String>>) provided))
+            .thenCombine(eagerReady, (accounting, ready) -> {
+                
+                accounting.setListPersons(listPersons);
+                accounting.setListSessions(listSessions);
+                accounting.setJournal(journal);
+                listPersons.setAccountUtils(accounting);
+                return accounting;
+            });
+            
+            listReceipts = bills.thenCombine(paymentNotices,
+            (billsMap, noticesMap) -> new ListReceipts(
+            (Map<String, BillMember>) billsMap,
+            (Map<String, PaymentNoticeProf>) noticesMap))
+            .thenCombine(eagerReady, (receipts, ready) -> {
+                
+                receipts.setListPersons(listPersons);
+                receipts.setListSessions(listSessions);
+                receipts.setServicesDirectory(servicesDirectory);
+                listPersons.setListReceipts(receipts);
+                return receipts;
+            });
+            
+            listValidations = validations.thenCombine(listReceipts,
+            (list, receipts) -> {
+                
+                ListValidations validationsList =
+                new ListValidations((List<Validation>) list);
+                validationsList.setListReceipts(receipts);
+                return validationsList;
+            })
+            .thenCombine(eagerReady, (validationsList, ready) -> {
+                
+                validationsList.setJournal(journal);
+                listRegistrations.setListValidations(validationsList);
+                listServices.setListValidations(validationsList);
+                return validationsList;
+            });
+            
+            Integer temp;
+            
+            if ((temp = (Integer) RepositoryLoader.await(currentMemberId))
+                != null) {
+                
+                Member.setCurrentMemberId(temp);
+            }
+            
+            if ((temp = (Integer) RepositoryLoader.await(currentProfId))
+                != null) {
+                
+                Professional.setCurrentProfId(temp);
+            }
+            
+            if ((temp = (Integer) RepositoryLoader.await(currentServiceId))
+                != null) {
+                
+                Service.setCurrentServiceId(temp);
+            }
+            
+            if ((temp = (Integer) RepositoryLoader.await(noElements))
+                != null) {
+                
+                ServicesDirectory.setNoElements(temp);
+            }
+            
+            // The counters above are only written by former versions
+            for (IdAllocator ids : IdAllocator.values()) {
+                
+                openIds(ids);
+            }
 
             listPersons = new ListPersons(
-            (Map<String, Member>)
-            loadData(new File("res" + File.separator + "members.dat")),
-            (Map<String, Professional>)
-            loadData(new File("res" + File.separator + "professionals.dat")));
-
-            listReceipts = new ListReceipts(
-            (Map<String, BillMember>)
-            loadData(new File("res" + File.separator + "bills.dat")),
-            (Map<String, PaymentNoticeProf>)
-            loadData(new File("res" + File.separator + "paymentNotices.dat")));
+            (Map<String, Member>) RepositoryLoader.await(members),
+            (Map<String, Professional>) RepositoryLoader.await(professionals));
+            
+            // Reading every person is not needed to show the prompt
+            listPersons.buildIndexes(task -> loader.load("person indexes",
+            () -> {
+                
+                task.run();
+                return null;
+            }));
+            loader.shutdown();
 
             listRegistrations = new ListRegistrations(
-            (List<Registration>)
-            loadData(new File("res" + File.separator + "registrations.dat")));
+            (List<Registration>) RepositoryLoader.await(registrations));
 
             listServices = new ListServices(
-            (Map<String, Service>)
-            loadData(new File("res" + File.separator + "services.dat")));
+            (Map<String, Service>) RepositoryLoader.await(services));
 
             listSessions = new ListSessions(
-            (Map<String, Session>)
-            loadData(new File("res" + File.separator + "sessions.dat")));
+            (Map<String, Session>) RepositoryLoader.await(sessions));
+
+            servicesDirectory = new ServicesDirectory(
+            (Map<String, String>) RepositoryLoader.await(servicesNameNo), null);
+            servicesDirectory.addSessions(listSessions.getSessions().values());
+            
+            listPersons.setListRegistrations(listRegistrations);
+            listPersons.setListServices(listServices);
+            
+            List<String> deleted =
+            (List<String>) RepositoryLoader.await(tombstones);
+            
+            if (deleted != null) {
+                
+                listPersons.restoreTombstones(deleted);
+            }
+            
+            listServices.setListSessions(listSessions);
+            
+            listSessions.setListServices(listServices);
+            listSessions.setServicesDirectory(servicesDirectory);
+            
+            // A counter restored from an older generation may lag behind
+            if (isRestored(IdAllocator.MEMBERS, "currentMemberId.dat")) {
+                
+                Member.setCurrentMemberId(nextId(Member.getCurrentMemberId(),
+                listPersons.getMembers().keySet()));
+            }
+            
+            if (isRestored(IdAllocator.PROFESSIONALS, "currentProfId.dat")) {
+                
+                Professional.setCurrentProfId(nextId(
+                Professional.getCurrentProfId(),
+                listPersons.getProfessionals().keySet()));
+            }
+            
+            if (isRestored(IdAllocator.SERVICES, "currentServiceId.dat")) {
+                
+                Service.setCurrentServiceId(nextId(
+                Service.getCurrentServiceId(),
+                listServices.getServices().keySet()));
+            }
+            
+            recovery.endPhase("Snapshots loaded");
+            
+            openJournal();
+            eagerReady.complete(null);
+            
+            replayJournal();
+            
+            for (IdAllocator ids : IdAllocator.values()) {
+                
+                ids.resume();
+            }
+            
+            recovery.endPhase("Journal replayed");
+            
+            CompletableFuture.allOf(accountUtils, listReceipts, listValidations)
+            .thenRun(() -> recovery.endPhase("Background repositories loaded"));
+            
+            showMessage(loader.report() + "\n\n\t" + recovery.report());
+            
+            checkpointer.start(
+            e -> showMessage("Checkpoint failed: " + e.getMessage()));
+            compactor.start();
+            
+            // Initiates accounting procedure at the scheduled time
+            new Timer().scheduleAtFixedRate(new AccountingTask(),
+            Date.from((LocalDate.now().with(TemporalAdjusters.nextOrSame(
+            Day.FRIDAY.getDay())).atTime(0, 0, 0))
+            .atZone(ZoneId.systemDefault()).toInstant()),
+            Duration.ofDays(Day.LENGTH_OF_WEEK).toMillis());
+        } catch (IOException e) {
+            
+            eagerReady.completeExceptionally(e);
+            showMessage("Unable to retrieve data: " + e.getMessage());
+        } catch (ClassNotFoundException e) {
+            
+            eagerReady.completeExceptionally(e);
+            showMessage("Class not found");
+        }
+    }
+
+    /**
+     * Schedules the loading of a file of the {@code res} folder.
+     *
+     * @param fileName Name of the file
+     * @return Future completed with the contents of the file
+     */
+    private CompletableFuture<Object> load(String fileName) {
+        
+        File file = new File("res" + File.separator + fileName);
+        
+        return loader.load(fileName, () -> {
+            
+            Object data = recovery.read(file, DataCenterApplication::loadData);
+            recordLsn(fileName, file);
+            return data;
+        });
+    }
+
+    /**
+     * Records the journal position of a loaded file, restored from its
+     * previous generation or not. A missing file holds no record at all.
+     *
+     * @param fileName Name of the file
+     * @param file Loaded file
+     * @throws IOException if an I/O error occurs
+     */
+    private void recordLsn(String fileName, File file) throws IOException {
+        
+        loadedLsns.put(fileName, file.isFile() ? ChecksummedFile.lsnOf(file)
+        : 0);
+    }
+
+    /**
+     * Schedules the loading of a repository snapshot keyed by an attribute of
+     * its entities.
+     *
+     * @param <T> Type of the entities
+     * @param fileName Name of the file
+     * @param codec Codec of the entities
+     * @param key Function returning the key of an entity
+     * @return Future completed with the repository or {@code null} if the file
+     * does not exist
+     */
+    private <T> CompletableFuture<Object> loadMap(String fileName,
+        Codec<T> codec, Function<T, String> key) {
+        
+        File file = new File("res" + File.separator + fileName);
+        
+        return loader.load(fileName, () -> {
+            
+            Map<String, T> map = file.isFile() ? recovery.read(file,
+            f -> SnapshotFile.readMap(f, codec, key)) : null;
+            recordLsn(fileName, file);
+            return map;
+        });
+    }
+
+    /**
+     * Schedules the loading of a repository snapshot stored as a list.
+     *
+     * @param <T> Type of the entities
+     * @param fileName Name of the file
+     * @param codec Codec of the entities
+     * @return Future completed with the repository or {@code null} if the file
+     * does not exist
+     */
+    private <T> CompletableFuture<Object> loadList(String fileName,
+        Codec<T> codec) {
+        
+        File file = new File("res" + File.separator + fileName);
+        
+        return loader.load(fileName, () -> {
+            
+            List<T> list = file.isFile() ? recovery.read(file,
+            f -> SnapshotFile.readList(f, codec)) : null;
+            recordLsn(fileName, file);
+            return list;
+        });
+    }
+
+    /**
+     * Schedules the opening of a repository kept in a storage engine, moving
+     * the entities of its former snapshot onto the engine if it is empty.
+     *
+     * @param <T> Type of the entities
+     * @param table Name of the folder of the engine under {@code res/engine}
+     * @param fileName Name of the former snapshot
+     * @param codec Codec of the entities
+     * @param key Function returning the key of an entity
+     * @return Future completed with the repository
+     */
+    private <T> CompletableFuture<Object> loadEngine(String table,
+        String fileName, Codec<T> codec, Function<T, String> key) {
+        
+        return loader.load(table, () -> {
+            
+            EngineMap<T> map = new EngineMap<>(new LogStructuredEngine(
+            new File("res" + File.separator + "engine" + File.separator
+            + table)), codec);
+            // The moved entities keep the journal position of the snapshot
+            long lsn = ChecksummedFile.lsnOf(
+            new File("res" + File.separator + fileName));
+            
+            migrate(map, fileName, codec, key, () -> map.flush(lsn));
+            loadedLsns.put(fileName, map.getEngine().getLsn());
+            return map;
+        });
+    }
+
+    /**
+     * Reads the high-water mark of an allocator and starts persisting the
+     * following ones.
+     *
+     * @param ids Allocator
+     * @throws IOException if the mark cannot be read
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    private void openIds(IdAllocator ids) throws IOException,
+        ClassNotFoundException {
+        
+        File file = new File("res" + File.separator + ids.getFileName());
+        
+        ids.open(file, file.isFile()
+        ? recovery.read(file, IdAllocator::readMark) : 0);
+    }
+
+    /**
+     * @param ids Allocator
+     * @param legacyName Name of the counter file written by former versions
+     * @return True if the allocator or its former counter was restored from
+     * its previous generation
+     */
+    private boolean isRestored(IdAllocator ids, String legacyName) {
+        
+        return recovery.isRestored(ids.getFileName())
+        || recovery.isRestored(legacyName);
+    }
+
+    /**
+     * @param current Current value of a counter
+     * @param codes Codes generated from the counter
+     * @return Counter value past every code
+     */
+    private static int nextId(int current, Collection<String> codes) {
+        
+        int next = current;
+        
+        for (String code : codes) {
+            
+            next = Math.max(next, Integer.parseInt(code) + 1);
+        }
+        
+        return next;
+    }
+
+    /**
+     * Opens a mapped store, first moving onto it the persons of a snapshot
+     * written before the mapped stores were introduced. The persons are written
+     * onto a temporary store which only replaces the store once complete, so a
+     * failed move is started over on the next startup while the snapshot is
+     * still there. Fields longer than the records allow are cut down, the
+     * snapshot then being kept aside with the {@code .migrated} suffix, and
+     * persons whose code cannot be stored are left out; both are reported.
+     *
+     * @param <P> Type of the persons
+     * @param fileName Name of the store
+     * @param opener Opener of a store file
+     * @param legacyName Name of the former snapshot
+     * @param codec Codec of the former snapshot
+     * @param key Function returning the code of a person
+     * @return Store holding the persons
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    private <P extends Person> MappedPersonStore<P> openStore(String fileName,
+        Recovery.Reader<MappedPersonStore<P>> opener, String legacyName,
+        PersonCodec<P> codec, Function<P, String> key) throws IOException,
+        ClassNotFoundException {
+        
+        File file = new File("res" + File.separator + fileName);
+        File legacy = new File("res" + File.separator + legacyName);
+        
+        if (! legacy.isFile()) {
+            
+            return opener.read(file);
+        }
+        
+        File temp = new File(file.getPath() + ".tmp");
+        List<String> cut = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        
+        Files.deleteIfExists(temp.toPath());
+        
+        try (MappedPersonStore<P> store = opener.read(temp)) {
+            
+            for (P person : SnapshotFile.readMap(legacy, codec, key)
+                .values()) {
+                
+                P fitted = store.fit(person);
+                
+                try {
+                    
+                    store.put(fitted.getCode(), fitted);
+                } catch(IllegalArgumentException e) {
+                    
+                    rejected.add(person.getCode());
+                    continue;
+                }
+                
+                if (fitted != person) {
+                    
+                    cut.add(person.getCode());
+                }
+            }
+        }
+        
+        Files.move(temp.toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        if (cut.isEmpty() && rejected.isEmpty()) {
+            
+            Files.delete(legacy.toPath());
+        } else {
+            
+            Files.move(legacy.toPath(), new File(legacy.getPath()
+            + ".migrated").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        if (! cut.isEmpty()) {
+            
+            recovery.note(legacyName + ": fields cut down to fit " + fileName
+            + " for " + String.join(", ", cut));
+        }
+        
+        if (! rejected.isEmpty()) {
+            
+            recovery.note(legacyName + ": not moved onto " + fileName
+            + ", invalid code for " + String.join(", ", rejected));
+        }
+        
+        return opener.read(file);
+    }
+
+    /**
+     * Moves the entities of a snapshot written before a repository was kept
+     * outside of the snapshots onto its freshly created storage, then deletes
+     * the snapshot.
+     *
+     * @param <T> Type of the entities
+     * @param <M> Type of the storage
+     * @param repository Opened storage
+     * @param fileName Name of the former snapshot
+     * @param codec Codec of the former snapshot
+     * @param key Function returning the key of an entity
+     * @param durable Flush making the moved entities durable
+     * @return Storage holding the entities
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    private static <T, M extends Map<String, T>> M migrate(M repository,
+        String fileName, Codec<T> codec, Function<T, String> key,
+        Checkpointer.Flush durable) throws IOException,
+        ClassNotFoundException {
+        
+        File file = new File("res" + File.separator + fileName);
+        
+        if (repository.isEmpty() && file.isFile()) {
+            
+            repository.putAll(SnapshotFile.readMap(file, codec, key));
+            durable.flush();
+            
+            if (! file.delete()) {
+                
+                throw new IOException("Unable to delete " + file);
+            }
+        }
+        
+        return repository;
+    }
+
+    /**
+     * @return Accounting utilities, waiting for them to be loaded if needed
+     */
+    private AccountingUtils accountUtils() {
+        
+        return accountUtils.join();
+    }
+
+    /**
+     * @return Receipts structure, waiting for it to be loaded if needed
+     */
+    private ListReceipts listReceipts() {
+        
+        return listReceipts.join();
+    }
 
-            listValidations = new ListValidations(
-            (List<Validation>)
-            loadData(new File("res" + File.separator + "validations.dat")));
+    /**
+     * @return Validations structure, waiting for it to be loaded if needed
+     */
+    private ListValidations listValidations() {
+        
+        return listValidations.join();
+    }
+
+    /**
+     * Waits for the repositories loaded in background. Must be called before
+     * any operation which cascades into them from an eagerly loaded
+     * repository.
+     */
+    private void awaitBackgroundLoading() {
+        
+        accountUtils();
+        listReceipts();
+        listValidations();
+    }
+
+    /**
+     * Displays how long each repository and recovery phase took on startup,
+     * along with the files restored from their previous generation.
+     */
+    public void getStartupReport() {
+        
+        showMessage(loader.report() + "\n\n\t" + recovery.report());
+    }
+
+    /**
+     * Opens the mutations journal and starts recording the new mutations. The
+     * repositories loaded in background attach to it once loaded.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    private void openJournal() throws IOException, ClassNotFoundException {
+        
+        Long checkpointLsn = (Long) recovery.read(
+        new File("res" + File.separator + "journalLsn.dat"),
+        DataCenterApplication::loadData);
+        
+        if (checkpointLsn == null) {
+            
+            checkpointLsn = 0L;
+        }
+        
+        journal = new Journal(new File("res" + File.separator + "journal.log"),
+        checkpointLsn);
+        savedEpochs.put("journalLsn.dat", checkpointLsn);
+        
+        // A checkpoint interrupted before writing its LSN leaves files ahead
+        // of it, whose records must not be numbered again
+        for (String fileName : JOURNALED_FILES) {
+            
+            journal.advanceTo(ChecksummedFile.lsnOf(
+            new File("res" + File.separator + fileName)));
+        }
+        
+        for (long lsn : loadedLsns.values()) {
+            
+            journal.advanceTo(lsn);
+        }
+        
+        listPersons.setJournal(journal);
+        listRegistrations.setJournal(journal);
+        listServices.setJournal(journal);
+        listSessions.setJournal(journal);
+    }
+
+    /**
+     * Replays the mutations of the journal which are not yet part of the loaded
+     * files, from the oldest position among them. Background loading is only
+     * awaited if the journal holds records.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void replayJournal() throws IOException {
+        
+        if (journal.getFile().length() > 0) {
+            
+            awaitBackgroundLoading();
+        }
+        
+        long fromLsn = journal.getCheckpointLsn();
+        
+        for (String fileName : JOURNALED_FILES) {
+            
+            fromLsn = Math.min(fromLsn, coveredLsn(fileName));
+        }
+        
+        int replayed = journal.replay(fromLsn, this::applyRecord);
+        
+        if (replayed > 0 || journal.getDiscardedBytes() > 0) {
+            
+            showMessage("Recovered " + replayed + " changes from the journal, "
+            + "discarded " + journal.getDiscardedBytes()
+            + " bytes of torn records");
+        }
+    }
+
+    /**
+     * @param fileName Name of a file of the {@code res} folder
+     * @return LSN of the last journal record held by the loaded file; files
+     * not recording it, like the mapped stores, hold the snapshot LSN
+     */
+    private long coveredLsn(String fileName) {
+        
+        Long lsn = loadedLsns.get(fileName);
+        
+        return lsn == null || lsn < 0 ? journal.getCheckpointLsn() : lsn;
+    }
+
+    /**
+     * @param record Journal record
+     * @param fileNames Files of the repositories changed by the record
+     * @return True if at least one of the files was written before the
+     * record
+     */
+    private boolean isBehind(JournalRecord record, String... fileNames) {
+        
+        for (String fileName : fileNames) {
+            
+            if (coveredLsn(fileName) < record.getLsn()) {
+                
+                return true;
+            }
+        }
+        
+        return false;
+    }
+
+    /**
+     * @param type Person type
+     * @return Name of the snapshot of the persons of that type
+     */
+    private static String personsFile(Type type) {
+        
+        return type == Type.MEMBER ? "members.dat" : "professionals.dat";
+    }
+
+    /**
+     * Applies a mutation read back from the journal onto the structures. The
+     * counters are positioned on the recorded codes so that replayed entities
+     * obtain the same codes as when they were first created.
+     * <p>
+     * Each file read back may hold a different position of the journal, as a
+     * checkpoint only writes the changed repositories and may be interrupted
+     * before writing them all, and a file may be restored from its previous
+     * generation. A record is thus only replayed if a repository it changes
+     * was written before it: records adding to a repository, like a seat
+     * reservation or a validation, only change the repositories written
+     * before them, while the other records replace or remove entities by
+     * code and are replayed whole.
+     *
+     * @param record Journal record
+     */
+    private void applyRecord(JournalRecord record) {
+        
+        try {
+            
+            switch (record.getOperation()) {
+                
+                case CREATE_MEMBER : {
+                    
+                    if (isBehind(record, "members.dat")) {
+                        
+                        Member.setCurrentMemberId(
+                        Integer.parseInt(record.getArg(0)));
+                        listPersons.createMember(record.getArg(1),
+                        record.getArg(2), record.getArg(3), record.getArg(4),
+                        record.getArg(5), record.getArg(6));
+                    }
+                    
+                    break;
+                }
+                
+                case CREATE_PROF : {
+                    
+                    if (isBehind(record, "professionals.dat")) {
+                        
+                        Professional.setCurrentProfId(
+                        Integer.parseInt(record.getArg(0)));
+                        listPersons.createProf(record.getArg(1),
+                        record.getArg(2), record.getArg(3), record.getArg(4),
+                        record.getArg(5), record.getArg(6));
+                    }
+                    
+                    break;
+                }
+                
+                case MODIFY_PERSON : {
+                    
+                    Type type = Type.valueOf(record.getArg(1));
+                    
+                    if (isBehind(record, personsFile(type))) {
+                        
+                        listPersons.modifyPerson(getPerson(record.getArg(0),
+                        type), record.getArg(2), record.getArg(3),
+                        record.getArg(4), record.getArg(5), record.getArg(6),
+                        record.getArg(7));
+                    }
+                    
+                    break;
+                }
+                
+                case SET_STATUS : {
+                    
+                    Type type = Type.valueOf(record.getArg(1));
+                    
+                    if (isBehind(record, personsFile(type))) {
+                        
+                        listPersons.setStatus(getPerson(record.getArg(0),
+                        type), Status.valueOf(record.getArg(2)));
+                    }
+                    
+                    break;
+                }
+                
+                case DELETE_MEMBER : {
+                    
+                    if (isBehind(record, "members.dat", "tombstones.dat",
+                        "registrations.dat")) {
+                        
+                        listPersons.replayDelete(record.getArg(0),
+                        Type.MEMBER);
+                    }
+                    
+                    break;
+                }
+                
+                case DELETE_PROF : {
+                    
+                    if (isBehind(record, "professionals.dat",
+                        "sessionsFee.dat", "profsSessionsProvided.dat",
+                        "registrations.dat", "services.dat", "sessions.dat")) {
+                        
+                        listPersons.replayDelete(record.getArg(0),
+                        Type.PROFESSIONAL);
+                    }
+                    
+                    break;
+                }
+                
+                case CREATE_SERVICE : {
+                    
+                    if (isBehind(record, "services.dat", "sessions.dat",
+                        "servicesNameNoDirectory.dat")) {
+                        
+                        Service.setCurrentServiceId(
+                        Integer.parseInt(record.getArg(0)));
+                        listServices.createService(record.getArg(1),
+                        new Date(Long.parseLong(record.getArg(2))),
+                        new Date(Long.parseLong(record.getArg(3))),
+                        parseOccurrences(record.getArg(4)),
+                        Integer.parseInt(record.getArg(5)), record.getArg(6),
+                        Integer.parseInt(record.getArg(7)),
+                        new Date(Long.parseLong(record.getArg(8))),
+                        record.getArg(9));
+                    }
+                    
+                    break;
+                }
+                
+                case MODIFY_SERVICE : {
+                    
+                    if (isBehind(record, "services.dat", "sessions.dat",
+                        "servicesNameNoDirectory.dat")) {
+                        
+                        listServices.modifyService(
+                        listServices.getService(record.getArg(0)),
+                        record.getArg(1),
+                        new Date(Long.parseLong(record.getArg(2))),
+                        new Date(Long.parseLong(record.getArg(3))),
+                        parseOccurrences(record.getArg(4)),
+                        Integer.parseInt(record.getArg(5)), record.getArg(6),
+                        Integer.parseInt(record.getArg(7)),
+                        new Date(Long.parseLong(record.getArg(8))),
+                        record.getArg(9));
+                    }
+                    
+                    break;
+                }
+                
+                case DELETE_SERVICE : {
+                    
+                    if (isBehind(record, "services.dat", "sessions.dat")) {
+                        
+                        listServices.deleteService(record.getArg(0));
+                    }
+                    
+                    break;
+                }
+                
+                case CREATE_REGISTRATION : {
+                    
+                    if (isBehind(record, "registrations.dat")) {
+                        
+                        listRegistrations.createRegistration(record.getArg(0),
+                        record.getArg(1), record.getArg(2), record.getArg(3));
+                    }
+                    
+                    break;
+                }
+                
+                case CREATE_VALIDATION : {
+                    
+                    // The validation and both receipts are written apart
+                    Validation validation = new Validation(record.getArg(0),
+                    record.getArg(1), record.getArg(2), record.getArg(3));
+                    
+                    if (isBehind(record, "validations.dat")) {
+                        
+                        listValidations().addValidation(validation);
+                    }
+                    
+                    if (isBehind(record, "bills.dat")) {
+                        
+                        listReceipts().createBillMember(record.getArg(1),
+                        validation);
+                    }
+                    
+                    if (isBehind(record, "paymentNotices.dat")) {
+                        
+                        listReceipts().createPaymentNoticeProf(
+                        record.getArg(0), validation);
+                    }
+                    
+                    break;
+                }
+                
+                case ADD_SESSION_FEE : {
+                    
+                    if (isBehind(record, "sessionsFee.dat")) {
+                        
+                        accountUtils().addSessionFee(record.getArg(0),
+                        Integer.parseInt(record.getArg(1)));
+                    }
+                    
+                    break;
+                }
+                
+                case ADD_PROVIDED_PROF : {
+                    
+                    if (isBehind(record, "profsSessionsProvided.dat")) {
+                        
+                        accountUtils().addProvidedProfs(record.getArg(0),
+                        record.getArg(1));
+                    }
+                    
+                    break;
+                }
+                
+                case RESERVE_SEAT : {
+                    
+                    if (isBehind(record, "sessions.dat")) {
+                        
+                        listSessions.reserveSeat(
+                        listSessions.getSession(record.getArg(0)));
+                    }
+                    
+                    break;
+                }
+                
+                case WEEKLY_RESET : {
+                    
+                    replayReset(record);
+                    break;
+                }
+            }
+        } catch(InvalidFormatException | ParseException
+            | RuntimeException e) {
+            
+            showMessage("Skipped journal record " + record.getLsn() + ": "
+            + e.getMessage());
+        }
+    }
+
+    /**
+     * Clears the week-based structures whose files were written before a
+     * replayed weekly reset. The week was archived before the reset was
+     * journaled, so it is not archived again.
+     *
+     * @param record Journal record of the reset
+     */
+    private void replayReset(JournalRecord record) {
+        
+        if (isBehind(record, "sessionsFee.dat")) {
+            
+            accountUtils().clearSessionsFee();
+        }
+        
+        if (isBehind(record, "profsSessionsProvided.dat")) {
+            
+            accountUtils().clearProvidedProfs();
+        }
+        
+        if (isBehind(record, "sessions.dat")) {
+            
+            listSessions.clear();
+        }
+        
+        if (isBehind(record, "bills.dat")) {
+            
+            listReceipts().clearBills();
+        }
+        
+        if (isBehind(record, "paymentNotices.dat")) {
+            
+            listReceipts().clearPaymentNotices();
+        }
+        
+        if (isBehind(record, "registrations.dat")) {
+            
+            listRegistrations.clear();
+        }
+        
+        if (isBehind(record, "validations.dat")) {
+            
+            listValidations().clear();
+        }
+    }
+
+    /**
+     * Converts the comma separated day names recorded onto the journal back to
+     * a {@link Day} array.
+     *
+     * @param occurrences Comma separated day names
+     * @return Corresponding {@link Day} array
+     */
+    private static Day[] parseOccurrences(String occurrences) {
+        
+        String[] names = occurrences.split(",");
+        Day[] days = new Day[names.length];
+        
+        for (int i = 0; i < days.length; i++) {
+            
+            days[i] = Day.valueOf(names[i]);
+        }
+        
+        return days;
+    }
+
+    /**
+     * Accesses and returns a given file's contents.
+     *
+     * @param file Given file
+     * @return Contents of the file as an {@link Object} or {@code null} if the
+     * file does not exist
+     * @throws IOException if file does not exist
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    private static Object loadData(File file) throws IOException,
+        ClassNotFoundException {
+        
+        if (file.exists() && !file.isDirectory()) {
+            
+            try (ObjectInputStream inStream =
+                new ObjectInputStream(ChecksummedFile.open(file))) {
+                
+                return inStream.readObject();
+            }
+        }
+        
+        return null;
+    }
+
+    /**
+     * @param object Contents of a file as an {@link Object}
+     * @return Writer serialising the object
+     */
+    private static ChecksummedFile.Writer serialized(Object object) {
+        
+        return out -> {
+            
+            try (ObjectOutputStream outStream = new ObjectOutputStream(out)) {
+                
+                outStream.writeObject(object);
+            }
+        };
+    }
+
+    /**
+     * @param fileName Name of a file of the {@code res} folder
+     * @param epoch Modification epoch of the repository it holds
+     * @return True if the repository changed since the file was last written
+     * or loaded, or if the file holds back the journal
+     */
+    private boolean isDirty(String fileName, long epoch) {
+        
+        Long saved = savedEpochs.get(fileName);
+        
+        return (saved == null ? epoch != 0 : saved != epoch)
+        || staleFiles.contains(fileName);
+    }
+
+    /**
+     * Captures a file of the {@code res} folder unless the repository it holds
+     * did not change since the file was last written or loaded.
+     *
+     * @param files Files captured so far
+     * @param fileName Name of the file
+     * @param epoch Modification epoch of the repository
+     * @param lsn Sequence number of the last journal record captured, or -1
+     * for a file not recording it
+     * @param snapshot Copier of the repository, returning the producer of the
+     * file contents
+     */
+    private void captureIfDirty(List<CapturedFile> files, String fileName,
+        long epoch, long lsn, Supplier<ChecksummedFile.Writer> snapshot) {
+        
+        if (isDirty(fileName, epoch)) {
+            
+            ChecksummedFile.Writer writer = snapshot.get();
+            
+            files.add(new CapturedFile(fileName, epoch,
+            () -> ChecksummedFile.write(
+            new File("res" + File.separator + fileName), lsn, writer)));
+        }
+    }
+
+    /**
+     * Captures members or professionals if they changed. A mapped store is
+     * already up to date on disk and only needs to be forced.
+     *
+     * @param <P> Type of the persons
+     * @param files Files captured so far
+     * @param fileName Name of the snapshot used when persons are kept on the
+     * heap
+     * @param lsn Sequence number of the last journal record captured
+     * @param codec Codec of the persons
+     * @param persons Persons to capture
+     */
+    private <P extends Person> void capturePersons(List<CapturedFile> files,
+        String fileName, long lsn, PersonCodec<P> codec,
+        Map<String, P> persons) {
+        
+        if (persons instanceof MappedPersonStore) {
+            
+            MappedPersonStore<?> store = (MappedPersonStore<?>) persons;
+            String storeName = store.getFile().getName();
+            
+            if (isDirty(storeName, listPersons.getEpoch())) {
+                
+                files.add(new CapturedFile(storeName, listPersons.getEpoch(),
+                () -> {
+                    
+                    store.force();
+                    return 0;
+                }));
+            }
+        } else {
+            
+            captureMap(files, fileName, listPersons.getEpoch(), lsn, codec,
+            persons);
+        }
+    }
+
+    /**
+     * Captures a repository keyed by code if it changed. A repository kept in
+     * a storage engine only captures the changes made since the last
+     * checkpoint, which the engine writes without rewriting the unchanged
+     * entities.
+     *
+     * @param <T> Type of the entities
+     * @param files Files captured so far
+     * @param fileName Name of the snapshot used when the repository is not
+     * kept in a storage engine
+     * @param epoch Modification epoch of the repository
+     * @param lsn Sequence number of the last journal record captured
+     * @param codec Codec of the entities
+     * @param repository Repository to capture
+     */
+    private <T> void captureMap(List<CapturedFile> files, String fileName,
+        long epoch, long lsn, Codec<T> codec, Map<String, T> repository) {
+        
+        if (repository instanceof EngineMap) {
+            
+            if (isDirty(fileName, epoch)) {
+                
+                files.add(new CapturedFile(fileName, epoch,
+                ((EngineMap<T>) repository).capture(lsn)));
+            }
+        } else {
+            
+            captureIfDirty(files, fileName, epoch, lsn,
+            () -> SnapshotFile.capture(codec, repository.values()));
+        }
+    }
+
+    /**
+     * Serialises an object right away, for objects holding nested structures
+     * which keep changing once captured.
+     *
+     * @param object Contents of a file as an {@link Object}
+     * @return Writer of the serialised object
+     * @throws UncheckedIOException if the object cannot be serialised
+     */
+    private static ChecksummedFile.Writer copied(Object object) {
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        
+        try {
+            
+            serialized(object).write(bytes);
+        } catch(IOException e) {
+            
+            throw new UncheckedIOException(e);
+        }
+        
+        return out -> bytes.writeTo(out);
+    }
 
-            servicesDirectory = new ServicesDirectory(
-            (Map<String, String>)
-            loadData(new File("res" + File.separator +
-            "servicesNameNoDirectory")),
-            (Map<String, String>)
-            loadData(new File("res" + File.separator +
-            "servicesNoNameDirectory")));
+    /**
+     * @param <T> Type of the repository
+     * @param future Repository loaded in background
+     * @return Repository or null if it is not loaded yet
+     */
+    private static <T> T loaded(CompletableFuture<T> future) {
+        
+        return future.isDone() && ! future.isCompletedExceptionally() ?
+        future.join() : null;
+    }
 
-            accountUtils.setListPersons(listPersons);
-            accountUtils.setListSessions(listSessions);
+    /**
+     * Copies the repositories modified since they were last written or loaded.
+     * Called by the checkpointer while holding the lock of this controller;
+     * entities modified in place are copied and the remaining content is
+     * shared, so that the copy can be written without holding the lock.
+     * Repositories still loading in background cannot have changed and are
+     * skipped. The tombstones of deleted members whose dependents are not
+     * purged yet are written along, as the journal records of their deletion
+     * are discarded once written, and so are the numbers of the service names,
+     * which the sessions alone do not keep once deleted.
+     *
+     * @return Writer of the captured files, followed by the journal checkpoint
+     * @throws IOException if an I/O error occurs
+     */
+    private Checkpointer.Flush capture() throws IOException {
+        
+        List<CapturedFile> files = new ArrayList<>();
+        long lsn = journal == null ? 0 : journal.getLastLsn();
+        
+        try {
             
-            listPersons.setAccountUtils(accountUtils);
-            listPersons.setListRegistrations(listRegistrations);
-            listPersons.setListServices(listServices);
+            AccountingUtils accounting = loaded(accountUtils);
+            
+            if (accounting != null) {
+                
+                captureIfDirty(files, "sessionsFee.dat", accounting.getEpoch(),
+                lsn, () -> serialized(
+                new HashMap<>(accounting.getSessionsFee())));
+                captureIfDirty(files, "profsSessionsProvided.dat",
+                accounting.getEpoch(), lsn,
+                () -> copied(accounting.getProfsSessionsProvided()));
+            }
             
-            listReceipts.setListPersons(listPersons);
-            listReceipts.setListSessions(listSessions);
-            listReceipts.setServicesDirectory(servicesDirectory);
+            capturePersons(files, "members.dat", lsn, PersonCodec.MEMBER,
+            listPersons.getMembers());
+            capturePersons(files, "professionals.dat", lsn,
+            PersonCodec.PROFESSIONAL, listPersons.getProfessionals());
             
-            listRegistrations.setListValidations(listValidations);
+            ListReceipts receipts = loaded(listReceipts);
             
-            listServices.setListSessions(listSessions);
-            listServices.setListValidations(listValidations);
+            if (receipts != null) {
+                
+                captureMap(files, "bills.dat", receipts.getEpoch(), lsn,
+                BillMemberCodec.INSTANCE, receipts.getBills());
+                captureMap(files, "paymentNotices.dat", receipts.getEpoch(),
+                lsn, PaymentNoticeProfCodec.INSTANCE,
+                receipts.getPaymentNotices());
+            }
             
-            listSessions.setListServices(listServices);
-            listSessions.setServicesDirectory(servicesDirectory);
+            captureIfDirty(files, "tombstones.dat",
+            listPersons.getTombstoneEpoch(), lsn,
+            () -> serialized(listPersons.getTombstones()));
             
-            listValidations.setListReceipts(listReceipts);
+            captureIfDirty(files, "registrations.dat",
+            listRegistrations.getEpoch(), lsn,
+            () -> SnapshotFile.capture(RegistrationCodec.INSTANCE,
+            listRegistrations.getRegistrations()));
             
-            Integer temp;
+            captureMap(files, "services.dat", listServices.getEpoch(), lsn,
+            ServiceCodec.INSTANCE, listServices.getServices());
             
-            if ((temp = (Integer)
-                loadData(new File("res" + File.separator +
-                "currentMemberId.dat"))) != null) {
-                
-                Member.setCurrentMemberId(temp);
-            }
+            captureMap(files, "sessions.dat", listSessions.getEpoch(), lsn,
+            SessionCodec.INSTANCE, listSessions.getSessions());
+            
+            captureIfDirty(files, "servicesNameNoDirectory.dat",
+            servicesDirectory.size(), lsn,
+            () -> serialized(servicesDirectory.getServiceNumbers()));
             
-            if ((temp = (Integer)
-                loadData(new File("res" + File.separator +
-                "currentProfId.dat"))) != null) {
+            ListValidations validations = loaded(listValidations);
+            
+            if (validations != null) {
                 
-                Professional.setCurrentProfId(temp);
+                captureIfDirty(files, "validations.dat", validations.getEpoch(),
+                lsn, () -> SnapshotFile.capture(ValidationCodec.INSTANCE,
+                validations.getValidations()));
             }
+        } catch(UncheckedIOException e) {
+            
+            throw e.getCause();
+        }
+        
+        if (journal != null) {
+            
+            // Written last: files without a journal position of their own
+            // only cover the journal once every other file is on disk
+            captureIfDirty(files, "journalLsn.dat", lsn, -1,
+            () -> serialized(lsn));
+        }
+        
+        return () -> {
             
-            if ((temp = (Integer)
-                loadData(new File("res" + File.separator +
-                "currentServiceId.dat"))) != null) {
+            long bytes = 0;
+            
+            for (CapturedFile file : files) {
                 
-                Service.setCurrentServiceId(temp);
+                bytes += file.write();
             }
             
-            if ((temp = (Integer)
-                loadData(new File("res" + File.separator +
-                "noElements.dat"))) != null) {
+            if (journal != null) {
                 
-                ServicesDirectory.setNoElements(temp);
+                journal.checkpoint(lsn, retainedLsn(lsn));
             }
             
-            // Initiates accounting procedure at the scheduled time
-            new Timer().scheduleAtFixedRate(new AccountingTask(),
-            Date.from((LocalDate.now().with(TemporalAdjusters.nextOrSame(
-            Day.FRIDAY.getDay())).atTime(0, 0, 0))
-            .atZone(ZoneId.systemDefault()).toInstant()),
-            Duration.ofDays(Day.LENGTH_OF_WEEK).toMillis());
-        } catch (IOException e) {
-            
-            showMessage("Unable to retrieve data");
-        } catch (ClassNotFoundException e) {
-            
-            showMessage("Class not found");
-        }
+            return bytes;
+        };
     }
 
     /**
-     * Accesses and returns a given file's contents.
+     * Finds the oldest journal position a file may be restored from, which is
+     * the one of its previous generation, so that the journal keeps the
+     * records to replay onto it. Files whose previous generation is too old
+     * are marked to be written again, making their current generation the
+     * previous one.
      *
-     * @param file Given file
-     * @return Contents of the file as an {@link Object} or {@code null} if the
-     * file does not exist
-     * @throws IOException if file does not exist
-     * @throws ClassNotFoundException if class of serialized object cannot be
-     * found
+     * @param lsn LSN of the last record covered by the snapshot
+     * @return LSN of the last record needed by no file generation
+     * @throws IOException if an I/O error occurs
      */
-    private static Object loadData(File file) throws IOException,
-        ClassNotFoundException {
+    private long retainedLsn(long lsn) throws IOException {
         
-        if (file.exists() && !file.isDirectory()) {
+        long retained = lsn;
+        
+        for (String fileName : JOURNALED_FILES) {
+            
+            long previous = ChecksummedFile.lsnOf(ChecksummedFile.previous(
+            new File("res" + File.separator + fileName)));
             
-            return (new ObjectInputStream(
-            new FileInputStream(file))).readObject();
+            if (previous < 0) {
+                
+                staleFiles.remove(fileName);
+                continue;
+            }
+            
+            if (lsn - previous > JOURNAL_RETENTION) {
+                
+                staleFiles.add(fileName);
+            } else {
+                
+                staleFiles.remove(fileName);
+            }
+            
+            retained = Math.min(retained, previous);
         }
         
-        return null;
+        return retained;
     }
 
     /**
-     * Creates or overwrites a file with serialised object content to a given
-     * path.
-     *
-     * @param path Given path
-     * @param object Contents of the file as an {@link Object}
-     * @throws IOException if an I/O error occurs
+     * @return Number of journaled changes not yet written by a checkpoint
      */
-    private static void saveData(String path, Object object)
-        throws IOException {
-        
-        File file = new File(path);
-        file.createNewFile();
+    private long pendingChanges() {
         
-        ObjectOutputStream outStream =
-        new ObjectOutputStream(new FileOutputStream(file));
-        outStream.writeObject(object);
-        outStream.close();
+        return journal == null ? 0 :
+        journal.getLastLsn() - journal.getCheckpointLsn();
     }
 
     /**
@@ -243,58 +1537,58 @@ public class DataCenterApplication {
     /**
      * Overwrites the data on the disk with data from the structure objects of
      * the different list attributes. This method is called when exiting the
-     * application and overwrite any {@code .dat} files of the same name.
+     * application and overwrite any {@code .dat} files of the same name. Only
+     * the repositories modified since they were last written or loaded are
+     * written, each file atomically replacing the previous one. Once every
+     * file is written, the journal records they cover are discarded. Waits for
+     * a background checkpoint in progress, so it must not be called while
+     * holding the lock of this controller.
+     *
+     * @return Number of bytes written
      */
-    public void overwriteDataFiles() {
+    public long overwriteDataFiles() {
 
         try {
             
-            saveData("res" + File.separator + "sessionsFee.dat",
-            accountUtils.getSessionsFee());
-            saveData("res" + File.separator + "profsSessionsProvided.dat",
-            accountUtils.getProfsSessionsProvided());
+            return checkpointer.run();
+        } catch(IOException e) {
             
-            saveData("res" + File.separator + "members.dat",
-            listPersons.getMembers());
-            saveData("res" + File.separator + "professionals.dat",
-            listPersons.getProfessionals());
-            
-            saveData("res" + File.separator + "bills.dat",
-            listReceipts.getBills());
-            saveData("res" + File.separator + "paymentNotices.dat",
-            listReceipts.getPaymentNotices());
-            
-            saveData("res" + File.separator + "registrations.dat",
-            listRegistrations.getRegistrations());
-            
-            saveData("res" + File.separator + "services.dat",
-            listServices.getServices());
-            
-            saveData("res" + File.separator + "sessions.dat",
-            listSessions.getSessions());
-            
-            saveData("res" + File.separator + "validations.dat",
-            listValidations.getValidations());
-            
-            saveData("res" + File.separator + "servicesNameNoDirectory.dat",
-            servicesDirectory.getServicesNameNo());
-            saveData("res" + File.separator + "servicesNoNameDirectory.dat",
-            servicesDirectory.getServicesNoName());
-            
-            saveData("res" + File.separator + "currentMemberId.dat",
-            Member.getCurrentMemberId());
-            saveData("res" + File.separator + "currentProfId.dat",
-            Professional.getCurrentProfId());
-            saveData("res" + File.separator + "currentServiceId.dat",
-            Service.getCurrentServiceId());
-            saveData("res" + File.separator + "noElements.dat",
-            ServicesDirectory.getNoElements());
+            showMessage(e.getMessage());
+        }
+        
+        return 0;
+    }
+
+    /**
+     * Overwrites the data on the disk before exiting, then records the exact
+     * values of the counters so that the numbers they reserved ahead are not
+     * skipped on the next startup.
+     */
+    public void exit() {
+        
+        compactor.stop();
+        overwriteDataFiles();
+        
+        try {
+            
+            for (IdAllocator ids : IdAllocator.values()) {
+                
+                ids.close();
+            }
         } catch(IOException e) {
             
             showMessage(e.getMessage());
         }
     }
 
+    /**
+     * Displays the duration, size and copy pause of the checkpoints.
+     */
+    public void getCheckpointReport() {
+        
+        showMessage(checkpointer.report());
+    }
+
     /**
      * Prints onto the console to notify the user of a given message.
      *
@@ -318,7 +1612,7 @@ public class DataCenterApplication {
             saveInfo("res" + File.separator + "weekly-sessions-report-" +
             (new SimpleDateFormat("dd-MM-yyyy-HH-mm-ss")).format(
             new Date(System.currentTimeMillis())) + ".txt",
-            accountUtils.generateWeeklySessionsReport());
+            accountUtils().generateWeeklySessionsReport());
             
             showMessage("Generated Weekly Services Report");
         } catch(IOException e) {
@@ -335,51 +1629,80 @@ public class DataCenterApplication {
         
         try {
             
-            List<TEF> tefs = accountUtils.generateTEFs();
-            for (TEF tef : tefs) {
+            synchronized (this) {
                 
-                saveData("res" + File.separator + tef.getProfName() + "-" +
-                tef.getProfNo() + ".tef", tef);
-            }
-            
-            generateWeeklySessionsReport();
-            
-            for (Receipt bill : listReceipts.getBills().values()) {
+                // One fixed-width batch for every professional's transfer
+                TefBatchWriter.write(new File("res" + File.separator
+                + "transfers-" + LocalDate.now() + ".tef"), LocalDate.now(),
+                accountUtils().generateTEFs());
                 
-                saveInfo("res" + File.separator + bill.getRecipient().getName()
-                + "-" + (new SimpleDateFormat("dd-MM-yyyy HH:mm:ss")).format(
-                new Date(System.currentTimeMillis())) + ".txt",
-                bill.toString());
-            }
-            
-            for (Receipt paymentNotice :
-                listReceipts.getPaymentNotices().values()) {
+                generateWeeklySessionsReport();
                 
-                saveInfo("res" + File.separator +
-                paymentNotice.getRecipient().getName() + "-" +
-                (new SimpleDateFormat("dd-MM-yyyy HH:mm:ss")).format(
-                new Date(System.currentTimeMillis())) + ".txt",
-                paymentNotice.toString());
+                // One archive per week rather than a text file per receipt
+                receiptArchive.archive(LocalDate.now(), billsToArchive());
+                receiptArchive.archive(LocalDate.now(),
+                listReceipts().getPaymentNotices().values());
+                
+                scheduledReset();
             }
-            
-            scheduledReset();
         } catch(IOException e) {
             
             showMessage(e.getMessage());
         }
 	}
 
+    /**
+     * @return Bills of the week, without those of the deleted members which
+     * are not purged yet
+     */
+    private List<BillMember> billsToArchive() {
+        
+        List<BillMember> bills = new ArrayList<>();
+        
+        for (Map.Entry<String, BillMember> e
+            : listReceipts().getBills().entrySet()) {
+            
+            if (! listPersons.hasTombstone(e.getKey())) {
+                
+                bills.add(e.getValue());
+            }
+        }
+        
+        return bills;
+    }
+
     /**
      * Performs the weekly reset of the different structures which are
-     * week-based.
+     * week-based. The data of the week is first archived onto a history
+     * segment and the structures are left untouched if it cannot be. The
+     * reset is journaled before the structures are cleared, so that the
+     * records of the past week are not replayed onto them after a crash.
+     *
+     * @throws IOException if the week cannot be archived
      */
-    private void scheduledReset() {
+    private void scheduledReset() throws IOException {
+        
+        history.archive(LocalDate.now(),
+        listRegistrations.getVisibleRegistrations(),
+        listValidations().getValidations(), accountUtils().getSessionsFee(),
+        accountUtils().getProfsSessionsProvided());
+        
+        try {
+            
+            if (journal != null) {
+                
+                journal.append(Operation.WEEKLY_RESET);
+            }
+        } catch(UncheckedIOException e) {
+            
+            throw e.getCause();
+        }
         
-        accountUtils.clear();
+        accountUtils().clear();
         listSessions.clear();
-        listReceipts.clear();
+        listReceipts().clear();
         listRegistrations.clear();
-        listValidations.clear();
+        listValidations().clear();
     }
 
     /**
@@ -391,7 +1714,7 @@ public class DataCenterApplication {
      * @return Person associated with given code of the given type or null if
      * no code associated
      */
-    public Person getPerson(String code, Type type) {
+    public synchronized Person getPerson(String code, Type type) {
         
         switch (type) {
             
@@ -436,11 +1759,11 @@ public class DataCenterApplication {
      * @param type Person type
      * @param status Modified status
      */
-    public void changeStatus(String code, Type type, Status status) {
+    public synchronized void changeStatus(String code, Type type, Status status) {
         
         try {
             
-            getPerson(code, type).setStatus(status);
+            listPersons.setStatus(getPerson(code, type), status);
             showMessage("Status changed");
         } catch(NullPointerException e) {
             
@@ -453,7 +1776,7 @@ public class DataCenterApplication {
      *
      * @param memberNo Member number
      */
-    public void accessGym(String memberNo) {
+    public synchronized void accessGym(String memberNo) {
         
         try {
             
@@ -464,6 +1787,72 @@ public class DataCenterApplication {
         }
     }
     
+    /**
+     * Access control fast path for the turnstile scanner. Answers from the
+     * member status index without any lookup in the members map, allocation
+     * or console output.
+     *
+     * @param memberNo Scanned member number
+     * @return Member status, {@link Status#INVALID_NUMBER} if no member has
+     * this number
+     */
+    public Status checkAccess(String memberNo) {
+        
+        return listPersons.checkAccess(memberNo);
+    }
+    
+    /**
+     * Displays the persons matching a search through the secondary indexes:
+     * by email if the query holds an {@code @}, by postal area if it starts
+     * like a postal code, and otherwise by the beginning of the full or last
+     * name. A name found by no prefix is looked up as a misspelled one,
+     * displaying the persons having the closest names.
+     *
+     * @param query Email, postal code or beginning of a name
+     * @param type Person type
+     */
+    public synchronized void findPersons(String query, Type type) {
+        
+        PersonIndex<? extends Person> index = type == Type.MEMBER
+        ? listPersons.getMemberIndex() : listPersons.getProfIndex();
+        List<? extends Person> found;
+        String title = "Found persons:";
+        
+        if (query.contains("@")) {
+            
+            found = index.findByEmail(query);
+        } else if (Formats.isPostalArea(query.trim())) {
+            
+            found = index.findByPostalArea(query.trim());
+        } else {
+            
+            found = index.findByNamePrefix(query, SEARCH_LIMIT);
+            
+            if (found.isEmpty()) {
+                
+                found = index.findBySimilarName(query, SEARCH_LIMIT);
+                title = "Closest persons:";
+            }
+        }
+        
+        if (found.isEmpty()) {
+            
+            showMessage("No person found");
+            return;
+        }
+        
+        StringBuilder message = new StringBuilder(title);
+        
+        for (Person person : found) {
+            
+            message.append(String.format("%n\t%s  %-25s  %s  %s",
+            person.getCode(), person.getName(), person.getPostalCode(),
+            person.getEmail()));
+        }
+        
+        showMessage(message.toString());
+    }
+    
 	/**
      * Performs the membership procedure by associating the provided credentials
      * to a new account in the system.
@@ -476,7 +1865,7 @@ public class DataCenterApplication {
      * @param email Facebook account of the individual
 	 * @param type {@link Type} of membership requested
 	 */
-	public void createPerson(String name, String address, String city,
+	public synchronized void createPerson(String name, String address, String city,
         String province, String postalCode, String email, Type type) {
 
         switch (type) {
@@ -530,7 +1919,7 @@ public class DataCenterApplication {
      * @param postalCode Modified person postal code
      * @param email Modified person email
 	 */
-	public void modifyPerson(Person person, String name, String address,
+	public synchronized void modifyPerson(Person person, String name, String address,
         String city, String province, String postalCode, String email) {
 
         try {
@@ -565,7 +1954,7 @@ public class DataCenterApplication {
 	 * @param code Code associated with person to delete
 	 * @param type {@link Type} of account to delete
 	 */
-	public void deletePerson(String code, Type type) {
+	public synchronized void deletePerson(String code, Type type) {
 
         switch (type) {
             
@@ -599,6 +1988,7 @@ public class DataCenterApplication {
 
                 try {
                     
+                    awaitBackgroundLoading();
                     listPersons.deleteProf(code);
                     showMessage("Professional removed");
                 } catch(NullPointerException e) {
@@ -638,7 +2028,7 @@ public class DataCenterApplication {
 	 * @param profNo Professional's code associated with requesting 
      * {@link Professional}
 	 */
-	public void createService(String name, Date startDate, Date endDate,
+	public synchronized void createService(String name, Date startDate, Date endDate,
         Day[] occurrences, int capacityMax, String comment, int fee,
         Date serviceTime, String profNo) {
         
@@ -676,7 +2066,7 @@ public class DataCenterApplication {
 	 * @param serviceTime Modified service time
 	 * @param profNo Modified service professional's number
 	 */
-	public void modifyService(Service service, String name, Date startDate,
+	public synchronized void modifyService(Service service, String name, Date startDate,
         Date endDate, Day[] occurrences, int capacityMax, String comment,
         int fee, Date serviceTime, String profNo) {
 		
@@ -699,8 +2089,10 @@ public class DataCenterApplication {
 	 * 
 	 * @param code Code associated with service to delete
 	 */
-	public void deleteService(String code) {
+	public synchronized void deleteService(String code) {
 
+        awaitBackgroundLoading();
+        
         if (listServices.deleteService(code) == null) {
             
             showMessage("Unavailable or cannot be removed at this time");
@@ -746,9 +2138,11 @@ public class DataCenterApplication {
 	 * @param sessionNo Session number
      * @param comment Validation comment
 	 */
-	public void confirmRegistration(String memberNo, String sessionNo,
+	public synchronized void confirmRegistration(String memberNo, String sessionNo,
         String comment) {
 		
+        awaitBackgroundLoading();
+        
         try {
             
             if (listRegistrations.confirmRegistration(memberNo, sessionNo,
@@ -776,7 +2170,7 @@ public class DataCenterApplication {
 	 * @param sessionNo Session number
      * @param comment Registration comment
 	 */
-	public void registerSession(String memberNo, String sessionNo,
+	public synchronized void registerSession(String memberNo, String sessionNo,
         String comment) {
 		
         try {
@@ -810,9 +2204,9 @@ public class DataCenterApplication {
                     
                     listRegistrations.createRegistration(sessionNo, memberNo,
                     profNo, comment);
-                    accountUtils.addSessionFee(sessionNo, session.getFee());
-                    accountUtils.addProvidedProfs(profNo, sessionNo);
-                    session.setRemainCapacity(cap - 1);
+                    accountUtils().addSessionFee(sessionNo, session.getFee());
+                    accountUtils().addProvidedProfs(profNo, sessionNo);
+                    listSessions.reserveSeat(session);
                     showMessage("Registration complete");
                 } catch(InvalidFormatException e) {
                     
@@ -838,7 +2232,8 @@ public class DataCenterApplication {
      * @param profNo Professional number
      * @param sessionNo Session number
      */
-	public void consultRegistrations(String profNo, String sessionNo) {
+	public synchronized void consultRegistrations(String profNo,
+        String sessionNo) {
 
         try {
             
@@ -861,6 +2256,175 @@ public class DataCenterApplication {
         listRegistrations.consultRegistrations(sessionNo).toString());
     }
     
+    /**
+     * File of the {@code res} folder captured by a checkpoint and waiting to be
+     * written.
+     */
+    private class CapturedFile {
+        
+        private final String fileName;
+        private final long epoch;
+        private final Checkpointer.Flush flush;
+        
+        /**
+         * @param fileName Name of the file
+         * @param epoch Modification epoch of the captured repository
+         * @param flush Writer of the captured repository
+         */
+        CapturedFile(String fileName, long epoch, Checkpointer.Flush flush) {
+            
+            this.fileName = fileName;
+            this.epoch = epoch;
+            this.flush = flush;
+        }
+        
+        /**
+         * Writes the file and records the epoch it holds.
+         *
+         * @return Number of bytes written
+         * @throws IOException if an I/O error occurs
+         */
+        long write() throws IOException {
+            
+            long bytes = flush.flush();
+            savedEpochs.put(fileName, epoch);
+            
+            return bytes;
+        }
+    }
+    
+    /**
+     * Displays the number of sessions a member attended over the archived
+     * weeks.
+     *
+     * @param memberNo Member number
+     */
+    public void getMemberAttendance(String memberNo) {
+        
+        try {
+            
+            showMessage("Attended sessions: " + history.getAttendance(memberNo,
+            LocalDate.MIN, LocalDate.MAX) + " over "
+            + history.getWeeks(LocalDate.MIN, LocalDate.MAX).size()
+            + " archived weeks");
+        } catch(IOException e) {
+            
+            showMessage(e.getMessage());
+        }
+    }
+    
+    /**
+     * Displays the revenue of a professional over the archived weeks.
+     *
+     * @param profNo Professional number
+     */
+    public void getProfRevenue(String profNo) {
+        
+        try {
+            
+            showMessage("Revenue: $" + new DecimalFormat("0.00").format(
+            history.getRevenue(profNo, LocalDate.MIN, LocalDate.MAX)
+            / AccountingUtils.CENTS_IN_DOLLAR) + " over "
+            + history.getWeeks(LocalDate.MIN, LocalDate.MAX).size()
+            + " archived weeks");
+        } catch(IOException e) {
+            
+            showMessage(e.getMessage());
+        }
+    }
+    
+    /**
+     * Displays the latest archived bill of a member or payment notice of a
+     * professional.
+     *
+     * @param code Person code
+     * @param type Person type
+     */
+    public void getArchivedReceipt(String code, Type type) {
+        
+        try {
+            
+            String receipt = receiptArchive.readLatest(type, code);
+            
+            showMessage(receipt == null ? "No archived receipt" : receipt);
+        } catch(IOException e) {
+            
+            showMessage(e.getMessage());
+        }
+    }
+    
+    /**
+     * Imports members in bulk from a CSV file. Commands keep running while the
+     * file is imported, as the repositories are only locked to insert each
+     * chunk of members. Rejected rows are written next to the file.
+     *
+     * @param path Path of the CSV file
+     */
+    public void importMembers(String path) {
+        
+        File csv = new File(path);
+        File rejects = new File(path + ".rejects.csv");
+        MemberImporter importer = new MemberImporter(listPersons, this,
+        Runtime.getRuntime().availableProcessors());
+        
+        try {
+            
+            MemberImporter.Report report = importer.importCsv(csv, rejects,
+            progress -> System.out.println("\t" + progress));
+            
+            showMessage(report + (report.getRejected() == 0 ? ""
+            : "\nRejected rows written to " + rejects));
+        } catch(IOException e) {
+            
+            showMessage(e.getMessage());
+        }
+    }
+    
+    /**
+     * Exports the repositories onto newline-delimited JSON or CSV files in the
+     * {@code res/export} folder. The repositories are captured while holding
+     * the lock of the commands and written in background, so that the prompt
+     * is available again right away.
+     *
+     * @param format Format of the files, NDJSON or CSV
+     */
+    public void exportData(String format) {
+        
+        RecordWriter.Format exportFormat;
+        
+        try {
+            
+            exportFormat = RecordWriter.Format.valueOf(format.toUpperCase());
+        } catch(IllegalArgumentException e) {
+            
+            showMessage("Invalid format");
+            return;
+        }
+        
+        ListValidations validations = listValidations();
+        DataExporter exporter;
+        
+        synchronized (this) {
+            
+            exporter = new DataExporter(listPersons, listServices,
+            listSessions, listRegistrations, validations);
+        }
+        
+        File folder = new File("res" + File.separator + "export");
+        
+        CompletableFuture.runAsync(() -> {
+            
+            try {
+                
+                showMessage("Exported " + exporter.write(folder, exportFormat)
+                + " to " + folder);
+            } catch(IOException e) {
+                
+                showMessage(e.getMessage());
+            }
+        });
+    }
+    
     /**
      * Custom class task for initiating accounting procedures at a fixed
      * schedule.
@@ -0,0 +1,285 @@
+package personal.gym;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import personal.gym.person.ListPersons;
+import personal.gym.person.MappedPersonStore;
+import personal.gym.person.Person;
+import personal.gym.person.PersonCodec;
+
+import personal.gym.registration.ListRegistrations;
+import personal.gym.registration.Registration;
+import personal.gym.registration.RegistrationCodec;
+
+import personal.gym.service.ListServices;
+import personal.gym.service.Service;
+import personal.gym.service.ServiceCodec;
+
+import personal.gym.session.ListSessions;
+import personal.gym.session.Session;
+import personal.gym.session.SessionCodec;
+
+import personal.gym.storage.Codec;
+import personal.gym.storage.EngineMap;
+import personal.gym.storage.RecordWriter;
+import personal.gym.storage.SnapshotFile;
+
+import personal.gym.validation.ListValidations;
+import personal.gym.validation.Validation;
+import personal.gym.validation.ValidationCodec;
+
+/**
+ * Exports the members, professionals, services, sessions, registrations and
+ * validations onto one newline-delimited JSON or CSV file each.
+ * <p>
+ * The repositories are captured while the lock of the commands is held and
+ * are then written record by record without holding the lock. Repositories
+ * held on the heap are copied by their codecs the same way checkpoints are,
+ * while stores handing out copies are streamed rather than copied: an
+ * {@link EngineMap} from the state it held on capture, and a
+ * {@link MappedPersonStore} as it reads while written, changes made meanwhile
+ * included. Dates are written as ISO-8601 text in the local time zone.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class DataExporter {
+
+    private static final DateTimeFormatter TIME_FORMAT =
+    DateTimeFormatter.ofPattern("HH:mm");
+
+    private final Iterable<? extends Person> members;
+    private final Iterable<? extends Person> professionals;
+    private final Iterable<Service> services;
+    private final Iterable<Session> sessions;
+    private final List<Registration> registrations;
+    private final List<Validation> validations;
+
+    /**
+     * Captures the repositories to export. Must be called while holding the
+     * lock of the commands. The repositories captured are written once.
+     *
+     * @param listPersons Members and professionals
+     * @param listServices Services
+     * @param listSessions Sessions
+     * @param listRegistrations Registrations, without those of the deleted
+     * members not purged yet
+     * @param listValidations Validations
+     */
+    public DataExporter(ListPersons listPersons, ListServices listServices,
+        ListSessions listSessions, ListRegistrations listRegistrations,
+        ListValidations listValidations) {
+
+        members = capture(PersonCodec.MEMBER, listPersons.getMembers());
+        professionals = capture(PersonCodec.PROFESSIONAL,
+        listPersons.getProfessionals());
+        services = capture(ServiceCodec.INSTANCE, listServices.getServices());
+        sessions = capture(SessionCodec.INSTANCE, listSessions.getSessions());
+        registrations = SnapshotFile.copy(RegistrationCodec.INSTANCE,
+        listRegistrations.getVisibleRegistrations());
+        validations = SnapshotFile.copy(ValidationCodec.INSTANCE,
+        listValidations.getValidations());
+    }
+
+    /**
+     * Captures a repository keyed by code.
+     *
+     * @param <T> Type of the entities
+     * @param codec Codec of the entities, which copies them
+     * @param repository Repository
+     * @return Entities streamed from the repository if it hands out copies,
+     * or copies of the entities otherwise
+     */
+    private static <T> Iterable<T> capture(Codec<T> codec,
+        Map<String, T> repository) {
+
+        if (repository instanceof MappedPersonStore) {
+
+            return repository.values();
+        }
+
+        if (repository instanceof EngineMap) {
+
+            // The engine takes its table and runs as they stand right away
+            Iterator<T> entities = repository.values().iterator();
+
+            return () -> entities;
+        }
+
+        return SnapshotFile.copy(codec, repository.values());
+    }
+
+    /**
+     * Writes the captured repositories onto a folder, replacing former exports.
+     *
+     * @param folder Destination folder, created if needed
+     * @param format Format of the files
+     * @return Number of records written, by file name
+     * @throws IOException if an I/O error occurs
+     */
+    public Map<String, Integer> write(File folder, RecordWriter.Format format)
+        throws IOException {
+
+        if (! folder.isDirectory() && ! folder.mkdirs()) {
+
+            throw new IOException("Unable to create " + folder);
+        }
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+
+        counts.put("members", writePersons(folder, "members", format,
+        members));
+        counts.put("professionals", writePersons(folder, "professionals",
+        format, professionals));
+
+        try (RecordWriter out = new RecordWriter(file(folder, "services",
+            format), format, "code", "name", "createdAt", "startDate",
+            "endDate", "days", "serviceTime", "capacityMax", "fee", "profNo",
+            "comment")) {
+
+            for (Service service : services) {
+
+                out.write(service.getCode(), service.getName(),
+                timestamp(service.getDateNow()), date(service.getStartDate()),
+                date(service.getEndDate()), service.getOccurrences(),
+                time(service.getServiceTime()), service.getCapacityMax(),
+                service.getFee(), service.getProfNo(), service.getComment());
+            }
+
+            counts.put("services", out.getCount());
+        }
+
+        try (RecordWriter out = new RecordWriter(file(folder, "sessions",
+            format), format, "sessionNo", "serviceName", "day", "serviceTime",
+            "capacityMax", "remainCapacity", "fee", "profNo")) {
+
+            for (Session session : sessions) {
+
+                out.write(session.getSessionNo(), session.getServiceName(),
+                session.getOccurrence(), time(session.getServiceTime()),
+                session.getCapacityMax(), session.getRemainCapacity(),
+                session.getFee(), session.getProfNo());
+            }
+
+            counts.put("sessions", out.getCount());
+        }
+
+        try (RecordWriter out = new RecordWriter(file(folder, "registrations",
+            format), format, "sessionNo", "memberNo", "profNo", "createdAt",
+            "sessionDate", "comment")) {
+
+            for (Registration registration : registrations) {
+
+                out.write(registration.getSessionNo(),
+                registration.getMemberNo(), registration.getProfNo(),
+                timestamp(registration.getDateNow()),
+                date(registration.getDateSession()),
+                registration.getComment());
+            }
+
+            counts.put("registrations", out.getCount());
+        }
+
+        try (RecordWriter out = new RecordWriter(file(folder, "validations",
+            format), format, "memberNo", "profNo", "sessionNo", "createdAt",
+            "comment")) {
+
+            for (Validation validation : validations) {
+
+                out.write(validation.getMemberNo(), validation.getProfNo(),
+                validation.getSessionNo(), timestamp(validation.getDateNow()),
+                validation.getComment());
+            }
+
+            counts.put("validations", out.getCount());
+        }
+
+        return counts;
+    }
+
+    /**
+     * Writes members or professionals.
+     *
+     * @param folder Destination folder
+     * @param name Name of the file, extension excluded
+     * @param format Format of the file
+     * @param persons Persons to write
+     * @return Number of records written
+     * @throws IOException if an I/O error occurs
+     */
+    private static int writePersons(File folder, String name,
+        RecordWriter.Format format, Iterable<? extends Person> persons)
+        throws IOException {
+
+        try (RecordWriter out = new RecordWriter(file(folder, name, format),
+            format, "code", "name", "address", "city", "province",
+            "postalCode", "email", "status")) {
+
+            for (Person person : persons) {
+
+                out.write(person.getCode(), person.getName(),
+                person.getAddress(), person.getCity(), person.getProvince(),
+                person.getPostalCode(), person.getEmail(), person.getStatus());
+            }
+
+            return out.getCount();
+        }
+    }
+
+    /**
+     * @param folder Destination folder
+     * @param name Name of the file, extension excluded
+     * @param format Format of the file
+     * @return Export file
+     */
+    private static File file(File folder, String name,
+        RecordWriter.Format format) {
+
+        return new File(folder, name + format.getExtension());
+    }
+
+    /**
+     * @param date Date or null
+     * @return Local date and time, to the second
+     */
+    private static Object timestamp(Date date) {
+
+        return date == null ? null : LocalDateTime.ofInstant(date.toInstant(),
+        ZoneId.systemDefault()).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * @param date Date or null
+     * @return Local date
+     */
+    private static Object date(Date date) {
+
+        return date == null ? null : LocalDateTime.ofInstant(date.toInstant(),
+        ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * @param date Date or null
+     * @return Local time of day, to the minute
+     */
+    private static Object time(Date date) {
+
+        return date == null ? null : LocalDateTime.ofInstant(date.toInstant(),
+        ZoneId.systemDefault()).format(TIME_FORMAT);
+    }
+}
@@ -527,6 +527,26 @@ public class EntryPoint {
                 break;
             }
             
+            case "find person" : {
+
+                System.out.print("\tType (Member/Professional)>\t\t\t");
+                Type type;
+                try {
+                    
+                    type = Type.valueOf(sc.nextLine().toUpperCase());
+                } catch(IllegalArgumentException e) {
+                    
+                    DataCenterApplication.showMessage("Invalid type specified");
+                    break;
+                }
+
+                System.out.print("\tName, email or postal code>\t\t\t");
+                String query = sc.nextLine();
+
+                db.findPersons(query, type);
+                break;
+            }
+            
             case "consult registrations" : {
 
                 System.out.print("\tProfessional code (9 digits)>\t\t\t");
@@ -540,9 +560,69 @@ public class EntryPoint {
                 break;
             }
             
+            case "member attendance" : {
+
+                System.out.print("\tMember code (9 digits)>\t\t\t\t");
+                String code = sc.nextLine();
+
+                db.getMemberAttendance(code);
+                break;
+            }
+            
+            case "professional revenue" : {
+
+                System.out.print("\tProfessional code (9 digits)>\t\t\t");
+                String code = sc.nextLine();
+
+                db.getProfRevenue(code);
+                break;
+            }
+            
+            case "archived receipt" : {
+
+                System.out.print("\tCode (9 digits)>\t\t\t\t");
+                String code = sc.nextLine();
+
+                System.out.print("\tType (Member/Professional)>\t\t\t");
+                String type = sc.nextLine();
+
+                db.getArchivedReceipt(code, Type.valueOf(type.toUpperCase()));
+                break;
+            }
+            
+            case "import members" : {
+
+                System.out.print("\tCSV file>\t\t\t\t\t");
+                String path = sc.nextLine();
+
+                db.importMembers(path);
+                break;
+            }
+            
+            case "export data" : {
+
+                System.out.print("\tFormat (NDJSON/CSV)>\t\t\t\t");
+                String format = sc.nextLine();
+
+                db.exportData(format);
+                break;
+            }
+            
+            case "startup report" : {
+                
+                db.getStartupReport();
+                break;
+            }
+            
+            case "checkpoint report" : {
+                
+                db.getCheckpointReport();
+                break;
+            }
+            
             case "exit" : {
                 
-                db.overwriteDataFiles();
+                db.exit();
                 break;
             }
 
@@ -633,7 +713,15 @@ public class EntryPoint {
             System.out.println("\tConfirm Registration");
             System.out.println("\tRegister Session");
             System.out.println("\tAccess #GYM");
+            System.out.println("\tFind Person");
             System.out.println("\tConsult Registrations");
+            System.out.println("\tMember Attendance");
+            System.out.println("\tProfessional Revenue");
+            System.out.println("\tArchived Receipt");
+            System.out.println("\tImport Members");
+            System.out.println("\tExport Data");
+            System.out.println("\tStartup Report");
+            System.out.println("\tCheckpoint Report");
             System.out.println("\tExit\n");
         
             System.out.print("Command> ");
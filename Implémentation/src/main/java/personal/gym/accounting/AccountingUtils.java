@@ -11,6 +11,9 @@ import personal.gym.person.ListPersons;
 
 import personal.gym.session.ListSessions;
 
+import personal.gym.storage.Journal;
+import personal.gym.storage.Operation;
+
 /**
  * Contains various utility methods so as to facilitate accounting procedures.
  *
@@ -33,6 +36,8 @@ public class AccountingUtils {
 
     private ListPersons listPersons;
     private ListSessions listSessions;
+    private Journal journal;
+    private long epoch;
 
     /**
      * Assigns given hashmaps to current ones or initializes them if null.
@@ -70,6 +75,22 @@ public class AccountingUtils {
         this.listSessions = listSessions;
     }    
 
+    /**
+     * @param journal Journal recording the mutations, or null to stop recording
+     */
+    public void setJournal(Journal journal) {
+        
+        this.journal = journal;
+    }
+
+    /**
+     * @return Modification epoch of the session fees and provided sessions, increased on every change
+     */
+    public long getEpoch() {
+        
+        return epoch;
+    }
+
     /**
      * @return Sessions fee map
      */
@@ -92,8 +113,28 @@ public class AccountingUtils {
      */
     public void clear() {
        
+        clearSessionsFee();
+        clearProvidedProfs();
+    }
+
+    /**
+     * Clears the accumulated session fees, for a weekly reset replayed onto
+     * them alone.
+     */
+    public void clearSessionsFee() {
+        
         sessionsFee.clear();
+        epoch++;
+    }
+
+    /**
+     * Clears the professionals provided sessions, for a weekly reset replayed
+     * onto them alone.
+     */
+    public void clearProvidedProfs() {
+        
         profsSessionsProvided.clear();
+        epoch++;
     }
 
     /**
@@ -121,22 +162,36 @@ public class AccountingUtils {
 	 */
 	public void addSessionFee(String sessionNo, int fee) {
     
+        if (journal != null) {
+            
+            journal.append(Operation.ADD_SESSION_FEE, sessionNo,
+            String.valueOf(fee));
+        }
+        
         sessionsFee.put(sessionNo, fee);
+        epoch++;
 	}
 
     /**
-     * Removes the sessions and their accumulated fee.
+     * Removes the sessions and their accumulated fee. Each fee being added
+     * along with the session provided by its professional, the provided
+     * sessions of the professional are the fee entries to remove, without
+     * visiting the fees of other professionals.
      *
      * @param profNo Professional number
      */
     public void removeSessionsProf(String profNo) {
     
-        for (String sessionNo : sessionsFee.keySet()) {
-    
-            if (listSessions.getSession(sessionNo).getProfNo().equals(profNo)) {
-    
+        List<String> sessionNos = profsSessionsProvided.get(profNo);
+        
+        if (sessionNos != null) {
+            
+            for (String sessionNo : sessionNos) {
+                
                 sessionsFee.remove(sessionNo);
             }
+            
+            epoch++;
         }
     }
 
@@ -149,6 +204,11 @@ public class AccountingUtils {
 	 */
 	public void addProvidedProfs(String profNo, String sessionNo) {
 		
+        if (journal != null) {
+            
+            journal.append(Operation.ADD_PROVIDED_PROF, profNo, sessionNo);
+        }
+        
         List<String> sessionNos = profsSessionsProvided.get(profNo);
         
         if (sessionNos == null) {
@@ -158,6 +218,7 @@ public class AccountingUtils {
         
         sessionNos.add(sessionNo);
         profsSessionsProvided.put(profNo, sessionNos);
+        epoch++;
 	}
 
     /**
@@ -167,7 +228,10 @@ public class AccountingUtils {
 	 */
 	public void removeProvidedProf(String profNo) {
     
-        profsSessionsProvided.remove(profNo);
+        if (profsSessionsProvided.remove(profNo) != null) {
+            
+            epoch++;
+        }
 	}
 
 	/**
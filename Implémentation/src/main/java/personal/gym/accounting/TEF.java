@@ -14,6 +14,8 @@ import java.io.Serializable;
 
 public class TEF implements Serializable {
 
+    private static final long serialVersionUID = 4060479389424835302L;
+
 	private String profName;
 	private String profNo;
 	private double weeklyProfRevenueAmount;
@@ -48,4 +50,12 @@ public class TEF implements Serializable {
         
         return profNo;
     }
+
+    /**
+     * @return Weekly revenue accumulated by the professional
+     */
+    public double getWeeklyProfRevenueAmount() {
+        
+        return weeklyProfRevenueAmount;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,277 @@
+package personal.gym.accounting;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.nio.file.StandardOpenOption;
+
+import java.text.Normalizer;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import java.util.Locale;
+
+/**
+ * Writes the weekly transfers of the professionals onto a single batch file of
+ * fixed-width records, as read by bank systems. A batch holds a header record,
+ * one detail record per transfer and a trailer record with the control totals:
+ * number of transfers, total amount and sum of the professional codes.
+ * <p>
+ * Records are 80 ASCII characters followed by a line break. Amounts are in
+ * cents, right-aligned and padded with zeros; names are upper-cased, stripped
+ * of their accents and truncated to their field. Records are gathered in a
+ * buffer which is written onto the file channel once full, so that a batch is
+ * a single sequential write.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class TefBatchWriter implements Closeable {
+
+    /**
+     * Length of a record, line break excluded.
+     */
+    public static final int RECORD_LENGTH = 80;
+
+    private static final String ORIGINATOR = "#GYM";
+    private static final String LINE_BREAK = "\r\n";
+    private static final int NAME_LENGTH = 30;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final DateTimeFormatter DATE_FORMAT =
+    DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder record = new StringBuilder(RECORD_LENGTH);
+
+    private int count;
+    private long totalCents;
+    private long hashTotal;
+
+    /**
+     * Creates or replaces a batch file and writes its header.
+     *
+     * @param file Batch file
+     * @param date Date of the transfers
+     * @throws IOException if an I/O error occurs
+     */
+    public TefBatchWriter(File file, LocalDate date) throws IOException {
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        record.append('H');
+        pad(ORIGINATOR, 10);
+        record.append(date.format(DATE_FORMAT));
+        writeRecord();
+    }
+
+    /**
+     * Writes every transfer of a batch.
+     *
+     * @param file Batch file
+     * @param date Date of the transfers
+     * @param tefs Transfers of the professionals
+     * @return Number of transfers written
+     * @throws IOException if an I/O error occurs
+     */
+    public static int write(File file, LocalDate date, Iterable<TEF> tefs)
+        throws IOException {
+
+        try (TefBatchWriter writer = new TefBatchWriter(file, date)) {
+
+            for (TEF tef : tefs) {
+
+                writer.write(tef);
+            }
+
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * @return Number of transfers written so far
+     */
+    public int getCount() {
+
+        return count;
+    }
+
+    /**
+     * @return Total amount of the transfers written so far, in cents
+     */
+    public long getTotalCents() {
+
+        return totalCents;
+    }
+
+    /**
+     * Writes the detail record of a transfer.
+     *
+     * @param tef Transfer of a professional
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(TEF tef) throws IOException {
+
+        long cents = Math.round(tef.getWeeklyProfRevenueAmount()
+        * AccountingUtils.CENTS_IN_DOLLAR);
+
+        count++;
+        totalCents += cents;
+        hashTotal += Long.parseLong(tef.getProfNo());
+
+        record.append('D');
+        number(count, 6);
+        number(Long.parseLong(tef.getProfNo()), 9);
+        pad(toAscii(tef.getProfName()), NAME_LENGTH);
+        number(cents, 12);
+        writeRecord();
+    }
+
+    /**
+     * Writes the trailer record and forces the batch onto the disk.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+
+            record.append('T');
+            number(count, 6);
+            number(totalCents, 14);
+            number(hashTotal % 1000000000000000L, 15);
+            writeRecord();
+            drain();
+            channel.force(true);
+        } finally {
+
+            channel.close();
+        }
+    }
+
+    /**
+     * Pads the record being built and appends it onto the buffer, writing the
+     * buffer onto the file once full.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeRecord() throws IOException {
+
+        while (record.length() < RECORD_LENGTH) {
+
+            record.append(' ');
+        }
+
+        record.append(LINE_BREAK);
+
+        if (buffer.remaining() < record.length()) {
+
+            drain();
+        }
+
+        for (int i = 0; i < record.length(); i++) {
+
+            buffer.put((byte) record.charAt(i));
+        }
+
+        record.setLength(0);
+    }
+
+    /**
+     * Writes the buffered records onto the file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void drain() throws IOException {
+
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Appends a left-aligned field, truncated or padded with spaces.
+     *
+     * @param value Field value
+     * @param width Field width
+     */
+    private void pad(String value, int width) {
+
+        int length = Math.min(value.length(), width);
+        record.append(value, 0, length);
+
+        for (int i = length; i < width; i++) {
+
+            record.append(' ');
+        }
+    }
+
+    /**
+     * Appends a right-aligned number padded with zeros.
+     *
+     * @param value Non-negative number
+     * @param width Field width
+     * @throws IllegalArgumentException if the number is negative or does not
+     * fit its field
+     */
+    private void number(long value, int width) {
+
+        String digits = String.valueOf(value);
+
+        if (value < 0 || digits.length() > width) {
+
+            throw new IllegalArgumentException("Value out of range: " + value);
+        }
+
+        for (int i = digits.length(); i < width; i++) {
+
+            record.append('0');
+        }
+
+        record.append(digits);
+    }
+
+    /**
+     * @param name Name of a professional
+     * @return Upper-cased name without accents nor other non-ASCII characters
+     */
+    private static String toAscii(String name) {
+
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD)
+        .toUpperCase(Locale.ROOT);
+        StringBuilder ascii = new StringBuilder(decomposed.length());
+
+        for (int i = 0; i < decomposed.length(); i++) {
+
+            char c = decomposed.charAt(i);
+            int type = Character.getType(c);
+
+            // Accents once decomposed
+            if (type == Character.NON_SPACING_MARK
+                || type == Character.ENCLOSING_MARK
+                || type == Character.COMBINING_SPACING_MARK) {
+
+                continue;
+            }
+
+            ascii.append(c >= ' ' && c < 0x7F ? c : '?');
+        }
+
+        return ascii.toString();
+    }
+}
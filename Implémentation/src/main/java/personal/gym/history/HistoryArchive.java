@@ -0,0 +1,258 @@
+package personal.gym.history;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import personal.gym.registration.Registration;
+
+import personal.gym.validation.Validation;
+
+/**
+ * Folder of weekly {@link HistorySegment segments}, named after the day on
+ * which each week was archived. Queries cover a range of weeks and only open
+ * the segments of that range, one at a time, so that the memory they use does
+ * not grow with the number of archived weeks.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class HistoryArchive {
+
+    private static final String EXTENSION = ".seg";
+
+    private final File folder;
+
+    /**
+     * Initializes the archive over a folder, created on the first archived
+     * week.
+     *
+     * @param folder Folder holding the segments
+     */
+    public HistoryArchive(File folder) {
+
+        this.folder = folder;
+    }
+
+    /**
+     * @return Folder holding the segments
+     */
+    public File getFolder() {
+
+        return folder;
+    }
+
+    /**
+     * Archives the data of the week ending on the given day.
+     *
+     * @param week Day on which the week is archived
+     * @param registrations Registrations of the week
+     * @param validations Validations of the week
+     * @param sessionsFee Fee of each session registered to
+     * @param profsSessionsProvided Sessions registered to, by professional
+     * @return Number of bytes written
+     * @throws IOException if an I/O error occurs or the week is already
+     * archived
+     */
+    public long archive(LocalDate week, Collection<Registration> registrations,
+        Collection<Validation> validations, Map<String, Integer> sessionsFee,
+        Map<String, List<String>> profsSessionsProvided) throws IOException {
+
+        if (! folder.isDirectory() && ! folder.mkdirs()) {
+
+            throw new IOException("Unable to create " + folder);
+        }
+
+        return HistorySegment.write(new File(folder, week + EXTENSION), week,
+        registrations, validations, sessionsFee, profsSessionsProvided);
+    }
+
+    /**
+     * @param from First day of the range, inclusive
+     * @param to Last day of the range, inclusive
+     * @return Days on which the weeks of the range were archived, in order
+     */
+    public List<LocalDate> getWeeks(LocalDate from, LocalDate to) {
+
+        List<LocalDate> weeks = new ArrayList<>();
+        String[] names = folder.list();
+
+        if (names == null) {
+
+            return weeks;
+        }
+
+        for (String name : names) {
+
+            if (! name.endsWith(EXTENSION)) {
+
+                continue;
+            }
+
+            try {
+
+                LocalDate week = LocalDate.parse(
+                name.substring(0, name.length() - EXTENSION.length()));
+
+                if (! week.isBefore(from) && ! week.isAfter(to)) {
+
+                    weeks.add(week);
+                }
+            } catch(DateTimeParseException e) {
+
+                // Not a segment
+            }
+        }
+
+        weeks.sort(null);
+
+        return weeks;
+    }
+
+    /**
+     * Opens the segment of an archived week.
+     *
+     * @param week Day on which the week was archived
+     * @return Segment of the week
+     * @throws IOException if an I/O error occurs
+     */
+    public HistorySegment open(LocalDate week) throws IOException {
+
+        return HistorySegment.open(new File(folder, week + EXTENSION));
+    }
+
+    /**
+     * Counts the sessions attended by a member.
+     *
+     * @param memberNo Member number
+     * @param from First day of the range, inclusive
+     * @param to Last day of the range, inclusive
+     * @return Number of validated sessions
+     * @throws IOException if an I/O error occurs
+     */
+    public int getAttendance(String memberNo, LocalDate from, LocalDate to)
+        throws IOException {
+
+        int attendance = 0;
+
+        for (LocalDate week : getWeeks(from, to)) {
+
+            attendance += open(week).getAttendance().getOrDefault(memberNo, 0);
+        }
+
+        return attendance;
+    }
+
+    /**
+     * Counts the sessions attended by each member.
+     *
+     * @param from First day of the range, inclusive
+     * @param to Last day of the range, inclusive
+     * @return Number of validated sessions, by member number
+     * @throws IOException if an I/O error occurs
+     */
+    public Map<String, Integer> getAttendancePerMember(LocalDate from,
+        LocalDate to) throws IOException {
+
+        Map<String, Integer> attendance = new TreeMap<>();
+
+        for (LocalDate week : getWeeks(from, to)) {
+
+            open(week).getAttendance().forEach(
+            (memberNo, count) -> attendance.merge(memberNo, count,
+            Integer::sum));
+        }
+
+        return attendance;
+    }
+
+    /**
+     * Sums the revenue of a professional.
+     *
+     * @param profNo Professional number
+     * @param from First day of the range, inclusive
+     * @param to Last day of the range, inclusive
+     * @return Revenue in cents
+     * @throws IOException if an I/O error occurs
+     */
+    public long getRevenue(String profNo, LocalDate from, LocalDate to)
+        throws IOException {
+
+        long revenue = 0;
+
+        for (LocalDate week : getWeeks(from, to)) {
+
+            revenue += open(week).getRevenue().getOrDefault(profNo, 0L);
+        }
+
+        return revenue;
+    }
+
+    /**
+     * Sums the revenue of each professional.
+     *
+     * @param from First day of the range, inclusive
+     * @param to Last day of the range, inclusive
+     * @return Revenue in cents, by professional number
+     * @throws IOException if an I/O error occurs
+     */
+    public Map<String, Long> getRevenuePerProf(LocalDate from, LocalDate to)
+        throws IOException {
+
+        Map<String, Long> revenue = new TreeMap<>();
+
+        for (LocalDate week : getWeeks(from, to)) {
+
+            open(week).getRevenue().forEach(
+            (profNo, cents) -> revenue.merge(profNo, cents, Long::sum));
+        }
+
+        return revenue;
+    }
+
+    /**
+     * Streams the archived registrations, week after week.
+     *
+     * @param from First day of the range, inclusive
+     * @param to Last day of the range, inclusive
+     * @param consumer Receiver of each registration
+     * @throws IOException if an I/O error occurs
+     */
+    public void forEachRegistration(LocalDate from, LocalDate to,
+        Consumer<? super Registration> consumer) throws IOException {
+
+        for (LocalDate week : getWeeks(from, to)) {
+
+            open(week).forEachRegistration(consumer);
+        }
+    }
+
+    /**
+     * Streams the archived validations, week after week.
+     *
+     * @param from First day of the range, inclusive
+     * @param to Last day of the range, inclusive
+     * @param consumer Receiver of each validation
+     * @throws IOException if an I/O error occurs
+     */
+    public void forEachValidation(LocalDate from, LocalDate to,
+        Consumer<? super Validation> consumer) throws IOException {
+
+        for (LocalDate week : getWeeks(from, to)) {
+
+            open(week).forEachValidation(consumer);
+        }
+    }
+}
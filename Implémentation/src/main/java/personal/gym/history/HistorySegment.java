@@ -0,0 +1,372 @@
+package personal.gym.history;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.nio.file.FileAlreadyExistsException;
+
+import java.time.LocalDate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import personal.gym.registration.Registration;
+import personal.gym.registration.RegistrationCodec;
+
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+import personal.gym.storage.ChecksummedFile;
+
+import personal.gym.validation.Validation;
+import personal.gym.validation.ValidationCodec;
+
+/**
+ * Immutable archive of the registrations, validations and fees of one week.
+ * A segment starts with a header identifying the week, followed by a
+ * compressed stream holding an index then the records. The index holds the
+ * attendance of each member and the revenue of each professional over the
+ * week, so that these are answered without inflating the records.
+ * <p>
+ * Opening a segment only decodes its index; the records are decoded on demand.
+ * Each opening reads the whole file once to verify its checksum before any of
+ * it is decoded.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class HistorySegment {
+
+    // "GYMH"
+    public static final int MAGIC = 0x47594D48;
+    public static final int VERSION = 1;
+
+    private final File file;
+    private final LocalDate week;
+    private final Map<String, Integer> attendance;
+    private final Map<String, Long> revenue;
+
+    /**
+     * @param file Segment file
+     * @param week Day on which the week was archived
+     * @param attendance Validated sessions of each member
+     * @param revenue Revenue of each professional, in cents
+     */
+    private HistorySegment(File file, LocalDate week,
+        Map<String, Integer> attendance, Map<String, Long> revenue) {
+
+        this.file = file;
+        this.week = week;
+        this.attendance = Collections.unmodifiableMap(attendance);
+        this.revenue = Collections.unmodifiableMap(revenue);
+    }
+
+    /**
+     * @return Segment file
+     */
+    public File getFile() {
+
+        return file;
+    }
+
+    /**
+     * @return Day on which the week was archived
+     */
+    public LocalDate getWeek() {
+
+        return week;
+    }
+
+    /**
+     * @return Validated sessions of each member, by member number
+     */
+    public Map<String, Integer> getAttendance() {
+
+        return attendance;
+    }
+
+    /**
+     * @return Revenue in cents of each professional, by professional number
+     */
+    public Map<String, Long> getRevenue() {
+
+        return revenue;
+    }
+
+    /**
+     * Writes the segment of a week. Segments are never overwritten.
+     *
+     * @param file Segment file
+     * @param week Day on which the week is archived
+     * @param registrations Registrations of the week
+     * @param validations Validations of the week
+     * @param sessionsFee Fee of each session registered to
+     * @param profsSessionsProvided Sessions registered to, by professional
+     * @return Number of bytes written
+     * @throws FileAlreadyExistsException if the segment already exists
+     * @throws IOException if an I/O error occurs
+     */
+    public static long write(File file, LocalDate week,
+        Collection<Registration> registrations,
+        Collection<Validation> validations, Map<String, Integer> sessionsFee,
+        Map<String, List<String>> profsSessionsProvided) throws IOException {
+
+        if (file.exists()) {
+
+            throw new FileAlreadyExistsException(file.getPath());
+        }
+
+        Map<String, Integer> attendance = new TreeMap<>();
+
+        for (Validation validation : validations) {
+
+            attendance.merge(validation.getMemberNo(), 1, Integer::sum);
+        }
+
+        Map<String, Long> revenue = new TreeMap<>();
+
+        for (Map.Entry<String, List<String>> e :
+            profsSessionsProvided.entrySet()) {
+
+            long cents = 0;
+
+            for (String sessionNo : e.getValue()) {
+
+                cents += sessionsFee.getOrDefault(sessionNo, 0);
+            }
+
+            revenue.put(e.getKey(), cents);
+        }
+
+        return ChecksummedFile.write(file, stream -> {
+
+            DataOutputStream header = new DataOutputStream(stream);
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeInt((int) week.toEpochDay());
+            header.flush();
+
+            try (BinaryOutput out =
+                new BinaryOutput(new DeflaterOutputStream(stream))) {
+
+                out.writeVarInt(attendance.size());
+
+                for (Map.Entry<String, Integer> e : attendance.entrySet()) {
+
+                    out.writeCode(e.getKey());
+                    out.writeVarInt(e.getValue());
+                }
+
+                out.writeVarInt(revenue.size());
+
+                for (Map.Entry<String, Long> e : revenue.entrySet()) {
+
+                    out.writeCode(e.getKey());
+                    out.writeVarLong(e.getValue());
+                }
+
+                out.writeVarInt(registrations.size());
+
+                for (Registration registration : registrations) {
+
+                    RegistrationCodec.INSTANCE.encode(out, registration);
+                }
+
+                out.writeVarInt(validations.size());
+
+                for (Validation validation : validations) {
+
+                    ValidationCodec.INSTANCE.encode(out, validation);
+                }
+
+                out.writeVarInt(sessionsFee.size());
+
+                for (Map.Entry<String, Integer> e : sessionsFee.entrySet()) {
+
+                    out.writeCode(e.getKey());
+                    out.writeVarInt(e.getValue());
+                }
+            }
+        });
+    }
+
+    /**
+     * Opens a segment, reading its header and index.
+     *
+     * @param file Segment file
+     * @return Segment read
+     * @throws IOException if an I/O error occurs or the file is not a segment
+     */
+    public static HistorySegment open(File file) throws IOException {
+
+        try (DataInputStream header =
+            new DataInputStream(ChecksummedFile.open(file))) {
+
+            LocalDate week = readHeader(header, file);
+
+            try (BinaryInput in =
+                new BinaryInput(new InflaterInputStream(header))) {
+
+                Map<String, Integer> attendance = new TreeMap<>();
+                int count = in.readVarInt();
+
+                for (int i = 0; i < count; i++) {
+
+                    attendance.put(in.readCode(), in.readVarInt());
+                }
+
+                Map<String, Long> revenue = new TreeMap<>();
+                count = in.readVarInt();
+
+                for (int i = 0; i < count; i++) {
+
+                    revenue.put(in.readCode(), in.readVarLong());
+                }
+
+                return new HistorySegment(file, week, attendance, revenue);
+            }
+        }
+    }
+
+    /**
+     * Streams the registrations of the week.
+     *
+     * @param consumer Receiver of each registration
+     * @return Number of registrations read
+     * @throws IOException if an I/O error occurs
+     */
+    public int forEachRegistration(Consumer<? super Registration> consumer)
+        throws IOException {
+
+        try (BinaryInput in = openRecords(file)) {
+
+            skipIndex(in);
+
+            return readRegistrations(in, consumer);
+        }
+    }
+
+    /**
+     * Streams the validations of the week.
+     *
+     * @param consumer Receiver of each validation
+     * @return Number of validations read
+     * @throws IOException if an I/O error occurs
+     */
+    public int forEachValidation(Consumer<? super Validation> consumer)
+        throws IOException {
+
+        try (BinaryInput in = openRecords(file)) {
+
+            skipIndex(in);
+            readRegistrations(in, registration -> {});
+
+            int count = in.readVarInt();
+
+            for (int i = 0; i < count; i++) {
+
+                consumer.accept(ValidationCodec.INSTANCE.decode(in));
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * @param in Records positioned on the registrations
+     * @param consumer Receiver of each registration
+     * @return Number of registrations read
+     * @throws IOException if an I/O error occurs
+     */
+    private static int readRegistrations(BinaryInput in,
+        Consumer<? super Registration> consumer) throws IOException {
+
+        int count = in.readVarInt();
+
+        for (int i = 0; i < count; i++) {
+
+            consumer.accept(RegistrationCodec.INSTANCE.decode(in));
+        }
+
+        return count;
+    }
+
+    /**
+     * @param in Records positioned on the index
+     * @throws IOException if an I/O error occurs
+     */
+    private static void skipIndex(BinaryInput in) throws IOException {
+
+        for (int i = in.readVarInt(); i > 0; i--) {
+
+            in.readCode();
+            in.readVarInt();
+        }
+
+        for (int i = in.readVarInt(); i > 0; i--) {
+
+            in.readCode();
+            in.readVarLong();
+        }
+    }
+
+    /**
+     * Verifies the header of a segment.
+     *
+     * @param header Stream positioned at the start of the segment
+     * @param file Segment file, for error messages
+     * @return Day on which the week was archived
+     * @throws IOException if an I/O error occurs or the file is not a segment
+     */
+    private static LocalDate readHeader(DataInputStream header, File file)
+        throws IOException {
+
+        if (header.readInt() != MAGIC) {
+
+            throw new StreamCorruptedException(file + " is not a segment");
+        }
+
+        int version = header.readByte();
+
+        if (version != VERSION) {
+
+            throw new StreamCorruptedException("Unsupported segment version "
+            + version);
+        }
+
+        return LocalDate.ofEpochDay(header.readInt());
+    }
+
+    /**
+     * @param file Segment file
+     * @return Decompressed contents positioned on the index
+     * @throws IOException if an I/O error occurs or the file is not a segment
+     */
+    private static BinaryInput openRecords(File file) throws IOException {
+
+        DataInputStream header =
+        new DataInputStream(ChecksummedFile.open(file));
+
+        try {
+
+            readHeader(header, file);
+        } catch(IOException e) {
+
+            header.close();
+            throw e;
+        }
+
+        return new BinaryInput(new InflaterInputStream(header));
+    }
+}
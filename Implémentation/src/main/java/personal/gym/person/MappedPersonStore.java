@@ -0,0 +1,545 @@
+package personal.gym.person;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.nio.file.StandardOpenOption;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Members or professionals stored as fixed-width records in a memory-mapped
+ * file. The record of a person sits at the offset given by their numeric code,
+ * so lookups read a single record and opening the store does not read any
+ * record at all. Every field is bounded by {@link Person#verifyFormat}, which
+ * lets each of them be written as a length followed by its characters padded
+ * to the maximum length.
+ * <p>
+ * The store hands out copies: a person read from the store must be put back
+ * for a change to be persisted, which {@link ListPersons} does on every
+ * modification. Changes reach the file through the page cache and are made
+ * durable by {@link #force()}.
+ *
+ * @param <P> Type of the stored persons
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class MappedPersonStore<P extends Person> extends AbstractMap<String, P>
+    implements Closeable {
+
+    // "GYMP"
+    private static final int MAGIC = 0x47594D50;
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 32;
+    private static final int COUNT_OFFSET = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int[] WIDTHS = {Person.MAX_NAME_LENGTH,
+        Person.MAX_ADDRESS_LENGTH, Person.MAX_CITY_LENGTH,
+        Person.PROVINCE_LENGTH, Person.POSTAL_CODE_LENGTH,
+        Person.MAX_EMAIL_LENGTH};
+    private static final int[] OFFSETS = new int[WIDTHS.length];
+    private static final int RECORD_LENGTH;
+    private static final int MAX_CAPACITY;
+
+    // Record: used flag, status, then each field as a length and its chars
+    static {
+
+        int offset = 2;
+
+        for (int i = 0; i < WIDTHS.length; i++) {
+
+            OFFSETS[i] = offset;
+            offset += 1 + WIDTHS[i] * Character.BYTES;
+        }
+
+        RECORD_LENGTH = offset;
+        MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_LENGTH) / RECORD_LENGTH;
+    }
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final File file;
+    private final FileChannel channel;
+    private final PersonFactory<P> factory;
+
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+
+    /**
+     * Opens the members store, creating the file if needed.
+     *
+     * @param file Store file
+     * @return Members store
+     * @throws IOException if an I/O error occurs
+     */
+    public static MappedPersonStore<Member> openMembers(File file)
+        throws IOException {
+
+        return new MappedPersonStore<>(file, Member::new);
+    }
+
+    /**
+     * Opens the professionals store, creating the file if needed.
+     *
+     * @param file Store file
+     * @return Professionals store
+     * @throws IOException if an I/O error occurs
+     */
+    public static MappedPersonStore<Professional> openProfessionals(File file)
+        throws IOException {
+
+        return new MappedPersonStore<>(file, Professional::new);
+    }
+
+    /**
+     * Opens a store and maps its records.
+     *
+     * @param file Store file
+     * @param factory Constructor of the persons read back
+     * @throws IOException if an I/O error occurs or the file is not a store
+     */
+    private MappedPersonStore(File file, PersonFactory<P> factory)
+        throws IOException {
+
+        this.file = file;
+        this.factory = factory;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (channel.size() == 0) {
+
+            map(INITIAL_CAPACITY);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_LENGTH);
+            buffer.putInt(COUNT_OFFSET, 0);
+            return;
+        }
+
+        map((int) Math.min(MAX_CAPACITY,
+        (channel.size() - HEADER_LENGTH) / RECORD_LENGTH));
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+            || buffer.getInt(8) != RECORD_LENGTH) {
+
+            channel.close();
+            throw new StreamCorruptedException(file + " is not a person store");
+        }
+
+        count = buffer.getInt(COUNT_OFFSET);
+    }
+
+    /**
+     * @return Store file
+     */
+    public File getFile() {
+
+        return file;
+    }
+
+    /**
+     * Maps the file for the given number of records, growing it if needed.
+     *
+     * @param capacity Number of records
+     * @throws IOException if an I/O error occurs
+     */
+    private void map(int capacity) throws IOException {
+
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+        HEADER_LENGTH + (long) capacity * RECORD_LENGTH);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Converts a code into the position of its record.
+     *
+     * @param key Person code
+     * @return Record position or -1 if the key cannot be a person code
+     */
+    private static int slotOf(Object key) {
+
+        int slot = Person.parseCode(key);
+
+        return slot < MAX_CAPACITY ? slot : -1;
+    }
+
+    /**
+     * @param slot Record position
+     * @return Offset of the record in the file
+     */
+    private static int offsetOf(int slot) {
+
+        return HEADER_LENGTH + slot * RECORD_LENGTH;
+    }
+
+    /**
+     * @param slot Record position
+     * @return True if the record holds a person
+     */
+    private boolean isUsed(int slot) {
+
+        return slot >= 0 && slot < capacity
+        && buffer.get(offsetOf(slot)) != 0;
+    }
+
+    /**
+     * @return Number of persons in the store
+     */
+    @Override
+    public synchronized int size() {
+
+        return count;
+    }
+
+    /**
+     * @param key Person code
+     * @return True if a person has this code
+     */
+    @Override
+    public synchronized boolean containsKey(Object key) {
+
+        return isUsed(slotOf(key));
+    }
+
+    /**
+     * Reads the record of a person.
+     *
+     * @param key Person code
+     * @return Copy of the person or null if no person has this code
+     */
+    @Override
+    public synchronized P get(Object key) {
+
+        int slot = slotOf(key);
+
+        return isUsed(slot) ? read(slot) : null;
+    }
+
+    /**
+     * Writes the record of a person in place.
+     *
+     * @param key Person code
+     * @param person Person to write
+     * @return Previous copy of the person or null if the record was empty
+     * @throws IllegalArgumentException if the code cannot be stored or does not
+     * match the person
+     */
+    @Override
+    public synchronized P put(String key, P person) {
+
+        int slot = slotOf(key);
+
+        if (slot < 0 || ! key.equals(person.getCode())) {
+
+            throw new IllegalArgumentException("Invalid code " + key);
+        }
+
+        P previous = null;
+
+        if (slot >= capacity) {
+
+            grow(slot + 1);
+        }
+
+        if (isUsed(slot)) {
+
+            previous = read(slot);
+        } else {
+
+            buffer.putInt(COUNT_OFFSET, ++count);
+        }
+
+        write(slot, person);
+
+        return previous;
+    }
+
+    /**
+     * Empties the record of a person.
+     *
+     * @param key Person code
+     * @return Copy of the removed person or null if no person has this code
+     */
+    @Override
+    public synchronized P remove(Object key) {
+
+        int slot = slotOf(key);
+
+        if (! isUsed(slot)) {
+
+            return null;
+        }
+
+        P previous = read(slot);
+        clear(slot);
+
+        return previous;
+    }
+
+    /**
+     * @return Entries of the store, read record by record
+     */
+    @Override
+    public Set<Map.Entry<String, P>> entrySet() {
+
+        return new AbstractSet<Map.Entry<String, P>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, P>> iterator() {
+
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+
+                return MappedPersonStore.this.size();
+            }
+        };
+    }
+
+    /**
+     * Cuts a person down to the widths of the records. Persons written by
+     * former versions may hold fields longer than {@link Person#verifyFormat}
+     * now allows, which {@link #put} refuses.
+     *
+     * @param person Person to store
+     * @return The person itself if every field fits, otherwise a copy whose
+     * longer fields are cut down
+     */
+    public P fit(P person) {
+
+        String[] fields = {person.getName(), person.getAddress(),
+            person.getCity(), person.getProvince(), person.getPostalCode(),
+            person.getEmail()};
+        boolean cut = false;
+
+        for (int i = 0; i < fields.length; i++) {
+
+            if (fields[i].length() > WIDTHS[i]) {
+
+                fields[i] = fields[i].substring(0, WIDTHS[i]);
+                cut = true;
+            }
+        }
+
+        return cut ? factory.create(person.getCode(), fields[0], fields[1],
+        fields[2], fields[3], fields[4], fields[5], person.getStatus())
+        : person;
+    }
+
+    /**
+     * Makes the changes written so far durable.
+     */
+    public synchronized void force() {
+
+        buffer.force();
+    }
+
+    /**
+     * Forces the changes and closes the file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Grows the file so that it holds at least the given number of records.
+     *
+     * @param minCapacity Required number of records
+     */
+    private void grow(int minCapacity) {
+
+        try {
+
+            map((int) Math.min(MAX_CAPACITY,
+            Math.max(minCapacity, (long) capacity * 2)));
+        } catch(IOException e) {
+
+            throw new IllegalStateException("Unable to grow " + file, e);
+        }
+    }
+
+    /**
+     * Empties a record.
+     *
+     * @param slot Record position
+     */
+    private void clear(int slot) {
+
+        buffer.put(offsetOf(slot), (byte) 0);
+        buffer.putInt(COUNT_OFFSET, --count);
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @param slot Record position
+     * @return Person read
+     */
+    private P read(int slot) {
+
+        int offset = offsetOf(slot);
+        String code = String.valueOf(slot);
+
+        return factory.create(
+        "0".repeat(Person.CODE_LENGTH - code.length()) + code,
+        readField(offset, 0), readField(offset, 1), readField(offset, 2),
+        readField(offset, 3), readField(offset, 4), readField(offset, 5),
+        STATUSES[buffer.get(offset + 1)]);
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param slot Record position
+     * @param person Person to write
+     */
+    private void write(int slot, P person) {
+
+        int offset = offsetOf(slot);
+
+        writeField(offset, 0, person.getName());
+        writeField(offset, 1, person.getAddress());
+        writeField(offset, 2, person.getCity());
+        writeField(offset, 3, person.getProvince());
+        writeField(offset, 4, person.getPostalCode());
+        writeField(offset, 5, person.getEmail());
+        buffer.put(offset + 1, (byte) person.getStatus().ordinal());
+        buffer.put(offset, (byte) 1);
+    }
+
+    /**
+     * @param offset Record offset
+     * @param field Field index
+     * @return Field value
+     */
+    private String readField(int offset, int field) {
+
+        int position = offset + OFFSETS[field];
+        char[] value = new char[buffer.get(position)];
+
+        for (int i = 0; i < value.length; i++) {
+
+            value[i] = buffer.getChar(position + 1 + i * Character.BYTES);
+        }
+
+        return new String(value);
+    }
+
+    /**
+     * @param offset Record offset
+     * @param field Field index
+     * @param value Field value
+     * @throws IllegalArgumentException if the value exceeds the field width
+     */
+    private void writeField(int offset, int field, String value) {
+
+        if (value.length() > WIDTHS[field]) {
+
+            throw new IllegalArgumentException("Field too long: " + value);
+        }
+
+        int position = offset + OFFSETS[field];
+        buffer.put(position, (byte) value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+
+            buffer.putChar(position + 1 + i * Character.BYTES, value.charAt(i));
+        }
+    }
+
+    /**
+     * Iterates over the used records in code order.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, P>> {
+
+        private int next = -1;
+        private int last = -1;
+
+        /**
+         * Initializes the iterator on the first used record.
+         */
+        EntryIterator() {
+
+            advance();
+        }
+
+        /**
+         * Moves onto the next used record.
+         */
+        private void advance() {
+
+            synchronized (MappedPersonStore.this) {
+
+                do {
+
+                    next++;
+                } while (next < capacity && ! isUsed(next));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return next < capacity;
+        }
+
+        @Override
+        public Map.Entry<String, P> next() {
+
+            P person;
+
+            synchronized (MappedPersonStore.this) {
+
+                if (! isUsed(next)) {
+
+                    throw new NoSuchElementException();
+                }
+
+                person = read(next);
+            }
+
+            last = next;
+            advance();
+
+            return new AbstractMap.SimpleImmutableEntry<>(person.getCode(),
+            person);
+        }
+
+        @Override
+        public void remove() {
+
+            synchronized (MappedPersonStore.this) {
+
+                if (! isUsed(last)) {
+
+                    throw new IllegalStateException();
+                }
+
+                clear(last);
+                last = -1;
+            }
+        }
+    }
+}
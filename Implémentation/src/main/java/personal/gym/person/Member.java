@@ -2,6 +2,8 @@ package personal.gym.person;
 
 import personal.gym.exception.InvalidFormatException;
 
+import personal.gym.storage.IdAllocator;
+
 /**
  * Holds information relative to a member at #GYM.
  *
@@ -12,15 +14,15 @@ import personal.gym.exception.InvalidFormatException;
  * @author Yan Zhuang
  */
 public class Member extends Person {
-    
-	private static int currentMemberId = 0;
+
+    private static final long serialVersionUID = 2289087256399554671L;
 
     /**
      * @return Counter value
      */
     public static int getCurrentMemberId() {
         
-        return currentMemberId;
+        return IdAllocator.MEMBERS.get();
     }
 
     /**
@@ -28,7 +30,7 @@ public class Member extends Person {
      */
     public static void setCurrentMemberId(int num) {
         
-        currentMemberId = num;
+        IdAllocator.MEMBERS.set(num);
     }
 
 	/**
@@ -51,6 +53,36 @@ public class Member extends Person {
         code = generateMemberNo();
 	}
 
+    /**
+     * Restores a member read back from a snapshot.
+     *
+     * @param code Member code
+     * @param name Member name
+     * @param address Member address
+     * @param city Member city
+     * @param province Member province
+     * @param postalCode Member postal code
+     * @param email Member email
+     * @param status Member status
+     */
+    Member(String code, String name, String address, String city,
+        String province, String postalCode, String email, Status status) {
+
+        super(code, name, address, city, province, postalCode, email, status);
+    }
+
+    /**
+     * Reserves a block of consecutive member numbers at once, for members
+     * created in bulk.
+     *
+     * @param count Number of member numbers to reserve
+     * @return First reserved number
+     */
+    public static int reserveMemberIds(int count) {
+        
+        return IdAllocator.MEMBERS.reserve(count);
+    }
+
     /**
      * Generates a unique member code for a newly created member.
      *
@@ -58,7 +90,16 @@ public class Member extends Person {
      */
 	private static String generateMemberNo() {
 		
-        String code = String.valueOf(currentMemberId++);
-        return "0".repeat(CODE_LENGTH - code.length()) + code;
+        return toCode(IdAllocator.MEMBERS.next());
 	}
+
+    /**
+     * @param id Member number
+     * @return Member code padded to its fixed length
+     */
+    static String toCode(int id) {
+        
+        String code = String.valueOf(id);
+        return "0".repeat(CODE_LENGTH - code.length()) + code;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package personal.gym.person;
+
+import java.util.Arrays;
+
+/**
+ * Status of every member kept in a byte array indexed by the numeric value of
+ * their codes, for the access control at the front door of #GYM. Member codes
+ * being handed out consecutively, a member only costs a byte. A check parses
+ * the scanned code in place and reads a single byte: it neither hashes a
+ * string, allocates nor prints anything.
+ * <p>
+ * The index is updated by a single writer, {@link ListPersons}, while checks
+ * may run concurrently: a check racing a change sees either status.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class MemberStatusIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // No member holds the code
+    private static final byte ABSENT = 0;
+    private static final Status[] STATUSES = Status.values();
+
+    private volatile byte[] statuses = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Informs of the status of a member.
+     *
+     * @param memberNo Scanned member code
+     * @return Member status, {@link Status#INVALID_NUMBER} if no member has
+     * this code
+     */
+    public Status check(String memberNo) {
+
+        int code = Person.parseCode(memberNo);
+        byte[] current = statuses;
+
+        if (code < 0 || code >= current.length
+            || current[code] == ABSENT) {
+
+            return Status.INVALID_NUMBER;
+        }
+
+        return STATUSES[current[code] - 1];
+    }
+
+    /**
+     * Records the status of a member, as read from the member.
+     *
+     * @param member Created or modified member
+     */
+    public void update(Member member) {
+
+        int code = Person.parseCode(member.getCode());
+        Status status = member.getStatus();
+
+        if (code < 0) {
+
+            return;
+        }
+
+        if (code >= statuses.length) {
+
+            grow(code);
+        }
+
+        statuses[code] = status == null ? ABSENT
+        : (byte) (status.ordinal() + 1);
+    }
+
+    /**
+     * Forgets a deleted member.
+     *
+     * @param memberNo Member code
+     */
+    public void remove(String memberNo) {
+
+        int code = Person.parseCode(memberNo);
+
+        if (code >= 0 && code < statuses.length) {
+
+            statuses[code] = ABSENT;
+        }
+    }
+
+    /**
+     * @param code Numeric value of a code which must fit in the array
+     */
+    private void grow(int code) {
+
+        int capacity = statuses.length;
+
+        while (capacity <= code) {
+
+            // Doubles until the largest code fits
+            capacity = capacity > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE
+            : capacity * 2;
+        }
+
+        statuses = Arrays.copyOf(statuses, capacity);
+    }
+}
@@ -0,0 +1,28 @@
+package personal.gym.person;
+
+/**
+ * Restores a person from fields read back from storage.
+ *
+ * @param <P> Type of the restored person
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+interface PersonFactory<P extends Person> {
+
+    /**
+     * @param code Person code
+     * @param name Person name
+     * @param address Person address
+     * @param city Person city
+     * @param province Person province
+     * @param postalCode Person postal code
+     * @param email Person email
+     * @param status Person status
+     * @return Restored person
+     */
+    P create(String code, String name, String address, String city,
+        String province, String postalCode, String email, Status status);
+}
@@ -0,0 +1,276 @@
+package personal.gym.person;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import personal.gym.util.Formats;
+
+/**
+ * Secondary indexes over the members or the professionals, for finding a
+ * person by something else than their code:
+ * <ul>
+ * <li>a hash index on the email,</li>
+ * <li>a sorted index on the name, holding both the full name and the last
+ * name so that a prefix of either finds the person,</li>
+ * <li>buckets of the forward sortation area, the first three characters of
+ * the postal code,</li>
+ * <li>a {@link TrigramIndex} on the name, for names typed with mistakes.</li>
+ * </ul>
+ * The indexes only hold codes, resolved through the map of the persons when
+ * answering, so that persons handed out as copies by a persisting store are
+ * never held twice. Most keys being held by a single person, such a key
+ * holds an immutable singleton, only replaced by a sorted set once a second
+ * person shares it.
+ * <p>
+ * The indexes are maintained by {@link ListPersons}, which removes a person
+ * before modifying them and adds them back afterwards. A deleted member
+ * stays indexed until their tombstone is compacted, their code no longer
+ * resolving meanwhile.
+ *
+ * @param <P> Type of the indexed persons
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class PersonIndex<P extends Person> {
+
+    private static final int AREA_LENGTH = 3;
+
+    private final Map<String, P> persons;
+    private final Map<String, Set<String>> emails = new HashMap<>();
+    private final NavigableMap<String, Set<String>> names = new TreeMap<>();
+    private final Map<String, Set<String>> areas = new HashMap<>();
+    private final TrigramIndex trigrams = new TrigramIndex();
+
+    /**
+     * Initializes empty indexes, resolving the indexed codes through a map.
+     * The persons already held by the map are indexed by {@link ListPersons}
+     * in background.
+     *
+     * @param persons Persons keyed by code
+     */
+    public PersonIndex(Map<String, P> persons) {
+
+        this.persons = persons;
+    }
+
+    /**
+     * @param person Person to index
+     */
+    public void add(Person person) {
+
+        String code = person.getCode();
+        String email = normalize(person.getEmail());
+
+        insert(emails, email, code);
+
+        for (String key : nameKeys(person.getName())) {
+
+            insert(names, key, code);
+        }
+
+        insert(areas, areaOf(person.getPostalCode()), code);
+        trigrams.add(person.getName(), code);
+    }
+
+    /**
+     * @param person Person to stop indexing, with the fields they were indexed
+     * with
+     */
+    public void remove(Person person) {
+
+        String code = person.getCode();
+
+        delete(emails, normalize(person.getEmail()), code);
+
+        for (String key : nameKeys(person.getName())) {
+
+            delete(names, key, code);
+        }
+
+        delete(areas, areaOf(person.getPostalCode()), code);
+        trigrams.remove(person.getName(), code);
+    }
+
+    /**
+     * @param email Email, in any case
+     * @return Persons having this email
+     */
+    public List<P> findByEmail(String email) {
+
+        return resolve(emails.get(normalize(email)));
+    }
+
+    /**
+     * Finds the persons whose full name or last name starts with a prefix, in
+     * the order of their names.
+     *
+     * @param prefix Beginning of a name, in any case
+     * @param limit Maximum number of persons returned
+     * @return Persons whose name starts with the prefix
+     */
+    public List<P> findByNamePrefix(String prefix, int limit) {
+
+        String from = normalize(prefix);
+        Set<String> codes = new LinkedHashSet<>();
+
+        // Keys starting with the prefix sort right after it
+        for (Map.Entry<String, Set<String>> entry
+            : names.tailMap(from, true).entrySet()) {
+
+            if (! entry.getKey().startsWith(from) || codes.size() >= limit) {
+
+                break;
+            }
+
+            codes.addAll(entry.getValue());
+        }
+
+        List<P> found = resolve(codes);
+
+        return found.size() > limit ? found.subList(0, limit) : found;
+    }
+
+    /**
+     * Finds the persons whose name is the closest to a name which may be
+     * misspelled, the closest first.
+     *
+     * @param name Searched name
+     * @param limit Maximum number of persons returned
+     * @return Persons whose name is similar enough to the searched one
+     */
+    public List<P> findBySimilarName(String name, int limit) {
+
+        return resolve(trigrams.search(name, limit));
+    }
+
+    /**
+     * @param postalCode Postal code, or only its first three characters
+     * @return Persons whose postal code shares the forward sortation area,
+     * by code
+     */
+    public List<P> findByPostalArea(String postalCode) {
+
+        return resolve(areas.get(areaOf(postalCode)));
+    }
+
+    /**
+     * @param codes Indexed codes, or null
+     * @return Persons having the codes
+     */
+    private List<P> resolve(Collection<String> codes) {
+
+        List<P> found = new ArrayList<>();
+
+        if (codes != null) {
+
+            for (String code : codes) {
+
+                P person = persons.get(code);
+
+                if (person != null) {
+
+                    found.add(person);
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * @param name Person name
+     * @return Keys of the name index: the full name and the last name
+     */
+    private static String[] nameKeys(String name) {
+
+        String full = normalize(name);
+        int space = full.lastIndexOf(' ');
+
+        return space < 0 ? new String[] {full}
+        : new String[] {full, full.substring(space + 1)};
+    }
+
+    /**
+     * @param postalCode Postal code
+     * @return Forward sortation area of the postal code
+     */
+    private static String areaOf(String postalCode) {
+
+        String area = normalize(postalCode).toUpperCase(Locale.ROOT);
+
+        return area.length() > AREA_LENGTH ? area.substring(0, AREA_LENGTH)
+        : area;
+    }
+
+    /**
+     * @param value Searched or indexed value
+     * @return Value trimmed, lowered and with single spaces
+     */
+    private static String normalize(String value) {
+
+        return value == null ? ""
+        : Formats.singleSpaced(value).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param index Index of codes
+     * @param key Key of the index
+     * @param code Code to add under the key
+     */
+    private static void insert(Map<String, Set<String>> index, String key,
+        String code) {
+
+        Set<String> codes = index.get(key);
+
+        if (codes == null) {
+
+            index.put(key, Collections.singleton(code));
+        } else if (codes instanceof TreeSet) {
+
+            codes.add(code);
+        } else if (! codes.contains(code)) {
+
+            Set<String> shared = new TreeSet<>(codes);
+
+            shared.add(code);
+            index.put(key, shared);
+        }
+    }
+
+    /**
+     * @param index Index of codes
+     * @param key Key of the index
+     * @param code Code to remove from the key
+     */
+    private static void delete(Map<String, Set<String>> index, String key,
+        String code) {
+
+        Set<String> codes = index.get(key);
+
+        if (codes == null || ! codes.contains(code)) {
+
+            return;
+        }
+
+        if (codes.size() == 1) {
+
+            index.remove(key);
+        } else {
+
+            codes.remove(code);
+        }
+    }
+}
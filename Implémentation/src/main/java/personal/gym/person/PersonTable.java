@@ -0,0 +1,328 @@
+package personal.gym.person;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Members or professionals kept on the heap in an open-addressing table keyed
+ * by the numeric value of their codes. Codes are parsed once when they enter
+ * the table: a person only costs a slot of an {@code int} array and a slot of
+ * a reference array, and a lookup neither hashes a string nor allocates.
+ * Collisions are resolved by linear probing, and removals shift the following
+ * persons of the probe sequence back rather than leaving tombstones.
+ * <p>
+ * The keys handed out while iterating are the codes held by the persons
+ * themselves. Persons cannot be removed through an iterator.
+ *
+ * @param <P> Type of the stored persons
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class PersonTable<P extends Person> extends AbstractMap<String, P> {
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    // Golden ratio, spreading consecutive codes over the table
+    private static final int MULTIPLIER = 0x9E3779B9;
+
+    private int[] keys;
+    private Object[] persons;
+    private int shift;
+    private int size;
+
+    /**
+     * Initializes an empty table.
+     */
+    public PersonTable() {
+
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Initializes a table holding the persons of a map.
+     *
+     * @param source Persons keyed by code
+     */
+    public PersonTable(Map<String, ? extends P> source) {
+
+        int capacity = INITIAL_CAPACITY;
+
+        while (capacity * 2 / 3 < source.size()) {
+
+            capacity *= 2;
+        }
+
+        allocate(capacity);
+        putAll(source);
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+
+        return get(key) != null;
+    }
+
+    /**
+     * @param key Person code
+     * @return Person or null if no person has this code
+     */
+    @Override
+    public P get(Object key) {
+
+        int code = Person.parseCode(key);
+
+        return code < 0 ? null : get(code);
+    }
+
+    /**
+     * @param code Numeric value of a person code
+     * @return Person or null if no person has this code
+     */
+    @SuppressWarnings("unchecked")
+    public P get(int code) {
+
+        int slot = find(code);
+
+        return slot < 0 ? null : (P) persons[slot];
+    }
+
+    /**
+     * @param key Person code
+     * @param person Person to add
+     * @return Replaced person or null if the code was free
+     * @throws IllegalArgumentException if the key is not a person code
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public P put(String key, P person) {
+
+        int code = Person.parseCode(key);
+
+        if (code < 0) {
+
+            throw new IllegalArgumentException("Invalid code " + key);
+        }
+
+        int slot = indexOf(code);
+
+        while (keys[slot] != EMPTY) {
+
+            if (keys[slot] == code) {
+
+                P previous = (P) persons[slot];
+                persons[slot] = person;
+
+                return previous;
+            }
+
+            slot = (slot + 1) & (keys.length - 1);
+        }
+
+        keys[slot] = code;
+        persons[slot] = person;
+
+        if (++size > keys.length * 2 / 3) {
+
+            rehash(keys.length * 2);
+        }
+
+        return null;
+    }
+
+    /**
+     * @param key Person code
+     * @return Removed person or null if no person has this code
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public P remove(Object key) {
+
+        int code = Person.parseCode(key);
+        int slot = code < 0 ? -1 : find(code);
+
+        if (slot < 0) {
+
+            return null;
+        }
+
+        P previous = (P) persons[slot];
+        int mask = keys.length - 1;
+
+        // Moves back the persons which probed past the emptied slot
+        for (int next = (slot + 1) & mask; keys[next] != EMPTY;
+            next = (next + 1) & mask) {
+
+            int home = indexOf(keys[next]);
+
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+
+                keys[slot] = keys[next];
+                persons[slot] = persons[next];
+                slot = next;
+            }
+        }
+
+        keys[slot] = EMPTY;
+        persons[slot] = null;
+        size--;
+
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(persons, null);
+        size = 0;
+    }
+
+    /**
+     * @return Entries of the table, keyed by the codes of the persons
+     */
+    @Override
+    public Set<Map.Entry<String, P>> entrySet() {
+
+        return new AbstractSet<Map.Entry<String, P>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, P>> iterator() {
+
+                return new Iterator<Map.Entry<String, P>>() {
+
+                    private int slot = advance(0);
+
+                    @Override
+                    public boolean hasNext() {
+
+                        return slot < keys.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Map.Entry<String, P> next() {
+
+                        if (slot >= keys.length) {
+
+                            throw new NoSuchElementException();
+                        }
+
+                        P person = (P) persons[slot];
+                        slot = advance(slot + 1);
+
+                        return new AbstractMap.SimpleImmutableEntry<>(
+                        person.getCode(), person);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @param from First slot to look at
+     * @return First slot holding a person from the given one, or the capacity
+     * if none
+     */
+    private int advance(int from) {
+
+        int slot = from;
+
+        while (slot < keys.length && keys[slot] == EMPTY) {
+
+            slot++;
+        }
+
+        return slot;
+    }
+
+    /**
+     * @param code Numeric value of a person code
+     * @return Slot of the person or -1 if no person has this code
+     */
+    private int find(int code) {
+
+        int slot = indexOf(code);
+
+        while (keys[slot] != EMPTY) {
+
+            if (keys[slot] == code) {
+
+                return slot;
+            }
+
+            slot = (slot + 1) & (keys.length - 1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param code Numeric value of a person code
+     * @return First slot probed for the code
+     */
+    private int indexOf(int code) {
+
+        return (code * MULTIPLIER) >>> shift;
+    }
+
+    /**
+     * @param capacity Number of slots, a power of two
+     */
+    private void allocate(int capacity) {
+
+        keys = new int[capacity];
+        persons = new Object[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Moves every person onto a table of the given capacity.
+     *
+     * @param capacity Number of slots, a power of two
+     */
+    @SuppressWarnings("unchecked")
+    private void rehash(int capacity) {
+
+        int[] oldKeys = keys;
+        Object[] oldPersons = persons;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+
+            if (oldKeys[i] != EMPTY) {
+
+                int slot = indexOf(oldKeys[i]);
+
+                while (keys[slot] != EMPTY) {
+
+                    slot = (slot + 1) & (keys.length - 1);
+                }
+
+                keys[slot] = oldKeys[i];
+                persons[slot] = oldPersons[i];
+            }
+        }
+    }
+}
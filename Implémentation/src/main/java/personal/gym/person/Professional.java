@@ -2,6 +2,8 @@ package personal.gym.person;
 
 import personal.gym.exception.InvalidFormatException;
 
+import personal.gym.storage.IdAllocator;
+
 /**
  * Holds information relative to a professional at #GYM.
  *
@@ -12,15 +14,15 @@ import personal.gym.exception.InvalidFormatException;
  * @author Yan Zhuang
  */
 public class Professional extends Person {
-    
-	private static int currentProfId = 0;
+
+    private static final long serialVersionUID = 5932596567459464771L;
 
     /**
      * @return Counter value
      */
     public static int getCurrentProfId() {
         
-        return currentProfId;
+        return IdAllocator.PROFESSIONALS.get();
     }
 
     /**
@@ -28,7 +30,7 @@ public class Professional extends Person {
      */
     public static void setCurrentProfId(int num) {
         
-        currentProfId = num;
+        IdAllocator.PROFESSIONALS.set(num);
     }
 
 	/**
@@ -52,6 +54,24 @@ public class Professional extends Person {
         code = generateProfNo();
 	}
 
+    /**
+     * Restores a professional read back from a snapshot.
+     *
+     * @param code Professional code
+     * @param name Professional name
+     * @param address Professional address
+     * @param city Professional city
+     * @param province Professional province
+     * @param postalCode Professional postal code
+     * @param email Professional email
+     * @param status Professional status
+     */
+    Professional(String code, String name, String address, String city,
+        String province, String postalCode, String email, Status status) {
+
+        super(code, name, address, city, province, postalCode, email, status);
+    }
+
     /**
      * Generates a unique professional code for a newly created professional.
      *
@@ -59,7 +79,7 @@ public class Professional extends Person {
      */
 	private static String generateProfNo() {
 		
-        String code = String.valueOf(currentProfId++);
+        String code = String.valueOf(IdAllocator.PROFESSIONALS.next());
         
         return "0".repeat(CODE_LENGTH - code.length()) + code;
 	}
@@ -0,0 +1,79 @@
+package personal.gym.receipt;
+
+import java.io.IOException;
+
+import personal.gym.person.Member;
+import personal.gym.person.PersonCodec;
+
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+import personal.gym.storage.Codec;
+
+/**
+ * Compact binary encoding of members' bills. The recipient is written through
+ * {@link PersonCodec#MEMBER}, and professional and service names through the
+ * snapshot dictionary.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class BillMemberCodec implements Codec<BillMember> {
+
+    public static final BillMemberCodec INSTANCE = new BillMemberCodec();
+
+    private BillMemberCodec() {}
+
+    /**
+     * @return Codec identifier
+     */
+    @Override
+    public int getId() {
+
+        return 7;
+    }
+
+    /**
+     * Writes a bill.
+     *
+     * @param out Destination
+     * @param bill Bill to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void encode(BinaryOutput out, BillMember bill) throws IOException {
+
+        PersonCodec.MEMBER.encode(out, (Member) bill.getRecipient());
+        bill.writeSessions(out);
+    }
+
+    /**
+     * Reads back a bill.
+     *
+     * @param in Source
+     * @return Bill read
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public BillMember decode(BinaryInput in) throws IOException {
+
+        BillMember bill = new BillMember(PersonCodec.MEMBER.decode(in));
+        bill.readSessions(in);
+
+        return bill;
+    }
+
+    /**
+     * Copies a bill, to which sessions keep being added.
+     *
+     * @param bill Bill to copy
+     * @return Copy of the bill
+     */
+    @Override
+    public BillMember copy(BillMember bill) {
+
+        return bill.copy(PersonCodec.MEMBER.copy((Member) bill.getRecipient()));
+    }
+}
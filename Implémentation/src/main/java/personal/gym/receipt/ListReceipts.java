@@ -28,6 +28,7 @@ public class ListReceipts {
     private ListPersons listPersons;
     private ListSessions listSessions;
     private ServicesDirectory servicesDirectory;
+    private long epoch;
 
     /**
      * Initializes the receipts hashmaps.
@@ -74,6 +75,14 @@ public class ListReceipts {
         this.servicesDirectory = servicesDirectory;
     }
 
+    /**
+     * @return Modification epoch of the receipts, increased on every change
+     */
+    public long getEpoch() {
+        
+        return epoch;
+    }
+
     /**
      * @return Members' bills
      */
@@ -96,8 +105,40 @@ public class ListReceipts {
      */
     public void clear() {
         
+        clearBills();
+        clearPaymentNotices();
+    }
+
+    /**
+     * Clears the members bills, for a weekly reset replayed onto them alone.
+     */
+    public void clearBills() {
+        
         bills.clear();
+        epoch++;
+    }
+
+    /**
+     * Clears the professionals payment notices, for a weekly reset replayed
+     * onto them alone.
+     */
+    public void clearPaymentNotices() {
+        
         paymentNotices.clear();
+        epoch++;
+    }
+
+    /**
+     * Removes the bill of a deleted member.
+     *
+     * @param memberNo Member number
+     */
+    public void removeBillMember(String memberNo) {
+        
+        if (bills.remove(memberNo) != null) {
+            
+            epoch++;
+        }
     }
 
     /**
@@ -118,6 +159,7 @@ public class ListReceipts {
             bills.put(memberNo, billMember);
         }
 
+        epoch++;
         billMember.addSessionInfo(validation.getDateNow(),
         listPersons.getProf(validation.getProfNo()).getName(),
         servicesDirectory.getServiceName(validation.getServiceNo()));
@@ -144,6 +186,7 @@ public class ListReceipts {
         String sessionNo = validation.getSessionNo();
         String memberNo = validation.getMemberNo();
 
+        epoch++;
         paymentProf.addSessionInfo(sessionNo, validation.getDateNow(), memberNo,
         listPersons.getMember(memberNo).getName(),
         listSessions.getSession(sessionNo).getFee());
@@ -1,5 +1,6 @@
 package personal.gym.receipt;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import java.text.DecimalFormat;
@@ -13,6 +14,9 @@ import personal.gym.accounting.AccountingUtils;
 
 import personal.gym.person.Professional;
 
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+
 /**
  * Describes a professional's payment notice for the week.
  *
@@ -24,6 +28,8 @@ import personal.gym.person.Professional;
  */
 public class PaymentNoticeProf extends Receipt {
 
+    private static final long serialVersionUID = 115972715210809382L;
+
     private Map<PaymentNoticeProfKey, PaymentNoticeProfData> sessionsInfo;
 
     /**
@@ -65,6 +71,89 @@ public class PaymentNoticeProf extends Receipt {
         }
     }
 
+    /**
+     * Copies the payment notice onto a copy of its recipient. The members and
+     * balance of each session keep changing and are copied, while the session
+     * keys are shared.
+     *
+     * @param recipient Copy of the recipient
+     * @return Payment notice detached from later additions
+     */
+    PaymentNoticeProf copy(Professional recipient) {
+        
+        PaymentNoticeProf copy = new PaymentNoticeProf(recipient);
+        
+        for (Map.Entry<PaymentNoticeProfKey, PaymentNoticeProfData> e :
+            sessionsInfo.entrySet()) {
+            
+            PaymentNoticeProfData data = e.getValue();
+            
+            copy.sessionsInfo.put(e.getKey(), new PaymentNoticeProfData(
+            data.dateNow, new HashMap<>(data.members), data.balance));
+        }
+        
+        return copy;
+    }
+
+    /**
+     * Writes the taught sessions, for {@link PaymentNoticeProfCodec}.
+     *
+     * @param out Destination
+     * @throws IOException if an I/O error occurs
+     */
+    void writeSessions(BinaryOutput out) throws IOException {
+        
+        out.writeVarInt(sessionsInfo.size());
+        
+        for (Map.Entry<PaymentNoticeProfKey, PaymentNoticeProfData> e :
+            sessionsInfo.entrySet()) {
+            
+            PaymentNoticeProfData data = e.getValue();
+            
+            out.writeCode(e.getKey().sessionNo);
+            out.writeTimestamp(e.getKey().sessionDate);
+            out.writeTimestamp(data.dateNow);
+            out.writeInt(data.balance);
+            out.writeVarInt(data.members.size());
+            
+            for (Map.Entry<String, String> member : data.members.entrySet()) {
+                
+                out.writeString(member.getKey());
+                out.writeString(member.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads back the taught sessions written by
+     * {@link #writeSessions(BinaryOutput)}.
+     *
+     * @param in Source
+     * @throws IOException if an I/O error occurs
+     */
+    void readSessions(BinaryInput in) throws IOException {
+        
+        int count = in.readVarInt();
+        
+        for (int i = 0; i < count; i++) {
+            
+            PaymentNoticeProfKey key = new PaymentNoticeProfKey(in.readCode(),
+            in.readTimestamp());
+            Date dateNow = in.readTimestamp();
+            int balance = in.readInt();
+            int size = in.readVarInt();
+            Map<String, String> members = new HashMap<>();
+            
+            for (int j = 0; j < size; j++) {
+                
+                members.put(in.readString(), in.readString());
+            }
+            
+            sessionsInfo.put(key, new PaymentNoticeProfData(dateNow, members,
+            balance));
+        }
+    }
+
     /**
      * String implementation of payment notice.
      *
@@ -182,6 +271,21 @@ public class PaymentNoticeProf extends Receipt {
             members.put(memberNo, memberName);
             this.balance = balance;
         }
+
+        /**
+         * Restores the information relative a professional's payment notice.
+         *
+         * @param dateNow Information retrieval date
+         * @param members Members who attended the session
+         * @param balance Total session fees
+         */
+        private PaymentNoticeProfData(Date dateNow, Map<String, String> members,
+            int balance) {
+            
+            this.dateNow = dateNow;
+            this.members = members;
+            this.balance = balance;
+        }
         
         /**
          * String implementation of payment notice.
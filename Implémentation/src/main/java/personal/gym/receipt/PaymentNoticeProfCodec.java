@@ -0,0 +1,79 @@
+package personal.gym.receipt;
+
+import java.io.IOException;
+
+import personal.gym.person.Professional;
+import personal.gym.person.PersonCodec;
+
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+import personal.gym.storage.Codec;
+
+/**
+ * Compact binary encoding of professionals' payment notices. The recipient is
+ * written through {@link PersonCodec#PROFESSIONAL}, and each session with the
+ * members who attended it.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class PaymentNoticeProfCodec implements Codec<PaymentNoticeProf> {
+
+    public static final PaymentNoticeProfCodec INSTANCE = new PaymentNoticeProfCodec();
+
+    private PaymentNoticeProfCodec() {}
+
+    /**
+     * @return Codec identifier
+     */
+    @Override
+    public int getId() {
+
+        return 8;
+    }
+
+    /**
+     * Writes a payment notice.
+     *
+     * @param out Destination
+     * @param notice Payment notice to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void encode(BinaryOutput out, PaymentNoticeProf notice) throws IOException {
+
+        PersonCodec.PROFESSIONAL.encode(out, (Professional) notice.getRecipient());
+        notice.writeSessions(out);
+    }
+
+    /**
+     * Reads back a payment notice.
+     *
+     * @param in Source
+     * @return Payment notice read
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public PaymentNoticeProf decode(BinaryInput in) throws IOException {
+
+        PaymentNoticeProf notice = new PaymentNoticeProf(PersonCodec.PROFESSIONAL.decode(in));
+        notice.readSessions(in);
+
+        return notice;
+    }
+
+    /**
+     * Copies a payment notice, whose sessions keep being updated.
+     *
+     * @param notice Payment notice to copy
+     * @return Copy of the payment notice
+     */
+    @Override
+    public PaymentNoticeProf copy(PaymentNoticeProf notice) {
+
+        return notice.copy(PersonCodec.PROFESSIONAL.copy((Professional) notice.getRecipient()));
+    }
+}
@@ -14,7 +14,9 @@ import personal.gym.person.Person;
  * @author Yan Zhuang
  */
 public abstract class Receipt implements Serializable {
-    
+
+    private static final long serialVersionUID = 8930232555716850190L;
+
     protected Person recipient;
 
     /**
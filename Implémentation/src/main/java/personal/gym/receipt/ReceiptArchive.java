@@ -0,0 +1,305 @@
+package personal.gym.receipt;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+
+import java.time.LocalDate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import personal.gym.util.Type;
+
+/**
+ * Weekly archive of the rendered bills and payment notices. The receipts of a
+ * week are appended onto a single data file, each as its length followed by
+ * its text, and an entry giving the kind, recipient code, offset and length of
+ * each receipt is appended onto an index file. Retrieving a receipt reads the
+ * index of its week then the receipt itself with a single seek.
+ * <p>
+ * The receipts of a batch are written and forced onto the data file before
+ * their entries are written onto the index, so that an entry never points past
+ * the end of the data. An entry torn by a crash ends the index when it is read
+ * and is cut off before the next batch is appended. A receipt archived twice
+ * in the same week is found through its latest entry.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class ReceiptArchive {
+
+    private static final String DATA_EXTENSION = ".rcp";
+    private static final String INDEX_EXTENSION = ".idx";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File folder;
+
+    /**
+     * Initializes the archive over a folder, created on the first archived
+     * week.
+     *
+     * @param folder Folder holding the archive files
+     */
+    public ReceiptArchive(File folder) {
+
+        this.folder = folder;
+    }
+
+    /**
+     * @return Folder holding the archive files
+     */
+    public File getFolder() {
+
+        return folder;
+    }
+
+    /**
+     * Appends rendered receipts onto the archive of a week.
+     *
+     * @param week Day on which the week is archived
+     * @param receipts Bills and payment notices to archive
+     * @return Number of receipts archived
+     * @throws IOException if an I/O error occurs
+     */
+    public int archive(LocalDate week, Collection<? extends Receipt> receipts)
+        throws IOException {
+
+        if (! folder.isDirectory() && ! folder.mkdirs()) {
+
+            throw new IOException("Unable to create " + folder);
+        }
+
+        File data = new File(folder, week + DATA_EXTENSION);
+        File index = new File(folder, week + INDEX_EXTENSION);
+        long offset = data.length();
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+
+        try (FileOutputStream dataFile = new FileOutputStream(data, true)) {
+
+            DataOutputStream dataOut = new DataOutputStream(
+            new BufferedOutputStream(dataFile, BUFFER_SIZE));
+            DataOutputStream indexOut = new DataOutputStream(entries);
+
+            for (Receipt receipt : receipts) {
+
+                byte[] text = receipt.toString().getBytes(
+                StandardCharsets.UTF_8);
+
+                dataOut.writeInt(text.length);
+                dataOut.write(text);
+
+                indexOut.writeByte(typeOf(receipt).ordinal());
+                indexOut.writeUTF(receipt.getRecipient().getCode());
+                indexOut.writeLong(offset);
+                indexOut.writeInt(text.length);
+
+                offset += Integer.BYTES + text.length;
+            }
+
+            dataOut.flush();
+            dataFile.getFD().sync();
+        }
+
+        long complete = index.isFile()
+        ? readEntries(index, new HashMap<>()) : 0;
+
+        try (FileOutputStream indexFile = new FileOutputStream(index, true)) {
+
+            if (complete < indexFile.getChannel().size()) {
+
+                indexFile.getChannel().truncate(complete);
+            }
+
+            entries.writeTo(indexFile);
+            indexFile.getFD().sync();
+        }
+
+        return receipts.size();
+    }
+
+    /**
+     * Retrieves the receipt of a member or professional.
+     *
+     * @param week Day on which the week was archived
+     * @param type Type of the recipient, {@link Type#MEMBER} for bills and
+     * {@link Type#PROFESSIONAL} for payment notices
+     * @param code Recipient code
+     * @return Rendered receipt or null if none was archived that week
+     * @throws IOException if an I/O error occurs
+     */
+    public String read(LocalDate week, Type type, String code)
+        throws IOException {
+
+        long[] entry = readIndex(week).get(key(type, code));
+
+        if (entry == null) {
+
+            return null;
+        }
+
+        try (RandomAccessFile data = new RandomAccessFile(
+            new File(folder, week + DATA_EXTENSION), "r")) {
+
+            byte[] text = new byte[(int) entry[1]];
+            data.seek(entry[0] + Integer.BYTES);
+            data.readFully(text);
+
+            return new String(text, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Retrieves the latest archived receipt of a member or professional.
+     *
+     * @param type Type of the recipient
+     * @param code Recipient code
+     * @return Rendered receipt or null if none was archived
+     * @throws IOException if an I/O error occurs
+     */
+    public String readLatest(Type type, String code) throws IOException {
+
+        List<LocalDate> weeks = getWeeks();
+
+        for (int i = weeks.size() - 1; i >= 0; i--) {
+
+            String receipt = read(weeks.get(i), type, code);
+
+            if (receipt != null) {
+
+                return receipt;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return Days on which weeks were archived, in order
+     */
+    public List<LocalDate> getWeeks() {
+
+        List<LocalDate> weeks = new ArrayList<>();
+        String[] names = folder.list();
+
+        if (names != null) {
+
+            for (String name : names) {
+
+                if (name.endsWith(INDEX_EXTENSION)) {
+
+                    weeks.add(LocalDate.parse(name.substring(0,
+                    name.length() - INDEX_EXTENSION.length())));
+                }
+            }
+        }
+
+        weeks.sort(null);
+
+        return weeks;
+    }
+
+    /**
+     * Reads the index of a week.
+     *
+     * @param week Day on which the week was archived
+     * @return Offset and length of each receipt, by kind and recipient code
+     * @throws IOException if an I/O error occurs
+     */
+    private Map<String, long[]> readIndex(LocalDate week) throws IOException {
+
+        Map<String, long[]> entries = new HashMap<>();
+        File index = new File(folder, week + INDEX_EXTENSION);
+
+        if (index.isFile()) {
+
+            readEntries(index, entries);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Reads the complete entries of an index, up to an entry torn by a crash
+     * while it was appended.
+     *
+     * @param index Index file
+     * @param entries Receiver of the offset and length of each receipt, by
+     * kind and recipient code
+     * @return Length of the complete entries
+     * @throws IOException if an I/O error occurs
+     */
+    private static long readEntries(File index, Map<String, long[]> entries)
+        throws IOException {
+
+        byte[] bytes = Files.readAllBytes(index.toPath());
+        ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+        DataInputStream in = new DataInputStream(buffer);
+        Type[] types = Type.values();
+        long complete = 0;
+
+        try {
+
+            while (buffer.available() > 0) {
+
+                int type = in.readUnsignedByte();
+
+                if (type >= types.length) {
+
+                    throw new StreamCorruptedException("Unknown type " + type
+                    + " in " + index);
+                }
+
+                String code = in.readUTF();
+                long offset = in.readLong();
+                int length = in.readInt();
+
+                entries.put(key(types[type], code),
+                new long[] {offset, length});
+                complete = bytes.length - buffer.available();
+            }
+        } catch(EOFException e) {
+
+            // Torn last entry
+        }
+
+        return complete;
+    }
+
+    /**
+     * @param receipt Bill or payment notice
+     * @return Type of its recipient
+     */
+    private static Type typeOf(Receipt receipt) {
+
+        return receipt instanceof BillMember ? Type.MEMBER : Type.PROFESSIONAL;
+    }
+
+    /**
+     * @param type Type of the recipient
+     * @param code Recipient code
+     * @return Key of the receipt in the index
+     */
+    private static String key(Type type, String code) {
+
+        return type.name() + ":" + code;
+    }
+}
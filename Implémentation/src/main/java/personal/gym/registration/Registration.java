@@ -8,6 +8,8 @@ import java.util.Date;
 
 import personal.gym.exception.InvalidFormatException;
 
+import personal.gym.util.Formats;
+
 /**
  * Entity describing information relative to a registration validation generated
  * once a member participates at a session.
@@ -20,10 +22,14 @@ import personal.gym.exception.InvalidFormatException;
  */
 public class Registration implements Serializable {
 
+    private static final long serialVersionUID = -7917847433514243716L;
+
     private static final int SESSION_NO_LENGTH = 7;
     private static final int MEMBER_NO_LENGTH = 9;
     private static final int PROFESSIONAL_NO_LENGTH = 9;
     private static final int MAX_COMMENT_LENGTH = 100;
+    private static final String[] FIELDS = {"sessionNo", "memberNo", "profNo",
+        "comment"};
 
 	private String sessionNo;
 	private String memberNo;
@@ -40,31 +46,18 @@ public class Registration implements Serializable {
      * @param memberNo Registration session member number
      * @param profNo Registration session professional number
      * @param comment Registration comment
-     * @throws InvalidFormatException if any of the provided attributes does not
+     * @throws InvalidFormatException naming every field which does not
      * respect the imposed format
      */
     public static void verifyFormat(String sessionNo, String memberNo,
         String profNo, String comment) throws InvalidFormatException {
         
-        if (sessionNo.length() != SESSION_NO_LENGTH) {
-            
-            throw new InvalidFormatException("sessionNo");
-        }
-        
-        if (memberNo.length() != MEMBER_NO_LENGTH) {
-            
-            throw new InvalidFormatException("memberNo");
-        }
-        
-        if (profNo.length() != PROFESSIONAL_NO_LENGTH) {
-            
-            throw new InvalidFormatException("profNo");
-        }
-        
-        if (comment.length() > MAX_COMMENT_LENGTH) {
-            
-            throw new InvalidFormatException("comment");
-        }
+        Formats.report(
+        Formats.flag(Formats.hasLength(sessionNo, SESSION_NO_LENGTH), 0)
+        | Formats.flag(Formats.hasLength(memberNo, MEMBER_NO_LENGTH), 1)
+        | Formats.flag(Formats.hasLength(profNo, PROFESSIONAL_NO_LENGTH), 2)
+        | Formats.flag(Formats.fitsLength(comment, MAX_COMMENT_LENGTH), 3),
+        FIELDS);
     }
 
 	/**
@@ -91,6 +84,27 @@ public class Registration implements Serializable {
         dateSession = new Date(System.currentTimeMillis());
 	}
 
+    /**
+     * Restores a registration read back from a snapshot.
+     *
+     * @param sessionNo Registration session number
+     * @param memberNo Registration session member number
+     * @param profNo Registration session professional number
+     * @param comment Registration comment
+     * @param dateNow Registration date of creation
+     * @param dateSession Registration session date
+     */
+    Registration(String sessionNo, String memberNo, String profNo,
+        String comment, Date dateNow, Date dateSession) {
+
+        this.sessionNo = sessionNo;
+        this.memberNo = memberNo;
+        this.profNo = profNo;
+        this.comment = comment;
+        this.dateNow = dateNow;
+        this.dateSession = dateSession;
+    }
+
     /**
 	 * @return Registration session number
 	 */
@@ -115,6 +129,30 @@ public class Registration implements Serializable {
 		return this.profNo;
 	}
 
+    /**
+     * @return Registration comment
+     */
+    public String getComment() {
+
+        return comment;
+    }
+
+    /**
+     * @return Registration date of creation
+     */
+    public Date getDateNow() {
+
+        return dateNow;
+    }
+
+    /**
+     * @return Registration session date
+     */
+    public Date getDateSession() {
+
+        return dateSession;
+    }
+
     /**
      * String implementation of a registration.
      *
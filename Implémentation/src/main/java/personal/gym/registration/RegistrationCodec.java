@@ -0,0 +1,66 @@
+package personal.gym.registration;
+
+import java.io.IOException;
+
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+import personal.gym.storage.Codec;
+
+/**
+ * Compact binary encoding of registrations. Session, member and professional
+ * numbers are written as integers.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class RegistrationCodec implements Codec<Registration> {
+
+    public static final RegistrationCodec INSTANCE = new RegistrationCodec();
+
+    private RegistrationCodec() {}
+
+    /**
+     * @return Codec identifier
+     */
+    @Override
+    public int getId() {
+
+        return 5;
+    }
+
+    /**
+     * Writes a registration.
+     *
+     * @param out Destination
+     * @param registration Registration to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void encode(BinaryOutput out, Registration registration)
+        throws IOException {
+
+        out.writeCode(registration.getSessionNo());
+        out.writeCode(registration.getMemberNo());
+        out.writeCode(registration.getProfNo());
+        out.writeString(registration.getComment());
+        out.writeTimestamp(registration.getDateNow());
+        out.writeTimestamp(registration.getDateSession());
+    }
+
+    /**
+     * Reads back a registration.
+     *
+     * @param in Source
+     * @return Registration read
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public Registration decode(BinaryInput in) throws IOException {
+
+        return new Registration(in.readCode(), in.readCode(), in.readCode(),
+        in.readString(), in.readTimestamp(), in.readTimestamp());
+    }
+}
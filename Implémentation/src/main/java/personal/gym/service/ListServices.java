@@ -2,6 +2,7 @@ package personal.gym.service;
 
 import java.text.ParseException;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -12,7 +13,11 @@ import personal.gym.accounting.AccountingUtils;
 
 import personal.gym.session.ListSessions;
 
+import personal.gym.storage.Journal;
+import personal.gym.storage.Operation;
+
 import personal.gym.util.Day;
+import personal.gym.util.ReverseIndex;
 
 import personal.gym.validation.ListValidations;
 
@@ -32,9 +37,12 @@ import personal.gym.validation.ListValidations;
 public class ListServices {
 
 	private Map<String, Service> services;
+    private ReverseIndex<String> servicesByProf = new ReverseIndex<>();
 
 	private ListSessions listSessions;
 	private ListValidations listValidations;
+    private Journal journal;
+    private long epoch;
 
     /**
      * Initializes services hashmap.
@@ -47,6 +55,11 @@ public class ListServices {
             
             this.services = new HashMap<>();
         }
+        
+        for (Service service : this.services.values()) {
+            
+            servicesByProf.add(service.getProfNo(), service.getCode());
+        }
     }
 
     /**
@@ -65,6 +78,22 @@ public class ListServices {
         this.listValidations = listValidations;
     }
 
+    /**
+     * @param journal Journal recording the mutations, or null to stop recording
+     */
+    public void setJournal(Journal journal) {
+        
+        this.journal = journal;
+    }
+
+    /**
+     * @return Modification epoch of the services, increased on every change
+     */
+    public long getEpoch() {
+        
+        return epoch;
+    }
+
     /**
      * @return Services map
      */
@@ -110,8 +139,12 @@ public class ListServices {
 
         Service service = new Service(name, startDate, endDate, occurrences,
         capacityMax, comment, fee, serviceTime, profNo);
+        
+        record(Operation.CREATE_SERVICE, service);
 
         services.put(service.getCode(), service);
+        servicesByProf.add(profNo, service.getCode());
+        epoch++;
 
         listSessions.updateSessions(service);
         
@@ -143,7 +176,12 @@ public class ListServices {
 
         Service.verifyFormat(name, startDate, endDate, occurrences, capacityMax,
         comment, fee, profNo);
+        
+        record(Operation.MODIFY_SERVICE, new Service(service.getCode(), name,
+        service.getDateNow(), startDate, endDate, occurrences, capacityMax,
+        comment, fee, serviceTime, profNo));
 
+        servicesByProf.remove(service.getProfNo(), service.getCode());
         service.setName(name);
         service.setStartDate(startDate);
         service.setEndDate(endDate);
@@ -153,6 +191,10 @@ public class ListServices {
         service.setFee(fee);
         service.setServiceTime(serviceTime);
         service.setProfNo(profNo);
+        // Written back for maps handing out copies of the services
+        services.put(service.getCode(), service);
+        servicesByProf.add(profNo, service.getCode());
+        epoch++;
 
         listSessions.updateSessions(service);
 	}
@@ -166,40 +208,84 @@ public class ListServices {
 	 */
 	public Service deleteService(String serviceNo) {
 
-        if (listValidations.isValidationExisting(serviceNo)) {
+        if (listValidations.isValidationExisting(serviceNo)
+            || ! services.containsKey(serviceNo)) {
             
             return null;
-        } else {
+        }
+        
+        if (journal != null) {
             
-            try {
-                
-                Service service = services.remove(serviceNo);
-                
-                listSessions.deleteSessionsNameProf(service.getName(),
-                service.getProfNo());
-                return service;
-            } catch(NullPointerException e) {
-                
-                return null;
-            }
+            journal.append(Operation.DELETE_SERVICE, serviceNo);
         }
+        
+        Service service = services.remove(serviceNo);
+        epoch++;
+        
+        servicesByProf.remove(service.getProfNo(), serviceNo);
+        
+        listSessions.deleteSessionsNameProf(service.getName(),
+        service.getProfNo());
+        
+        return service;
 	}
 
     /**
      * Deletes all services under a professional who is quitting the #GYM
      * facility. Also deletes the existing sessions under that professional.
+     * Only the services of the professional are visited.
 	 * 
 	 * @param profNo Professional number
 	 */
 	public void deleteServicesProf(String profNo) {
     
-        for (Map.Entry<String, Service> e : services.entrySet()) {
-    
-            if (e.getValue().getProfNo().equals(profNo)) {
-    
-                listSessions.deleteSessionsProf(profNo);
-                services.remove(e.getKey());
-            }
+        Collection<String> serviceNos = servicesByProf.removeAll(profNo);
+        
+        for (String serviceNo : serviceNos) {
+            
+            services.remove(serviceNo);
         }
+        
+        if (! serviceNos.isEmpty()) {
+            
+            epoch++;
+        }
+        
+        listSessions.deleteSessionsProf(profNo);
 	}
-}
\ No newline at end of file
+
+    /**
+     * Records the full state of a created or modified service onto the
+     * journal, before it is applied.
+     *
+     * @param operation Recorded operation
+     * @param service Created service or state of the modified service
+     */
+    private void record(Operation operation, Service service) {
+        
+        if (journal == null) {
+            
+            return;
+        }
+        
+        StringBuilder occurrences = new StringBuilder();
+        
+        for (Day occurrence : service.getOccurrences()) {
+            
+            if (occurrences.length() > 0) {
+                
+                occurrences.append(',');
+            }
+            
+            occurrences.append(occurrence.name());
+        }
+        
+        journal.append(operation, service.getCode(), service.getName(),
+        String.valueOf(service.getStartDate().getTime()),
+        String.valueOf(service.getEndDate().getTime()), occurrences.toString(),
+        String.valueOf(service.getCapacityMax()), service.getComment(),
+        String.valueOf(service.getFee()),
+        String.valueOf(service.getServiceTime().getTime()),
+        service.getProfNo());
+    }
+}
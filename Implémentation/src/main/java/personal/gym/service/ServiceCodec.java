@@ -0,0 +1,129 @@
+package personal.gym.service;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.util.Date;
+
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+import personal.gym.storage.Codec;
+
+import personal.gym.util.Day;
+
+/**
+ * Compact binary encoding of services. Start and end dates are written as
+ * epoch days, the service time as minutes since midnight and the weekly
+ * recurrence as a bit set of days.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class ServiceCodec implements Codec<Service> {
+
+    public static final ServiceCodec INSTANCE = new ServiceCodec();
+
+    private static final Day[] DAYS = Day.values();
+
+    private ServiceCodec() {}
+
+    /**
+     * @return Codec identifier
+     */
+    @Override
+    public int getId() {
+
+        return 3;
+    }
+
+    /**
+     * Writes a service.
+     *
+     * @param out Destination
+     * @param service Service to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void encode(BinaryOutput out, Service service) throws IOException {
+
+        int days = 0;
+
+        for (Day day : service.getOccurrences()) {
+
+            days |= 1 << day.ordinal();
+        }
+
+        out.writeCode(service.getCode());
+        out.writeDictString(service.getName());
+        out.writeTimestamp(service.getDateNow());
+        out.writeEpochDay(service.getStartDate());
+        out.writeEpochDay(service.getEndDate());
+        out.writeByte(days);
+        out.writeVarInt(service.getCapacityMax());
+        out.writeString(service.getComment());
+        out.writeVarInt(service.getFee());
+        out.writeMinuteOfDay(service.getServiceTime());
+        out.writeCode(service.getProfNo());
+    }
+
+    /**
+     * Reads back a service.
+     *
+     * @param in Source
+     * @return Service read
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public Service decode(BinaryInput in) throws IOException {
+
+        String code = in.readCode();
+        String name = in.readDictString();
+        Date dateNow = in.readTimestamp();
+        Date startDate = in.readEpochDay();
+        Date endDate = in.readEpochDay();
+        int days = in.readByte();
+
+        if (days >>> DAYS.length != 0) {
+
+            throw new StreamCorruptedException("Unknown days " + days);
+        }
+
+        Day[] occurrences = new Day[Integer.bitCount(days)];
+
+        for (int i = 0, j = 0; i < DAYS.length; i++) {
+
+            if ((days & (1 << i)) != 0) {
+
+                occurrences[j++] = DAYS[i];
+            }
+        }
+
+        int capacityMax = in.readVarInt();
+        String comment = in.readString();
+        int fee = in.readVarInt();
+        Date serviceTime = in.readMinuteOfDay();
+        String profNo = in.readCode();
+
+        return new Service(code, name, dateNow, startDate, endDate,
+        occurrences, capacityMax, comment, fee, serviceTime, profNo);
+    }
+
+    /**
+     * Copies a service, whose attributes change on modifications.
+     *
+     * @param service Service to copy
+     * @return Copy of the service
+     */
+    @Override
+    public Service copy(Service service) {
+
+        return new Service(service.getCode(), service.getName(),
+        service.getDateNow(), service.getStartDate(), service.getEndDate(),
+        service.getOccurrences().clone(), service.getCapacityMax(),
+        service.getComment(), service.getFee(), service.getServiceTime(),
+        service.getProfNo());
+    }
+}
@@ -24,7 +24,9 @@ import personal.gym.util.Day;
  * @author Yan Zhuang
  */
 public class Session implements Serializable {
-    
+
+    private static final long serialVersionUID = 1840141966892657941L;
+
     private String serviceName;
     private Day occurrence;
     private Date serviceTime;
@@ -89,6 +91,22 @@ public class Session implements Serializable {
         return occurrence;
     }
 
+    /**
+     * @return Session time of day
+     */
+    public Date getServiceTime() {
+
+        return serviceTime;
+    }
+
+    /**
+     * @return Session maximum capacity
+     */
+    public int getCapacityMax() {
+
+        return capacityMax;
+    }
+
     /**
      * @return Session remaining capacity
      */
@@ -121,6 +139,14 @@ public class Session implements Serializable {
         return profNo;
     }
 
+    /**
+     * @return Session number
+     */
+    public String getSessionNo() {
+        
+        return sessionNo;
+    }
+
     /**
      * String implementation of a Session.
      *
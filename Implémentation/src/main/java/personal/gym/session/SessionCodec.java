@@ -0,0 +1,110 @@
+package personal.gym.session;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.util.Date;
+
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+import personal.gym.storage.Codec;
+
+import personal.gym.util.Day;
+
+/**
+ * Compact binary encoding of sessions. The service name is written through the
+ * snapshot dictionary and the session time as minutes since midnight.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class SessionCodec implements Codec<Session> {
+
+    public static final SessionCodec INSTANCE = new SessionCodec();
+
+    private static final Day[] DAYS = Day.values();
+
+    private SessionCodec() {}
+
+    /**
+     * @return Codec identifier
+     */
+    @Override
+    public int getId() {
+
+        return 4;
+    }
+
+    /**
+     * Writes a session.
+     *
+     * @param out Destination
+     * @param session Session to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void encode(BinaryOutput out, Session session) throws IOException {
+
+        out.writeCode(session.getSessionNo());
+        out.writeDictString(session.getServiceName());
+        out.writeByte(session.getOccurrence().ordinal());
+        out.writeMinuteOfDay(session.getServiceTime());
+        out.writeVarInt(session.getCapacityMax());
+        out.writeVarInt(session.getRemainCapacity());
+        out.writeVarInt(session.getFee());
+        out.writeCode(session.getProfNo());
+    }
+
+    /**
+     * Reads back a session.
+     *
+     * @param in Source
+     * @return Session read
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public Session decode(BinaryInput in) throws IOException {
+
+        String sessionNo = in.readCode();
+        String serviceName = in.readDictString();
+        int day = in.readByte();
+
+        if (day >= DAYS.length) {
+
+            throw new StreamCorruptedException("Unknown day " + day);
+        }
+
+        Date serviceTime = in.readMinuteOfDay();
+        int capacityMax = in.readVarInt();
+        int remainCapacity = in.readVarInt();
+        int fee = in.readVarInt();
+        String profNo = in.readCode();
+
+        Session session = new Session(serviceName, DAYS[day], serviceTime,
+        capacityMax, fee, profNo, sessionNo);
+        session.setRemainCapacity(remainCapacity);
+
+        return session;
+    }
+
+    /**
+     * Copies a session, whose remaining capacity changes on registrations.
+     *
+     * @param session Session to copy
+     * @return Copy of the session
+     */
+    @Override
+    public Session copy(Session session) {
+
+        Session copy = new Session(session.getServiceName(),
+        session.getOccurrence(), session.getServiceTime(),
+        session.getCapacityMax(), session.getFee(), session.getProfNo(),
+        session.getSessionNo());
+        copy.setRemainCapacity(session.getRemainCapacity());
+
+        return copy;
+    }
+}
@@ -0,0 +1,249 @@
+package personal.gym.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary writer used by the entity codecs. Integers are written as
+ * variable-length quantities, numeric codes as integers, and repeated strings
+ * such as cities, provinces and service names through a dictionary built while
+ * writing: the first occurrence of a string is written in full, the following
+ * ones as a reference to it.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class BinaryOutput implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_NUMERIC_CODE_LENGTH = 15;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    /**
+     * Initializes the writer over a given stream.
+     *
+     * @param stream Underlying stream
+     */
+    public BinaryOutput(OutputStream stream) {
+
+        out = new DataOutputStream(stream instanceof ByteArrayOutputStream ?
+        stream : new BufferedOutputStream(stream, BUFFER_SIZE));
+    }
+
+    /**
+     * @return Number of bytes written so far
+     */
+    public int size() {
+
+        return out.size();
+    }
+
+    /**
+     * @param value Byte to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeByte(int value) throws IOException {
+
+        out.writeByte(value);
+    }
+
+    /**
+     * @param value Fixed-width integer to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeInt(int value) throws IOException {
+
+        out.writeInt(value);
+    }
+
+    /**
+     * Writes a non-negative integer on 1 to 5 bytes.
+     *
+     * @param value Integer to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeVarInt(int value) throws IOException {
+
+        while ((value & ~0x7F) != 0) {
+
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte(value);
+    }
+
+    /**
+     * Writes a signed long on 1 to 10 bytes, small magnitudes using the
+     * fewest bytes.
+     *
+     * @param value Long to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeVarLong(long value) throws IOException {
+
+        long zigzag = (value << 1) ^ (value >> 63);
+
+        while ((zigzag & ~0x7FL) != 0) {
+
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+
+        out.writeByte((int) zigzag);
+    }
+
+    /**
+     * Writes a string, which may be null, preceded by its length.
+     *
+     * @param value String to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeString(String value) throws IOException {
+
+        if (value == null) {
+
+            writeVarInt(0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes a low-cardinality string through the dictionary.
+     *
+     * @param value String to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeDictString(String value) throws IOException {
+
+        Integer id = dictionary.get(value);
+
+        if (id == null) {
+
+            dictionary.put(value, dictionary.size());
+            writeVarInt(0);
+            writeString(value);
+        } else {
+
+            writeVarInt(id + 1);
+        }
+    }
+
+    /**
+     * Writes a zero-padded numeric code such as a member or session number as
+     * an integer along with its width. Codes which are not numeric are written
+     * as plain strings.
+     *
+     * @param code Code to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeCode(String code) throws IOException {
+
+        int length = code.length();
+
+        if (length == 0 || length > MAX_NUMERIC_CODE_LENGTH) {
+
+            writeVarLong(0);
+            writeString(code);
+            return;
+        }
+
+        long value = 0;
+
+        for (int i = 0; i < length; i++) {
+
+            char c = code.charAt(i);
+
+            if (c < '0' || c > '9') {
+
+                writeVarLong(0);
+                writeString(code);
+                return;
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        writeVarLong(((value << 4) | length) + 1);
+    }
+
+    /**
+     * Writes a date as a number of days since the epoch, dropping the time of
+     * day.
+     *
+     * @param date Date to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeEpochDay(Date date) throws IOException {
+
+        writeVarLong(date.toInstant().atZone(ZoneId.systemDefault())
+        .toLocalDate().toEpochDay());
+    }
+
+    /**
+     * Writes the time of day of a date as a number of minutes since midnight.
+     *
+     * @param date Date to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeMinuteOfDay(Date date) throws IOException {
+
+        LocalTime time = date.toInstant().atZone(ZoneId.systemDefault())
+        .toLocalTime();
+        writeVarInt(time.getHour() * 60 + time.getMinute());
+    }
+
+    /**
+     * Writes a date with millisecond precision.
+     *
+     * @param date Date to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTimestamp(Date date) throws IOException {
+
+        writeVarLong(date.getTime());
+    }
+
+    /**
+     * Flushes the buffered bytes onto the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+
+        out.close();
+    }
+}
@@ -0,0 +1,204 @@
+package personal.gym.storage;
+
+import java.io.IOException;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically writes the repositories onto the disk from a daemon thread. A
+ * checkpoint runs once the number of changes not yet written reaches a
+ * threshold, or once the interval elapsed since the previous checkpoint if
+ * any change is pending. Each checkpoint first captures a copy of the modified
+ * repositories while holding the lock of the commands, then writes that copy
+ * without holding it, so that commands only wait for the copy and never for
+ * the disk.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class Checkpointer {
+
+    // How often the pending changes are compared to the threshold
+    private static final long POLL_MILLIS = 1000;
+
+    /**
+     * Copies the modified repositories. Called while holding the lock of the
+     * commands, which must not change any repository meanwhile.
+     */
+    public interface Capture {
+
+        /**
+         * @return Writer of the captured copy
+         * @throws IOException if an I/O error occurs
+         */
+        Flush capture() throws IOException;
+    }
+
+    /**
+     * Writes a captured copy onto the disk.
+     */
+    public interface Flush {
+
+        /**
+         * @return Number of bytes written
+         * @throws IOException if an I/O error occurs
+         */
+        long flush() throws IOException;
+    }
+
+    private final Object lock;
+    private final Capture capture;
+    private final LongSupplier pendingChanges;
+    private final long intervalMillis;
+    private final long threshold;
+    private final ScheduledExecutorService executor;
+
+    private volatile long lastRun = System.nanoTime();
+
+    // Statistics, guarded by this
+    private int checkpoints;
+    private long totalBytes;
+    private long lastBytes;
+    private long lastDuration;
+    private long lastPause;
+    private long maxPause;
+
+    /**
+     * Initializes the checkpointer. No checkpoint runs before {@link #start}.
+     *
+     * @param lock Lock held by the commands while they change the repositories
+     * @param capture Copier of the modified repositories
+     * @param pendingChanges Number of changes not yet written
+     * @param intervalMillis Maximum delay before a change is written
+     * @param threshold Number of pending changes triggering a checkpoint
+     * without waiting for the interval
+     */
+    public Checkpointer(Object lock, Capture capture,
+        LongSupplier pendingChanges, long intervalMillis, long threshold) {
+
+        this.lock = lock;
+        this.capture = capture;
+        this.pendingChanges = pendingChanges;
+        this.intervalMillis = intervalMillis;
+        this.threshold = threshold;
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+
+            Thread thread = new Thread(r, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts checking for pending changes in background.
+     *
+     * @param onFailure Receiver of the errors of background checkpoints
+     */
+    public void start(Consumer<IOException> onFailure) {
+
+        executor.scheduleWithFixedDelay(() -> {
+
+            try {
+
+                runIfDue();
+            } catch(IOException e) {
+
+                onFailure.accept(e);
+            }
+        }, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background checkpoints. A running checkpoint completes.
+     */
+    public void stop() {
+
+        executor.shutdown();
+    }
+
+    /**
+     * Runs a checkpoint if enough changes are pending or if the interval
+     * elapsed with changes pending.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void runIfDue() throws IOException {
+
+        long pending = pendingChanges.getAsLong();
+
+        if (pending >= threshold || pending > 0 && (System.nanoTime()
+            - lastRun) / 1000000 >= intervalMillis) {
+
+            run();
+        }
+    }
+
+    /**
+     * Runs a checkpoint on the calling thread, which must not hold the lock of
+     * the commands if other threads may be running a checkpoint.
+     *
+     * @return Number of bytes written
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized long run() throws IOException {
+
+        long start = System.nanoTime();
+        Flush flush;
+
+        synchronized (lock) {
+
+            flush = capture.capture();
+        }
+
+        long copied = System.nanoTime();
+        long bytes = flush.flush();
+        long end = System.nanoTime();
+
+        lastRun = start;
+        checkpoints++;
+        totalBytes += bytes;
+        lastBytes = bytes;
+        lastDuration = end - start;
+        lastPause = copied - start;
+        maxPause = Math.max(maxPause, lastPause);
+
+        return bytes;
+    }
+
+    /**
+     * @return Statistics of the checkpoints run so far
+     */
+    public synchronized String report() {
+
+        StringBuilder report = new StringBuilder("Checkpoint report\n");
+
+        report.append("\n\tInterval: ").append(intervalMillis / 1000);
+        report.append(" s, threshold: ").append(threshold);
+        report.append(" changes");
+        report.append("\n\tPending changes: ");
+        report.append(pendingChanges.getAsLong());
+        report.append("\n\tCheckpoints: ").append(checkpoints);
+        report.append(", ").append(totalBytes).append(" bytes written");
+
+        if (checkpoints > 0) {
+
+            report.append("\n\n\tLast checkpoint: ");
+            report.append(lastDuration / 1000000).append(" ms, ");
+            report.append(lastBytes).append(" bytes");
+            report.append("\n\tLast copy pause: ");
+            report.append(lastPause / 1000).append(" us");
+            report.append("\n\tLongest copy pause: ");
+            report.append(maxPause / 1000).append(" us");
+        }
+
+        return report.toString();
+    }
+}
@@ -0,0 +1,279 @@
+package personal.gym.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes repository files atomically and verifies their integrity on load.
+ * The contents are written onto a temporary file followed by a trailer holding
+ * their CRC32 checksum; the temporary file is then forced onto the disk and
+ * renamed over the previous version, so a crash leaves either the old or the
+ * new file but never a partial one. Files without a trailer, written before
+ * checksums were introduced, are read without verification.
+ * <p>
+ * The version being replaced is kept as the previous generation of the file,
+ * under the same name followed by {@code .prev}, so that a file found corrupt
+ * on load can be restored from it.
+ * <p>
+ * A checkpoint also records in the trailer the sequence number of the last
+ * journal record the file holds, so that the journal is replayed onto each
+ * file from its own position, whichever generation of it is read.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class ChecksummedFile {
+
+    // "GYMC"
+    private static final int TRAILER_MAGIC = 0x47594D43;
+    // "GYML", trailer preceded by a journal sequence number
+    private static final int LSN_TRAILER_MAGIC = 0x47594D4C;
+    // checksum + magic
+    static final int TRAILER_LENGTH = Long.BYTES + Integer.BYTES;
+    private static final String PREVIOUS_SUFFIX = ".prev";
+
+    /**
+     * Writes the contents of a file onto a stream.
+     */
+    public interface Writer {
+
+        /**
+         * @param out Destination, which may be closed by the writer
+         * @throws IOException if an I/O error occurs
+         */
+        void write(OutputStream out) throws IOException;
+    }
+
+    private ChecksummedFile() {}
+
+    /**
+     * Atomically replaces a file with the given contents.
+     *
+     * @param file Destination file
+     * @param writer Producer of the contents
+     * @return Number of bytes written, trailer included
+     * @throws IOException if an I/O error occurs
+     */
+    public static long write(File file, Writer writer) throws IOException {
+
+        return write(file, -1, writer);
+    }
+
+    /**
+     * Atomically replaces a file with the given contents, recording the
+     * sequence number of the last journal record they hold.
+     *
+     * @param file Destination file
+     * @param lsn Sequence number of the last journal record held, or -1 if
+     * unknown
+     * @param writer Producer of the contents
+     * @return Number of bytes written, trailer included
+     * @throws IOException if an I/O error occurs
+     */
+    public static long write(File file, long lsn, Writer writer)
+        throws IOException {
+
+        File temp = new File(file.getPath() + ".tmp");
+
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+
+            CheckedOutputStream checked = new CheckedOutputStream(
+            new BufferedOutputStream(stream), new CRC32());
+
+            writer.write(new FilterOutputStream(checked) {
+
+                @Override
+                public void write(byte[] b, int off, int len)
+                    throws IOException {
+
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+
+                    flush();
+                }
+            });
+
+            DataOutputStream trailer = new DataOutputStream(checked);
+
+            if (lsn >= 0) {
+
+                // Covered by the checksum
+                trailer.writeLong(lsn);
+            }
+
+            trailer.writeLong(checked.getChecksum().getValue());
+            trailer.writeInt(lsn >= 0 ? LSN_TRAILER_MAGIC : TRAILER_MAGIC);
+            trailer.flush();
+            stream.getFD().sync();
+        }
+
+        long length = temp.length();
+
+        keepPrevious(file);
+
+        try {
+
+            Files.move(temp.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException e) {
+
+            Files.move(temp.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        syncDirectory(file);
+
+        return length;
+    }
+
+    /**
+     * @param file Repository file
+     * @return Previous generation of the file
+     */
+    public static File previous(File file) {
+
+        return new File(file.getPath() + PREVIOUS_SUFFIX);
+    }
+
+    /**
+     * Reads the sequence number recorded in the trailer of a file, without
+     * verifying its checksum.
+     *
+     * @param file Repository file
+     * @return Sequence number of the last journal record held, or -1 if the
+     * file does not exist or records none
+     * @throws IOException if an I/O error occurs
+     */
+    public static long lsnOf(File file) throws IOException {
+
+        if (! file.isFile()) {
+
+            return -1;
+        }
+
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+
+            long length = in.length() - TRAILER_LENGTH - Long.BYTES;
+
+            if (length < 0) {
+
+                return -1;
+            }
+
+            in.seek(length);
+            long lsn = in.readLong();
+            in.skipBytes(Long.BYTES);
+
+            return in.readInt() == LSN_TRAILER_MAGIC ? lsn : -1;
+        }
+    }
+
+    /**
+     * Keeps the current version of a file as its previous generation before
+     * it is replaced. The version is hard linked where supported, so that the
+     * file itself never goes missing, and copied otherwise.
+     *
+     * @param file File about to be replaced
+     * @throws IOException if an I/O error occurs
+     */
+    private static void keepPrevious(File file) throws IOException {
+
+        if (! file.isFile()) {
+
+            return;
+        }
+
+        File previous = previous(file);
+        Files.deleteIfExists(previous.toPath());
+
+        try {
+
+            Files.createLink(previous.toPath(), file.toPath());
+        } catch(UnsupportedOperationException | IOException e) {
+
+            Files.copy(file.toPath(), previous.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the contents of a file after verifying their checksum.
+     *
+     * @param file Source file
+     * @return Stream over the contents, trailer excluded
+     * @throws IOException if an I/O error occurs
+     * @throws StreamCorruptedException if the checksum does not match
+     */
+    public static InputStream open(File file) throws IOException {
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int length = bytes.length - TRAILER_LENGTH;
+        int magic = length < 0 ? 0 : ByteBuffer.wrap(bytes,
+        bytes.length - Integer.BYTES, Integer.BYTES).getInt();
+
+        if (magic != TRAILER_MAGIC && (magic != LSN_TRAILER_MAGIC
+            || length < Long.BYTES)) {
+
+            return new ByteArrayInputStream(bytes);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+
+        if (crc.getValue() != ByteBuffer.wrap(bytes, length, Long.BYTES)
+            .getLong()) {
+
+            throw new StreamCorruptedException("Checksum mismatch in " + file);
+        }
+
+        return new ByteArrayInputStream(bytes, 0,
+        magic == LSN_TRAILER_MAGIC ? length - Long.BYTES : length);
+    }
+
+    /**
+     * Forces the directory entry of a renamed file onto the disk. Platforms
+     * which cannot open directories are skipped.
+     *
+     * @param file Renamed file
+     */
+    private static void syncDirectory(File file) {
+
+        File parent = file.getAbsoluteFile().getParentFile();
+
+        try (FileChannel directory = FileChannel.open(parent.toPath(),
+            StandardOpenOption.READ)) {
+
+            directory.force(true);
+        } catch(IOException e) {
+
+            // Not supported on this platform
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package personal.gym.storage;
+
+import java.io.IOException;
+
+/**
+ * Compact binary encoding of a persisted entity.
+ *
+ * @param <T> Type of the encoded entity
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public interface Codec<T> {
+
+    /**
+     * @return Identifier written in the header of the snapshot files
+     */
+    int getId();
+
+    /**
+     * Writes an entity.
+     *
+     * @param out Destination
+     * @param value Entity to write
+     * @throws IOException if an I/O error occurs
+     */
+    void encode(BinaryOutput out, T value) throws IOException;
+
+    /**
+     * Reads back an entity written by {@link #encode(BinaryOutput, Object)}.
+     *
+     * @param in Source
+     * @return Entity read
+     * @throws IOException if an I/O error occurs
+     */
+    T decode(BinaryInput in) throws IOException;
+
+    /**
+     * Copies an entity so that a snapshot captured while the repository keeps
+     * changing can be encoded later. Entities never modified in place are
+     * shared rather than copied.
+     *
+     * @param value Entity to copy
+     * @return Entity detached from later modifications
+     */
+    default T copy(T value) {
+
+        return value;
+    }
+}
@@ -0,0 +1,123 @@
+package personal.gym.storage;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purges deleted entities from a daemon thread. A deletion only leaves a
+ * tombstone hiding the entity, and the entries depending on it are purged
+ * later in batches of bounded size, each holding the lock of the commands on
+ * its own, so that commands wait for one batch at most and never for a whole
+ * purge.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class Compactor {
+
+    // How often the tombstones are looked for
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Purges the entries depending on deleted entities. Called while holding
+     * the lock of the commands.
+     */
+    public interface Compaction {
+
+        /**
+         * @param budget Maximum number of entries purged
+         * @return Number of entries purged, 0 once nothing is left to purge
+         */
+        int compact(int budget);
+    }
+
+    private final Object lock;
+    private final Compaction compaction;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+
+    // Statistics, only written by the compacting thread
+    private volatile long batches;
+    private volatile long purged;
+
+    /**
+     * Initializes the compactor. Nothing is purged before {@link #start}.
+     *
+     * @param lock Lock held by the commands while they change the repositories
+     * @param compaction Purger of the deleted entities
+     * @param batchSize Maximum number of entries purged while holding the lock
+     */
+    public Compactor(Object lock, Compaction compaction, int batchSize) {
+
+        this.lock = lock;
+        this.compaction = compaction;
+        this.batchSize = batchSize;
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+
+            Thread thread = new Thread(r, "compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts purging in background.
+     */
+    public void start() {
+
+        executor.scheduleWithFixedDelay(this::run, POLL_MILLIS, POLL_MILLIS,
+        TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops purging in background. A running batch completes.
+     */
+    public void stop() {
+
+        executor.shutdown();
+    }
+
+    /**
+     * Purges batch after batch until nothing is left, releasing the lock
+     * between batches.
+     */
+    private void run() {
+
+        int count;
+
+        do {
+
+            synchronized (lock) {
+
+                count = compaction.compact(batchSize);
+            }
+
+            if (count > 0) {
+
+                batches++;
+                purged += count;
+            }
+        } while (count > 0);
+    }
+
+    /**
+     * @return Number of batches run so far
+     */
+    public long getBatches() {
+
+        return batches;
+    }
+
+    /**
+     * @return Number of entries purged so far
+     */
+    public long getPurged() {
+
+        return purged;
+    }
+}
@@ -0,0 +1,238 @@
+package personal.gym.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repository map reading and writing its entities through a
+ * {@link StorageEngine}, each entity being encoded on its own with the codec
+ * of the repository.
+ * <p>
+ * Like {@link personal.gym.person.MappedPersonStore}, the map hands out
+ * copies: an entity read from the map must be put back for a change to be
+ * persisted, which the repositories do on every modification. I/O errors are
+ * rethrown as {@link UncheckedIOException}, the {@link Map} methods not
+ * declaring them.
+ *
+ * @param <T> Type of the entities
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class EngineMap<T> extends AbstractMap<String, T> implements Closeable {
+
+    private final StorageEngine engine;
+    private final Codec<T> codec;
+
+    /**
+     * @param engine Engine storing the encoded entities
+     * @param codec Codec of the entities
+     */
+    public EngineMap(StorageEngine engine, Codec<T> codec) {
+
+        this.engine = engine;
+        this.codec = codec;
+    }
+
+    /**
+     * @return Engine storing the encoded entities
+     */
+    public StorageEngine getEngine() {
+
+        return engine;
+    }
+
+    @Override
+    public int size() {
+
+        return engine.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+
+        return get(key) != null;
+    }
+
+    /**
+     * @param key Entity code
+     * @return Copy of the entity or null if no entity has this code
+     */
+    @Override
+    public T get(Object key) {
+
+        if (! (key instanceof String)) {
+
+            return null;
+        }
+
+        try {
+
+            return decode(engine.get((String) key));
+        } catch(IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param key Entity code
+     * @param value Entity to write
+     * @return Previous copy of the entity or null if the code was free
+     */
+    @Override
+    public T put(String key, T value) {
+
+        try {
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryOutput out = new BinaryOutput(bytes);
+
+            codec.encode(out, value);
+            out.close();
+
+            return decode(engine.put(key, bytes.toByteArray()));
+        } catch(IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param key Entity code
+     * @return Copy of the removed entity or null if no entity has this code
+     */
+    @Override
+    public T remove(Object key) {
+
+        if (! (key instanceof String)) {
+
+            return null;
+        }
+
+        try {
+
+            return decode(engine.delete((String) key));
+        } catch(IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return Entries of the engine, decoded one at a time in the order of
+     * their codes
+     */
+    @Override
+    public Set<Map.Entry<String, T>> entrySet() {
+
+        return new AbstractSet<Map.Entry<String, T>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, T>> iterator() {
+
+                Iterator<Map.Entry<String, byte[]>> entries = engine.iterator();
+
+                return new Iterator<Map.Entry<String, T>>() {
+
+                    private String last;
+
+                    @Override
+                    public boolean hasNext() {
+
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, T> next() {
+
+                        Map.Entry<String, byte[]> entry = entries.next();
+                        last = entry.getKey();
+
+                        try {
+
+                            return new AbstractMap.SimpleImmutableEntry<>(last,
+                            decode(entry.getValue()));
+                        } catch(IOException e) {
+
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+
+                    @Override
+                    public void remove() {
+
+                        if (last == null) {
+
+                            throw new IllegalStateException();
+                        }
+
+                        EngineMap.this.remove(last);
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+
+                return EngineMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Captures the pending changes. Must be called while holding the lock of
+     * the commands.
+     *
+     * @param lsn Sequence number of the last journal record applied, or -1
+     * if unknown
+     * @return Flush making the captured changes durable
+     */
+    public Checkpointer.Flush capture(long lsn) {
+
+        return engine.capture(lsn);
+    }
+
+    /**
+     * Makes the pending changes durable right away, for changes made before
+     * the checkpoints start.
+     *
+     * @param lsn Sequence number of the last journal record applied, or -1
+     * if unknown
+     * @return Number of bytes written
+     * @throws IOException if an I/O error occurs
+     */
+    public long flush(long lsn) throws IOException {
+
+        return engine.capture(lsn).flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        engine.close();
+    }
+
+    /**
+     * @param bytes Encoded entity or null
+     * @return Decoded entity or null
+     * @throws IOException if the entity cannot be decoded
+     */
+    private T decode(byte[] bytes) throws IOException {
+
+        return bytes == null ? null
+        : codec.decode(new BinaryInput(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,284 @@
+package personal.gym.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Allocator of the numbers from which the codes of the entities are built.
+ * Numbers are handed out by an atomic counter, without any lock, from blocks
+ * reserved ahead. Before a number past the current block is handed out, the
+ * end of a new block is written to the file of the allocator, so that only
+ * this high-water mark is persisted, once per block. On startup the counter
+ * resumes from the mark: the unused numbers of the last block are skipped
+ * rather than handed out twice, even after a crash. On a clean exit,
+ * {@link #close()} lowers the mark onto the next number so that none is
+ * skipped.
+ * <p>
+ * An allocator which was not opened over a file, as in the unit tests, does
+ * not persist anything.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class IdAllocator {
+
+    /**
+     * Numbers of the members.
+     */
+    public static final IdAllocator MEMBERS =
+    new IdAllocator("memberIds.dat", 64);
+
+    /**
+     * Numbers of the professionals.
+     */
+    public static final IdAllocator PROFESSIONALS =
+    new IdAllocator("profIds.dat", 16);
+
+    /**
+     * Numbers of the services.
+     */
+    public static final IdAllocator SERVICES =
+    new IdAllocator("serviceIds.dat", 16);
+
+    /**
+     * Numbers of the service names of the services directory, which only
+     * holds a thousand of them and thus reserves them one at a time.
+     */
+    public static final IdAllocator SERVICE_NAMES =
+    new IdAllocator("serviceNameIds.dat", 1);
+
+    private static final IdAllocator[] VALUES = {MEMBERS, PROFESSIONALS,
+        SERVICES, SERVICE_NAMES};
+
+    // "GYMI"
+    private static final int MAGIC = 0x47594D49;
+
+    private final String fileName;
+    private final int blockSize;
+    private final AtomicInteger next = new AtomicInteger();
+
+    // Numbers below the mark may be handed out without writing the file
+    private volatile int reserved = Integer.MAX_VALUE;
+    private File file;
+    private int opened;
+
+    /**
+     * @param fileName Name of the file holding the high-water mark
+     * @param blockSize Number of numbers reserved each time the mark is
+     * written
+     */
+    public IdAllocator(String fileName, int blockSize) {
+
+        this.fileName = fileName;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return Allocators of the entity codes
+     */
+    public static IdAllocator[] values() {
+
+        return VALUES.clone();
+    }
+
+    /**
+     * Reads the high-water mark written by an allocator.
+     *
+     * @param file File of the allocator
+     * @return High-water mark
+     * @throws IOException if an I/O error occurs or the file is corrupt
+     */
+    public static int readMark(File file) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(
+            ChecksummedFile.open(file))) {
+
+            if (in.readInt() != MAGIC) {
+
+                throw new IOException(file + " is not a high-water mark");
+            }
+
+            return in.readInt();
+        }
+    }
+
+    /**
+     * @return Name of the file holding the high-water mark
+     */
+    public String getFileName() {
+
+        return fileName;
+    }
+
+    /**
+     * Starts persisting the high-water marks onto a file, resuming from the
+     * given mark unless the counter is already past it.
+     *
+     * @param file File holding the high-water mark
+     * @param mark High-water mark read back from the file, or 0
+     */
+    public synchronized void open(File file, int mark) {
+
+        this.file = file;
+        advanceTo(mark);
+        opened = next.get();
+        reserved = opened;
+    }
+
+    /**
+     * Moves the counter past the mark it was opened with, once replaying the
+     * journal positioned it on the recorded numbers: numbers reserved before
+     * a crash but never recorded are skipped as well.
+     */
+    public void resume() {
+
+        advanceTo(opened);
+    }
+
+    /**
+     * @return Next number to be handed out
+     */
+    public int get() {
+
+        return next.get();
+    }
+
+    /**
+     * Moves the counter onto a number, as when the creation of an entity is
+     * replayed from the journal.
+     *
+     * @param value Next number to be handed out
+     */
+    public void set(int value) {
+
+        next.set(value);
+        ensureReserved(value);
+    }
+
+    /**
+     * Moves the counter past a number known to be in use, unless it already
+     * is.
+     *
+     * @param value Number which must not be handed out
+     */
+    public void advanceTo(int value) {
+
+        int current;
+
+        while ((current = next.get()) < value
+            && ! next.compareAndSet(current, value)) {
+
+            // Retries against concurrent allocations
+        }
+
+        ensureReserved(next.get());
+    }
+
+    /**
+     * @return Number handed out
+     * @throws UncheckedIOException if the high-water mark cannot be written
+     */
+    public int next() {
+
+        return reserve(1);
+    }
+
+    /**
+     * Hands out consecutive numbers at once, for entities created in bulk.
+     *
+     * @param count Number of numbers to hand out
+     * @return First number handed out
+     * @throws UncheckedIOException if the high-water mark cannot be written
+     */
+    public int reserve(int count) {
+
+        int first = next.getAndAdd(count);
+
+        ensureReserved(first + count);
+
+        return first;
+    }
+
+    /**
+     * Writes the next number as the high-water mark, releasing the numbers
+     * reserved ahead. Must only be called once no entity is being created,
+     * as when exiting.
+     *
+     * @throws IOException if the mark cannot be written
+     */
+    public synchronized void close() throws IOException {
+
+        if (file == null) {
+
+            return;
+        }
+
+        int mark = next.get();
+
+        writeMark(mark);
+        reserved = mark;
+    }
+
+    /**
+     * Writes a new high-water mark if numbers up to the given one were not
+     * reserved yet.
+     *
+     * @param end Number past the numbers handed out
+     * @throws UncheckedIOException if the high-water mark cannot be written
+     */
+    private void ensureReserved(int end) {
+
+        if (end > reserved) {
+
+            extend(end);
+        }
+    }
+
+    /**
+     * @param end Number past the numbers handed out
+     * @throws UncheckedIOException if the high-water mark cannot be written
+     */
+    private synchronized void extend(int end) {
+
+        if (end <= reserved) {
+
+            return;
+        }
+
+        int mark = end + blockSize - 1;
+
+        try {
+
+            writeMark(mark);
+        } catch(IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        reserved = mark;
+    }
+
+    /**
+     * @param mark High-water mark
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeMark(int mark) throws IOException {
+
+        ChecksummedFile.write(file, stream -> {
+
+            DataOutputStream out = new DataOutputStream(stream);
+
+            out.writeInt(MAGIC);
+            out.writeInt(mark);
+            out.flush();
+        });
+    }
+}
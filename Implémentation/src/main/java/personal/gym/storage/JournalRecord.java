@@ -0,0 +1,71 @@
+package personal.gym.storage;
+
+import java.util.Arrays;
+
+/**
+ * Entity describing a single mutation read back from the {@link Journal}.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class JournalRecord {
+
+    private final long lsn;
+    private final Operation operation;
+    private final String[] args;
+
+    /**
+     * Initializes a journal record.
+     *
+     * @param lsn Log sequence number of the record
+     * @param operation Recorded operation
+     * @param args Arguments of the operation
+     */
+    public JournalRecord(long lsn, Operation operation, String[] args) {
+
+        this.lsn = lsn;
+        this.operation = operation;
+        this.args = args;
+    }
+
+    /**
+     * @return Log sequence number of the record
+     */
+    public long getLsn() {
+
+        return lsn;
+    }
+
+    /**
+     * @return Recorded operation
+     */
+    public Operation getOperation() {
+
+        return operation;
+    }
+
+    /**
+     * Retrieves the argument at the given position.
+     *
+     * @param index Argument position
+     * @return Argument value
+     */
+    public String getArg(int index) {
+
+        return args[index];
+    }
+
+    /**
+     * String implementation of a journal record.
+     *
+     * @return String implementation of a journal record
+     */
+    @Override
+    public String toString() {
+
+        return lsn + " " + operation + " " + Arrays.toString(args);
+    }
+}
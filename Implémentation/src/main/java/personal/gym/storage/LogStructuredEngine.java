@@ -0,0 +1,837 @@
+package personal.gym.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.nio.file.StandardOpenOption;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Embedded log-structured storage engine. Changes are gathered in a sorted
+ * table in memory, which each checkpoint writes onto a new immutable file of
+ * sorted records, called a run. A point read looks up the table, then the runs
+ * from the newest to the oldest: each run keeps one key out of
+ * {@value #INDEX_INTERVAL} in memory along with its offset, so that it is read
+ * with a binary search in memory and a single read of a small block on disk.
+ * A removed entity is written as a tombstone hiding its older versions.
+ * <p>
+ * Once more than {@value #MAX_RUNS} runs exist, they are merged into a single
+ * run without the tombstones nor the versions they replace. A manifest,
+ * atomically replaced whenever runs are added or merged, lists the runs of the
+ * engine; run files it does not list are left over from an interrupted
+ * checkpoint and are deleted on opening.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class LogStructuredEngine implements StorageEngine {
+
+    // "GYMR"
+    private static final int RUN_MAGIC = 0x47594D52;
+    // "GYMM"
+    private static final int MANIFEST_MAGIC = 0x47594D4D;
+    private static final int VERSION = 1;
+    // magic + version
+    private static final int HEADER_LENGTH = Integer.BYTES + 1;
+    // offset of the index + magic
+    private static final int FOOTER_LENGTH = Long.BYTES + Integer.BYTES;
+    private static final int INDEX_INTERVAL = 16;
+    private static final int MAX_RUNS = 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String MANIFEST = "manifest.dat";
+    private static final String RUN_PREFIX = "run-";
+    private static final String RUN_SUFFIX = ".dat";
+    private static final byte LIVE = 0;
+    private static final byte REMOVED = 1;
+
+    // Marks a removed entity in the tables, compared by identity
+    private static final byte[] TOMBSTONE = new byte[0];
+
+    private final File folder;
+
+    private TreeMap<String, byte[]> memtable = new TreeMap<>();
+    // Table captured by a checkpoint and being written onto a run
+    private NavigableMap<String, byte[]> frozen =
+    Collections.emptyNavigableMap();
+    private final List<Run> runs = new ArrayList<>(); // oldest first
+    // Runs merged by the last compaction, closed by the next one
+    private List<Run> retired = new ArrayList<>();
+    private int nextRunId;
+    private int size;
+    private int durableSize;
+    private long durableLsn;
+
+    /**
+     * Opens the engine stored in a folder, creating the folder if needed.
+     *
+     * @param folder Folder holding the manifest and the runs
+     * @throws IOException if an I/O error occurs or the manifest is corrupt
+     */
+    public LogStructuredEngine(File folder) throws IOException {
+
+        this.folder = folder;
+
+        if (! folder.isDirectory() && ! folder.mkdirs()) {
+
+            throw new IOException("Unable to create " + folder);
+        }
+
+        File manifest = new File(folder, MANIFEST);
+        Set<String> listed = new HashSet<>();
+
+        if (manifest.isFile()) {
+
+            durableLsn = ChecksummedFile.lsnOf(manifest);
+
+            try (DataInputStream in = new DataInputStream(
+                ChecksummedFile.open(manifest))) {
+
+                if (in.readInt() != MANIFEST_MAGIC
+                    || in.readByte() != VERSION) {
+
+                    throw new StreamCorruptedException(manifest
+                    + " is not a manifest");
+                }
+
+                nextRunId = in.readInt();
+                size = in.readInt();
+                int count = in.readInt();
+
+                for (int i = 0; i < count; i++) {
+
+                    Run run = new Run(in.readInt());
+                    runs.add(run);
+                    listed.add(run.file.getName());
+                }
+            } catch(IOException e) {
+
+                close();
+                throw e;
+            }
+        }
+
+        durableSize = size;
+
+        for (File file : folder.listFiles()) {
+
+            if (file.getName().startsWith(RUN_PREFIX)
+                && ! listed.contains(file.getName())) {
+
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * @return Folder holding the manifest and the runs
+     */
+    public File getFolder() {
+
+        return folder;
+    }
+
+    /**
+     * @return Number of runs on disk
+     */
+    public synchronized int getRunCount() {
+
+        return runs.size();
+    }
+
+    @Override
+    public synchronized byte[] get(String key) throws IOException {
+
+        byte[] value = memtable.get(key);
+
+        if (value == null) {
+
+            value = frozen.get(key);
+        }
+
+        for (int i = runs.size() - 1; value == null && i >= 0; i--) {
+
+            value = runs.get(i).get(key);
+        }
+
+        return value == TOMBSTONE ? null : value;
+    }
+
+    @Override
+    public synchronized byte[] put(String key, byte[] value)
+        throws IOException {
+
+        byte[] previous = get(key);
+        memtable.put(key, value);
+
+        if (previous == null) {
+
+            size++;
+        }
+
+        return previous;
+    }
+
+    @Override
+    public synchronized byte[] delete(String key) throws IOException {
+
+        byte[] previous = get(key);
+
+        if (previous != null) {
+
+            memtable.put(key, TOMBSTONE);
+            size--;
+        }
+
+        return previous;
+    }
+
+    @Override
+    public synchronized int size() {
+
+        return size;
+    }
+
+    /**
+     * Merges the table, the captured table and the runs. The table is copied,
+     * while the captured table and the runs are never modified once created.
+     *
+     * @return Iterator over the codes and encoded entities
+     */
+    @Override
+    public synchronized Iterator<Map.Entry<String, byte[]>> iterator() {
+
+        List<Iterator<Map.Entry<String, byte[]>>> sources = new ArrayList<>();
+
+        sources.add(new TreeMap<>(memtable).entrySet().iterator());
+        sources.add(frozen.entrySet().iterator());
+
+        for (int i = runs.size() - 1; i >= 0; i--) {
+
+            sources.add(runs.get(i).iterator());
+        }
+
+        return new MergeIterator(sources);
+    }
+
+    @Override
+    public synchronized long getLsn() {
+
+        return durableLsn;
+    }
+
+    /**
+     * Captures the table, which stays readable until it is written onto a
+     * run. A table whose previous flush failed is captured again along with
+     * the newer changes. Without any change, only the journal position in
+     * the manifest is moved forward, so that an unchanged engine does not
+     * hold back the journal.
+     *
+     * @param lsn Sequence number of the last journal record applied, or -1
+     * if unknown
+     * @return Flush writing the captured table onto a new run
+     */
+    @Override
+    public synchronized Checkpointer.Flush capture(long lsn) {
+
+        if (memtable.isEmpty() && frozen.isEmpty()) {
+
+            return lsn <= durableLsn ? () -> 0 : () -> {
+
+                synchronized (this) {
+
+                    durableLsn = Math.max(durableLsn, lsn);
+                    return writeManifest();
+                }
+            };
+        }
+
+        if (frozen.isEmpty()) {
+
+            frozen = memtable;
+        } else {
+
+            TreeMap<String, byte[]> merged = new TreeMap<>(frozen);
+            merged.putAll(memtable);
+            frozen = merged;
+        }
+
+        memtable = new TreeMap<>();
+
+        NavigableMap<String, byte[]> captured = frozen;
+        int capturedSize = size;
+
+        return () -> commit(captured, capturedSize, lsn);
+    }
+
+    /**
+     * Closes the runs. Changes not yet captured and flushed are lost.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        for (Run run : runs) {
+
+            run.close();
+        }
+
+        for (Run run : retired) {
+
+            run.close();
+        }
+    }
+
+    /**
+     * Writes a captured table onto a new run, then lists the run in the
+     * manifest. Runs are merged once there are too many of them.
+     *
+     * @param captured Captured table
+     * @param capturedSize Number of entities when the table was captured
+     * @param lsn Sequence number of the last journal record captured
+     * @return Number of bytes written
+     * @throws IOException if an I/O error occurs
+     */
+    private long commit(NavigableMap<String, byte[]> captured,
+        int capturedSize, long lsn) throws IOException {
+
+        int id;
+
+        synchronized (this) {
+
+            id = nextRunId++;
+        }
+
+        Run run = writeRun(id, captured.entrySet().iterator());
+        long bytes = run.file.length();
+        boolean compact;
+
+        synchronized (this) {
+
+            runs.add(run);
+
+            if (frozen == captured) {
+
+                frozen = Collections.emptyNavigableMap();
+            }
+
+            durableSize = capturedSize;
+            durableLsn = lsn < 0 ? lsn : Math.max(durableLsn, lsn);
+            bytes += writeManifest();
+            compact = runs.size() > MAX_RUNS;
+        }
+
+        return compact ? bytes + compact() : bytes;
+    }
+
+    /**
+     * Merges every run onto a single one. The merged runs are deleted, but
+     * stay open until the next compaction so that iterations over them can
+     * end.
+     *
+     * @return Number of bytes written
+     * @throws IOException if an I/O error occurs
+     */
+    private long compact() throws IOException {
+
+        List<Run> inputs;
+        int id;
+
+        synchronized (this) {
+
+            inputs = new ArrayList<>(runs);
+            id = nextRunId++;
+        }
+
+        List<Iterator<Map.Entry<String, byte[]>>> sources = new ArrayList<>();
+
+        for (int i = inputs.size() - 1; i >= 0; i--) {
+
+            sources.add(inputs.get(i).iterator());
+        }
+
+        Run merged = writeRun(id, new MergeIterator(sources));
+        long bytes = merged.file.length();
+        List<Run> closed;
+
+        synchronized (this) {
+
+            runs.removeAll(inputs);
+            runs.add(0, merged);
+            bytes += writeManifest();
+            closed = retired;
+            retired = inputs;
+        }
+
+        for (Run run : closed) {
+
+            run.close();
+        }
+
+        for (Run run : inputs) {
+
+            run.file.delete();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Replaces the manifest with the current list of runs and journal
+     * position.
+     *
+     * @return Number of bytes written
+     * @throws IOException if an I/O error occurs
+     */
+    private long writeManifest() throws IOException {
+
+        return ChecksummedFile.write(new File(folder, MANIFEST), durableLsn,
+        stream -> {
+
+            DataOutputStream out = new DataOutputStream(stream);
+
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(nextRunId);
+            out.writeInt(durableSize);
+            out.writeInt(runs.size());
+
+            for (Run run : runs) {
+
+                out.writeInt(run.id);
+            }
+
+            out.flush();
+        });
+    }
+
+    /**
+     * Writes a run.
+     *
+     * @param id Run identifier
+     * @param entries Records sorted by code
+     * @return Opened run
+     * @throws IOException if an I/O error occurs
+     */
+    private Run writeRun(int id,
+        Iterator<Map.Entry<String, byte[]>> entries) throws IOException {
+
+        ChecksummedFile.write(runFile(id), stream -> {
+
+            DataOutputStream out = new DataOutputStream(stream);
+            List<String> keys = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            int count = 0;
+
+            out.writeInt(RUN_MAGIC);
+            out.writeByte(VERSION);
+
+            while (entries.hasNext()) {
+
+                Map.Entry<String, byte[]> entry = entries.next();
+                byte[] value = entry.getValue();
+
+                if (count++ % INDEX_INTERVAL == 0) {
+
+                    keys.add(entry.getKey());
+                    offsets.add((long) out.size());
+                }
+
+                out.writeByte(value == TOMBSTONE ? REMOVED : LIVE);
+                out.writeUTF(entry.getKey());
+
+                if (value != TOMBSTONE) {
+
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            }
+
+            long end = out.size();
+
+            out.writeInt(count);
+            out.writeInt(keys.size());
+
+            for (int i = 0; i < keys.size(); i++) {
+
+                out.writeUTF(keys.get(i));
+                out.writeLong(offsets.get(i));
+            }
+
+            out.writeLong(end);
+            out.writeInt(RUN_MAGIC);
+            out.flush();
+        });
+
+        return new Run(id);
+    }
+
+    /**
+     * @param id Run identifier
+     * @return File of the run
+     */
+    private File runFile(int id) {
+
+        return new File(folder, RUN_PREFIX + id + RUN_SUFFIX);
+    }
+
+    /**
+     * Reads a record of a run.
+     *
+     * @param in Source positioned on the record
+     * @return Code and encoded entity, or tombstone
+     * @throws IOException if an I/O error occurs
+     */
+    private static Map.Entry<String, byte[]> readRecord(DataInput in)
+        throws IOException {
+
+        int flag = in.readByte();
+        String key = in.readUTF();
+
+        if (flag == REMOVED) {
+
+            return new AbstractMap.SimpleImmutableEntry<>(key, TOMBSTONE);
+        }
+
+        byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+
+        return new AbstractMap.SimpleImmutableEntry<>(key, value);
+    }
+
+    /**
+     * Immutable file of records sorted by code, followed by a sparse index of
+     * the records and a footer giving the offset of the index.
+     */
+    private class Run implements Closeable {
+
+        private final int id;
+        private final File file;
+        private final FileChannel channel;
+        private final int count;
+        private final String[] keys; // one key out of INDEX_INTERVAL
+        private final long[] offsets;
+        private final long end; // end of the records
+
+        /**
+         * Opens a run and reads its index.
+         *
+         * @param id Run identifier
+         * @throws IOException if an I/O error occurs or the file is not a run
+         */
+        Run(int id) throws IOException {
+
+            this.id = id;
+            this.file = runFile(id);
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+            try {
+
+                long footer = channel.size() - ChecksummedFile.TRAILER_LENGTH
+                - FOOTER_LENGTH;
+                ByteBuffer buffer = footer < HEADER_LENGTH ? null
+                : ByteBuffer.wrap(read(footer, FOOTER_LENGTH));
+
+                if (buffer == null || buffer.getInt(Long.BYTES) != RUN_MAGIC
+                    || ByteBuffer.wrap(read(0, HEADER_LENGTH)).getInt()
+                    != RUN_MAGIC) {
+
+                    throw new StreamCorruptedException(file + " is not a run");
+                }
+
+                end = buffer.getLong(0);
+
+                DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(read(end, (int) (footer - end))));
+
+                count = in.readInt();
+                keys = new String[in.readInt()];
+                offsets = new long[keys.length];
+
+                for (int i = 0; i < keys.length; i++) {
+
+                    keys[i] = in.readUTF();
+                    offsets[i] = in.readLong();
+                }
+            } catch(IOException | RuntimeException e) {
+
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Reads the block of records which may hold a code.
+         *
+         * @param key Entity code
+         * @return Encoded entity, tombstone, or null if the run does not hold
+         * the code
+         * @throws IOException if an I/O error occurs
+         */
+        byte[] get(String key) throws IOException {
+
+            int block = Arrays.binarySearch(keys, key);
+
+            if (block < 0 && (block = -block - 2) < 0) {
+
+                return null;
+            }
+
+            long start = offsets[block];
+            long stop = block + 1 < offsets.length ? offsets[block + 1] : end;
+            DataInputStream in = new DataInputStream(
+            new ByteArrayInputStream(read(start, (int) (stop - start))));
+
+            while (in.available() > 0) {
+
+                Map.Entry<String, byte[]> entry = readRecord(in);
+                int comparison = entry.getKey().compareTo(key);
+
+                if (comparison >= 0) {
+
+                    return comparison == 0 ? entry.getValue() : null;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * @return Iterator reading the records sequentially
+         */
+        Iterator<Map.Entry<String, byte[]>> iterator() {
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new InputStream() {
+
+                private long position = HEADER_LENGTH;
+
+                @Override
+                public int read() throws IOException {
+
+                    byte[] b = new byte[1];
+
+                    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len)
+                    throws IOException {
+
+                    if (position >= end) {
+
+                        return -1;
+                    }
+
+                    int n = channel.read(ByteBuffer.wrap(b, off,
+                    (int) Math.min(len, end - position)), position);
+                    position += Math.max(n, 0);
+
+                    return n;
+                }
+            }, BUFFER_SIZE));
+
+            return new Iterator<Map.Entry<String, byte[]>>() {
+
+                private int remaining = count;
+
+                @Override
+                public boolean hasNext() {
+
+                    return remaining > 0;
+                }
+
+                @Override
+                public Map.Entry<String, byte[]> next() {
+
+                    if (remaining == 0) {
+
+                        throw new NoSuchElementException();
+                    }
+
+                    try {
+
+                        remaining--;
+                        return readRecord(in);
+                    } catch(IOException e) {
+
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+        }
+
+        /**
+         * @param position Offset in the file
+         * @param length Number of bytes
+         * @return Bytes read
+         * @throws IOException if an I/O error occurs
+         */
+        private byte[] read(long position, int length) throws IOException {
+
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+
+            while (buffer.hasRemaining()) {
+
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+
+                    throw new EOFException("Truncated run " + file);
+                }
+            }
+
+            return buffer.array();
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            channel.close();
+        }
+    }
+
+    /**
+     * Merges sorted sources, given from the newest to the oldest, keeping the
+     * newest version of each code and skipping the removed entities.
+     */
+    private static class MergeIterator
+        implements Iterator<Map.Entry<String, byte[]>> {
+
+        private final PriorityQueue<Source> queue = new PriorityQueue<>(
+        Comparator.comparing((Source s) -> s.entry.getKey())
+        .thenComparingInt(s -> s.rank));
+        private Map.Entry<String, byte[]> next;
+
+        /**
+         * @param sources Sorted sources, newest first
+         */
+        MergeIterator(List<Iterator<Map.Entry<String, byte[]>>> sources) {
+
+            for (int i = 0; i < sources.size(); i++) {
+
+                Source source = new Source(sources.get(i), i);
+
+                if (source.advance()) {
+
+                    queue.add(source);
+                }
+            }
+
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, byte[]> next() {
+
+            if (next == null) {
+
+                throw new NoSuchElementException();
+            }
+
+            Map.Entry<String, byte[]> entry = next;
+            advance();
+
+            return entry;
+        }
+
+        /**
+         * Moves onto the next code whose newest version is not removed.
+         */
+        private void advance() {
+
+            next = null;
+
+            while (next == null && ! queue.isEmpty()) {
+
+                Source source = queue.poll();
+                Map.Entry<String, byte[]> entry = source.entry;
+
+                while (! queue.isEmpty()
+                    && queue.peek().entry.getKey().equals(entry.getKey())) {
+
+                    Source older = queue.poll();
+
+                    if (older.advance()) {
+
+                        queue.add(older);
+                    }
+                }
+
+                if (source.advance()) {
+
+                    queue.add(source);
+                }
+
+                if (entry.getValue() != TOMBSTONE) {
+
+                    next = entry;
+                }
+            }
+        }
+
+        /**
+         * Sorted source along with its current entry.
+         */
+        private static class Source {
+
+            private final Iterator<Map.Entry<String, byte[]>> iterator;
+            private final int rank;
+            private Map.Entry<String, byte[]> entry;
+
+            /**
+             * @param iterator Sorted entries
+             * @param rank Recency of the source, 0 being the newest
+             */
+            Source(Iterator<Map.Entry<String, byte[]>> iterator, int rank) {
+
+                this.iterator = iterator;
+                this.rank = rank;
+            }
+
+            /**
+             * @return True if the source had another entry
+             */
+            boolean advance() {
+
+                entry = iterator.hasNext() ? iterator.next() : null;
+
+                return entry != null;
+            }
+        }
+    }
+}
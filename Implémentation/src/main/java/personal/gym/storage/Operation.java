@@ -0,0 +1,71 @@
+package personal.gym.storage;
+
+/**
+ * Constants indicating the mutations recorded onto the {@link Journal}. Each
+ * constant holds the byte code written on disk, which must never change once
+ * assigned.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public enum Operation {
+
+    CREATE_MEMBER(1),
+    CREATE_PROF(2),
+    MODIFY_PERSON(3),
+    SET_STATUS(4),
+    DELETE_MEMBER(5),
+    DELETE_PROF(6),
+    CREATE_SERVICE(7),
+    MODIFY_SERVICE(8),
+    DELETE_SERVICE(9),
+    CREATE_REGISTRATION(10),
+    CREATE_VALIDATION(11),
+    ADD_SESSION_FEE(12),
+    ADD_PROVIDED_PROF(13),
+    RESERVE_SEAT(14),
+    WEEKLY_RESET(15);
+
+    private final byte code;
+
+    /**
+     * Initializes the operation with its on-disk code.
+     *
+     * @param code Operation code
+     */
+    Operation(int code) {
+
+        this.code = (byte) code;
+    }
+
+    /**
+     * @return Operation code written on disk
+     */
+    public byte getCode() {
+
+        return code;
+    }
+
+    /**
+     * Retrieves the operation associated with the given on-disk code or null
+     * if no operation associated.
+     *
+     * @param code Operation code
+     * @return Associated operation or null if none associated
+     */
+    public static Operation fromCode(byte code) {
+
+        for (Operation op : values()) {
+
+            if (op.code == code) {
+
+                return op;
+            }
+        }
+
+        return null;
+    }
+}
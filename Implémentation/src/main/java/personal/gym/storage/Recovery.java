@@ -0,0 +1,207 @@
+package personal.gym.storage;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Recovers the repositories on startup. Every repository file is read through
+ * {@link #read(File, Reader)}: a file whose checksum does not match or which
+ * cannot be decoded is set aside with the {@code .corrupt} suffix and replaced
+ * with its previous generation, written by {@link ChecksummedFile} on the
+ * preceding save. The journal keeps the records written since the previous
+ * generation of every file, which are replayed onto the restored file from
+ * the journal position it records, so that the application starts without a
+ * manual restore nor losing changes.
+ * <p>
+ * The time spent in each phase of the startup is recorded along with the files
+ * restored, so that the cost of a crash can be reported.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class Recovery {
+
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+
+    /**
+     * Reads the contents of a repository file.
+     *
+     * @param <T> Type of the contents
+     */
+    public interface Reader<T> {
+
+        /**
+         * @param file Repository file
+         * @return Contents of the file
+         * @throws IOException if an I/O error occurs
+         * @throws ClassNotFoundException if class of serialized object cannot
+         * be found
+         */
+        T read(File file) throws IOException, ClassNotFoundException;
+    }
+
+    private final long startTime = System.nanoTime();
+
+    // <phase name, duration in ms>
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final List<String> restored = new ArrayList<>();
+    private final Set<String> restoredNames = new HashSet<>();
+    private final List<String> notes = new ArrayList<>();
+    private long phaseStart = startTime;
+
+    /**
+     * Reads a repository file, falling back onto its previous generation if
+     * the file is corrupt. The previous generation is then copied over the
+     * file, so that the next save keeps it as the previous generation in turn.
+     *
+     * @param <T> Type of the contents
+     * @param file Repository file
+     * @param reader Reader of the contents
+     * @return Contents of the file or of its previous generation
+     * @throws IOException if neither generation can be read
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    public <T> T read(File file, Reader<T> reader) throws IOException,
+        ClassNotFoundException {
+
+        try {
+
+            return reader.read(file);
+        } catch(IOException | RuntimeException e) {
+
+            File previous = ChecksummedFile.previous(file);
+
+            if (! file.isFile() || ! previous.isFile()) {
+
+                throw e;
+            }
+
+            T contents = reader.read(previous);
+
+            Files.move(file.toPath(), new File(file.getPath()
+            + CORRUPT_SUFFIX).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(previous.toPath(), file.toPath());
+
+            synchronized (restored) {
+
+                restored.add(file.getName() + " restored from its previous "
+                + "generation (" + e.getMessage() + ")");
+                restoredNames.add(file.getName());
+            }
+
+            return contents;
+        }
+    }
+
+    /**
+     * Ends the current phase of the startup, which began when the previous
+     * phase ended.
+     *
+     * @param name Name of the phase
+     */
+    public synchronized void endPhase(String name) {
+
+        long now = System.nanoTime();
+
+        phases.put(name, (now - phaseStart) / 1000000);
+        phaseStart = now;
+    }
+
+    /**
+     * @param fileName Name of a repository file
+     * @return True if the file was restored from its previous generation
+     */
+    public boolean isRestored(String fileName) {
+
+        synchronized (restored) {
+
+            return restoredNames.contains(fileName);
+        }
+    }
+
+    /**
+     * @return Messages describing the files restored from their previous
+     * generation
+     */
+    public List<String> getRestored() {
+
+        synchronized (restored) {
+
+            return new ArrayList<>(restored);
+        }
+    }
+
+    /**
+     * Records a message to be reported along with the files restored, such as
+     * entities altered while moving a former repository file.
+     *
+     * @param message Message to report
+     */
+    public void note(String message) {
+
+        synchronized (notes) {
+
+            notes.add(message);
+        }
+    }
+
+    /**
+     * @return Messages recorded through {@link #note(String)}
+     */
+    public List<String> getNotes() {
+
+        synchronized (notes) {
+
+            return new ArrayList<>(notes);
+        }
+    }
+
+    /**
+     * Generates a report of the time spent in each phase, of the files
+     * restored and of the recorded notes.
+     *
+     * @return Information in readable String format
+     */
+    public synchronized String report() {
+
+        StringBuilder report = new StringBuilder("Recovery report\n");
+
+        for (Map.Entry<String, Long> e : phases.entrySet()) {
+
+            report.append("\n\t");
+            report.append(e.getKey());
+            report.append("\t");
+            report.append(e.getValue());
+            report.append(" ms");
+        }
+
+        report.append("\n\tTotal\t");
+        report.append((phaseStart - startTime) / 1000000);
+        report.append(" ms");
+
+        List<String> messages = getRestored();
+        messages.addAll(getNotes());
+
+        for (String message : messages) {
+
+            report.append("\n\n\t");
+            report.append(message);
+        }
+
+        return report.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package personal.gym.storage;
+
+import java.io.IOException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the persisted repositories concurrently on a bounded pool of daemon
+ * threads and keeps track of how long each of them took to load.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class RepositoryLoader {
+
+    private final ExecutorService executor;
+    private final long startTime;
+
+    // <repository name, load time in ms or -1 while loading>
+    private final Map<String, Long> timings = new LinkedHashMap<>();
+
+    /**
+     * Initializes the loader with the given number of threads.
+     *
+     * @param threads Maximum number of repositories loaded at the same time
+     */
+    public RepositoryLoader(int threads) {
+
+        executor = Executors.newFixedThreadPool(threads, r -> {
+
+            Thread thread = new Thread(r, "repository-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Schedules the loading of a repository.
+     *
+     * @param <T> Type of the loaded content
+     * @param name Repository name used in the timings report
+     * @param task Task reading the repository contents
+     * @return Future completed with the repository contents
+     */
+    public <T> CompletableFuture<T> load(String name, Callable<T> task) {
+
+        synchronized (timings) {
+
+            timings.put(name, -1L);
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            long start = System.nanoTime();
+
+            try {
+
+                return task.call();
+            } catch(Exception e) {
+
+                throw new CompletionException(e);
+            } finally {
+
+                synchronized (timings) {
+
+                    timings.put(name, (System.nanoTime() - start) / 1000000);
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Stops accepting new repositories. Those already scheduled still load.
+     */
+    public void shutdown() {
+
+        executor.shutdown();
+    }
+
+    /**
+     * Waits for a future and unwraps the exception raised while loading.
+     *
+     * @param <T> Type of the loaded content
+     * @param future Future to wait for
+     * @return Loaded content
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IOException,
+        ClassNotFoundException {
+
+        try {
+
+            return future.join();
+        } catch(CompletionException e) {
+
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+
+                throw (IOException) cause;
+            } else if (cause instanceof ClassNotFoundException) {
+
+                throw (ClassNotFoundException) cause;
+            } else if (cause instanceof RuntimeException) {
+
+                throw (RuntimeException) cause;
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Generates a report of the load time of each repository.
+     *
+     * @return Information in readable String format
+     */
+    public String report() {
+
+        StringBuilder report = new StringBuilder("Startup report\n");
+
+        synchronized (timings) {
+
+            for (Map.Entry<String, Long> e : timings.entrySet()) {
+
+                report.append("\n\t");
+                report.append(e.getKey());
+                report.append("\t");
+                report.append(e.getValue() < 0 ? "loading in background" :
+                e.getValue() + " ms");
+            }
+        }
+
+        report.append("\n\n\tElapsed since startup: ");
+        report.append((System.nanoTime() - startTime) / 1000000);
+        report.append(" ms");
+
+        return report.toString();
+    }
+}
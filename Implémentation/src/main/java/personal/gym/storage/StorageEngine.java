@@ -0,0 +1,83 @@
+package personal.gym.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Key-value store persisting the encoded entities of a repository. Keys are
+ * entity codes and values the bytes written by the codec of the entities.
+ * <p>
+ * Changes are kept pending until {@link #capture(long)} is called, under the
+ * lock of the commands, by a checkpoint; the flush it returns then makes them
+ * durable without holding the lock. The durable state of an engine is thus
+ * always the one of a checkpoint, whose journal position the engine records
+ * for the journal to be replayed from.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public interface StorageEngine extends Closeable {
+
+    /**
+     * @param key Entity code
+     * @return Encoded entity or null if no entity has this code
+     * @throws IOException if an I/O error occurs
+     */
+    byte[] get(String key) throws IOException;
+
+    /**
+     * Inserts or replaces an entity.
+     *
+     * @param key Entity code
+     * @param value Encoded entity
+     * @return Encoded entity replaced or null if the code was free
+     * @throws IOException if an I/O error occurs
+     */
+    byte[] put(String key, byte[] value) throws IOException;
+
+    /**
+     * Removes an entity.
+     *
+     * @param key Entity code
+     * @return Encoded entity removed or null if no entity has this code
+     * @throws IOException if an I/O error occurs
+     */
+    byte[] delete(String key) throws IOException;
+
+    /**
+     * @return Number of entities
+     */
+    int size();
+
+    /**
+     * Iterates over the entities in the order of their codes. Changes made
+     * during the iteration may or may not be seen by it.
+     *
+     * @return Iterator over the codes and encoded entities
+     * @throws java.io.UncheckedIOException if an I/O error occurs while
+     * iterating
+     */
+    Iterator<Map.Entry<String, byte[]>> iterator();
+
+    /**
+     * Captures the pending changes. Must be called while holding the lock of
+     * the commands.
+     *
+     * @param lsn Sequence number of the last journal record applied, or -1
+     * if unknown
+     * @return Flush making the captured changes durable
+     */
+    Checkpointer.Flush capture(long lsn);
+
+    /**
+     * @return Sequence number of the last journal record held by the durable
+     * state, 0 if nothing is durable yet, or -1 if unknown
+     */
+    long getLsn();
+}
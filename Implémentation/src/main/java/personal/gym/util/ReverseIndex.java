@@ -0,0 +1,123 @@
+package personal.gym.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reverse index from a key, such as a professional number, to the entries of
+ * a repository referring to it, such as the codes of the services or sessions
+ * taught by that professional. Answering which entries refer to a key then
+ * costs the number of those entries instead of a scan of the repository.
+ * <p>
+ * The index is maintained by its repository on every addition and removal of
+ * an entry. Keys left without entries are dropped.
+ *
+ * @param <V> Type of the indexed entries
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class ReverseIndex<V> {
+
+    private final Map<String, Set<V>> entries = new HashMap<>();
+
+    /**
+     * @param key Key the entry refers to
+     * @param entry Indexed entry
+     */
+    public void add(String key, V entry) {
+
+        entries.computeIfAbsent(key, k -> new HashSet<>()).add(entry);
+    }
+
+    /**
+     * @param key Key the entry refers to
+     * @param entry Entry no longer referring to the key
+     */
+    public void remove(String key, V entry) {
+
+        Set<V> keyEntries = entries.get(key);
+
+        if (keyEntries != null && keyEntries.remove(entry)
+            && keyEntries.isEmpty()) {
+
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * @param key Key
+     * @return Read-only view of the entries referring to the key
+     */
+    public Set<V> get(String key) {
+
+        Set<V> keyEntries = entries.get(key);
+
+        return keyEntries == null ? Collections.<V>emptySet()
+        : Collections.unmodifiableSet(keyEntries);
+    }
+
+    /**
+     * Removes a key along with all its entries, as when the key itself is
+     * deleted.
+     *
+     * @param key Key
+     * @return Entries which referred to the key
+     */
+    public Set<V> removeAll(String key) {
+
+        Set<V> keyEntries = entries.remove(key);
+
+        return keyEntries == null ? Collections.<V>emptySet() : keyEntries;
+    }
+
+    /**
+     * Removes a bounded number of the entries of a key, so that a key with
+     * many entries may be removed over several calls.
+     *
+     * @param key Key
+     * @param limit Maximum number of entries removed
+     * @return Removed entries, fewer than the limit once none is left
+     */
+    public List<V> removeBatch(String key, int limit) {
+
+        List<V> removed = new ArrayList<>();
+        Set<V> keyEntries = entries.get(key);
+
+        if (keyEntries == null) {
+
+            return removed;
+        }
+
+        Iterator<V> iterator = keyEntries.iterator();
+
+        while (removed.size() < limit && iterator.hasNext()) {
+
+            removed.add(iterator.next());
+            iterator.remove();
+        }
+
+        if (keyEntries.isEmpty()) {
+
+            entries.remove(key);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes every key and entry.
+     */
+    public void clear() {
+
+        entries.clear();
+    }
+}
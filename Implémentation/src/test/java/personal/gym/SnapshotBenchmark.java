@@ -0,0 +1,114 @@
+package personal.gym;
+
+import personal.gym.person.Member;
+import personal.gym.person.PersonCodec;
+import personal.gym.registration.Registration;
+import personal.gym.registration.RegistrationCodec;
+import personal.gym.service.Service;
+import personal.gym.service.ServiceCodec;
+import personal.gym.session.Session;
+import personal.gym.session.SessionCodec;
+import personal.gym.storage.Codec;
+import personal.gym.storage.SnapshotFile;
+import personal.gym.util.Day;
+import personal.gym.validation.Validation;
+import personal.gym.validation.ValidationCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compares the size and speed of Java serialization and of the snapshot codecs.
+ * Not a unit test: run with {@code java personal.gym.SnapshotBenchmark [records]}.
+ */
+public class SnapshotBenchmark {
+    private static final int RUNS = 5;
+    private static final String[] CITIES = {"Montréal", "Laval", "Longueuil", "Québec", "Gatineau"};
+    private static final String[] PROVINCES = {"QC", "ON", "NB"};
+    private static final String[] NAMES = {"Yoga", "Zumba", "Pilates", "Boxe", "Natation"};
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        SimpleDateFormat date = new SimpleDateFormat("dd-MM-yyyy");
+        Date start = date.parse("01-01-2021");
+        Date end = date.parse("31-12-2021");
+        Date time = new SimpleDateFormat("HH:mm").parse("12:30");
+
+        List<Member> members = new ArrayList<>();
+        List<Service> services = new ArrayList<>();
+        List<Session> sessions = new ArrayList<>();
+        List<Registration> registrations = new ArrayList<>();
+        List<Validation> validations = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            String no = String.format("%09d", i);
+            String sessionNo = String.format("%07d", i);
+            members.add(new Member("Julien Thibeault", i + " Sherbrooke Est",
+                    CITIES[i % CITIES.length], PROVINCES[i % PROVINCES.length],
+                    "A1A1A1", "member" + i + "@facebook.com"));
+            services.add(new Service(NAMES[i % NAMES.length], start, end,
+                    new Day[]{Day.MONDAY, Day.THURSDAY}, 20, "None", 2500, time, no));
+            sessions.add(new Session(NAMES[i % NAMES.length], Day.MONDAY, time, 20, 2500, no, sessionNo));
+            registrations.add(new Registration(sessionNo, no, no, "None"));
+            validations.add(new Validation(no, no, sessionNo, "None"));
+        }
+
+        System.out.printf("%d records per repository%n%n", n);
+        System.out.printf("%-14s %12s %12s %10s %10s %10s %10s%n", "repository",
+                "java bytes", "codec bytes", "java w ms", "codec w ms", "java r ms", "codec r ms");
+        run("members", members, PersonCodec.MEMBER);
+        run("services", services, ServiceCodec.INSTANCE);
+        run("sessions", sessions, SessionCodec.INSTANCE);
+        run("registrations", registrations, RegistrationCodec.INSTANCE);
+        run("validations", validations, ValidationCodec.INSTANCE);
+    }
+
+    private static <T> void run(String name, List<T> values, Codec<T> codec) throws Exception {
+        File legacy = File.createTempFile(name, ".ser");
+        File snapshot = File.createTempFile(name, ".dat");
+
+        try {
+            long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+
+            // Best of several runs, the first ones warming up the JIT
+            for (int run = 0; run < RUNS; run++) {
+                long t0 = System.nanoTime();
+                writeLegacy(legacy, values);
+                long t1 = System.nanoTime();
+                SnapshotFile.write(snapshot, codec, values);
+                long t2 = System.nanoTime();
+                SnapshotFile.readLegacy(legacy);
+                long t3 = System.nanoTime();
+                SnapshotFile.readList(snapshot, codec);
+                long t4 = System.nanoTime();
+
+                best[0] = Math.min(best[0], t1 - t0);
+                best[1] = Math.min(best[1], t2 - t1);
+                best[2] = Math.min(best[2], t3 - t2);
+                best[3] = Math.min(best[3], t4 - t3);
+            }
+
+            System.out.printf("%-14s %12d %12d %10d %10d %10d %10d%n", name,
+                    legacy.length(), snapshot.length(), best[0] / 1000000,
+                    best[1] / 1000000, best[2] / 1000000, best[3] / 1000000);
+        } finally {
+            legacy.delete();
+            snapshot.delete();
+        }
+    }
+
+    private static void writeLegacy(File file, Collection<?> values) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(new ArrayList<Object>(values));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package personal.gym;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import personal.gym.person.PersonCodec;
+
+import personal.gym.receipt.BillMemberCodec;
+import personal.gym.receipt.PaymentNoticeProfCodec;
+
+import personal.gym.registration.RegistrationCodec;
+
+import personal.gym.service.ServiceCodec;
+
+import personal.gym.session.SessionCodec;
+
+import personal.gym.storage.ChecksummedFile;
+import personal.gym.storage.Codec;
+import personal.gym.storage.SnapshotFile;
+
+import personal.gym.validation.ValidationCodec;
+
+/**
+ * One-shot tool rewriting the repository files written with Java serialization
+ * into the compact binary snapshot format. Files already converted are left
+ * untouched. The application also reads the former format, so running this
+ * tool is only needed to reclaim disk space ahead of the next save.
+ * <p>
+ * Usage: {@code java personal.gym.SnapshotConverter [res folder]}
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class SnapshotConverter {
+
+    private final File folder;
+
+    /**
+     * Initializes the converter over a folder of repository files.
+     *
+     * @param folder Folder holding the {@code .dat} files
+     */
+    public SnapshotConverter(File folder) {
+
+        this.folder = folder;
+    }
+
+    /**
+     * Converts every repository file of the folder.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    public void convertAll() throws IOException, ClassNotFoundException {
+
+        convertMap("members.dat", PersonCodec.MEMBER);
+        convertMap("professionals.dat", PersonCodec.PROFESSIONAL);
+        convertMap("services.dat", ServiceCodec.INSTANCE);
+        convertMap("sessions.dat", SessionCodec.INSTANCE);
+        convertList("registrations.dat", RegistrationCodec.INSTANCE);
+        convertList("validations.dat", ValidationCodec.INSTANCE);
+        convertMap("bills.dat", BillMemberCodec.INSTANCE);
+        convertMap("paymentNotices.dat", PaymentNoticeProfCodec.INSTANCE);
+    }
+
+    /**
+     * Converts a repository stored as a map.
+     *
+     * @param <T> Type of the entities
+     * @param fileName Name of the file
+     * @param codec Codec of the entities
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void convertMap(String fileName, Codec<T> codec)
+        throws IOException, ClassNotFoundException {
+
+        File file = new File(folder, fileName);
+
+        if (needsConversion(file)) {
+
+            convert(file, codec,
+            ((Map<String, T>) SnapshotFile.readLegacy(file)).values());
+        }
+    }
+
+    /**
+     * Converts a repository stored as a list.
+     *
+     * @param <T> Type of the entities
+     * @param fileName Name of the file
+     * @param codec Codec of the entities
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void convertList(String fileName, Codec<T> codec)
+        throws IOException, ClassNotFoundException {
+
+        File file = new File(folder, fileName);
+
+        if (needsConversion(file)) {
+
+            convert(file, codec, (List<T>) SnapshotFile.readLegacy(file));
+        }
+    }
+
+    /**
+     * @param file Repository file
+     * @return True if the file exists and is not yet a snapshot
+     * @throws IOException if an I/O error occurs
+     */
+    private static boolean needsConversion(File file) throws IOException {
+
+        if (! file.isFile()) {
+
+            return false;
+        }
+
+        if (SnapshotFile.isSnapshot(file)) {
+
+            System.out.println(file.getName() + "\talready converted");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Atomically replaces the original file with the converted repository,
+     * which keeps the journal position recorded by the original file.
+     *
+     * @param <T> Type of the entities
+     * @param file Repository file
+     * @param codec Codec of the entities
+     * @param values Entities of the repository
+     * @throws IOException if an I/O error occurs
+     */
+    private static <T> void convert(File file, Codec<T> codec,
+        Collection<T> values) throws IOException {
+
+        long before = file.length();
+        long after = ChecksummedFile.write(file, ChecksummedFile.lsnOf(file),
+        SnapshotFile.writer(codec, values));
+
+        System.out.println(file.getName() + "\t" + values.size() + " records\t"
+        + before + " -> " + after + " bytes");
+    }
+
+    /**
+     * Converts the repository files of the given folder, {@code res} by
+     * default.
+     *
+     * @param args Optional folder
+     */
+    public static void main(String[] args) {
+
+        try {
+
+            new SnapshotConverter(new File(args.length > 0 ? args[0] : "res"))
+            .convertAll();
+        } catch(IOException | ClassNotFoundException e) {
+
+            System.err.println("Conversion failed: " + e);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package personal.gym.accounting;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class TestTefBatchWriter {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("transfers", ".tef");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testBatchLayout() throws IOException {
+        assertEquals(2, TefBatchWriter.write(file, LocalDate.of(2026, 10, 16),
+        Arrays.asList(new TEF("Éloïse Tremblay", "100000001", 125.5),
+        new TEF("John Smith", "100000002", 20))));
+
+        List<String> lines = Files.readAllLines(file.toPath(),
+        StandardCharsets.US_ASCII);
+        assertEquals(4, lines.size());
+
+        for (String line : lines) {
+            assertEquals(TefBatchWriter.RECORD_LENGTH, line.length());
+        }
+
+        assertTrue(lines.get(0).startsWith("H#GYM      20261016"));
+        assertTrue(lines.get(1).startsWith("D000001100000001ELOISE TREMBLAY"));
+        assertEquals("000000012550", lines.get(1).substring(46, 58));
+        assertEquals("000000002000", lines.get(2).substring(46, 58));
+        assertTrue(lines.get(3).startsWith("T000002" + "00000000014550"
+        + "000000200000003"));
+    }
+
+    @Test
+    public void testLargeBatchIsComplete() throws IOException {
+        List<TEF> tefs = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            tefs.add(new TEF("John Smith", String.valueOf(100000000 + i), 1));
+        }
+
+        TefBatchWriter.write(file, LocalDate.of(2026, 10, 16), tefs);
+
+        assertEquals((TefBatchWriter.RECORD_LENGTH + 2) * 5002, file.length());
+    }
+
+    @Test
+    public void testNameIgnoresDefaultLocale() throws IOException {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+
+        try {
+            TefBatchWriter.write(file, LocalDate.of(2026, 10, 16),
+            Arrays.asList(new TEF("Irmak Şimşek", "100000001", 1)));
+        } finally {
+            Locale.setDefault(locale);
+        }
+
+        List<String> lines = Files.readAllLines(file.toPath(),
+        StandardCharsets.US_ASCII);
+        assertTrue(lines.get(1).startsWith("D000001100000001IRMAK SIMSEK "));
+    }
+}
@@ -0,0 +1,99 @@
+package personal.gym.history;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import personal.gym.exception.InvalidFormatException;
+import personal.gym.registration.Registration;
+import personal.gym.validation.Validation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestHistoryArchive {
+    private static final LocalDate WEEK_1 = LocalDate.of(2026, 10, 2);
+    private static final LocalDate WEEK_2 = LocalDate.of(2026, 10, 9);
+
+    private File folder;
+    private HistoryArchive archive;
+
+    @Before
+    public void setUp() throws IOException, InvalidFormatException {
+        folder = Files.createTempDirectory("history").toFile();
+        archive = new HistoryArchive(folder);
+
+        Map<String, Integer> fees = new HashMap<>();
+        fees.put("1000001", 1500);
+        Map<String, List<String>> provided = new HashMap<>();
+        provided.put("100000001", Arrays.asList("1000001", "1000001"));
+
+        archive.archive(WEEK_1,
+        Arrays.asList(new Registration("1000001", "000000001", "100000001",
+        "first"), new Registration("1000001", "000000002", "100000001", "")),
+        Arrays.asList(new Validation("100000001", "000000001", "1000001", ""),
+        new Validation("100000001", "000000002", "1000001", "")),
+        fees, provided);
+
+        archive.archive(WEEK_2, Collections.emptyList(),
+        Collections.singletonList(
+        new Validation("100000001", "000000001", "1000001", "")),
+        Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    @Test
+    public void testAttendanceOverWeeks() throws IOException {
+        assertEquals(2, archive.getAttendance("000000001", LocalDate.MIN,
+        LocalDate.MAX));
+        assertEquals(1, archive.getAttendance("000000001", WEEK_2, WEEK_2));
+        assertEquals(Integer.valueOf(1), archive.getAttendancePerMember(
+        WEEK_1, WEEK_1).get("000000002"));
+    }
+
+    @Test
+    public void testRevenueOverWeeks() throws IOException {
+        assertEquals(3000, archive.getRevenue("100000001", LocalDate.MIN,
+        LocalDate.MAX));
+        assertTrue(archive.getRevenuePerProf(WEEK_2, WEEK_2).isEmpty());
+    }
+
+    @Test
+    public void testRecordsReadBack() throws IOException {
+        List<Registration> registrations = new ArrayList<>();
+        archive.forEachRegistration(LocalDate.MIN, LocalDate.MAX,
+        registrations::add);
+        assertEquals(2, registrations.size());
+        assertEquals("first", registrations.get(0).getComment());
+
+        List<Validation> validations = new ArrayList<>();
+        archive.forEachValidation(WEEK_1, WEEK_1, validations::add);
+        assertEquals(2, validations.size());
+        assertEquals("000000002", validations.get(1).getMemberNo());
+    }
+
+    @Test(expected = FileAlreadyExistsException.class)
+    public void testSegmentsAreNotOverwritten() throws IOException {
+        archive.archive(WEEK_1, Collections.emptyList(),
+        Collections.emptyList(), Collections.emptyMap(),
+        Collections.emptyMap());
+    }
+}
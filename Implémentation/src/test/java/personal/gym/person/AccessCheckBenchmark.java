@@ -0,0 +1,74 @@
+package personal.gym.person;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput of the access checks going through the members map
+ * and through the {@link MemberStatusIndex}, as the turnstile scanner would
+ * issue them. Not a unit test: run with
+ * {@code java -Xmx2g personal.gym.person.AccessCheckBenchmark [members] [scans]}.
+ */
+public class AccessCheckBenchmark {
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int scans = args.length > 1 ? Integer.parseInt(args[1]) : 5000000;
+        ListPersons listPersons = new ListPersons(null, null);
+
+        Member.setCurrentMemberId(0);
+        for (int i = 0; i < n; i++) {
+            Member member = listPersons.createMember("Julien Thibeault", i + " Sherbrooke Est",
+                    "Montréal", "QC", "A1A1A1", "member@facebook.com");
+            if (i % 10 == 0) {
+                listPersons.setStatus(member, Status.SUSPENDED);
+            }
+        }
+        // Cards scanned in no particular order, a few of them unknown
+        Random random = new Random(42);
+        String[] codes = new String[scans];
+        for (int i = 0; i < scans; i++) {
+            codes[i] = String.format("%09d", random.nextInt(n + n / 100));
+        }
+
+        System.out.printf("%d members, %d scans%n%n", n, scans);
+        System.out.printf("%-12s %14s %12s%n", "path", "scans/s", "ns/scan");
+        run("map", listPersons, codes, false);
+        run("index", listPersons, codes, true);
+    }
+
+    private static void run(String name, ListPersons listPersons, String[] codes, boolean index) {
+        long best = Long.MAX_VALUE;
+        int valid = -1;
+        // Best of several runs, the first ones warming up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            // Codes read from the cards, whose hash is not cached yet
+            String[] scanned = new String[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                scanned[i] = new String(codes[i].toCharArray());
+            }
+            int count = 0;
+            long t0 = System.nanoTime();
+            for (String code : scanned) {
+                Status status = index ? listPersons.checkAccess(code) : validate(listPersons, code);
+                count += status == Status.VALID ? 1 : 0;
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+            if (valid >= 0 && valid != count) {
+                throw new IllegalStateException(name + " is not deterministic");
+            }
+            valid = count;
+        }
+
+        System.out.printf("%-12s %14d %12d%n", name,
+                codes.length * 1000000000L / best, best / codes.length);
+    }
+
+    private static Status validate(ListPersons listPersons, String code) {
+        try {
+            return listPersons.validateMember(code);
+        } catch (NullPointerException e) {
+            return Status.INVALID_NUMBER;
+        }
+    }
+}
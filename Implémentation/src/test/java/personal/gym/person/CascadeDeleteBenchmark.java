@@ -0,0 +1,139 @@
+package personal.gym.person;
+
+import personal.gym.accounting.AccountingUtils;
+import personal.gym.registration.ListRegistrations;
+import personal.gym.registration.Registration;
+import personal.gym.service.ListServices;
+import personal.gym.service.Service;
+import personal.gym.session.ListSessions;
+import personal.gym.session.Session;
+import personal.gym.util.Day;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the deletion of professionals cascading through scans of every
+ * repository, as before, and through the indexes by professional of the
+ * repositories. Not a unit test: run with
+ * {@code java -Xmx2g personal.gym.person.CascadeDeleteBenchmark [profs] [deletions]}.
+ */
+public class CascadeDeleteBenchmark {
+    private static final int RUNS = 5;
+    private static final int SERVICES_PER_PROF = 5;
+    private static final Day[] OCCURRENCES = {Day.MONDAY, Day.THURSDAY};
+    private static final int REGISTRATIONS_PER_SESSION = 4;
+
+    public static void main(String[] args) throws Exception {
+        int profs = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int deletions = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        System.out.printf("%d professionals, %d services, %d sessions, %d registrations each, %d deletions%n%n",
+                profs, SERVICES_PER_PROF, SERVICES_PER_PROF * OCCURRENCES.length,
+                SERVICES_PER_PROF * OCCURRENCES.length * REGISTRATIONS_PER_SESSION, deletions);
+        System.out.printf("%-12s %14s%n", "cascade", "us/deletion");
+        run("scan", profs, deletions, false);
+        run("index", profs, deletions, true);
+    }
+
+    private static void run(String name, int profs, int deletions, boolean index) throws Exception {
+        long best = Long.MAX_VALUE;
+        // Best of several runs, the first ones warming up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            Repositories repositories = new Repositories(profs);
+            long t0 = System.nanoTime();
+            // Spread over the professionals
+            for (int i = 0; i < deletions; i++) {
+                String profNo = String.format("%09d", (long) i * profs / deletions);
+                if (index) {
+                    repositories.persons.deleteProf(profNo);
+                } else {
+                    deleteByScan(repositories, profNo);
+                }
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+            repositories.check(profs - deletions);
+        }
+
+        System.out.printf("%-12s %14d%n", name, best / deletions / 1000);
+    }
+
+    // Former cascade of ListPersons.deleteProf, its removals moved out of the iterations
+    private static void deleteByScan(Repositories repositories, String profNo) {
+        repositories.persons.getProfessionals().remove(profNo);
+        Map<String, Session> sessions = repositories.sessions.getSessions();
+        repositories.accounting.getSessionsFee().keySet()
+                .removeIf(sessionNo -> sessions.get(sessionNo).getProfNo().equals(profNo));
+        repositories.accounting.getProfsSessionsProvided().remove(profNo);
+        repositories.registrations.getRegistrations().removeIf(r -> r.getProfNo().equals(profNo));
+        repositories.services.getServices().values().removeIf(s -> s.getProfNo().equals(profNo));
+        sessions.values().removeIf(s -> s.getProfNo().equals(profNo));
+    }
+
+    private static class Repositories {
+        final ListPersons persons = new ListPersons(null, null);
+        final ListServices services;
+        final ListSessions sessions;
+        final ListRegistrations registrations;
+        final AccountingUtils accounting;
+
+        Repositories(int profs) throws Exception {
+            Map<String, Service> servicesMap = new HashMap<>();
+            Map<String, Session> sessionsMap = new HashMap<>();
+            List<Registration> registrationsList = new ArrayList<>();
+            Map<String, Integer> fees = new HashMap<>();
+            Map<String, List<String>> provided = new HashMap<>();
+            Date start = new Date(0);
+            Date end = new Date(Long.MAX_VALUE / 2);
+            int sessionId = 0;
+
+            Professional.setCurrentProfId(0);
+            Service.setCurrentServiceId(0);
+            for (int i = 0; i < profs; i++) {
+                String profNo = persons.createProf("Yan Zhuang", i + " rue St-Denis", "Montréal", "QC",
+                        "H1H1H1", "prof" + i + "@facebook.com").getCode();
+                List<String> profSessions = new ArrayList<>();
+                for (int j = 0; j < SERVICES_PER_PROF; j++) {
+                    Service service = new Service("Yoga", start, end, OCCURRENCES, 20, "", 2500, start,
+                            profNo);
+                    servicesMap.put(service.getCode(), service);
+                    for (Day occurrence : OCCURRENCES) {
+                        String sessionNo = String.format("%07d", sessionId++);
+                        sessionsMap.put(sessionNo, new Session(service, occurrence, sessionNo));
+                        for (int k = 0; k < REGISTRATIONS_PER_SESSION; k++) {
+                            registrationsList.add(new Registration(sessionNo, "000000001", profNo, ""));
+                            profSessions.add(sessionNo);
+                        }
+                        fees.put(sessionNo, 2500);
+                    }
+                }
+                provided.put(profNo, profSessions);
+            }
+
+            services = new ListServices(servicesMap);
+            sessions = new ListSessions(sessionsMap);
+            registrations = new ListRegistrations(registrationsList);
+            accounting = new AccountingUtils(fees, provided);
+            services.setListSessions(sessions);
+            accounting.setListSessions(sessions);
+            persons.setListServices(services);
+            persons.setListRegistrations(registrations);
+            persons.setAccountUtils(accounting);
+        }
+
+        void check(int profs) {
+            int sessionsLeft = profs * SERVICES_PER_PROF * OCCURRENCES.length;
+            if (persons.getProfessionals().size() != profs
+                    || services.getServices().size() != profs * SERVICES_PER_PROF
+                    || sessions.getSessions().size() != sessionsLeft
+                    || registrations.getRegistrations().size() != sessionsLeft * REGISTRATIONS_PER_SESSION
+                    || accounting.getSessionsFee().size() != sessionsLeft
+                    || accounting.getProfsSessionsProvided().size() != profs) {
+                throw new IllegalStateException("Cascade left inconsistent repositories");
+            }
+        }
+    }
+}
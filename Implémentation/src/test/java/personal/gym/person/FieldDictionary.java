@@ -0,0 +1,106 @@
+package personal.gym.person;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dictionary of a low-cardinality field of the persons, such as their
+ * city or province. Each distinct value is held once and given a small
+ * identifier, which is all a person keeps of the field: a few hundred cities
+ * are shared by millions of persons instead of each of them holding its own
+ * copy of the strings read from the input or from a file.
+ * <p>
+ * Identifiers are handed out in the order the values are first seen and are
+ * only valid within the running application: files keep the values
+ * themselves, written once per snapshot through the dictionary of
+ * {@link personal.gym.storage.BinaryOutput}. Lookups do not lock, while new
+ * values are added one at a time.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class FieldDictionary {
+
+    /**
+     * Cities of the persons.
+     */
+    public static final FieldDictionary CITIES = new FieldDictionary();
+
+    /**
+     * Provinces of the persons.
+     */
+    public static final FieldDictionary PROVINCES = new FieldDictionary();
+
+    /**
+     * Identifier of a missing value.
+     */
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // Published before the identifiers referring to them
+    private volatile String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param value Field value, or null
+     * @return Identifier of the value, added to the dictionary if needed
+     */
+    public int idOf(String value) {
+
+        if (value == null) {
+
+            return NONE;
+        }
+
+        Integer id = ids.get(value);
+
+        return id != null ? id : add(value);
+    }
+
+    /**
+     * @param id Identifier handed out by {@link #idOf(String)}
+     * @return Shared value of the identifier, or null for {@link #NONE}
+     */
+    public String valueOf(int id) {
+
+        return id == NONE ? null : values[id];
+    }
+
+    /**
+     * @return Number of distinct values
+     */
+    public int size() {
+
+        return ids.size();
+    }
+
+    /**
+     * @param value Value not seen yet by the caller
+     * @return Identifier of the value
+     */
+    private synchronized int add(String value) {
+
+        Integer id = ids.get(value);
+
+        if (id != null) {
+
+            return id;
+        }
+
+        String[] grown = size < values.length ? values
+        : Arrays.copyOf(values, size * 2);
+
+        grown[size] = value;
+        values = grown;
+        ids.put(value, size);
+
+        return size++;
+    }
+}
@@ -0,0 +1,60 @@
+package personal.gym.person;
+
+/**
+ * Measures the heap retained by members whose city and province are read as
+ * fresh strings, as when importing or typing them, once shared through the
+ * {@link FieldDictionary}s, against the strings each member used to hold.
+ * Not a unit test: run with
+ * {@code java -Xmx4g personal.gym.person.FieldDictionaryBenchmark [members]}.
+ */
+public class FieldDictionaryBenchmark {
+    private static final String[] CITIES = {"Montréal", "Laval", "Longueuil", "Québec", "Gatineau",
+        "Sherbrooke", "Trois-Rivières", "Saguenay"};
+    private static final String[] PROVINCES = {"QC", "ON", "NB"};
+    // Header and two references of the array holding the copies of a member
+    private static final long ARRAY_OVERHEAD = 24;
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Member[] members = new Member[n];
+        String[][] copies = new String[n][];
+
+        Member.setCurrentMemberId(0);
+        long before = usedMemory();
+        for (int i = 0; i < n; i++) {
+            members[i] = new Member("Julien Thibeault", i + " Sherbrooke Est",
+                    fresh(CITIES[i % CITIES.length]), fresh(PROVINCES[i % PROVINCES.length]),
+                    "A1A1A1", "member" + i + "@facebook.com");
+        }
+        long shared = usedMemory() - before;
+
+        // Strings each member held before, on top of the same references
+        before = usedMemory();
+        for (int i = 0; i < n; i++) {
+            copies[i] = new String[] {fresh(CITIES[i % CITIES.length]),
+                fresh(PROVINCES[i % PROVINCES.length])};
+        }
+        long copied = usedMemory() - before - (long) n * ARRAY_OVERHEAD;
+
+        System.out.printf("%d members, %d cities, %d provinces%n%n", n,
+                FieldDictionary.CITIES.size(), FieldDictionary.PROVINCES.size());
+        System.out.printf("%-12s %14s %14s%n", "fields", "bytes", "bytes/member");
+        System.out.printf("%-12s %14d %14d%n", "copies", shared + copied, (shared + copied) / n);
+        System.out.printf("%-12s %14d %14d%n", "dictionary", shared, shared / n);
+        if (members[n - 1].getCity() == null || copies[n - 1][0] == null) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static String fresh(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,16 +1,30 @@
 package personal.gym.person;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import personal.gym.exception.InvalidFormatException;
 
 import personal.gym.accounting.AccountingUtils;
 
+import personal.gym.receipt.ListReceipts;
+
 import personal.gym.registration.ListRegistrations;
 
 import personal.gym.service.ListServices;
 
+import personal.gym.storage.Journal;
+import personal.gym.storage.Operation;
+
+import personal.gym.util.Type;
+
 /**
  * Data structure holding the list of members and professionals subscribed to
  * #GYM. Also holds a reference to the service registrations of each member.
@@ -28,27 +42,111 @@ public class ListPersons {
     
     private AccountingUtils accountUtils;
 	private ListRegistrations listRegistrations;
+    private ListReceipts listReceipts;
     private ListServices listServices;
+    private Journal journal;
+    private long epoch;
+    private final MemberStatusIndex memberStatuses = new MemberStatusIndex();
+    private final PersonIndex<Member> memberIndex;
+    private final PersonIndex<Professional> profIndex;
+    // Completed once every person held on construction is indexed
+    private volatile CompletableFuture<Void> indexed;
+    // Set once no access check reads the members map any longer
+    private volatile boolean settled;
+    // Deleted members whose dependents are not purged yet, in deletion order
+    private final Map<String, Member> tombstones = new LinkedHashMap<>();
+    private long tombstoneEpoch;
 
     /**
-     * Initializes the hashmaps for members and professionals.
+     * Initializes the maps for members and professionals. Persons read onto
+     * the heap are moved onto {@link PersonTable}s, while stores persisting
+     * their persons are used as they are. No person is read: the status and
+     * secondary indexes are built by {@link #buildIndexes(Executor)}, or on
+     * the first change or search if it was not called.
      *
-     * @param members Members hashmap
-     * @param professionals Professionals hashmap
+     * @param members Members map
+     * @param professionals Professionals map
      */
 	public ListPersons(Map<String, Member> members,
         Map<String, Professional> professionals) {
         
-        if ((this.members = members) == null) {
+        this.members = table(members);
+        this.professionals = table(professionals);
+        this.memberIndex = new PersonIndex<>(this.members);
+        this.profIndex = new PersonIndex<>(this.professionals);
+	}
+
+    /**
+     * Starts indexing the status of every member for {@link #checkAccess},
+     * and every person by email, name and postal area. Changes and searches
+     * wait for the indexes to be built, while access checks meanwhile read
+     * the status from the members map.
+     *
+     * @param executor Executor building the indexes
+     * @return Future completed once the indexes are built
+     */
+    public synchronized CompletableFuture<Void> buildIndexes(
+        Executor executor) {
+        
+        if (indexed == null) {
             
-            this.members = new HashMap<>();
+            indexed = CompletableFuture.runAsync(this::index, executor);
         }
         
-        if ((this.professionals = professionals) == null) {
+        return indexed;
+    }
+
+    /**
+     * Indexes every person held on construction.
+     */
+    private void index() {
+        
+        for (Member member : members.values()) {
             
-            this.professionals = new HashMap<>();
+            memberStatuses.update(member);
+            memberIndex.add(member);
         }
-	}
+        
+        for (Professional prof : professionals.values()) {
+            
+            profIndex.add(prof);
+        }
+    }
+
+    /**
+     * Waits for the indexes, building them right away if they were not
+     * started. Must be called before any change of the persons.
+     */
+    private void awaitIndexes() {
+        
+        if (! settled) {
+            
+            buildIndexes(Runnable::run).join();
+            
+            // Waits for the access checks still reading the members map
+            synchronized (this) {
+                
+                settled = true;
+            }
+        }
+    }
+
+    /**
+     * @param <P> Type of the persons
+     * @param persons Persons keyed by code, or null
+     * @return Table holding the persons, or the given map if it persists them
+     */
+    private static <P extends Person> Map<String, P> table(
+        Map<String, P> persons) {
+        
+        if (persons == null) {
+            
+            return new PersonTable<>();
+        }
+        
+        return persons instanceof HashMap ? new PersonTable<>(persons)
+        : persons;
+    }
 
     /**
      * @param accountUtils AccountingUtils reference
@@ -66,6 +164,14 @@ public class ListPersons {
         this.listRegistrations = listRegistrations;
     }
 
+    /**
+     * @param listReceipts ListReceipts reference
+     */
+    public void setListReceipts(ListReceipts listReceipts) {
+        
+        this.listReceipts = listReceipts;
+    }
+
     /**
      * @param listServices ListServices reference
      */
@@ -74,6 +180,22 @@ public class ListPersons {
         this.listServices = listServices;
     }
 
+    /**
+     * @param journal Journal recording the mutations, or null to stop recording
+     */
+    public void setJournal(Journal journal) {
+        
+        this.journal = journal;
+    }
+
+    /**
+     * @return Modification epoch of the members and professionals, increased on every change
+     */
+    public long getEpoch() {
+        
+        return epoch;
+    }
+
     /**
      * @return Members map
      */
@@ -90,6 +212,24 @@ public class ListPersons {
         return professionals;
     }
 
+    /**
+     * @return Indexes for finding members by email, name or postal area
+     */
+    public PersonIndex<Member> getMemberIndex() {
+        
+        awaitIndexes();
+        return memberIndex;
+    }
+
+    /**
+     * @return Indexes for finding professionals by email, name or postal area
+     */
+    public PersonIndex<Professional> getProfIndex() {
+        
+        awaitIndexes();
+        return profIndex;
+    }
+
     /**
      * Modifies information relative to given {@link Person} after verifying
      * provided format of input.
@@ -110,14 +250,46 @@ public class ListPersons {
 		
         Person.verifyFormat(name, address, city, province, postalCode, email);
         
+        if (journal != null) {
+            
+            journal.append(Operation.MODIFY_PERSON, person.getCode(),
+            typeOf(person).name(), name, address, city, province, postalCode,
+            email);
+        }
+        
+        awaitIndexes();
+        indexOf(person).remove(person);
         person.setName(name);
         person.setAddress(address);
         person.setCity(city);
         person.setProvince(province);
         person.setPostalCode(postalCode);
 		person.setEmail(email);
+        indexOf(person).add(person);
+        store(person);
+        epoch++;
 	}
 
+    /**
+     * Changes the status of a given {@link Person}.
+     *
+     * @param person Person to modify
+     * @param status Modified status
+     */
+    public void setStatus(Person person, Status status) {
+        
+        if (journal != null) {
+            
+            journal.append(Operation.SET_STATUS, person.getCode(),
+            typeOf(person).name(), status.name());
+        }
+        
+        awaitIndexes();
+        person.setStatus(status);
+        store(person);
+        epoch++;
+    }
+
     /**
      * Verifies a member's status and informs of it.
      * 
@@ -130,6 +302,39 @@ public class ListPersons {
         return members.get(memberNo).getStatus();
     }
 
+    /**
+     * Informs of a member's status for the access control, through the status
+     * index rather than the members map. Neither allocates nor throws once
+     * the indexes are built; until then, the member is read from the members
+     * map while holding the lock of this structure, which the first change
+     * waits for.
+     *
+     * @param memberNo Member number
+     * @return Member status, {@link Status#INVALID_NUMBER} if no member has
+     * this number
+     */
+    public Status checkAccess(String memberNo) {
+        
+        CompletableFuture<Void> built = indexed;
+        
+        if (built == null || ! built.isDone()) {
+            
+            synchronized (this) {
+                
+                // No change runs while the lock is held before the first one
+                if (! settled) {
+                    
+                    Member member = members.get(memberNo);
+                    
+                    return member == null ? Status.INVALID_NUMBER
+                    : member.getStatus();
+                }
+            }
+        }
+        
+        return memberStatuses.check(memberNo);
+    }
+
     /**
      * Retrieves a member from the members hashmap using the provided member
      * number.
@@ -162,29 +367,202 @@ public class ListPersons {
         Member member = new Member(name, address, city, province, postalCode,
         email);
         
+        if (journal != null) {
+            
+            journal.append(Operation.CREATE_MEMBER, member.getCode(), name,
+            address, city, province, postalCode, email);
+        }
+        
+        awaitIndexes();
         members.put(member.getCode(), member);
+        memberStatuses.update(member);
+        memberIndex.add(member);
+        epoch++;
         
         return member;
 	}
 
+    /**
+     * Adds members created in bulk, whose fields were already verified and
+     * whose codes were reserved through {@link Member#reserveMemberIds}. The
+     * whole batch is journaled through a single commit.
+     *
+     * @param batch Members to add
+     */
+    public void insertMembers(Collection<Member> batch) {
+        
+        List<String[]> records = new ArrayList<>(batch.size());
+        
+        for (Member member : batch) {
+            
+            records.add(new String[]{member.getCode(), member.getName(),
+            member.getAddress(), member.getCity(), member.getProvince(),
+            member.getPostalCode(), member.getEmail()});
+        }
+        
+        if (journal != null) {
+            
+            journal.appendAll(Operation.CREATE_MEMBER, records);
+        }
+        
+        awaitIndexes();
+        
+        for (Member member : batch) {
+            
+            members.put(member.getCode(), member);
+            memberStatuses.update(member);
+            memberIndex.add(member);
+        }
+        
+        epoch++;
+    }
+
 	/**
      * Deletes a member from the members hashmap using the provided member
-     * number. Also removes the currently active registrations made by this
-     * member.
+     * number. The currently active registrations made by this member are
+     * hidden at once and purged later by {@link #compact(int)}, so that the
+     * deletion does not depend on the number of registrations.
 	 * 
 	 * @param memberNo Member number
      * @throws NullPointerException if an invalid number is provided
 	 */
 	public void deleteMember(String memberNo) throws NullPointerException {
 		
-        if ((members.remove(memberNo)) == null) {
+        awaitIndexes();
+        
+        if (! members.containsKey(memberNo)) {
             
             throw new NullPointerException();
         }
         
-        listRegistrations.removeRegistrationsMember(memberNo);
+        if (journal != null) {
+            
+            journal.append(Operation.DELETE_MEMBER, memberNo);
+        }
+        
+        Member member = members.remove(memberNo);
+        memberStatuses.remove(memberNo);
+        removeMemberReferences(memberNo, member);
 	}
 
+    /**
+     * Leaves a tombstone for a deleted member, hiding their registrations
+     * until their registrations, bill and index entries are purged.
+     *
+     * @param memberNo Member number
+     * @param member Deleted member, or null if no longer held
+     */
+    private void removeMemberReferences(String memberNo, Member member) {
+        
+        epoch++;
+        tombstoneEpoch++;
+        tombstones.put(memberNo, member);
+        listRegistrations.hideRegistrationsMember(memberNo);
+    }
+
+    /**
+     * @return Number of deleted members whose dependents are not purged yet
+     */
+    public int getTombstoneCount() {
+        
+        return tombstones.size();
+    }
+
+    /**
+     * @return Modification epoch of the tombstones, increased whenever one is
+     * left or dropped
+     */
+    public long getTombstoneEpoch() {
+        
+        return tombstoneEpoch;
+    }
+
+    /**
+     * @return Codes of the deleted members whose dependents are not purged
+     * yet, in deletion order
+     */
+    public List<String> getTombstones() {
+        
+        return new ArrayList<>(tombstones.keySet());
+    }
+
+    /**
+     * @param memberNo Member number
+     * @return True if the member is deleted and their dependents are not
+     * purged yet
+     */
+    public boolean hasTombstone(String memberNo) {
+        
+        return tombstones.containsKey(memberNo);
+    }
+
+    /**
+     * Leaves again the tombstones written by a checkpoint, whose members are
+     * no longer held and whose registrations are hidden until purged. Must be
+     * called before the journal is replayed.
+     *
+     * @param memberNos Codes of the deleted members, in deletion order
+     */
+    public void restoreTombstones(Collection<String> memberNos) {
+        
+        for (String memberNo : memberNos) {
+            
+            tombstones.put(memberNo, null);
+            listRegistrations.hideRegistrationsMember(memberNo);
+        }
+    }
+
+    /**
+     * Purges the registrations, bill and index entries of deleted members, in
+     * the order of their deletion, up to a number of entries. A tombstone is
+     * dropped once everything depending on the member is purged, the bills
+     * being purged once the receipts are loaded. Tombstones left are written
+     * by the checkpoints, so a purge interrupted by a restart resumes.
+     *
+     * @param budget Maximum number of entries purged
+     * @return Number of entries purged, 0 once nothing is left to purge
+     */
+    public int compact(int budget) {
+        
+        int purged = 0;
+        
+        if (tombstones.isEmpty()) {
+            
+            return purged;
+        }
+        
+        awaitIndexes();
+        
+        Iterator<Map.Entry<String, Member>> iterator =
+        tombstones.entrySet().iterator();
+        
+        while (purged < budget && iterator.hasNext()) {
+            
+            Map.Entry<String, Member> e = iterator.next();
+            int left = budget - purged;
+            int removed = listRegistrations.purgeRegistrationsMember(e.getKey(),
+            left);
+            
+            purged += removed;
+            
+            if (removed < left && listReceipts != null) {
+                
+                listReceipts.removeBillMember(e.getKey());
+                
+                if (e.getValue() != null) {
+                    
+                    memberIndex.remove(e.getValue());
+                }
+                
+                iterator.remove();
+                tombstoneEpoch++;
+                purged++;
+            }
+        }
+        
+        return purged;
+    }
+
     /**
      * Verifies a professional's status and informs of it.
      * 
@@ -240,7 +618,16 @@ public class ListPersons {
         Professional prof = new Professional(name, address, city, province,
         postalCode, email);
         
+        if (journal != null) {
+            
+            journal.append(Operation.CREATE_PROF, prof.getCode(), name,
+            address, city, province, postalCode, email);
+        }
+        
+        awaitIndexes();
         professionals.put(prof.getCode(), prof);
+        profIndex.add(prof);
+        epoch++;
         
         return prof;
 	}
@@ -255,14 +642,106 @@ public class ListPersons {
 	 */
 	public void deleteProf(String profNo) throws NullPointerException {
 		
-        if (professionals.remove(profNo) == null) {
+        awaitIndexes();
+        
+        if (! professionals.containsKey(profNo)) {
             
             throw new NullPointerException();
         }
         
+        if (journal != null) {
+            
+            journal.append(Operation.DELETE_PROF, profNo);
+        }
+        
+        profIndex.remove(professionals.remove(profNo));
+        removeProfReferences(profNo);
+	}
+
+    /**
+     * Removes the sessions, registrations and services of a deleted
+     * professional. Each repository finds the entries of the professional
+     * through its own index by professional, so the cascade costs the
+     * professional's footprint rather than scans of every repository, and the
+     * whole cascade is journaled as the single record replayed by
+     * {@link #replayDelete(String, Type)}.
+     *
+     * @param profNo Professional number
+     */
+    private void removeProfReferences(String profNo) {
+        
+        epoch++;
+        // The provided sessions locate the fees, so they are removed after
         accountUtils.removeSessionsProf(profNo);
         accountUtils.removeProvidedProf(profNo);
         listRegistrations.removeRegistrationsProf(profNo);
         listServices.deleteServicesProf(profNo);
-	}
+    }
+
+    /**
+     * Replays the deletion of a person read back from the journal. A store
+     * persisted in place may no longer hold the person, in which case only the
+     * structures referring to them are cleaned up.
+     *
+     * @param code Person code
+     * @param type Person type
+     */
+    public void replayDelete(String code, Type type) {
+        
+        awaitIndexes();
+        
+        if (type == Type.MEMBER) {
+            
+            memberStatuses.remove(code);
+            removeMemberReferences(code, members.remove(code));
+        } else {
+            
+            Professional prof = professionals.remove(code);
+            
+            if (prof != null) {
+                
+                profIndex.remove(prof);
+            }
+            
+            removeProfReferences(code);
+        }
+    }
+
+    /**
+     * Writes a modified person back onto its map, which persists the change
+     * when the map is a {@link MappedPersonStore}.
+     *
+     * @param person Modified person
+     */
+    private void store(Person person) {
+        
+        if (person instanceof Member) {
+            
+            members.put(person.getCode(), (Member) person);
+            memberStatuses.update((Member) person);
+        } else {
+            
+            professionals.put(person.getCode(), (Professional) person);
+        }
+    }
+
+    /**
+     * @param person Person
+     * @return Indexes of the persons of the same account type
+     */
+    private PersonIndex<? extends Person> indexOf(Person person) {
+        
+        return person instanceof Member ? memberIndex : profIndex;
+    }
+
+    /**
+     * Informs of the account type of a given person.
+     *
+     * @param person Person
+     * @return Account type of the person
+     */
+    private static Type typeOf(Person person) {
+        
+        return person instanceof Member ? Type.MEMBER : Type.PROFESSIONAL;
+    }
 }
\ No newline at end of file
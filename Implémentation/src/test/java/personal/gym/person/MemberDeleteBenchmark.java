@@ -0,0 +1,89 @@
+package personal.gym.person;
+
+import personal.gym.receipt.ListReceipts;
+import personal.gym.registration.ListRegistrations;
+import personal.gym.registration.Registration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the latency of member deletions purging the registrations of the
+ * member in a scan, as before, and leaving a tombstone compacted afterwards,
+ * along with the time the compaction then takes. Not a unit test: run with
+ * {@code java -Xmx2g personal.gym.person.MemberDeleteBenchmark [members] [deletions]}.
+ */
+public class MemberDeleteBenchmark {
+    private static final int RUNS = 5;
+    private static final int REGISTRATIONS_PER_MEMBER = 10;
+    private static final int BATCH = 256;
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int deletions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        System.out.printf("%d members, %d registrations each, %d deletions%n%n", n,
+                REGISTRATIONS_PER_MEMBER, deletions);
+        System.out.printf("%-12s %14s %14s%n", "delete", "us/deletion", "us/compaction");
+        run("scan", n, deletions, false);
+        run("tombstone", n, deletions, true);
+    }
+
+    private static void run(String name, int n, int deletions, boolean tombstone) throws Exception {
+        long best = Long.MAX_VALUE;
+        long bestCompaction = Long.MAX_VALUE;
+        // Best of several runs, the first ones warming up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            ListRegistrations listRegistrations = new ListRegistrations(registrations(n));
+            ListPersons listPersons = populate(n, listRegistrations);
+            long t0 = System.nanoTime();
+            for (int i = 0; i < deletions; i++) {
+                String memberNo = String.format("%09d", (long) i * n / deletions);
+                if (tombstone) {
+                    listPersons.deleteMember(memberNo);
+                } else {
+                    // Former ListRegistrations.removeRegistrationsMember
+                    listPersons.getMembers().remove(memberNo);
+                    listRegistrations.getRegistrations().removeIf(r -> r.getMemberNo().equals(memberNo));
+                }
+            }
+            long t1 = System.nanoTime();
+            while (listPersons.compact(BATCH) > 0) {
+                // Batch after batch, as the compactor runs them
+            }
+            long t2 = System.nanoTime();
+            best = Math.min(best, t1 - t0);
+            bestCompaction = Math.min(bestCompaction, t2 - t1);
+            if (listRegistrations.getRegistrations().size() != (n - deletions) * REGISTRATIONS_PER_MEMBER) {
+                throw new IllegalStateException(name + " left registrations behind");
+            }
+        }
+
+        System.out.printf("%-12s %14d %14d%n", name, best / deletions / 1000,
+                bestCompaction / deletions / 1000);
+    }
+
+    private static List<Registration> registrations(int n) throws Exception {
+        List<Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < REGISTRATIONS_PER_MEMBER; j++) {
+                registrations.add(new Registration(String.format("%07d", j), String.format("%09d", i),
+                        "333666999", ""));
+            }
+        }
+        return registrations;
+    }
+
+    private static ListPersons populate(int n, ListRegistrations listRegistrations) throws Exception {
+        ListPersons listPersons = new ListPersons(null, null);
+        listPersons.setListRegistrations(listRegistrations);
+        listPersons.setListReceipts(new ListReceipts(null, null));
+
+        Member.setCurrentMemberId(0);
+        for (int i = 0; i < n; i++) {
+            listPersons.createMember("Julien Thibeault", i + " Sherbrooke Est", "Montréal", "QC", "A1A1A1",
+                    "member" + i + "@facebook.com");
+        }
+        return listPersons;
+    }
+}
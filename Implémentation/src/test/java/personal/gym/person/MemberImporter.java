@@ -0,0 +1,409 @@
+package personal.gym.person;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import personal.gym.exception.InvalidFormatException;
+
+/**
+ * Imports members in bulk from a CSV file holding, on each row, a name, an
+ * address, a city, a province, a postal code and an email. A first row naming
+ * these columns, as {@value #HEADER} in any case, is taken as a header and
+ * skipped.
+ * <p>
+ * Rows are read in chunks whose fields are parsed and verified by
+ * {@link Person#verifyFormat} on a pool of threads. Verified chunks are then
+ * inserted in file order, each with a block of member numbers reserved at once
+ * and while holding the lock of the commands, so that commands keep running
+ * between two chunks. Rejected rows are written onto an error file with the
+ * reason of their rejection. Only a few chunks are in flight at any time, so
+ * the memory used does not depend on the size of the file.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class MemberImporter {
+
+    /**
+     * Number of rows verified and inserted together.
+     */
+    public static final int CHUNK_SIZE = 1000;
+
+    /**
+     * Header row naming the columns.
+     */
+    public static final String HEADER =
+    "name,address,city,province,postalCode,email";
+
+    private static final int FIELDS = 6;
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    private final ListPersons listPersons;
+    private final Object lock;
+    private final int threads;
+
+    /**
+     * Initializes the importer.
+     *
+     * @param listPersons Structure receiving the members
+     * @param lock Lock held by the commands while they change the repositories
+     * @param threads Number of threads verifying rows
+     */
+    public MemberImporter(ListPersons listPersons, Object lock, int threads) {
+
+        this.listPersons = listPersons;
+        this.lock = lock;
+        this.threads = threads;
+    }
+
+    /**
+     * Imports the members of a CSV file. The error file is only kept if some
+     * rows were rejected.
+     *
+     * @param csv CSV file
+     * @param rejects Error file receiving the rejected rows
+     * @param progress Receiver of progress messages
+     * @return Outcome of the import
+     * @throws IOException if an I/O error occurs
+     */
+    public Report importCsv(File csv, File rejects, Consumer<String> progress)
+        throws IOException {
+
+        Report report = new Report();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+
+            Thread thread = new Thread(r, "member-importer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csv.toPath(),
+            StandardCharsets.UTF_8);
+            BufferedWriter errors = Files.newBufferedWriter(rejects.toPath(),
+            StandardCharsets.UTF_8)) {
+
+            errors.write("line,reason,row");
+            errors.newLine();
+
+            List<String> lines = new ArrayList<>(CHUNK_SIZE);
+            long firstLine = 1;
+            String line;
+
+            if ((line = reader.readLine()) != null && ! isHeader(line)) {
+
+                lines.add(line);
+            } else {
+
+                firstLine = 2;
+            }
+
+            while (line != null) {
+
+                if ((line = reader.readLine()) != null) {
+
+                    lines.add(line);
+                }
+
+                if (lines.size() == CHUNK_SIZE
+                    || line == null && ! lines.isEmpty()) {
+
+                    long first = firstLine;
+                    List<String> chunk = lines;
+
+                    inFlight.add(executor.submit(() -> verify(first, chunk)));
+                    firstLine += lines.size();
+                    lines = new ArrayList<>(CHUNK_SIZE);
+
+                    if (inFlight.size() >= threads * 2) {
+
+                        insert(await(inFlight.poll()), errors, report,
+                        progress);
+                    }
+                }
+            }
+
+            while (! inFlight.isEmpty()) {
+
+                insert(await(inFlight.poll()), errors, report, progress);
+            }
+        } finally {
+
+            executor.shutdownNow();
+        }
+
+        if (report.rejected == 0) {
+
+            rejects.delete();
+        }
+
+        report.elapsed = System.nanoTime() - report.start;
+
+        return report;
+    }
+
+    /**
+     * Parses and verifies a chunk of rows.
+     *
+     * @param firstLine Line number of the first row
+     * @param lines Rows of the chunk
+     * @return Verified fields and rejected rows
+     */
+    private static Chunk verify(long firstLine, List<String> lines) {
+
+        Chunk chunk = new Chunk();
+
+        for (int i = 0; i < lines.size(); i++) {
+
+            String line = lines.get(i);
+
+            if (line.trim().isEmpty()) {
+
+                continue;
+            }
+
+            List<String> fields = parseCsv(line);
+
+            try {
+
+                if (fields.size() != FIELDS) {
+
+                    throw new InvalidFormatException("expected " + FIELDS
+                    + " fields, found " + fields.size());
+                }
+
+                Person.verifyFormat(fields.get(0), fields.get(1),
+                fields.get(2), fields.get(3), fields.get(4), fields.get(5));
+                chunk.valid.add(fields.toArray(new String[FIELDS]));
+            } catch(InvalidFormatException e) {
+
+                chunk.rejects.add((firstLine + i) + "," + quote(e.getMessage())
+                + "," + quote(line));
+            }
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Inserts the verified members of a chunk and writes its rejected rows.
+     *
+     * @param chunk Verified chunk
+     * @param errors Error file
+     * @param report Outcome of the import so far
+     * @param progress Receiver of progress messages
+     * @throws IOException if an I/O error occurs
+     */
+    private void insert(Chunk chunk, BufferedWriter errors, Report report,
+        Consumer<String> progress) throws IOException {
+
+        List<Member> batch = new ArrayList<>(chunk.valid.size());
+        int first = Member.reserveMemberIds(chunk.valid.size());
+
+        for (String[] fields : chunk.valid) {
+
+            batch.add(new Member(Member.toCode(first + batch.size()),
+            fields[0], fields[1], fields[2], fields[3], fields[4], fields[5],
+            Status.VALID));
+        }
+
+        synchronized (lock) {
+
+            listPersons.insertMembers(batch);
+        }
+
+        for (String reject : chunk.rejects) {
+
+            errors.write(reject);
+            errors.newLine();
+        }
+
+        long before = report.getRows() / PROGRESS_INTERVAL;
+        report.imported += batch.size();
+        report.rejected += chunk.rejects.size();
+
+        if (report.getRows() / PROGRESS_INTERVAL > before) {
+
+            progress.accept(report.getRows() + " rows, "
+            + report.getRowsPerSecond(System.nanoTime() - report.start)
+            + " rows/s");
+        }
+    }
+
+    /**
+     * @param future Chunk being verified
+     * @return Verified chunk
+     * @throws IOException if the import is interrupted
+     */
+    private static Chunk await(Future<Chunk> future) throws IOException {
+
+        try {
+
+            return future.get();
+        } catch(InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch(ExecutionException e) {
+
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * @param line First row of a CSV file
+     * @return True if the row names the columns
+     */
+    static boolean isHeader(String line) {
+
+        return String.join(",", parseCsv(line)).equalsIgnoreCase(HEADER);
+    }
+
+    /**
+     * Splits a CSV row into its fields. Fields may be enclosed in double
+     * quotes, in which case they may hold commas and doubled quotes.
+     *
+     * @param line CSV row
+     * @return Fields of the row, trimmed
+     */
+    static List<String> parseCsv(String line) {
+
+        List<String> fields = new ArrayList<>(FIELDS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+
+            char c = line.charAt(i);
+
+            if (quoted) {
+
+                if (c != '"') {
+
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+
+                    field.append('"');
+                    i++;
+                } else {
+
+                    quoted = false;
+                }
+            } else if (c == '"') {
+
+                quoted = true;
+            } else if (c == ',') {
+
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+
+                field.append(c);
+            }
+        }
+
+        fields.add(field.toString().trim());
+
+        return fields;
+    }
+
+    /**
+     * @param value Field value
+     * @return Value enclosed in double quotes
+     */
+    private static String quote(String value) {
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Rows of a chunk once verified.
+     */
+    private static class Chunk {
+
+        private final List<String[]> valid = new ArrayList<>(CHUNK_SIZE);
+        private final List<String> rejects = new ArrayList<>();
+    }
+
+    /**
+     * Outcome of an import.
+     */
+    public static class Report {
+
+        private final long start = System.nanoTime();
+        private int imported;
+        private int rejected;
+        private long elapsed;
+
+        /**
+         * @return Number of members imported
+         */
+        public int getImported() {
+
+            return imported;
+        }
+
+        /**
+         * @return Number of rows rejected
+         */
+        public int getRejected() {
+
+            return rejected;
+        }
+
+        /**
+         * @return Number of rows read
+         */
+        public int getRows() {
+
+            return imported + rejected;
+        }
+
+        /**
+         * @return Duration of the import in milliseconds
+         */
+        public long getElapsedMillis() {
+
+            return elapsed / 1000000;
+        }
+
+        /**
+         * @param nanos Time elapsed since the start of the import
+         * @return Number of rows read per second
+         */
+        private long getRowsPerSecond(long nanos) {
+
+            return getRows() * 1000000000L / Math.max(1, nanos);
+        }
+
+        /**
+         * @return Summary of the import
+         */
+        @Override
+        public String toString() {
+
+            return "Imported " + imported + " members, rejected " + rejected
+            + " rows in " + getElapsedMillis() + " ms ("
+            + getRowsPerSecond(elapsed) + " rows/s)";
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package personal.gym.person;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 
 import personal.gym.exception.InvalidFormatException;
 
+import personal.gym.util.Formats;
+
 /**
- * Abstract entity of those who hold an account at the #GYM facility.
+ * Abstract entity of those who hold an account at the #GYM facility. The city
+ * and province of a person are kept as identifiers of the shared
+ * {@link FieldDictionary}s rather than as strings of their own.
  *
  * @version 1.0
  * @author Yu Deng
@@ -15,17 +23,34 @@ import personal.gym.exception.InvalidFormatException;
  */
 public abstract class Person implements Serializable {
 
-    private static final int MAX_NAME_LENGTH = 25;
-    private static final int MAX_ADDRESS_LENGTH = 25;
-    private static final int MAX_CITY_LENGTH = 14;
-    private static final int PROVINCE_LENGTH = 2;
-    private static final int POSTAL_CODE_LENGTH = 6;
+    private static final long serialVersionUID = 78406801132619316L;
+
+    static final int MAX_NAME_LENGTH = 25;
+    static final int MAX_ADDRESS_LENGTH = 25;
+    static final int MAX_CITY_LENGTH = 14;
+    static final int PROVINCE_LENGTH = 2;
+    static final int POSTAL_CODE_LENGTH = 6;
+    static final int MAX_EMAIL_LENGTH = 64;
     protected static final int CODE_LENGTH = 9;
+    private static final String[] FIELDS = {"name", "address", "city",
+        "province", "postalCode", "email"};
+
+    // Fields as serialized before cities and provinces were kept as
+    // identifiers of the shared dictionaries
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("name", String.class),
+        new ObjectStreamField("address", String.class),
+        new ObjectStreamField("city", String.class),
+        new ObjectStreamField("province", String.class),
+        new ObjectStreamField("postalCode", String.class),
+        new ObjectStreamField("email", String.class),
+        new ObjectStreamField("status", Status.class),
+        new ObjectStreamField("code", String.class)};
 
 	private String name;
 	private String address;
-	private String city;
-	private String province;
+	private int city;
+	private int province;
 	private String postalCode;
     private String email;
 	private Status status;
@@ -41,45 +66,60 @@ public abstract class Person implements Serializable {
      * @param province Person province
 	 * @param postalCode Person postalCode
      * @param email Person email
-     * @throws InvalidFormatException if any of the provided attributes does not
+     * @throws InvalidFormatException naming every attribute which does not
      * respect the imposed format
 	 */
 	public static void verifyFormat(String name, String address, String city,
         String province, String postalCode, String email)
         throws InvalidFormatException {
 		
-        if (name.length() > MAX_NAME_LENGTH
-            || !name.matches("([A-Z][a-z]*\\s[A-Z][a-z]*)")) {
-            
-            throw new InvalidFormatException("name");
-        }
+        Formats.report(
+        Formats.flag(Formats.isFullName(name, MAX_NAME_LENGTH), 0)
+        | Formats.flag(Formats.fitsLength(address, MAX_ADDRESS_LENGTH), 1)
+        | Formats.flag(Formats.fitsLength(city, MAX_CITY_LENGTH), 2)
+        | Formats.flag(Formats.hasLength(province, PROVINCE_LENGTH), 3)
+        | Formats.flag(Formats.isPostalCode(postalCode), 4)
+        | Formats.flag(Formats.isFacebookEmail(email, MAX_EMAIL_LENGTH), 5),
+        FIELDS);
+	}
 
-        if (address.length() > MAX_ADDRESS_LENGTH) {
-            
-            throw new InvalidFormatException("address");
-        }
+    /**
+     * Parses a person code into its numeric value without allocating.
+     *
+     * @param key Person code
+     * @return Numeric value of the code or -1 if the key cannot be a person
+     * code
+     */
+    static int parseCode(Object key) {
 
-        if (city.length() > MAX_CITY_LENGTH) {
-            
-            throw new InvalidFormatException("city");
-        }
+        if (! (key instanceof String)) {
 
-        if (province.length() != PROVINCE_LENGTH) {
-            
-            throw new InvalidFormatException("province");
+            return -1;
         }
 
-        if (postalCode.length() != POSTAL_CODE_LENGTH
-            || ! postalCode.matches("[A-Z][0-9][A-Z][0-9][A-Z][0-9]")) {
-            
-            throw new InvalidFormatException("postalCode");
+        String code = (String) key;
+
+        if (code.length() != CODE_LENGTH) {
+
+            return -1;
         }
-		
-		if (! email.matches("(.)+@facebook\\.com")) {
-            
-            throw new InvalidFormatException("email");
+
+        int value = 0;
+
+        for (int i = 0; i < code.length(); i++) {
+
+            char c = code.charAt(i);
+
+            if (c < '0' || c > '9') {
+
+                return -1;
+            }
+
+            value = value * 10 + (c - '0');
         }
-	}
+
+        return value;
+    }
 
 	/**
      * Creates a person using the provided fields after verifying their format.
@@ -100,13 +140,39 @@ public abstract class Person implements Serializable {
         
         this.name = name;
         this.address = address;
-        this.city = city;
-        this.province = province;
+        this.city = FieldDictionary.CITIES.idOf(city);
+        this.province = FieldDictionary.PROVINCES.idOf(province);
         this.postalCode = postalCode;
         this.email = email;
         status = Status.VALID;
 	}
 
+    /**
+     * Restores a person read back from a snapshot. The fields were verified
+     * when the person was first created and are not verified again.
+     *
+     * @param code Person code
+     * @param name Person name
+     * @param address Person address
+     * @param city Person city
+     * @param province Person province
+     * @param postalCode Person postal code
+     * @param email Person email
+     * @param status Person status
+     */
+    protected Person(String code, String name, String address, String city,
+        String province, String postalCode, String email, Status status) {
+
+        this.code = code;
+        this.name = name;
+        this.address = address;
+        this.city = FieldDictionary.CITIES.idOf(city);
+        this.province = FieldDictionary.PROVINCES.idOf(province);
+        this.postalCode = postalCode;
+        this.email = email;
+        this.status = status;
+    }
+
     /**
      * @return Person name
      */
@@ -144,7 +210,7 @@ public abstract class Person implements Serializable {
      */
     public String getCity() {
         
-        return city;
+        return FieldDictionary.CITIES.valueOf(city);
     }
 
     /**
@@ -152,7 +218,7 @@ public abstract class Person implements Serializable {
      */
     public void setCity(String city) {
         
-        this.city = city;
+        this.city = FieldDictionary.CITIES.idOf(city);
     }
 
     /**
@@ -160,7 +226,7 @@ public abstract class Person implements Serializable {
      */
     public String getProvince() {
         
-        return province;
+        return FieldDictionary.PROVINCES.valueOf(province);
     }
 
     /**
@@ -168,7 +234,7 @@ public abstract class Person implements Serializable {
      */
     public void setProvince(String province) {
         
-        this.province = province;
+        this.province = FieldDictionary.PROVINCES.idOf(province);
     }
 
     /**
@@ -226,4 +292,50 @@ public abstract class Person implements Serializable {
         
         return code;
     }
+
+    /**
+     * Writes the city and province as strings, as they were written before
+     * being kept as identifiers.
+     *
+     * @param out Serialization stream
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+
+        ObjectOutputStream.PutField fields = out.putFields();
+
+        fields.put("name", name);
+        fields.put("address", address);
+        fields.put("city", getCity());
+        fields.put("province", getProvince());
+        fields.put("postalCode", postalCode);
+        fields.put("email", email);
+        fields.put("status", status);
+        fields.put("code", code);
+        out.writeFields();
+    }
+
+    /**
+     * Reads back a person, sharing the city and province through the
+     * dictionaries.
+     *
+     * @param in Serialization stream
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a class of a field cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+        ClassNotFoundException {
+
+        ObjectInputStream.GetField fields = in.readFields();
+
+        name = (String) fields.get("name", null);
+        address = (String) fields.get("address", null);
+        city = FieldDictionary.CITIES.idOf((String) fields.get("city", null));
+        province = FieldDictionary.PROVINCES.idOf(
+        (String) fields.get("province", null));
+        postalCode = (String) fields.get("postalCode", null);
+        email = (String) fields.get("email", null);
+        status = (Status) fields.get("status", null);
+        code = (String) fields.get("code", null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package personal.gym.person;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+import personal.gym.storage.Codec;
+
+/**
+ * Compact binary encoding of members and professionals. Codes are written as
+ * integers, cities and provinces through the snapshot dictionary and the
+ * status as a single byte.
+ *
+ * @param <P> Type of the encoded persons
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class PersonCodec<P extends Person> implements Codec<P> {
+
+    public static final PersonCodec<Member> MEMBER =
+    new PersonCodec<>(1, Member::new);
+    public static final PersonCodec<Professional> PROFESSIONAL =
+    new PersonCodec<>(2, Professional::new);
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final int id;
+    private final PersonFactory<P> factory;
+
+    /**
+     * Initializes the codec of a kind of person.
+     *
+     * @param id Codec identifier
+     * @param factory Constructor of the decoded persons
+     */
+    private PersonCodec(int id, PersonFactory<P> factory) {
+
+        this.id = id;
+        this.factory = factory;
+    }
+
+    /**
+     * @return Codec identifier
+     */
+    @Override
+    public int getId() {
+
+        return id;
+    }
+
+    /**
+     * Writes a person.
+     *
+     * @param out Destination
+     * @param person Person to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void encode(BinaryOutput out, P person) throws IOException {
+
+        out.writeCode(person.getCode());
+        out.writeString(person.getName());
+        out.writeString(person.getAddress());
+        out.writeDictString(person.getCity());
+        out.writeDictString(person.getProvince());
+        out.writeString(person.getPostalCode());
+        out.writeString(person.getEmail());
+        out.writeByte(person.getStatus().ordinal());
+    }
+
+    /**
+     * Reads back a person.
+     *
+     * @param in Source
+     * @return Person read
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public P decode(BinaryInput in) throws IOException {
+
+        String code = in.readCode();
+        String name = in.readString();
+        String address = in.readString();
+        String city = in.readDictString();
+        String province = in.readDictString();
+        String postalCode = in.readString();
+        String email = in.readString();
+        int status = in.readByte();
+
+        if (status >= STATUSES.length) {
+
+            throw new StreamCorruptedException("Unknown status " + status);
+        }
+
+        return factory.create(code, name, address, city, province, postalCode,
+        email, STATUSES[status]);
+    }
+
+    /**
+     * Copies a person, whose attributes change on modifications.
+     *
+     * @param person Person to copy
+     * @return Copy of the person
+     */
+    @Override
+    public P copy(P person) {
+
+        return factory.create(person.getCode(), person.getName(),
+        person.getAddress(), person.getCity(), person.getProvince(),
+        person.getPostalCode(), person.getEmail(), person.getStatus());
+    }
+}
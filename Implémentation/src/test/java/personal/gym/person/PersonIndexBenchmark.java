@@ -0,0 +1,89 @@
+package personal.gym.person;
+
+import java.util.Random;
+
+/**
+ * Measures the lookups of the {@link PersonIndex} by email, name prefix and
+ * postal area, against a scan of the members as front-desk staff would
+ * otherwise do. Not a unit test: run with
+ * {@code java -Xmx4g personal.gym.person.PersonIndexBenchmark [members]}.
+ */
+public class PersonIndexBenchmark {
+    private static final int RUNS = 5;
+    private static final int LOOKUPS = 10000;
+    private static final String[] FIRST = {"Anna", "Julien", "Yan", "Philippe", "Yu", "Marie",
+        "Louis", "Emma", "Noah", "Chloe"};
+    // About as many forward sortation areas as there are in Canada
+    private static final int AREAS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        ListPersons listPersons = new ListPersons(null, null);
+        Random random = new Random(42);
+
+        Member.setCurrentMemberId(0);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            listPersons.createMember(FIRST[i % FIRST.length] + " " + lastName(i), i + " Sherbrooke Est",
+                    "Montréal", "QC", area(i % AREAS) + "1A1", "member" + i + "@facebook.com");
+        }
+        System.out.printf("%d members indexed in %d ms%n%n", n, (System.nanoTime() - t0) / 1000000);
+
+        PersonIndex<Member> index = listPersons.getMemberIndex();
+        String[] emails = new String[LOOKUPS];
+        String[] prefixes = new String[LOOKUPS];
+        String[] areas = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int member = random.nextInt(n);
+            emails[i] = "member" + member + "@facebook.com";
+            prefixes[i] = lastName(member).substring(0, 4);
+            areas[i] = area(random.nextInt(AREAS));
+        }
+
+        System.out.printf("%-12s %12s %12s%n", "lookup", "us/lookup", "found");
+        run("email", emails, query -> index.findByEmail(query).size());
+        run("name", prefixes, query -> index.findByNamePrefix(query, 20).size());
+        run("area", areas, query -> index.findByPostalArea(query).size());
+        run("scan", new String[] {emails[0], emails[1], emails[2]}, query -> {
+            int found = 0;
+            for (Member member : listPersons.getMembers().values()) {
+                found += member.getEmail().equalsIgnoreCase(query) ? 1 : 0;
+            }
+            return found;
+        });
+    }
+
+    private interface Lookup {
+        int find(String query);
+    }
+
+    private static void run(String name, String[] queries, Lookup lookup) {
+        long best = Long.MAX_VALUE;
+        long found = 0;
+        // Best of several runs, the first ones warming up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            found = 0;
+            long t0 = System.nanoTime();
+            for (String query : queries) {
+                found += lookup.find(query);
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+
+        System.out.printf("%-12s %12.1f %12d%n", name, best / 1000.0 / queries.length,
+                found / queries.length);
+    }
+
+    private static String area(int i) {
+        return "" + (char) ('A' + i / 260 % 26) + i / 26 % 10 + (char) ('A' + i % 26);
+    }
+
+    private static String lastName(int i) {
+        // Names made of letters only, as imposed on persons
+        StringBuilder name = new StringBuilder("Z");
+        for (int rest = i % 50000; name.length() < 6; rest /= 26) {
+            name.append((char) ('a' + rest % 26));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package personal.gym.person;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the memory retained by and the lookup speed of a {@link HashMap}
+ * keyed by code strings and of a {@link PersonTable}, the persons themselves
+ * being shared by both. Not a unit test: run with
+ * {@code java -Xmx2g personal.gym.person.PersonTableBenchmark [members]}.
+ */
+public class PersonTableBenchmark {
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Member[] members = new Member[n];
+        String[] codes = new String[n];
+
+        Member.setCurrentMemberId(0);
+        for (int i = 0; i < n; i++) {
+            members[i] = new Member("Julien Thibeault", i + " Sherbrooke Est",
+                    "Montréal", "QC", "A1A1A1", "member@facebook.com");
+            codes[i] = members[i].getCode();
+        }
+        // Members looked up in no particular order
+        Random random = new Random(42);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String code = codes[i];
+            codes[i] = codes[j];
+            codes[j] = code;
+        }
+
+        System.out.printf("%d members%n%n", n);
+        System.out.printf("%-12s %14s %14s %12s%n", "structure", "bytes",
+                "bytes/member", "lookup ns");
+        run("HashMap", new HashMap<>(), members, codes);
+        run("PersonTable", new PersonTable<>(), members, codes);
+    }
+
+    private static void run(String name, Map<String, Member> map, Member[] members, String[] codes) {
+        long before = usedMemory();
+        for (Member member : members) {
+            map.put(member.getCode(), member);
+        }
+        long retained = usedMemory() - before;
+
+        long best = Long.MAX_VALUE;
+        int found = 0;
+        // Best of several runs, the first ones warming up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            // Codes typed at the prompt, whose hash is not cached yet
+            String[] typed = new String[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                typed[i] = new String(codes[i].toCharArray());
+            }
+            long t0 = System.nanoTime();
+            for (String code : typed) {
+                found += map.get(code) != null ? 1 : 0;
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+
+        System.out.printf("%-12s %14d %14d %12d%n", name, retained,
+                retained / members.length, best / codes.length);
+        if (found != RUNS * codes.length) {
+            throw new IllegalStateException(name + " lost members");
+        }
+        map.clear();
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,80 @@
+package personal.gym.person;
+
+import org.junit.Test;
+import personal.gym.exception.InvalidFormatException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+
+import static org.junit.Assert.*;
+
+public class TestFieldDictionary {
+
+    @Test
+    public void testIdsAreStableAndShared() {
+        FieldDictionary dictionary = new FieldDictionary();
+        int montreal = dictionary.idOf("Montréal");
+        int laval = dictionary.idOf("Laval");
+
+        assertNotEquals(montreal, laval);
+        assertEquals(montreal, dictionary.idOf(new String("Montréal".toCharArray())));
+        assertEquals("Laval", dictionary.valueOf(laval));
+        assertEquals(FieldDictionary.NONE, dictionary.idOf(null));
+        assertNull(dictionary.valueOf(FieldDictionary.NONE));
+        assertEquals(2, dictionary.size());
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i + 2, dictionary.idOf("City" + i));
+        }
+        assertEquals("Montréal", dictionary.valueOf(montreal));
+    }
+
+    @Test
+    public void testPersonsShareTheirCity() throws InvalidFormatException {
+        Member first = new Member("Julien Thibeault", "1 rue St-Denis",
+                new String("Montréal".toCharArray()), new String("QC".toCharArray()), "A1A1A1",
+                "thibeaultj@facebook.com");
+        Member second = new Member("Yan Zhuang", "2 rue St-Denis",
+                new String("Montréal".toCharArray()), new String("QC".toCharArray()), "A1A1A1",
+                "yanz@facebook.com");
+
+        assertSame(first.getCity(), second.getCity());
+        assertSame(first.getProvince(), second.getProvince());
+
+        second.setCity("Laval");
+        assertEquals("Laval", second.getCity());
+        assertEquals("Montréal", first.getCity());
+    }
+
+    @Test
+    public void testSerializedWithStringFields() throws Exception {
+        Member member = new Member("Julien Thibeault", "1 rue St-Denis", "Montréal", "QC",
+                "A1A1A1", "thibeaultj@facebook.com");
+        member.setStatus(Status.SUSPENDED);
+
+        ObjectStreamClass descriptor = ObjectStreamClass.lookup(Person.class);
+        assertEquals(String.class, descriptor.getField("city").getType());
+        assertEquals(String.class, descriptor.getField("province").getType());
+
+        Member copy = (Member) roundTrip(member);
+        assertEquals(member.getCode(), copy.getCode());
+        assertEquals("Julien Thibeault", copy.getName());
+        assertSame(member.getCity(), copy.getCity());
+        assertEquals("QC", copy.getProvince());
+        assertEquals(Status.SUSPENDED, copy.getStatus());
+    }
+
+    private static Object roundTrip(Object object) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        }
+    }
+}
@@ -2,9 +2,26 @@ package personal.gym.person;
 
 import org.junit.Before;
 import org.junit.Test;
+import personal.gym.accounting.AccountingUtils;
 import personal.gym.exception.InvalidFormatException;
+import personal.gym.receipt.BillMember;
+import personal.gym.receipt.ListReceipts;
 import personal.gym.registration.ListRegistrations;
+import personal.gym.registration.Registration;
 import personal.gym.service.ListServices;
+import personal.gym.service.Service;
+import personal.gym.session.ListSessions;
+import personal.gym.session.ServicesDirectory;
+import personal.gym.session.Session;
+import personal.gym.util.Day;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 import static personal.gym.person.Status.*;
@@ -152,4 +169,141 @@ public class TestListPersons {
 
     }
 
+    @Test
+    public void testDeleteProfCascade() throws InvalidFormatException, ParseException {
+        ListSessions listSessions = new ListSessions(null);
+        AccountingUtils accountUtils = new AccountingUtils(null, null);
+        listSessions.setServicesDirectory(new ServicesDirectory(null, null));
+        listSessions.setListServices(listServices);
+        listServices.setListSessions(listSessions);
+        accountUtils.setListSessions(listSessions);
+        listPersons.setAccountUtils(accountUtils);
+
+        Professional leaving = listPersons.createProf("Yan Zhuang", "1 rue St-Denis", "Montréal",
+                "QC", "H1H1H1", "yanz@facebook.com");
+        Professional staying = listPersons.createProf("Yu Deng", "2 rue St-Denis", "Montréal", "QC",
+                "H1H1H1", "yud@facebook.com");
+        Member member = listPersons.createMember("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        Date start = new SimpleDateFormat("yyyy-MM-dd").parse("2000-01-01");
+        Date end = new SimpleDateFormat("yyyy-MM-dd").parse("2999-12-31");
+        for (String name : new String[] {"Yoga", "Pilates"}) {
+            for (Professional prof : new Professional[] {leaving, staying}) {
+                listServices.createService(name, start, end, new Day[] {Day.MONDAY, Day.FRIDAY}, 20,
+                        "", 2500, start, prof.getCode());
+            }
+        }
+        for (Session session : new ArrayList<>(listSessions.getSessions().values())) {
+            listRegistrations.createRegistration(session.getSessionNo(), member.getCode(),
+                    session.getProfNo(), "");
+            accountUtils.addSessionFee(session.getSessionNo(), session.getFee());
+            accountUtils.addProvidedProfs(session.getProfNo(), session.getSessionNo());
+        }
+        assertEquals(8, listSessions.getSessions().size());
+
+        listPersons.deleteProf(leaving.getCode());
+
+        assertNull(listPersons.getProf(leaving.getCode()));
+        assertEquals(2, listServices.getServices().size());
+        assertEquals(4, listSessions.getSessions().size());
+        assertEquals(4, listRegistrations.getRegistrations().size());
+        assertEquals(4, accountUtils.getSessionsFee().size());
+        assertEquals(Collections.singleton(staying.getCode()),
+                accountUtils.getProfsSessionsProvided().keySet());
+        for (Service service : listServices.getServices().values()) {
+            assertEquals(staying.getCode(), service.getProfNo());
+        }
+        for (Session session : listSessions.getSessions().values()) {
+            assertEquals(staying.getCode(), session.getProfNo());
+            assertTrue(accountUtils.getSessionsFee().containsKey(session.getSessionNo()));
+        }
+        for (Registration registration : listRegistrations.getRegistrations()) {
+            assertEquals(staying.getCode(), registration.getProfNo());
+        }
+
+        // Deleting the member afterwards leaves nothing behind either
+        listPersons.deleteMember(member.getCode());
+        listPersons.deleteProf(staying.getCode());
+        assertTrue(listServices.getServices().isEmpty());
+        assertTrue(listSessions.getSessions().isEmpty());
+        assertTrue(listRegistrations.getRegistrations().isEmpty());
+        assertTrue(accountUtils.getSessionsFee().isEmpty());
+    }
+
+    @Test
+    public void testDeleteMemberLeavesTombstone() throws InvalidFormatException, ParseException {
+        Member member = listPersons.createMember("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        Member other = listPersons.createMember("Philippe Gabriel", "987 Sherbrooke Ouest",
+                "Montréal", "QC", "B2B2B2", "philgab@facebook.com");
+        Map<String, BillMember> bills = new HashMap<>();
+        bills.put(member.getCode(), new BillMember(member));
+        bills.put(other.getCode(), new BillMember(other));
+        ListReceipts listReceipts = new ListReceipts(bills, null);
+        listPersons.setListReceipts(listReceipts);
+        for (int i = 0; i < 5; i++) {
+            listRegistrations.createRegistration("000000" + i, member.getCode(), "333666999", "");
+        }
+        listRegistrations.createRegistration("0000000", other.getCode(), "333666999", "");
+
+        listPersons.deleteMember(member.getCode());
+
+        // Hidden at once, purged later
+        assertNull(listPersons.getMember(member.getCode()));
+        assertEquals(INVALID_NUMBER, listPersons.checkAccess(member.getCode()));
+        assertNull(listRegistrations.getMemberRegistration(member.getCode(), "0000000"));
+        assertEquals(1, listRegistrations.consultRegistrations("0000000").size());
+        assertTrue(listPersons.getMemberIndex().findByEmail("thibeaultj@facebook.com").isEmpty());
+        assertEquals(6, listRegistrations.getRegistrations().size());
+        assertEquals(1, listPersons.getTombstoneCount());
+
+        assertEquals(2, listPersons.compact(2));
+        assertEquals(4, listRegistrations.getRegistrations().size());
+        assertEquals(2, listPersons.compact(2));
+        assertEquals(1, listPersons.getTombstoneCount());
+        // The last registration, then the bill and index entries
+        assertEquals(2, listPersons.compact(2));
+        assertEquals(0, listPersons.getTombstoneCount());
+        assertEquals(0, listPersons.compact(2));
+
+        assertEquals(1, listRegistrations.getRegistrations().size());
+        assertNotNull(listRegistrations.getMemberRegistration(other.getCode(), "0000000"));
+        assertNull(listReceipts.getBills().get(member.getCode()));
+        assertNotNull(listReceipts.getBills().get(other.getCode()));
+        assertNotNull(listPersons.getMember(other.getCode()));
+    }
+
+    @Test
+    public void testTombstonesSurviveRestart() throws InvalidFormatException, ParseException {
+        Member member = listPersons.createMember("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        listRegistrations.createRegistration("0000000", member.getCode(), "333666999", "");
+        listPersons.deleteMember(member.getCode());
+
+        // Receipts still loading: the tombstone is kept for the bill
+        listPersons.compact(10);
+        assertEquals(Collections.singletonList(member.getCode()), listPersons.getTombstones());
+        assertTrue(listRegistrations.getVisibleRegistrations().isEmpty());
+
+        // Restarted from a checkpoint holding the registration and the bill
+        ListRegistrations restored = new ListRegistrations(
+                new ArrayList<>(listRegistrations.getRegistrations()));
+        restored.createRegistration("0000000", "000000999", "333666999", "");
+        ListPersons restarted = new ListPersons(null, null);
+        restarted.setListRegistrations(restored);
+        restarted.restoreTombstones(listPersons.getTombstones());
+        assertTrue(restarted.hasTombstone(member.getCode()));
+        assertNull(restored.getMemberRegistration(member.getCode(), "0000000"));
+        assertEquals(1, restored.getVisibleRegistrations().size());
+
+        Map<String, BillMember> bills = new HashMap<>();
+        bills.put(member.getCode(), new BillMember(member));
+        ListReceipts listReceipts = new ListReceipts(bills, null);
+        restarted.setListReceipts(listReceipts);
+        restarted.compact(10);
+        assertEquals(0, restarted.getTombstoneCount());
+        assertTrue(listReceipts.getBills().isEmpty());
+        assertEquals(1, restored.getRegistrations().size());
+        assertTrue(restarted.getTombstoneEpoch() > 0);
+    }
 }
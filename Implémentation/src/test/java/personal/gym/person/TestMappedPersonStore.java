@@ -0,0 +1,83 @@
+package personal.gym.person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import personal.gym.exception.InvalidFormatException;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class TestMappedPersonStore {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("members", ".map");
+        file.delete();
+        Member.setCurrentMemberId(0);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testChangesSurviveReopen() throws IOException, InvalidFormatException {
+        MappedPersonStore<Member> store = MappedPersonStore.openMembers(file);
+        ListPersons listPersons = new ListPersons(store, null);
+        Member member = listPersons.createMember("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        listPersons.createMember("Philippe Gabriel", "987 Sherbrooke Ouest",
+                "Montréal", "QC", "B2B2B2", "philgab@facebook.com");
+        listPersons.setStatus(member, Status.SUSPENDED);
+        listPersons.modifyPerson(member, "Julien Thibeault", "1 Rue Berri",
+                "Laval", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        store.remove("000000001");
+        store.close();
+
+        MappedPersonStore<Member> reopened = MappedPersonStore.openMembers(file);
+        Member read = reopened.get("000000000");
+        assertEquals(1, reopened.size());
+        assertEquals("1 Rue Berri", read.getAddress());
+        assertEquals("Laval", read.getCity());
+        assertEquals(Status.SUSPENDED, read.getStatus());
+        assertNull(reopened.get("000000001"));
+        assertNull(reopened.get("0"));
+        reopened.close();
+    }
+
+    @Test
+    public void testStoreGrows() throws IOException, InvalidFormatException {
+        MappedPersonStore<Member> store = MappedPersonStore.openMembers(file);
+        Member.setCurrentMemberId(5000);
+        Member member = new Member("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        store.put(member.getCode(), member);
+
+        assertEquals("000005000", store.keySet().iterator().next());
+        assertEquals("Montréal", store.get("000005000").getCity());
+        store.close();
+    }
+
+    @Test
+    public void testLegacyFieldsCutToFit() throws IOException {
+        MappedPersonStore<Member> store = MappedPersonStore.openMembers(file);
+        String email = "a".repeat(Person.MAX_EMAIL_LENGTH) + "@facebook.com";
+        Member legacy = new Member("000000007", "Julien Thibeault",
+                "12345 Sherbrooke Est", "Montréal", "QC", "A1A1A1", email,
+                Status.SUSPENDED);
+        Member fitted = store.fit(legacy);
+        store.put(fitted.getCode(), fitted);
+
+        Member read = store.get("000000007");
+        assertEquals(email.substring(0, Person.MAX_EMAIL_LENGTH), read.getEmail());
+        assertEquals("Julien Thibeault", read.getName());
+        assertEquals(Status.SUSPENDED, read.getStatus());
+        assertSame(read, store.fit(read));
+        store.close();
+    }
+}
@@ -0,0 +1,111 @@
+package personal.gym.person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestMemberImporter {
+    private File csv;
+    private File rejects;
+    private ListPersons listPersons;
+    private MemberImporter importer;
+
+    @Before
+    public void setUp() throws IOException {
+        csv = File.createTempFile("members", ".csv");
+        rejects = new File(csv.getPath() + ".rejects.csv");
+        listPersons = new ListPersons(null, null);
+        Member.setCurrentMemberId(0);
+        importer = new MemberImporter(listPersons, new Object(), 2);
+    }
+
+    @After
+    public void tearDown() {
+        csv.delete();
+        rejects.delete();
+    }
+
+    @Test
+    public void testValidAndRejectedRows() throws IOException {
+        Files.write(csv.toPath(), Arrays.asList(
+        "name,address,city,province,postalCode,email",
+        "Jane Doe,\"1 rue A, app 2\",Montreal,QC,H1H1H1,jane@facebook.com",
+        "john smith,2 rue B,Laval,QC,H2H2H2,john@facebook.com",
+        "Mary Major,3 rue C,Laval,QC",
+        "Paul Roe,4 rue D,Laval,QC,H4H4H4,paul@facebook.com"),
+        StandardCharsets.UTF_8);
+
+        MemberImporter.Report report = importer.importCsv(csv, rejects,
+        progress -> { });
+
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(2, listPersons.getMembers().size());
+        assertEquals("1 rue A, app 2",
+        listPersons.getMember("000000000").getAddress());
+        assertEquals("Paul Roe", listPersons.getMember("000000001").getName());
+        assertEquals(2, Member.getCurrentMemberId());
+
+        List<String> errors = Files.readAllLines(rejects.toPath(),
+        StandardCharsets.UTF_8);
+        assertEquals(3, errors.size());
+        assertTrue(errors.get(1).startsWith("3,"));
+        assertTrue(errors.get(2).startsWith("4,"));
+    }
+
+    @Test
+    public void testLargeFileKeepsOrder() throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        for (int i = 0; i < 25000; i++) {
+            lines.add("Jane Doe,1 rue A,Montreal,QC,H1H1H1,j" + i
+            + "@facebook.com");
+        }
+
+        Files.write(csv.toPath(), lines, StandardCharsets.UTF_8);
+        List<String> progress = new ArrayList<>();
+
+        MemberImporter.Report report = importer.importCsv(csv, rejects,
+        progress::add);
+
+        assertEquals(25000, report.getImported());
+        assertEquals(2, progress.size());
+        assertFalse(rejects.exists());
+        assertEquals("j0@facebook.com",
+        listPersons.getMember("000000000").getEmail());
+        assertEquals("j24999@facebook.com",
+        listPersons.getMember("000024999").getEmail());
+    }
+
+    @Test
+    public void testFirstRowIsOnlySkippedIfHeader() throws IOException {
+        Files.write(csv.toPath(), Arrays.asList(
+        "Namita Roy,1 rue A,Montreal,QC,H1H1H1,namita@facebook.com",
+        "John Smith,2 rue B,Laval,QC,H2H2H2,john@facebook.com"),
+        StandardCharsets.UTF_8);
+
+        assertEquals(2, importer.importCsv(csv, rejects, progress -> { })
+        .getImported());
+        assertEquals("Namita Roy",
+        listPersons.getMember("000000000").getName());
+        assertTrue(MemberImporter.isHeader(
+        "Name, Address, City, Province, PostalCode, Email"));
+        assertFalse(MemberImporter.isHeader("name,address"));
+    }
+
+    @Test
+    public void testParseCsv() {
+        assertEquals(Arrays.asList("a", "b, \"c\"", ""),
+        MemberImporter.parseCsv("a ,\"b, \"\"c\"\"\","));
+    }
+}
@@ -0,0 +1,111 @@
+package personal.gym.person;
+
+import org.junit.Before;
+import org.junit.Test;
+import personal.gym.exception.InvalidFormatException;
+import personal.gym.registration.ListRegistrations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static personal.gym.person.Status.*;
+
+public class TestMemberStatusIndex {
+    private ListPersons listPersons;
+
+    @Before
+    public void setUp() {
+        listPersons = new ListPersons(null, null);
+        listPersons.setListRegistrations(new ListRegistrations(null));
+        Member.setCurrentMemberId(0);
+    }
+
+    private Member createMember() throws InvalidFormatException {
+        return listPersons.createMember("Julien Thibeault",
+                "12345 Sherbrooke Est", "Montréal", "QC", "A1A1A1",
+                "thibeaultj@facebook.com");
+    }
+
+    @Test
+    public void testFollowsMemberChanges() throws InvalidFormatException {
+        Member member = createMember();
+        assertEquals(VALID, listPersons.checkAccess("000000000"));
+
+        listPersons.setStatus(member, SUSPENDED);
+        assertEquals(SUSPENDED, listPersons.checkAccess("000000000"));
+        listPersons.setStatus(member, VALID);
+        assertEquals(VALID, listPersons.checkAccess("000000000"));
+
+        listPersons.deleteMember("000000000");
+        assertEquals(INVALID_NUMBER, listPersons.checkAccess("000000000"));
+    }
+
+    @Test
+    public void testUnknownCodes() throws InvalidFormatException {
+        createMember();
+        assertEquals(INVALID_NUMBER, listPersons.checkAccess("000000001"));
+        assertEquals(INVALID_NUMBER, listPersons.checkAccess("999999999"));
+        assertEquals(INVALID_NUMBER, listPersons.checkAccess("00000000A"));
+        assertEquals(INVALID_NUMBER, listPersons.checkAccess("0"));
+        assertEquals(INVALID_NUMBER, listPersons.checkAccess(null));
+    }
+
+    @Test
+    public void testBuiltFromLoadedAndInsertedMembers() throws InvalidFormatException {
+        Map<String, Member> members = new HashMap<>();
+        Member.setCurrentMemberId(5000);
+        Member loaded = new Member("Yan Zhuang", "1 rue St-Denis", "Montréal",
+                "QC", "H1H1H1", "yanz@facebook.com");
+        loaded.setStatus(SUSPENDED);
+        members.put(loaded.getCode(), loaded);
+        listPersons = new ListPersons(members, null);
+        assertEquals(SUSPENDED, listPersons.checkAccess("000005000"));
+
+        List<Member> batch = new ArrayList<>();
+        Member.setCurrentMemberId(70000);
+        batch.add(new Member("Yu Deng", "2 rue St-Denis", "Montréal", "QC",
+                "H1H1H1", "yud@facebook.com"));
+        listPersons.insertMembers(batch);
+        assertEquals(VALID, listPersons.checkAccess("000070000"));
+        assertEquals(SUSPENDED, listPersons.checkAccess("000005000"));
+    }
+
+    @Test
+    public void testIndexedInBackground() throws InvalidFormatException {
+        AtomicInteger scans = new AtomicInteger();
+        Map<String, Member> members = new TreeMap<String, Member>() {
+            @Override
+            public Collection<Member> values() {
+                scans.incrementAndGet();
+                return super.values();
+            }
+        };
+        Member.setCurrentMemberId(42);
+        Member loaded = new Member("Yan Zhuang", "1 rue St-Denis", "Montréal",
+                "QC", "H1H1H1", "yanz@facebook.com");
+        loaded.setStatus(SUSPENDED);
+        members.put(loaded.getCode(), loaded);
+
+        listPersons = new ListPersons(members, null);
+        assertEquals(0, scans.get());
+        // Read from the members map until indexed
+        assertEquals(SUSPENDED, listPersons.checkAccess("000000042"));
+        assertEquals(INVALID_NUMBER, listPersons.checkAccess("000000043"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        listPersons.buildIndexes(executor).join();
+        executor.shutdown();
+        assertEquals(1, scans.get());
+        assertEquals(SUSPENDED, listPersons.checkAccess("000000042"));
+        assertEquals(1, listPersons.getMemberIndex().findByEmail("yanz@facebook.com").size());
+        assertEquals(1, scans.get());
+    }
+}
@@ -0,0 +1,103 @@
+package personal.gym.person;
+
+import org.junit.Before;
+import org.junit.Test;
+import personal.gym.exception.InvalidFormatException;
+import personal.gym.registration.ListRegistrations;
+import personal.gym.service.ListServices;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestPersonIndex {
+    private ListPersons listPersons;
+    private PersonIndex<Member> index;
+
+    @Before
+    public void setUp() {
+        listPersons = new ListPersons(null, null);
+        listPersons.setListRegistrations(new ListRegistrations(null));
+        listPersons.setListServices(new ListServices(null));
+        index = listPersons.getMemberIndex();
+        Member.setCurrentMemberId(0);
+        Professional.setCurrentProfId(0);
+    }
+
+    private Member createMember(String name, String postalCode, String email)
+            throws InvalidFormatException {
+        return listPersons.createMember(name, "12345 Sherbrooke Est",
+                "Montréal", "QC", postalCode, email);
+    }
+
+    @Test
+    public void testFindByEmailNameAndArea() throws InvalidFormatException {
+        Member julien = createMember("Julien Thibeault", "H2X1Y4", "thibeaultj@facebook.com");
+        Member yan = createMember("Yan Zhuang", "H2X3A1", "yanz@facebook.com");
+        Member philippe = createMember("Philippe Gabriel", "J4B2C2", "philgab@facebook.com");
+
+        assertEquals(Collections.singletonList(yan), index.findByEmail("YanZ@facebook.com"));
+        assertTrue(index.findByEmail("nobody@facebook.com").isEmpty());
+
+        assertEquals(Collections.singletonList(julien), index.findByNamePrefix("jul", 10));
+        assertEquals(Collections.singletonList(julien), index.findByNamePrefix("Thib", 10));
+        assertEquals(Collections.singletonList(julien), index.findByNamePrefix("julien  t", 10));
+        assertTrue(index.findByNamePrefix("ulien", 10).isEmpty());
+
+        assertEquals(Arrays.asList(julien, yan), index.findByPostalArea("h2x"));
+        assertEquals(Collections.singletonList(philippe), index.findByPostalArea("J4B9Z9"));
+    }
+
+    @Test
+    public void testFollowsModificationAndDeletion() throws InvalidFormatException {
+        Member member = createMember("Julien Thibeault", "H2X1Y4", "thibeaultj@facebook.com");
+        listPersons.modifyPerson(member, "Julien Gagnon", "1 rue St-Denis",
+                "Montréal", "QC", "G1A1A1", "gagnonj@facebook.com");
+
+        assertTrue(index.findByEmail("thibeaultj@facebook.com").isEmpty());
+        assertTrue(index.findByNamePrefix("thib", 10).isEmpty());
+        assertTrue(index.findByPostalArea("H2X").isEmpty());
+        assertEquals(Collections.singletonList(member), index.findByEmail("gagnonj@facebook.com"));
+        assertEquals(Collections.singletonList(member), index.findByNamePrefix("gag", 10));
+        assertEquals(Collections.singletonList(member), index.findByPostalArea("G1A"));
+
+        listPersons.deleteMember(member.getCode());
+        assertTrue(index.findByEmail("gagnonj@facebook.com").isEmpty());
+        assertTrue(index.findByNamePrefix("julien", 10).isEmpty());
+        assertTrue(index.findByPostalArea("G1A").isEmpty());
+    }
+
+    @Test
+    public void testSharedNamesAndLimit() throws InvalidFormatException {
+        for (int i = 0; i < 30; i++) {
+            createMember("Anna Berg", "H1H1H1", "anna" + i + "@facebook.com");
+        }
+        createMember("Anna Bergeron", "H1H1H1", "bergeron@facebook.com");
+
+        assertEquals(31, index.findByNamePrefix("berg", 100).size());
+        assertEquals(5, index.findByNamePrefix("anna", 5).size());
+        assertEquals(31, index.findByPostalArea("H1H").size());
+
+        listPersons.deleteMember("000000000");
+        assertEquals(30, index.findByNamePrefix("anna berg", 100).size());
+    }
+
+    @Test
+    public void testBuiltFromLoadedPersonsPerType() throws InvalidFormatException {
+        Map<String, Member> members = new HashMap<>();
+        Member loaded = new Member("Yu Deng", "2 rue St-Denis", "Montréal", "QC",
+                "H3C3J7", "yud@facebook.com");
+        members.put(loaded.getCode(), loaded);
+        listPersons = new ListPersons(members, null);
+        listPersons.createProf("Yu Deng", "2 rue St-Denis", "Montréal", "QC",
+                "H3C3J7", "yud@facebook.com");
+
+        assertEquals(Collections.singletonList(loaded),
+                listPersons.getMemberIndex().findByEmail("yud@facebook.com"));
+        assertEquals(1, listPersons.getProfIndex().findByNamePrefix("deng", 10).size());
+        assertTrue(listPersons.getProfIndex().findByNamePrefix("deng", 10).get(0) instanceof Professional);
+    }
+}
@@ -0,0 +1,80 @@
+package personal.gym.person;
+
+import org.junit.Before;
+import org.junit.Test;
+import personal.gym.exception.InvalidFormatException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestPersonTable {
+    private PersonTable<Member> table;
+
+    @Before
+    public void setUp() {
+        table = new PersonTable<>();
+        Member.setCurrentMemberId(0);
+    }
+
+    private static Member member(int id) throws InvalidFormatException {
+        Member.setCurrentMemberId(id);
+        return new Member("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+    }
+
+    @Test
+    public void testPutGetRemove() throws InvalidFormatException {
+        Member member = member(42);
+        assertNull(table.put(member.getCode(), member));
+        assertSame(member, table.get("000000042"));
+        assertSame(member, table.get(42));
+        assertTrue(table.containsKey("000000042"));
+        assertNull(table.get("42"));
+        assertNull(table.get("00000004A"));
+
+        assertSame(member, table.remove("000000042"));
+        assertNull(table.get(42));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testGrowsAndRemovesAcrossCollisions() throws InvalidFormatException {
+        Map<String, Member> expected = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            Member member = member(i * 7);
+            table.put(member.getCode(), member);
+            expected.put(member.getCode(), member);
+        }
+        for (int i = 0; i < 5000; i += 3) {
+            String code = member(i * 7).getCode();
+            assertNotNull(table.remove(code));
+            expected.remove(code);
+        }
+
+        assertEquals(expected.size(), table.size());
+        for (int i = 0; i < 5000; i++) {
+            String code = String.format("%09d", i * 7);
+            assertSame(expected.get(code), table.get(code));
+        }
+        assertEquals(expected, new HashMap<>(table));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCodeRejected() throws InvalidFormatException {
+        table.put("A00000000", member(0));
+    }
+
+    @Test
+    public void testListPersonsMovesHeapMapOntoTable() throws InvalidFormatException {
+        Map<String, Member> members = new HashMap<>();
+        Member member = member(3);
+        members.put(member.getCode(), member);
+
+        ListPersons listPersons = new ListPersons(members, null);
+        assertTrue(listPersons.getMembers() instanceof PersonTable);
+        assertTrue(listPersons.getProfessionals() instanceof PersonTable);
+        assertSame(member, listPersons.getMember("000000003"));
+    }
+}
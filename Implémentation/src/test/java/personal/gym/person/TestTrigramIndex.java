@@ -0,0 +1,73 @@
+package personal.gym.person;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class TestTrigramIndex {
+
+    @Test
+    public void testFindsMisspelledNamesClosestFirst() {
+        TrigramIndex index = new TrigramIndex();
+        index.add("Julien Thibeault", "000000000");
+        index.add("Julien Thibodeau", "000000001");
+        index.add("Yan Zhuang", "000000002");
+        index.add("Philippe Gabriel", "000000003");
+
+        assertEquals(Arrays.asList("000000000", "000000001"), index.search("julien thibault", 10));
+        assertEquals(Collections.singletonList("000000000"), index.search("julien thibault", 1));
+        assertEquals(Collections.singletonList("000000002"), index.search("Yan Zuang", 10));
+        assertEquals(Collections.singletonList("000000003"), index.search("Phillipe Gabriel", 10));
+        assertTrue(index.search("Noah Tremblay", 10).isEmpty());
+        assertTrue(index.search("", 10).isEmpty());
+    }
+
+    @Test
+    public void testIgnoresCaseAccentsAndSpaces() {
+        TrigramIndex index = new TrigramIndex();
+        index.add("Hélène Bérubé", "000000000");
+
+        assertEquals(Collections.singletonList("000000000"), index.search("  HELENE   berube ", 10));
+        assertEquals(Collections.singletonList("000000000"), index.search("Helen Berube", 10));
+    }
+
+    @Test
+    public void testFollowsAdditionsAndRemovals() {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < 100; i++) {
+            index.add("Yan Zhuang", String.format("%09d", i));
+        }
+        index.add("Yu Deng", "000000100");
+        assertEquals(2, index.size());
+        assertEquals(5, index.search("Yan Zhuang", 5).size());
+
+        for (int i = 0; i < 100; i++) {
+            index.remove("Yan Zhuang", String.format("%09d", i));
+        }
+        assertEquals(1, index.size());
+        assertTrue(index.search("Yan Zhuang", 5).isEmpty());
+
+        // The freed name number is taken by the next name
+        index.add("Julien Thibeault", "000000101");
+        assertEquals(Collections.singletonList("000000101"), index.search("Julien Tibeault", 5));
+        assertEquals(Collections.singletonList("000000100"), index.search("Yu Deng", 5));
+    }
+
+    @Test
+    public void testFollowsPersons() throws Exception {
+        ListPersons listPersons = new ListPersons(null, null);
+        Member.setCurrentMemberId(0);
+        Member member = listPersons.createMember("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        PersonIndex<Member> index = listPersons.getMemberIndex();
+        assertEquals(Collections.singletonList(member), index.findBySimilarName("Julian Thibeau", 10));
+
+        listPersons.modifyPerson(member, "Yan Zhuang", "1 rue St-Denis", "Montréal", "QC", "A1A1A1",
+                "yanz@facebook.com");
+        assertTrue(index.findBySimilarName("Julian Thibeau", 10).isEmpty());
+        assertEquals(Collections.singletonList(member), index.findBySimilarName("Yann Zhang", 10));
+    }
+}
@@ -0,0 +1,456 @@
+package personal.gym.person;
+
+import java.text.Normalizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+import personal.gym.util.Formats;
+
+/**
+ * Inverted index from the trigrams of the names of persons to those names,
+ * for finding a person whose name was typed with mistakes. Each word of a name
+ * is cut into its sequences of three letters, padded with spaces so that the
+ * beginning and end of the words weigh more, after lowering the name and
+ * dropping its accents. The similarity of two names is the number of
+ * trigrams they share over the number of distinct trigrams of both.
+ * <p>
+ * Distinct names are indexed rather than persons, most names being shared, and
+ * are numbered so that postings are arrays of numbers. A search only visits
+ * the postings of the trigrams of the searched name, counting the shared
+ * trigrams of each name met, and keeps the closest names.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class TrigramIndex {
+
+    /**
+     * Minimum similarity of a name to the searched one for its persons to be
+     * found.
+     */
+    public static final double MIN_SIMILARITY = 0.3;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+
+    // Indexed by name number
+    private String[] names = new String[INITIAL_CAPACITY];
+    private Object[] codes = new Object[INITIAL_CAPACITY];
+    private int[] trigramCounts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Shared trigrams of the names met by a search, reset after each search
+    private int[] shared = new int[INITIAL_CAPACITY];
+    private int[] met = new int[INITIAL_CAPACITY];
+
+    /**
+     * @param name Person name
+     * @param code Person code
+     */
+    public void add(String name, String code) {
+
+        String key = normalize(name);
+        Integer id = nameIds.get(key);
+
+        if (id == null) {
+
+            int newId = newId();
+            long[] trigrams = trigrams(key);
+
+            nameIds.put(key, newId);
+            names[newId] = key;
+            trigramCounts[newId] = trigrams.length;
+
+            for (long trigram : trigrams) {
+
+                postings.computeIfAbsent(trigram, t -> new Postings())
+                .add(newId);
+            }
+
+            id = newId;
+        }
+
+        codes[id] = insert(codesOf(id), code);
+    }
+
+    /**
+     * @param name Person name, as indexed
+     * @param code Person code
+     */
+    public void remove(String name, String code) {
+
+        String key = normalize(name);
+        Integer id = nameIds.get(key);
+
+        if (id == null) {
+
+            return;
+        }
+
+        Set<String> remaining = delete(codesOf(id), code);
+
+        if (! remaining.isEmpty()) {
+
+            codes[id] = remaining;
+            return;
+        }
+
+        for (long trigram : trigrams(key)) {
+
+            Postings ids = postings.get(trigram);
+
+            if (ids.remove(id)) {
+
+                postings.remove(trigram);
+            }
+        }
+
+        nameIds.remove(key);
+        names[id] = null;
+        codes[id] = null;
+        freeIds.push(id);
+    }
+
+    /**
+     * @return Number of distinct names indexed
+     */
+    public int size() {
+
+        return nameIds.size();
+    }
+
+    /**
+     * Finds the codes of the persons whose name is the closest to a searched
+     * name, the closest first.
+     *
+     * @param name Searched name, possibly misspelled
+     * @param limit Maximum number of codes returned
+     * @return Codes of the persons whose name is similar enough
+     */
+    public List<String> search(String name, int limit) {
+
+        long[] trigrams = trigrams(normalize(name));
+        int metCount = 0;
+
+        for (long trigram : trigrams) {
+
+            Postings ids = postings.get(trigram);
+
+            if (ids == null) {
+
+                continue;
+            }
+
+            for (int i = 0; i < ids.size; i++) {
+
+                int id = ids.ids[i];
+
+                if (shared[id]++ == 0) {
+
+                    if (metCount == met.length) {
+
+                        met = Arrays.copyOf(met, metCount * 2);
+                    }
+
+                    met[metCount++] = id;
+                }
+            }
+        }
+
+        // Closest names kept so far, the farthest on top
+        PriorityQueue<Match> closest = new PriorityQueue<>(limit + 1);
+
+        for (int i = 0; i < metCount; i++) {
+
+            int id = met[i];
+            int common = shared[id];
+
+            shared[id] = 0;
+
+            double similarity = (double) common
+            / (trigrams.length + trigramCounts[id] - common);
+
+            if (similarity >= MIN_SIMILARITY) {
+
+                closest.add(new Match(names[id], id, similarity));
+
+                if (closest.size() > limit) {
+
+                    closest.poll();
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(closest);
+
+        Collections.sort(matches, Collections.reverseOrder());
+
+        List<String> found = new ArrayList<>();
+
+        for (Match match : matches) {
+
+            for (String code : codesOf(match.id)) {
+
+                if (found.size() == limit) {
+
+                    return found;
+                }
+
+                found.add(code);
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * @return Unused name number
+     */
+    private int newId() {
+
+        if (! freeIds.isEmpty()) {
+
+            return freeIds.pop();
+        }
+
+        if (size == names.length) {
+
+            int capacity = size * 2;
+
+            names = Arrays.copyOf(names, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            trigramCounts = Arrays.copyOf(trigramCounts, capacity);
+            shared = Arrays.copyOf(shared, capacity);
+        }
+
+        return size++;
+    }
+
+    /**
+     * @param id Name number
+     * @return Codes of the persons having the name
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> codesOf(int id) {
+
+        return codes[id] == null ? Collections.<String>emptySet()
+        : (Set<String>) codes[id];
+    }
+
+    /**
+     * @param name Indexed or searched name
+     * @return Name lowered, without accents and with single spaces
+     */
+    static String normalize(String name) {
+
+        String letters = name == null ? "" : name;
+
+        // Only names beyond ASCII may carry accents
+        for (int i = 0; i < letters.length(); i++) {
+
+            if (letters.charAt(i) > 0x7f) {
+
+                letters = withoutMarks(
+                Normalizer.normalize(letters, Normalizer.Form.NFD));
+                break;
+            }
+        }
+
+        return Formats.singleSpaced(letters).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param letters Decomposed name
+     * @return Name without its combining marks, the accents once decomposed
+     */
+    private static String withoutMarks(String letters) {
+
+        StringBuilder sb = new StringBuilder(letters.length());
+
+        for (int i = 0; i < letters.length(); i++) {
+
+            int type = Character.getType(letters.charAt(i));
+
+            if (type != Character.NON_SPACING_MARK
+                && type != Character.ENCLOSING_MARK
+                && type != Character.COMBINING_SPACING_MARK) {
+
+                sb.append(letters.charAt(i));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @param name Normalized name
+     * @return Distinct trigrams of the words of the name, each packed onto a
+     * long
+     */
+    static long[] trigrams(String name) {
+
+        long[] trigrams = new long[name.length() * 3 + 3];
+        int count = 0;
+
+        for (String word : name.split(" ")) {
+
+            if (word.isEmpty()) {
+
+                continue;
+            }
+
+            String padded = "  " + word + " ";
+
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+
+                trigrams[count++] = (long) padded.charAt(i) << 32
+                | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+            }
+        }
+
+        Arrays.sort(trigrams, 0, count);
+
+        int distinct = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            if (distinct == 0 || trigrams[distinct - 1] != trigrams[i]) {
+
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * @param codes Codes of a name
+     * @param code Code to add
+     * @return Codes with the added code, held by a singleton while alone
+     */
+    private static Set<String> insert(Set<String> codes, String code) {
+
+        if (codes.isEmpty()) {
+
+            return Collections.singleton(code);
+        }
+
+        Set<String> shared = codes instanceof TreeSet ? codes
+        : new TreeSet<>(codes);
+
+        shared.add(code);
+
+        return shared;
+    }
+
+    /**
+     * @param codes Codes of a name
+     * @param code Code to remove
+     * @return Remaining codes
+     */
+    private static Set<String> delete(Set<String> codes, String code) {
+
+        if (! codes.contains(code)) {
+
+            return codes;
+        }
+
+        if (codes.size() == 1) {
+
+            return Collections.emptySet();
+        }
+
+        codes.remove(code);
+
+        return codes;
+    }
+
+    /**
+     * Numbers of the names having a trigram, in no particular order.
+     */
+    private static class Postings {
+
+        private int[] ids = new int[2];
+        private int size;
+
+        /**
+         * @param id Name number
+         */
+        private void add(int id) {
+
+            if (size == ids.length) {
+
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+
+            ids[size++] = id;
+        }
+
+        /**
+         * @param id Name number
+         * @return {@code true} if no name is left
+         */
+        private boolean remove(int id) {
+
+            for (int i = 0; i < size; i++) {
+
+                if (ids[i] == id) {
+
+                    // The last number takes its place
+                    ids[i] = ids[--size];
+                    break;
+                }
+            }
+
+            return size == 0;
+        }
+    }
+
+    /**
+     * Name met by a search, ordered by similarity then by name.
+     */
+    private static class Match implements Comparable<Match> {
+
+        private final String name;
+        private final int id;
+        private final double similarity;
+
+        /**
+         * @param name Normalized name
+         * @param id Name number
+         * @param similarity Similarity to the searched name
+         */
+        private Match(String name, int id, double similarity) {
+
+            this.name = name;
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+
+            int order = Double.compare(similarity, other.similarity);
+
+            // Alphabetical order among equally close names
+            return order != 0 ? order : other.name.compareTo(name);
+        }
+    }
+}
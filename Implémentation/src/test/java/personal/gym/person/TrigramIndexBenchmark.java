@@ -0,0 +1,133 @@
+package personal.gym.person;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the searches of misspelled names through the {@link TrigramIndex}
+ * of the members, against a scan comparing the trigrams of every member's
+ * name. Not a unit test: run with
+ * {@code java -Xmx4g personal.gym.person.TrigramIndexBenchmark [members]}.
+ */
+public class TrigramIndexBenchmark {
+    private static final int RUNS = 5;
+    private static final int SEARCHES = 1000;
+    private static final int LIMIT = 20;
+    private static final String[] FIRST = {"Anna", "Julien", "Yan", "Philippe", "Yu", "Marie", "Louis",
+        "Emma", "Noah", "Chloe", "Olivier", "Camille", "Gabriel", "Lea", "Thomas", "Alice", "William",
+        "Rosalie", "Nathan", "Juliette"};
+    private static final String[] SYLLABLES = {"ber", "ge", "ron", "tre", "blay", "ga", "gnon", "roy",
+        "cote", "bou", "cher", "lan", "dry", "mo", "rin", "pel", "le", "tier", "four", "nier", "dub",
+        "ois", "mar", "tin", "tho", "bault", "la", "voie", "ca", "ron", "be", "lan", "ger", "gau",
+        "thier", "pa", "quet", "sim", "ard", "vil"};
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        ListPersons listPersons = new ListPersons(null, null);
+        Random random = new Random(42);
+        String[] names = new String[n];
+
+        Member.setCurrentMemberId(0);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            names[i] = FIRST[random.nextInt(FIRST.length)] + " " + lastName(random);
+            listPersons.createMember(names[i], i + " Sherbrooke Est", "Montréal", "QC", "H1H1H1",
+                    "member" + i + "@facebook.com");
+        }
+        System.out.printf("%d members indexed in %d ms%n%n", n, (System.nanoTime() - t0) / 1000000);
+
+        PersonIndex<Member> index = listPersons.getMemberIndex();
+        String[] queries = new String[SEARCHES];
+        String[] expected = new String[SEARCHES];
+        for (int i = 0; i < SEARCHES; i++) {
+            int member = random.nextInt(n);
+            expected[i] = String.format("%09d", member);
+            queries[i] = misspell(names[member], random);
+        }
+
+        System.out.printf("%-12s %12s %12s%n", "search", "us/search", "hit rate");
+        run("index", queries, expected, query -> codes(index.findBySimilarName(query, LIMIT)));
+        run("scan", Arrays.copyOf(queries, 3), expected, query -> scan(listPersons, query));
+    }
+
+    private interface Search {
+        String[] find(String query);
+    }
+
+    private static void run(String name, String[] queries, String[] expected, Search search) {
+        long best = Long.MAX_VALUE;
+        int hits = 0;
+        // Best of several runs, the first ones warming up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            hits = 0;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < queries.length; i++) {
+                hits += Arrays.asList(search.find(queries[i])).contains(expected[i]) ? 1 : 0;
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+
+        System.out.printf("%-12s %12.1f %11d%%%n", name, best / 1000.0 / queries.length,
+                hits * 100 / queries.length);
+    }
+
+    // Similarity of every member's name, as a search without index would compute it
+    private static String[] scan(ListPersons listPersons, String query) {
+        long[] searched = TrigramIndex.trigrams(TrigramIndex.normalize(query));
+        String best = null;
+        double bestSimilarity = 0;
+        for (Member member : listPersons.getMembers().values()) {
+            long[] trigrams = TrigramIndex.trigrams(TrigramIndex.normalize(member.getName()));
+            int common = 0;
+            for (int i = 0, j = 0; i < searched.length && j < trigrams.length; ) {
+                if (searched[i] == trigrams[j]) {
+                    common++;
+                    i++;
+                    j++;
+                } else if (searched[i] < trigrams[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            double similarity = (double) common / (searched.length + trigrams.length - common);
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                best = member.getCode();
+            }
+        }
+        return new String[] {best};
+    }
+
+    private static String[] codes(List<Member> members) {
+        String[] codes = new String[members.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = members.get(i).getCode();
+        }
+        return codes;
+    }
+
+    private static String lastName(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 2 + random.nextInt(2); i > 0; i--) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    // One typing mistake in the last name: a letter dropped, doubled or swapped with the next
+    private static String misspell(String name, Random random) {
+        int space = name.indexOf(' ');
+        int at = space + 2 + random.nextInt(name.length() - space - 3);
+        switch (random.nextInt(3)) {
+            case 0:
+                return name.substring(0, at) + name.substring(at + 1);
+            case 1:
+                return name.substring(0, at) + name.charAt(at) + name.substring(at);
+            default:
+                return name.substring(0, at) + name.charAt(at + 1) + name.charAt(at) + name.substring(at + 2);
+        }
+    }
+}
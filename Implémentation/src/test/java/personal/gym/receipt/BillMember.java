@@ -1,5 +1,6 @@
 package personal.gym.receipt;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import java.text.SimpleDateFormat;
@@ -10,6 +11,9 @@ import java.util.List;
 
 import personal.gym.person.Member;
 
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+
 /**
  * Describes a member's tab for the week.
  *
@@ -21,6 +25,8 @@ import personal.gym.person.Member;
  */
 public class BillMember extends Receipt {
 
+    private static final long serialVersionUID = 506420066173918548L;
+
     private List<BillMemberData> sessionsInfo;
 
     /**
@@ -49,6 +55,57 @@ public class BillMember extends Receipt {
         serviceName));
     }
 
+    /**
+     * Copies the bill onto a copy of its recipient. The attended sessions are
+     * never modified once added and are shared.
+     *
+     * @param recipient Copy of the recipient
+     * @return Bill detached from later additions
+     */
+    BillMember copy(Member recipient) {
+        
+        BillMember copy = new BillMember(recipient);
+        copy.sessionsInfo.addAll(sessionsInfo);
+        
+        return copy;
+    }
+
+    /**
+     * Writes the attended sessions, for {@link BillMemberCodec}.
+     *
+     * @param out Destination
+     * @throws IOException if an I/O error occurs
+     */
+    void writeSessions(BinaryOutput out) throws IOException {
+        
+        out.writeVarInt(sessionsInfo.size());
+        
+        for (BillMemberData sessionInfo : sessionsInfo) {
+            
+            out.writeTimestamp(sessionInfo.sessionDate);
+            out.writeDictString(sessionInfo.profName);
+            out.writeDictString(sessionInfo.serviceName);
+        }
+    }
+
+    /**
+     * Reads back the attended sessions written by
+     * {@link #writeSessions(BinaryOutput)}.
+     *
+     * @param in Source
+     * @throws IOException if an I/O error occurs
+     */
+    void readSessions(BinaryInput in) throws IOException {
+        
+        int count = in.readVarInt();
+        
+        for (int i = 0; i < count; i++) {
+            
+            addSessionInfo(in.readTimestamp(), in.readDictString(),
+            in.readDictString());
+        }
+    }
+
     /**
      * String implementation of bill.
      *
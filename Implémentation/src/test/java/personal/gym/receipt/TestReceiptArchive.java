@@ -0,0 +1,103 @@
+package personal.gym.receipt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import personal.gym.exception.InvalidFormatException;
+import personal.gym.person.Member;
+import personal.gym.person.Professional;
+import personal.gym.util.Type;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class TestReceiptArchive {
+    private static final LocalDate WEEK_1 = LocalDate.of(2026, 10, 2);
+    private static final LocalDate WEEK_2 = LocalDate.of(2026, 10, 9);
+
+    private File folder;
+    private ReceiptArchive archive;
+    private BillMember bill;
+    private BillMember otherBill;
+    private PaymentNoticeProf notice;
+
+    @Before
+    public void setUp() throws IOException, InvalidFormatException {
+        folder = Files.createTempDirectory("receipts").toFile();
+        archive = new ReceiptArchive(folder);
+
+        bill = new BillMember(new Member("Jane Doe", "1 rue A", "Montreal",
+        "QC", "H1H1H1", "jane@facebook.com"));
+        bill.addSessionInfo(new Date(), "Coach", "Yoga");
+        otherBill = new BillMember(new Member("Jane Doe", "2 rue B",
+        "Laval", "QC", "H2H2H2", "jane2@facebook.com"));
+        notice = new PaymentNoticeProf(new Professional("John Coach",
+        "3 rue C", "Montreal", "QC", "H3H3H3", "coach@facebook.com"));
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    @Test
+    public void testReceiptsReadBack() throws IOException {
+        archive.archive(WEEK_1, Arrays.asList(bill, otherBill));
+        archive.archive(WEEK_1, Collections.singletonList(notice));
+
+        String code = bill.getRecipient().getCode();
+        assertEquals(bill.toString(), archive.read(WEEK_1, Type.MEMBER, code));
+        assertEquals(otherBill.toString(), archive.read(WEEK_1, Type.MEMBER,
+        otherBill.getRecipient().getCode()));
+        assertEquals(notice.toString(), archive.read(WEEK_1,
+        Type.PROFESSIONAL, notice.getRecipient().getCode()));
+        assertNull(archive.read(WEEK_1, Type.PROFESSIONAL, "999999999"));
+        assertNull(archive.read(WEEK_2, Type.MEMBER, code));
+    }
+
+    @Test
+    public void testLatestWeekIsRead() throws IOException {
+        String code = bill.getRecipient().getCode();
+        archive.archive(WEEK_1, Collections.singletonList(bill));
+        bill.addSessionInfo(new Date(), "Coach", "Pilates");
+        archive.archive(WEEK_2, Collections.singletonList(bill));
+
+        assertEquals(Arrays.asList(WEEK_1, WEEK_2), archive.getWeeks());
+        assertEquals(bill.toString(), archive.readLatest(Type.MEMBER, code));
+        assertNotEquals(bill.toString(), archive.read(WEEK_1, Type.MEMBER,
+        code));
+    }
+
+    @Test
+    public void testTornIndexEntryIsCutOff() throws IOException {
+        archive.archive(WEEK_1, Collections.singletonList(bill));
+        File index = new File(folder, WEEK_1 + ".idx");
+        long complete = index.length();
+
+        // Crash while the entry of a second receipt was appended
+        try (FileOutputStream out = new FileOutputStream(index, true)) {
+            out.write(new byte[] {0, 0, 9, '1', '2'});
+        }
+
+        String code = bill.getRecipient().getCode();
+        assertEquals(bill.toString(), archive.read(WEEK_1, Type.MEMBER, code));
+
+        archive.archive(WEEK_1, Collections.singletonList(notice));
+        assertEquals(2 * complete, index.length());
+        assertEquals(bill.toString(), archive.read(WEEK_1, Type.MEMBER, code));
+        assertEquals(notice.toString(), archive.read(WEEK_1,
+        Type.PROFESSIONAL, notice.getRecipient().getCode()));
+    }
+}
@@ -3,10 +3,20 @@ package personal.gym.registration;
 import java.text.ParseException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
 
 import personal.gym.exception.InvalidFormatException;
 
+import personal.gym.storage.Journal;
+import personal.gym.storage.Operation;
+
+import personal.gym.util.ReverseIndex;
+
 import personal.gym.validation.ListValidations;
 
 /**
@@ -21,20 +31,35 @@ import personal.gym.validation.ListValidations;
  */
 public class ListRegistrations {
 
-	private List<Registration> registrations;
+	private Set<Registration> registrations =
+    Collections.newSetFromMap(new LinkedHashMap<>());
+    private ReverseIndex<Registration> registrationsByProf =
+    new ReverseIndex<>();
+    private ReverseIndex<Registration> registrationsByMember =
+    new ReverseIndex<>();
+    // Deleted members whose registrations are not purged yet
+    private Set<String> hiddenMembers = new HashSet<>();
 
 	private ListValidations listValidations;
+    private Journal journal;
+    private long epoch;
 
     /**
-     * Initializes the list of registrations.
+     * Initializes the list of registrations. Registrations are held in their
+     * order of creation by a linked set, registrations being compared by
+     * identity, so that a registration is removed without shifting the
+     * others.
      *
      * @param registrations List of registrations
      */
     public ListRegistrations(List<Registration> registrations) {
         
-        if ((this.registrations = registrations) == null) {
+        if (registrations != null) {
             
-            this.registrations = new ArrayList<>();
+            for (Registration registration : registrations) {
+                
+                add(registration);
+            }
         }
     }
 
@@ -47,13 +72,53 @@ public class ListRegistrations {
     }
 
     /**
-     * @return List of registrations
+     * @param journal Journal recording the mutations, or null to stop recording
+     */
+    public void setJournal(Journal journal) {
+        
+        this.journal = journal;
+    }
+
+    /**
+     * @return Modification epoch of the registrations, increased on every change
      */
-    public List<Registration> getRegistrations() {
+    public long getEpoch() {
+        
+        return epoch;
+    }
+
+    /**
+     * @return Registrations in their order of creation
+     */
+    public Collection<Registration> getRegistrations() {
 		
         return registrations;
     }
 
+    /**
+     * @return Registrations in their order of creation, without those of the
+     * deleted members which are not purged yet
+     */
+    public Collection<Registration> getVisibleRegistrations() {
+        
+        if (hiddenMembers.isEmpty()) {
+            
+            return registrations;
+        }
+        
+        List<Registration> visible = new ArrayList<>(registrations.size());
+        
+        for (Registration r : registrations) {
+            
+            if (! hiddenMembers.contains(r.getMemberNo())) {
+                
+                visible.add(r);
+            }
+        }
+        
+        return visible;
+    }
+
     /**
      * Clears the registrations list from its contents. This method should be
      * called on a weekly basis.
@@ -61,6 +126,10 @@ public class ListRegistrations {
     public void clear() {
         
         registrations.clear();
+        registrationsByProf.clear();
+        registrationsByMember.clear();
+        hiddenMembers.clear();
+        epoch++;
     }
 
 	/**
@@ -83,14 +152,33 @@ public class ListRegistrations {
         Registration registration = new Registration(sessionNo, memberNo,
         profNo, comment);
         
-        registrations.add(registration);
+        if (journal != null) {
+            
+            journal.append(Operation.CREATE_REGISTRATION, sessionNo, memberNo,
+            profNo, comment);
+        }
+        
+        add(registration);
+        epoch++;
         
         return registration;
     }
 
+    /**
+     * Adds a registration and indexes it by professional and by member.
+     *
+     * @param registration Added registration
+     */
+    private void add(Registration registration) {
+        
+        registrations.add(registration);
+        registrationsByProf.add(registration.getProfNo(), registration);
+        registrationsByMember.add(registration.getMemberNo(), registration);
+    }
+
 	/**
      * Retrieves an existing registration for a given session by a given member
-     * or null if absent.
+     * or null if absent. Only the registrations of the member are visited.
 	 * 
 	 * @param memberNo Member number
 	 * @param sessionNo Session number
@@ -99,10 +187,14 @@ public class ListRegistrations {
 	public Registration getMemberRegistration(String memberNo,
         String sessionNo) {
 		
-        for (Registration r : registrations) {
+        if (hiddenMembers.contains(memberNo)) {
+            
+            return null;
+        }
+        
+        for (Registration r : registrationsByMember.get(memberNo)) {
             
-            if (r.getMemberNo().equals(memberNo)
-                && r.getSessionNo().equals(sessionNo)) {
+            if (r.getSessionNo().equals(sessionNo)) {
                 
                 return r;
             }
@@ -112,13 +204,24 @@ public class ListRegistrations {
     }
 
 	/**
-     * Removes the registrations for sessions under a given professional.
+     * Removes the registrations for sessions under a given professional. Only
+     * the registrations of the professional are visited.
 	 * 
 	 * @param profNo Professional number
 	 */
 	public void removeRegistrationsProf(String profNo) {
 
-        registrations.removeIf(r -> r.getProfNo().equals(profNo));
+        Set<Registration> removed = registrationsByProf.removeAll(profNo);
+        
+        for (Registration r : removed) {
+            
+            registrationsByMember.remove(r.getMemberNo(), r);
+        }
+        
+        if (registrations.removeAll(removed)) {
+            
+            epoch++;
+        }
     }
 
 	/**
@@ -128,7 +231,51 @@ public class ListRegistrations {
 	 */
 	public void removeRegistrationsMember(String memberNo) {
 
-        registrations.removeIf(r -> r.getMemberNo().equals(memberNo));
+        purgeRegistrationsMember(memberNo, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Hides the registrations of a deleted member from the lookups until they
+     * are purged by {@link #purgeRegistrationsMember(String, int)}.
+     *
+     * @param memberNo Member number
+     */
+    public void hideRegistrationsMember(String memberNo) {
+        
+        hiddenMembers.add(memberNo);
+    }
+
+    /**
+     * Removes a bounded number of the registrations of a member, so that the
+     * registrations of a deleted member are purged over several batches.
+     *
+     * @param memberNo Member number
+     * @param limit Maximum number of registrations removed
+     * @return Number of registrations removed, fewer than the limit once the
+     * member has none left
+     */
+    public int purgeRegistrationsMember(String memberNo, int limit) {
+        
+        List<Registration> removed =
+        registrationsByMember.removeBatch(memberNo, limit);
+        
+        for (Registration r : removed) {
+            
+            registrations.remove(r);
+            registrationsByProf.remove(r.getProfNo(), r);
+        }
+        
+        if (! removed.isEmpty()) {
+            
+            epoch++;
+        }
+        
+        if (removed.size() < limit) {
+            
+            hiddenMembers.remove(memberNo);
+        }
+        
+        return removed.size();
     }
 
     /**
@@ -143,7 +290,8 @@ public class ListRegistrations {
         
         for (Registration r : registrations) {
             
-            if (r.getSessionNo().equals(sessionNo)) {
+            if (r.getSessionNo().equals(sessionNo)
+                && ! hiddenMembers.contains(r.getMemberNo())) {
                 
                 registrationsConsult.add(r);
             }
@@ -3,11 +3,16 @@ package personal.gym.registration;
 import org.junit.Before;
 import org.junit.Test;
 import personal.gym.exception.InvalidFormatException;
+import personal.gym.storage.Journal;
 
+import java.io.File;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class TestListRegistrations {
     private ListRegistrations listRegistrations;
@@ -36,4 +41,28 @@ public class TestListRegistrations {
 
         assertNull(listRegistrations.getMemberRegistration("111444777", "1234567"));
     }
+
+    @Test
+    public void testRegistrationNotKeptWhenJournalFails() throws Exception {
+        File file = File.createTempFile("journal", ".log");
+        try {
+            Journal journal = new Journal(file, 0);
+            journal.replay(r -> { });
+            journal.close();
+            listRegistrations.setJournal(journal);
+
+            try {
+                listRegistrations.createRegistration("1234567", "111444777",
+                        "333666999", "test comment");
+                fail();
+            } catch (UncheckedIOException e) {
+                // The journal is closed
+            }
+
+            assertNull(listRegistrations.getMemberRegistration("111444777", "1234567"));
+            assertTrue(listRegistrations.getRegistrations().isEmpty());
+        } finally {
+            file.delete();
+        }
+    }
 }
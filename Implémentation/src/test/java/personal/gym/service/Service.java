@@ -13,7 +13,10 @@ import personal.gym.accounting.AccountingUtils;
 
 import personal.gym.exception.InvalidFormatException;
 
+import personal.gym.storage.IdAllocator;
+
 import personal.gym.util.Day;
+import personal.gym.util.Formats;
 
 /**
  * Entity describing information relative to a service offered at the #GYM
@@ -27,12 +30,16 @@ import personal.gym.util.Day;
  */
 public class Service implements Serializable {
 
+    private static final long serialVersionUID = 2166383606119615683L;
+
     private static final int MAX_NAME_LENGTH = 20;
     private static final int MAX_CAPACITY = 30;
     private static final int MAX_COMMENT_LENGTH = 100;
     private static final int MAX_FEE = 10000; // $100.00
     private static final int PROF_NO_LENGTH = 9;
     private static final int CODE_LENGTH = 7;
+    private static final String[] FIELDS = {"name", "startDate, endDate",
+        "occurrences", "capacityMax", "comment", "fee", "profNo"};
 
 	private String name;
     private Date dateNow;
@@ -46,14 +53,12 @@ public class Service implements Serializable {
 	private String profNo;
     private final String code;
 
-    private static int currentServiceId = 0;
-
     /**
      * @return Counter value
      */
     public static int getCurrentServiceId() {
         
-        return currentServiceId;
+        return IdAllocator.SERVICES.get();
     }
 
     /**
@@ -61,7 +66,7 @@ public class Service implements Serializable {
      */
     public static void setCurrentServiceId(int num) {
         
-        currentServiceId = num;
+        IdAllocator.SERVICES.set(num);
     }
 
 	/**
@@ -76,54 +81,20 @@ public class Service implements Serializable {
      * @param comment Service comment
 	 * @param fee Service fee
 	 * @param profNo Service professional's number
-     * @throws InvalidFormatException if a field does not respect the imposed
-     * format
+     * @throws InvalidFormatException naming every field which does not
+     * respect the imposed format
 	 */
 	public static void verifyFormat(String name, Date startDate, Date endDate,
         Day[] occurrences, int capacityMax, String comment, int fee,
         String profNo) throws InvalidFormatException {
 		
-        if (name.length() > MAX_NAME_LENGTH
-            || ! name.matches("[A-Z][a-z]*")) {
-            
-            throw new InvalidFormatException("name");
-        }
-        
-        if (startDate.after(endDate)) {
-            
-            throw new InvalidFormatException("startDate, endDate");
-        }
-        
-        for (int i = 0; i < occurrences.length; i++) {
-            
-            for (int j = i + 1; j < occurrences.length; j++) {
-                
-                if (occurrences[i].equals(occurrences[j])) {
-                    
-                    throw new InvalidFormatException("occurrences");
-                }
-            }
-        }
-        
-        if (capacityMax < 0 || capacityMax > MAX_CAPACITY) {
-            
-            throw new InvalidFormatException("capacityMax");
-        }
-        
-        if (comment.length() > MAX_COMMENT_LENGTH) {
-            
-            throw new InvalidFormatException("comment");
-        }
-        
-        if (fee < 0 || fee > MAX_FEE) {
-            
-            throw new InvalidFormatException("fee");
-        }
-        
-        if (profNo.length() != PROF_NO_LENGTH) {
-            
-            throw new InvalidFormatException("profNo");
-        }
+        Formats.report(Formats.flag(Formats.isWord(name, MAX_NAME_LENGTH), 0)
+        | Formats.flag(! startDate.after(endDate), 1)
+        | Formats.flag(Formats.areDistinct(occurrences), 2)
+        | Formats.flag(capacityMax >= 0 && capacityMax <= MAX_CAPACITY, 3)
+        | Formats.flag(Formats.fitsLength(comment, MAX_COMMENT_LENGTH), 4)
+        | Formats.flag(fee >= 0 && fee <= MAX_FEE, 5)
+        | Formats.flag(Formats.hasLength(profNo, PROF_NO_LENGTH), 6), FIELDS);
 	}
 
 	/**
@@ -164,6 +135,39 @@ public class Service implements Serializable {
         code = generateServiceNo();
 	}
 
+    /**
+     * Restores a service read back from a snapshot. The fields were verified
+     * when the service was first created and are not verified again.
+     *
+     * @param code Service code
+     * @param name Service name
+     * @param dateNow Service date of creation
+     * @param startDate Service start date
+     * @param endDate Service end date
+     * @param occurrences Service weekly recurrence
+     * @param capacityMax Service maximum capacity
+     * @param comment Service comment
+     * @param fee Service fee
+     * @param serviceTime Service time
+     * @param profNo Service professional's number
+     */
+    Service(String code, String name, Date dateNow, Date startDate,
+        Date endDate, Day[] occurrences, int capacityMax, String comment,
+        int fee, Date serviceTime, String profNo) {
+
+        this.code = code;
+        this.name = name;
+        this.dateNow = dateNow;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.occurrences = occurrences;
+        this.capacityMax = capacityMax;
+        this.comment = comment;
+        this.fee = fee;
+        this.serviceTime = serviceTime;
+        this.profNo = profNo;
+    }
+
     /**
 	 * @return Service name
 	 */
@@ -180,6 +184,14 @@ public class Service implements Serializable {
 		this.name = name;
 	}
 
+    /**
+     * @return Service date of creation
+     */
+    public Date getDateNow() {
+
+        return dateNow;
+    }
+
     /**
      * @return Service start date
      */
@@ -323,7 +335,7 @@ public class Service implements Serializable {
      */
     private String generateServiceNo() {
 		
-        String code = String.valueOf(currentServiceId++);
+        String code = String.valueOf(IdAllocator.SERVICES.next());
 
         return "0".repeat(CODE_LENGTH - code.length()) + code;
 	}
@@ -1,7 +1,5 @@
 package personal.gym.session;
 
-import java.text.SimpleDateFormat;
-
 import java.time.LocalDate;
 import java.time.ZoneId;
 
@@ -10,13 +8,19 @@ import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
-
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import personal.gym.service.*;
 
+import personal.gym.storage.Journal;
+import personal.gym.storage.Operation;
+
 import personal.gym.util.Day;
+import personal.gym.util.ReverseIndex;
 
 /**
  * Data structure holding the set of available sessions. Sessions are recycled,
@@ -32,9 +36,14 @@ import personal.gym.util.Day;
 public class ListSessions {
 
     private Map<String, Session> sessions;
+    private ReverseIndex<String> sessionsByProf = new ReverseIndex<>();
+    private ReverseIndex<String> sessionsByService = new ReverseIndex<>();
+    private Map<Day, Set<String>> sessionsByDay = new EnumMap<>(Day.class);
     
     private ListServices listServices;
     private ServicesDirectory servicesDirectory;
+    private Journal journal;
+    private long epoch;
 
     /**
      * Initializes the sessions hashmap
@@ -47,6 +56,16 @@ public class ListSessions {
             
             this.sessions = new HashMap<>();
         }
+        
+        for (Day day : Day.values()) {
+            
+            sessionsByDay.put(day, new LinkedHashSet<>());
+        }
+        
+        for (Session session : this.sessions.values()) {
+            
+            index(session);
+        }
     }
 
     /**
@@ -65,6 +84,22 @@ public class ListSessions {
         this.servicesDirectory = servicesDirectory;
     }
 
+    /**
+     * @param journal Journal recording the mutations, or null to stop recording
+     */
+    public void setJournal(Journal journal) {
+        
+        this.journal = journal;
+    }
+
+    /**
+     * @return Modification epoch of the sessions, increased on every change
+     */
+    public long getEpoch() {
+        
+        return epoch;
+    }
+
     /**
      * @return Sessions map
      */
@@ -80,6 +115,15 @@ public class ListSessions {
     public void clear() {
        
        sessions.clear();
+       sessionsByProf.clear();
+       sessionsByService.clear();
+       
+       for (Set<String> sessionNos : sessionsByDay.values()) {
+           
+           sessionNos.clear();
+       }
+       
+       epoch++;
        refreshSessions();
     }
     
@@ -95,6 +139,44 @@ public class ListSessions {
         return sessions.get(sessionNo);
     }
 
+    /**
+     * Reserves a seat in the given session by decreasing its remaining
+     * capacity.
+     *
+     * @param session Session in which a seat is reserved
+     */
+    public void reserveSeat(Session session) {
+        
+        if (journal != null) {
+            
+            journal.append(Operation.RESERVE_SEAT, session.getSessionNo());
+        }
+        
+        session.setRemainCapacity(session.getRemainCapacity() - 1);
+        // Written back for maps handing out copies of the sessions
+        sessions.put(session.getSessionNo(), session);
+        epoch++;
+    }
+
+    /**
+     * Retrieves the sessions taught by a professional. Only the sessions of the
+     * professional are visited.
+     *
+     * @param profNo Professional number
+     * @return Collection of sessions of the professional
+     */
+    public Collection<Session> getSessionsProf(String profNo) {
+
+        Collection<Session> sessionsProf = new ArrayList<>();
+
+        for (String sessionNo : sessionsByProf.get(profNo)) {
+
+            sessionsProf.add(sessions.get(sessionNo));
+        }
+        
+        return sessionsProf;
+    }
+
     /**
      * Retrieves the list of sessions available this very day.
      *
@@ -102,21 +184,26 @@ public class ListSessions {
      */
     public Collection<Session> getSessionsToday() {
 
-        Collection<Session> sessionsToday = new ArrayList<>();
+        return getSessionsOn(Day.today());
+    }
 
-        Day day = Day.valueOf(((
-        new SimpleDateFormat("EEEE")).format(System.currentTimeMillis())).
-        toUpperCase());
+    /**
+     * Retrieves the list of sessions occurring on a given day of the week. Only
+     * the sessions of that day are visited.
+     *
+     * @param day Day of the week
+     * @return Collection of sessions available on that day
+     */
+    public Collection<Session> getSessionsOn(Day day) {
 
-        for (Session s : sessions.values()) {
+        Collection<Session> sessionsOn = new ArrayList<>();
 
-            if(s.getOccurrence().equals(day)) {
-                
-                sessionsToday.add(s);
-            }
+        for (String sessionNo : sessionsByDay.get(day)) {
+
+            sessionsOn.add(sessions.get(sessionNo));
         }
         
-        return sessionsToday;
+        return sessionsOn;
     }
 
     /**
@@ -160,8 +247,8 @@ public class ListSessions {
                 if (isWithinDateInterval(service.getStartDate(),
                     service.getEndDate(), occurrence)) {
                     
-                    sessions.put(sessionNo, new Session(service, occurrence,
-                    sessionNo));
+                    put(new Session(service, occurrence, sessionNo));
+                    epoch++;
                 }
             } else {
                 
@@ -170,6 +257,7 @@ public class ListSessions {
                     service.getEndDate(), occurrence)) {
                     
                     sessions.replace(sessionNo, session);
+                    epoch++;
                 }
             }
         }
@@ -197,46 +285,108 @@ public class ListSessions {
                     String sessionNo = generateSessionNo(serviceName,
                     occurrence, profNo);
                     
-                    sessions.put(sessionNo, new Session(serviceName,
-                    occurrence, service.getServiceTime(),
-                    service.getCapacityMax(), service.getFee(), profNo,
-                    sessionNo));
+                    put(new Session(serviceName, occurrence,
+                    service.getServiceTime(), service.getCapacityMax(),
+                    service.getFee(), profNo, sessionNo));
+                    epoch++;
                 }
             }
         }
     }
 
     /**
-     * Deletes sessions after a service under a professional was deleted.
+     * Adds or replaces a session, keeping the sessions of each professional
+     * and of each day indexed.
+     *
+     * @param session Added session
+     */
+    private void put(Session session) {
+        
+        Session previous = sessions.put(session.getSessionNo(), session);
+        
+        if (previous != null) {
+            
+            unindex(previous);
+        }
+        
+        index(session);
+    }
+
+    /**
+     * @param session Session added to the indexes
+     */
+    private void index(Session session) {
+        
+        sessionsByProf.add(session.getProfNo(), session.getSessionNo());
+        sessionsByService.add(serviceKey(session.getServiceName(),
+        session.getProfNo()), session.getSessionNo());
+        sessionsByDay.get(session.getOccurrence()).add(session.getSessionNo());
+    }
+
+    /**
+     * @param session Session removed from the indexes
+     */
+    private void unindex(Session session) {
+        
+        sessionsByProf.remove(session.getProfNo(), session.getSessionNo());
+        sessionsByService.remove(serviceKey(session.getServiceName(),
+        session.getProfNo()), session.getSessionNo());
+        sessionsByDay.get(session.getOccurrence())
+        .remove(session.getSessionNo());
+    }
+
+    /**
+     * @param serviceName Service name
+     * @param profNo Professional number
+     * @return Key of the sessions of a service under a professional
+     */
+    private static String serviceKey(String serviceName, String profNo) {
+        
+        // Professional numbers hold digits only and end the key
+        return serviceName + ' ' + profNo;
+    }
+
+    /**
+     * Deletes sessions after a service under a professional was deleted. Only
+     * the sessions of that service under the professional are visited.
      *
      * @param serviceName Service name
      * @param profNo Professional number
      */
     public void deleteSessionsNameProf(String serviceName, String profNo) {
     
-        for (Map.Entry<String, Session> e : sessions.entrySet()) {
-    
-            if (e.getValue().getProfNo().equals(profNo)
-                && e.getValue().getServiceName().equals(serviceName)) {
-    
-                sessions.remove(e.getKey());
-            }
+        Collection<String> sessionNos =
+        sessionsByService.removeAll(serviceKey(serviceName, profNo));
+        
+        for (String sessionNo : sessionNos) {
+            
+            unindex(sessions.remove(sessionNo));
+        }
+        
+        if (! sessionNos.isEmpty()) {
+            
+            epoch++;
         }
     }
     
     /**
-     * Deletes sessions under a professional.
+     * Deletes sessions under a professional. Only the sessions of the
+     * professional are visited.
      *
      * @param profNo Professional number
      */
     public void deleteSessionsProf(String profNo) {
         
-        for (Map.Entry<String, Session> e : sessions.entrySet()) {
+        Collection<String> sessionNos = sessionsByProf.removeAll(profNo);
+        
+        for (String sessionNo : sessionNos) {
             
-            if (e.getValue().getProfNo().equals(profNo)) {
-                
-                sessions.remove(e.getKey());
-            }
+            unindex(sessions.remove(sessionNo));
+        }
+        
+        if (! sessionNos.isEmpty()) {
+            
+            epoch++;
         }
     }
     
@@ -2,6 +2,10 @@ package personal.gym.session;
 
 import personal.gym.service.Service;
 
+import personal.gym.storage.IdAllocator;
+
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,6 +16,14 @@ import java.util.Map;
  * different professionals, while the service number generated from the creation
  * of those services in the {@link Service} class might differ, the service
  * number generated in this class does not distinguish them.
+ * <p>
+ * The numbers of the names are persisted as a single map, since a name keeps
+ * its number once its sessions are gone; on startup the directory is rebuilt
+ * from that map and from the sessions, whose numbers start with the number of
+ * their service name, and the high-water mark of the numbers is saved by
+ * {@link IdAllocator}. Names are kept in a sorted array searched by dichotomy,
+ * alongside the number of each name, and numbers index an array of the same
+ * names.
  *
  * @version 1.0
  * @author Yu Deng
@@ -22,66 +34,96 @@ import java.util.Map;
 public class ServicesDirectory {
 
     private static final int SERVICE_NO_LENGTH = 3;
-    
-    // Two equivalent hashmaps to facilitate search and promote unity of both
-    // keys and values
-    private Map<String, String> servicesNameNo; // <name, number>
-    private Map<String, String> servicesNoName; // <number, name>
-    
-    private static int noElements;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names = new String[INITIAL_CAPACITY]; // sorted
+    private int[] numbers = new int[INITIAL_CAPACITY]; // number of each name
+    private String[] namesByNo = new String[INITIAL_CAPACITY];
+    private int size;
 
     /**
      * @return Counter value
      */
     public static int getNoElements() {
-        
-        return noElements;
+
+        return IdAllocator.SERVICE_NAMES.get();
     }
 
     /**
      * @param num Counter value
      */
     public static void setNoElements(int num) {
-        
-        noElements = num;
+
+        IdAllocator.SERVICE_NAMES.set(num);
     }
 
     /**
-     * Initializes the hashmaps.
+     * Initializes the directory, seeding it with the persisted maps if any.
      *
-     * @param servicesNameNo Hashmap with the service name as its key and
-     * the number as its value
-     * @param servicesNoName Hashmap with the service number as its key and
-     * the name as its value
+     * @param servicesNameNo Map with the service name as its key and the
+     * number as its value, or null
+     * @param servicesNoName Map with the service number as its key and the
+     * name as its value, or null
      */
     public ServicesDirectory(Map<String, String> servicesNameNo,
         Map<String, String> servicesNoName) {
-        
-        if ((this.servicesNameNo = servicesNameNo) == null) {
-            
-            this.servicesNameNo = new HashMap<>();
+
+        if (servicesNameNo != null) {
+
+            for (Map.Entry<String, String> entry : servicesNameNo.entrySet()) {
+
+                register(entry.getKey(), entry.getValue());
+            }
         }
-        
-        if ((this.servicesNoName = servicesNoName) == null) {
-            
-            this.servicesNoName = new HashMap<>();
+
+        if (servicesNoName != null) {
+
+            for (Map.Entry<String, String> entry : servicesNoName.entrySet()) {
+
+                register(entry.getValue(), entry.getKey());
+            }
         }
     }
 
     /**
-     * @return Map with the service name as its key and the number as its value.
+     * Registers the service names of existing sessions under the number their
+     * session numbers start with.
+     *
+     * @param sessions Existing sessions
+     */
+    public void addSessions(Collection<Session> sessions) {
+
+        for (Session session : sessions) {
+
+            register(session.getServiceName(),
+            session.getSessionNo().substring(0, SERVICE_NO_LENGTH));
+        }
+    }
+
+    /**
+     * Copies the numbers of the service names, to be persisted. The directory
+     * only grows, so that its size is also its modification epoch.
+     *
+     * @return Map with the service name as its key and the number as its value
      */
-    public Map<String, String> getServicesNameNo() {
-        
+    public Map<String, String> getServiceNumbers() {
+
+        Map<String, String> servicesNameNo = new HashMap<>(size * 2);
+
+        for (int i = 0; i < size; i++) {
+
+            servicesNameNo.put(names[i], format(numbers[i]));
+        }
+
         return servicesNameNo;
     }
-    
+
     /**
-     * @return Map with the service number as its key and the name as its value.
+     * @return Number of service names in the directory
      */
-    public Map<String, String> getServicesNoName() {
-        
-        return servicesNoName;
+    public int size() {
+
+        return size;
     }
 
     /**
@@ -91,20 +133,18 @@ public class ServicesDirectory {
      * @return Service number of the given service
      */
     public String obtainServiceNo(String serviceName) {
-        
-        String serviceNo;
-        
-        if ((serviceNo = servicesNameNo.get(serviceName)) == null) {
-            
-            String elemNo = String.valueOf(noElements++);
-            serviceNo = "0".repeat(SERVICE_NO_LENGTH - elemNo.length()) +
-            elemNo;
-            
-            servicesNameNo.put(serviceName, serviceNo);
-            servicesNoName.put(serviceNo, serviceName);
+
+        int index = Arrays.binarySearch(names, 0, size, serviceName);
+
+        if (index >= 0) {
+
+            return format(numbers[index]);
         }
-        
-        return serviceNo;
+
+        int number = IdAllocator.SERVICE_NAMES.next();
+        insert(-index - 1, serviceName, number);
+
+        return format(number);
     }
 
     /**
@@ -114,7 +154,88 @@ public class ServicesDirectory {
      * @return Service name
      */
     public String getServiceName(String serviceNo) {
-        
-        return servicesNoName.get(serviceNo);
+
+        int number = parse(serviceNo);
+
+        return number >= 0 && number < namesByNo.length ? namesByNo[number]
+        : null;
+    }
+
+    /**
+     * Adds a name under a known number, unless the name is already known.
+     * The counter is moved past the number so that it is never given again.
+     *
+     * @param serviceName Name of the service
+     * @param serviceNo Service number
+     */
+    private void register(String serviceName, String serviceNo) {
+
+        int number = parse(serviceNo);
+        int index = Arrays.binarySearch(names, 0, size, serviceName);
+
+        if (number < 0 || index >= 0) {
+
+            return;
+        }
+
+        insert(-index - 1, serviceName, number);
+        IdAllocator.SERVICE_NAMES.advanceTo(number + 1);
+    }
+
+    /**
+     * Inserts a name at its sorted position.
+     *
+     * @param index Sorted position of the name
+     * @param serviceName Name of the service
+     * @param number Service number
+     */
+    private void insert(int index, String serviceName, int number) {
+
+        if (size == names.length) {
+
+            names = Arrays.copyOf(names, size * 2);
+            numbers = Arrays.copyOf(numbers, size * 2);
+        }
+
+        System.arraycopy(names, index, names, index + 1, size - index);
+        System.arraycopy(numbers, index, numbers, index + 1, size - index);
+        names[index] = serviceName;
+        numbers[index] = number;
+        size++;
+
+        if (number >= namesByNo.length) {
+
+            namesByNo = Arrays.copyOf(namesByNo,
+            Math.max(number + 1, namesByNo.length * 2));
+        }
+
+        namesByNo[number] = serviceName;
+    }
+
+    /**
+     * @param number Service number
+     * @return Service number padded with zeros
+     */
+    private static String format(int number) {
+
+        String elemNo = String.valueOf(number);
+
+        return "0".repeat(Math.max(0, SERVICE_NO_LENGTH - elemNo.length()))
+        + elemNo;
+    }
+
+    /**
+     * @param serviceNo Service number
+     * @return Value of the number, or -1 if it is not a number
+     */
+    private static int parse(String serviceNo) {
+
+        try {
+
+            return Integer.parseInt(serviceNo);
+        } catch(NumberFormatException | NullPointerException e) {
+
+            return -1;
+        }
     }
 }
@@ -0,0 +1,101 @@
+package personal.gym.session;
+
+import personal.gym.util.Day;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares deleting the sessions of a service under a professional and
+ * retrieving the sessions of a professional by scanning every session, as
+ * before, and through the indexes of the sessions by professional and by
+ * service. Not a unit test: run with
+ * {@code java personal.gym.session.SessionIndexBenchmark [sessions] [operations]}.
+ */
+public class SessionIndexBenchmark {
+    private static final int RUNS = 5;
+    private static final String[] SERVICES = {"Yoga", "Pilates", "Zumba", "Spinning", "Boxe"};
+    private static final Day[] OCCURRENCES = {Day.MONDAY, Day.WEDNESDAY};
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int profs = n / (SERVICES.length * OCCURRENCES.length);
+
+        System.out.printf("%d sessions, %d professionals, %d operations%n%n", n, profs, operations);
+        System.out.printf("%-12s %14s %14s%n", "sessions", "us/lookup", "us/delete");
+        run("scan", n, profs, operations, false);
+        run("index", n, profs, operations, true);
+    }
+
+    private static void run(String name, int n, int profs, int operations, boolean index) {
+        long bestLookup = Long.MAX_VALUE;
+        long bestDelete = Long.MAX_VALUE;
+        // Best of several runs, the first ones warming up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            ListSessions listSessions = new ListSessions(sessions(profs));
+            Map<String, Session> sessions = listSessions.getSessions();
+            int found = 0;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                String profNo = profNo((long) i * profs / operations);
+                found += index ? listSessions.getSessionsProf(profNo).size() : scan(sessions, profNo).size();
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                String profNo = profNo((long) i * profs / operations);
+                String serviceName = SERVICES[i % SERVICES.length];
+                if (index) {
+                    listSessions.deleteSessionsNameProf(serviceName, profNo);
+                } else {
+                    // Former ListSessions.deleteSessionsNameProf
+                    sessions.values().removeIf(s -> s.getServiceName().equals(serviceName)
+                            && s.getProfNo().equals(profNo));
+                }
+            }
+            long t2 = System.nanoTime();
+            if (found != operations * SERVICES.length * OCCURRENCES.length
+                    || sessions.size() != n - operations * OCCURRENCES.length) {
+                throw new IllegalStateException(name + " found or deleted the wrong sessions");
+            }
+            bestLookup = Math.min(bestLookup, t1 - t0);
+            bestDelete = Math.min(bestDelete, t2 - t1);
+        }
+
+        System.out.printf("%-12s %14d %14d%n", name, bestLookup / operations / 1000,
+                bestDelete / operations / 1000);
+    }
+
+    // Former lookup of the sessions of a professional
+    private static Collection<Session> scan(Map<String, Session> sessions, String profNo) {
+        Collection<Session> sessionsProf = new ArrayList<>();
+        for (Session s : sessions.values()) {
+            if (s.getProfNo().equals(profNo)) {
+                sessionsProf.add(s);
+            }
+        }
+        return sessionsProf;
+    }
+
+    private static Map<String, Session> sessions(int profs) {
+        Map<String, Session> sessions = new HashMap<>();
+        int sessionId = 0;
+        for (int i = 0; i < profs; i++) {
+            for (String service : SERVICES) {
+                for (Day occurrence : OCCURRENCES) {
+                    String sessionNo = String.format("%07d", sessionId++);
+                    sessions.put(sessionNo, new Session(service, occurrence, new Date(0), 20, 2500, profNo(i),
+                            sessionNo));
+                }
+            }
+        }
+        return sessions;
+    }
+
+    private static String profNo(long i) {
+        return String.format("%09d", i);
+    }
+}
@@ -0,0 +1,74 @@
+package personal.gym.session;
+
+import personal.gym.util.Day;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares retrieving the sessions of the day by formatting the current day
+ * and scanning every session, as before, and through the index of the sessions
+ * by day. Not a unit test: run with
+ * {@code java personal.gym.session.SessionsTodayBenchmark [sessions] [queries]}.
+ */
+public class SessionsTodayBenchmark {
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        Map<String, Session> sessions = new HashMap<>();
+        Day[] days = Day.values();
+        for (int i = 0; i < n; i++) {
+            String sessionNo = String.format("%07d", i);
+            sessions.put(sessionNo, new Session("Yoga", days[i % days.length], new Date(0), 20, 2500,
+                    String.format("%09d", i), sessionNo));
+        }
+        ListSessions listSessions = new ListSessions(sessions);
+
+        System.out.printf("%d sessions, %d queries%n%n", n, queries);
+        System.out.printf("%-12s %14s%n", "today", "us/query");
+        long best = Long.MAX_VALUE;
+        long bestIndex = Long.MAX_VALUE;
+        // Best of several runs, the first ones warming up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            long t0 = System.nanoTime();
+            int scanned = 0;
+            for (int i = 0; i < queries; i++) {
+                scanned += scan(sessions).size();
+            }
+            long t1 = System.nanoTime();
+            int indexed = 0;
+            for (int i = 0; i < queries; i++) {
+                indexed += listSessions.getSessionsToday().size();
+            }
+            long t2 = System.nanoTime();
+            if (scanned != indexed) {
+                throw new IllegalStateException("Index and scan disagree");
+            }
+            best = Math.min(best, t1 - t0);
+            bestIndex = Math.min(bestIndex, t2 - t1);
+        }
+
+        System.out.printf("%-12s %14d%n", "scan", best / queries / 1000);
+        System.out.printf("%-12s %14d%n", "index", bestIndex / queries / 1000);
+    }
+
+    // Former ListSessions.getSessionsToday, the day name forced to English
+    private static Collection<Session> scan(Map<String, Session> sessions) {
+        Collection<Session> sessionsToday = new ArrayList<>();
+        Day day = Day.valueOf(new SimpleDateFormat("EEEE", Locale.ENGLISH).format(System.currentTimeMillis())
+                .toUpperCase());
+        for (Session s : sessions.values()) {
+            if (s.getOccurrence().equals(day)) {
+                sessionsToday.add(s);
+            }
+        }
+        return sessionsToday;
+    }
+}
@@ -7,6 +7,9 @@ import personal.gym.util.Day;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -83,4 +86,59 @@ public class TestListSessions {
         assertNull(listSessions.getSession("0001122"));
     }
 
+    @Test
+    public void testSessionsOnDay() throws ParseException {
+        Session yoga = new Session("Yoga", MONDAY,
+                new SimpleDateFormat("HH:mm").parse("10:30"), 30, 4000, "333666999", "0001199");
+        Session pilates = new Session("Pilates", FRIDAY,
+                new SimpleDateFormat("HH:mm").parse("12:30"), 20, 2500, "444777222", "0025522");
+        Map<String, Session> sessions = new HashMap<>();
+        sessions.put(yoga.getSessionNo(), yoga);
+        sessions.put(pilates.getSessionNo(), pilates);
+
+        listSessions = new ListSessions(sessions);
+
+        assertEquals(Collections.singletonList(yoga), listSessions.getSessionsOn(MONDAY));
+        assertEquals(Collections.singletonList(pilates), listSessions.getSessionsOn(FRIDAY));
+        assertTrue(listSessions.getSessionsOn(SUNDAY).isEmpty());
+        assertEquals(listSessions.getSessionsOn(Day.of(LocalDate.now().getDayOfWeek())),
+                listSessions.getSessionsToday());
+
+        listSessions.deleteSessionsNameProf("Yoga", "333666999");
+        assertTrue(listSessions.getSessionsOn(MONDAY).isEmpty());
+        listSessions.deleteSessionsProf("444777222");
+        assertTrue(listSessions.getSessionsOn(FRIDAY).isEmpty());
+    }
+
+    @Test
+    public void testSessionsOfProf() throws ParseException {
+        Date time = new SimpleDateFormat("HH:mm").parse("10:30");
+        Session yogaMonday = new Session("Yoga", MONDAY, time, 30, 4000, "333666999", "0001199");
+        Session yogaFriday = new Session("Yoga", FRIDAY, time, 30, 4000, "333666999", "0005599");
+        Session pilates = new Session("Pilates", FRIDAY, time, 20, 2500, "333666999", "0025599");
+        Map<String, Session> sessions = new HashMap<>();
+        for (Session session : new Session[]{yogaMonday, yogaFriday, pilates}) {
+            sessions.put(session.getSessionNo(), session);
+        }
+
+        listSessions = new ListSessions(sessions);
+
+        assertEquals(3, listSessions.getSessionsProf("333666999").size());
+        assertTrue(listSessions.getSessionsProf("444777222").isEmpty());
+
+        listSessions.deleteSessionsNameProf("Yoga", "444777222");
+        assertEquals(3, listSessions.getSessions().size());
+        listSessions.deleteSessionsNameProf("Yoga", "333666999");
+        assertEquals(Collections.singletonList(pilates), listSessions.getSessionsProf("333666999"));
+        assertEquals(Collections.singletonList(pilates), listSessions.getSessionsOn(FRIDAY));
+        assertTrue(listSessions.getSessionsOn(MONDAY).isEmpty());
+    }
+
+    @Test
+    public void testDayOfDayOfWeek() {
+        for (Day day : Day.values()) {
+            assertEquals(day, Day.of(day.getDay()));
+        }
+    }
+
 }
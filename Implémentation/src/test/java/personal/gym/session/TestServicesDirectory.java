@@ -2,8 +2,14 @@ package personal.gym.session;
 
 import org.junit.Before;
 import org.junit.Test;
+import personal.gym.util.Day;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class TestServicesDirectory {
     private ServicesDirectory servicesDirectory;
@@ -38,4 +44,54 @@ public class TestServicesDirectory {
         assertEquals(serviceNo0,serviceNo3);
     }
 
+    @Test
+    public void testServiceNameFromNo() {
+        servicesDirectory.obtainServiceNo("Yoga");
+        servicesDirectory.obtainServiceNo("Meditation");
+
+        assertEquals("Yoga", servicesDirectory.getServiceName("000"));
+        assertEquals("Meditation", servicesDirectory.getServiceName("001"));
+        assertNull(servicesDirectory.getServiceName("002"));
+        assertNull(servicesDirectory.getServiceName("abc"));
+    }
+
+    @Test
+    public void testRebuildFromSessions() {
+        servicesDirectory.addSessions(Arrays.asList(
+        new Session("Spinning", Day.MONDAY, new Date(), 10, 20, "100000042",
+        "0050142"),
+        new Session("Yoga", Day.FRIDAY, new Date(), 10, 20, "100000042",
+        "0020542"),
+        new Session("Spinning", Day.FRIDAY, new Date(), 10, 20, "100000042",
+        "0050542")));
+
+        assertEquals(2, servicesDirectory.size());
+        assertEquals("005", servicesDirectory.obtainServiceNo("Spinning"));
+        assertEquals("002", servicesDirectory.obtainServiceNo("Yoga"));
+        assertEquals("006", servicesDirectory.obtainServiceNo("Boxing"));
+        assertEquals(7, ServicesDirectory.getNoElements());
+    }
+
+    @Test
+    public void testSeededFromFormerMaps() {
+        servicesDirectory = new ServicesDirectory(
+        Collections.singletonMap("Yoga", "003"), null);
+
+        assertEquals("Yoga", servicesDirectory.getServiceName("003"));
+        assertEquals("004", servicesDirectory.obtainServiceNo("Pilates"));
+    }
+
+    @Test
+    public void testNumbersSurviveWithoutSessions() {
+        servicesDirectory.obtainServiceNo("Yoga");
+        servicesDirectory.obtainServiceNo("Pilates");
+
+        servicesDirectory = new ServicesDirectory(
+        servicesDirectory.getServiceNumbers(), null);
+        servicesDirectory.addSessions(Collections.emptyList());
+
+        assertEquals("Pilates", servicesDirectory.getServiceName("001"));
+        assertEquals("000", servicesDirectory.obtainServiceNo("Yoga"));
+        assertEquals("002", servicesDirectory.obtainServiceNo("Boxing"));
+    }
 }
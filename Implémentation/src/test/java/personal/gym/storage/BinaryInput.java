@@ -0,0 +1,248 @@
+package personal.gym.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compact binary reader mirroring {@link BinaryOutput}.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class BinaryInput implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final LocalDate EPOCH = LocalDate.ofEpochDay(0);
+
+    private final DataInputStream in;
+    private final List<String> dictionary = new ArrayList<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Dates repeat across records: the last conversion is kept
+    private long lastEpochDay = Long.MIN_VALUE;
+    private long lastEpochDayMillis;
+    private int lastMinutes = -1;
+    private long lastMinutesMillis;
+
+    /**
+     * Initializes the reader over a given stream.
+     *
+     * @param stream Underlying stream
+     */
+    public BinaryInput(InputStream stream) {
+
+        in = new DataInputStream(stream instanceof BufferedInputStream
+        || stream instanceof ByteArrayInputStream ? stream
+        : new BufferedInputStream(stream, BUFFER_SIZE));
+    }
+
+    /**
+     * @return Byte read, between 0 and 255
+     * @throws IOException if an I/O error occurs
+     */
+    public int readByte() throws IOException {
+
+        return in.readUnsignedByte();
+    }
+
+    /**
+     * @return Fixed-width integer read
+     * @throws IOException if an I/O error occurs
+     */
+    public int readInt() throws IOException {
+
+        return in.readInt();
+    }
+
+    /**
+     * @return Integer written by {@link BinaryOutput#writeVarInt(int)}
+     * @throws IOException if an I/O error occurs
+     */
+    public int readVarInt() throws IOException {
+
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+
+                return value;
+            }
+        }
+
+        throw new StreamCorruptedException("Malformed variable-length int");
+    }
+
+    /**
+     * @return Long written by {@link BinaryOutput#writeVarLong(long)}
+     * @throws IOException if an I/O error occurs
+     */
+    public long readVarLong() throws IOException {
+
+        long zigzag = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+
+            int b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+
+        throw new StreamCorruptedException("Malformed variable-length long");
+    }
+
+    /**
+     * @return String written by {@link BinaryOutput#writeString(String)}
+     * @throws IOException if an I/O error occurs
+     */
+    public String readString() throws IOException {
+
+        int length = readVarInt();
+
+        if (length == 0) {
+
+            return null;
+        }
+
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return String written by {@link BinaryOutput#writeDictString(String)}
+     * @throws IOException if an I/O error occurs
+     */
+    public String readDictString() throws IOException {
+
+        int id = readVarInt();
+
+        if (id == 0) {
+
+            String value = readString();
+            dictionary.add(value);
+
+            return value;
+        }
+
+        if (id > dictionary.size()) {
+
+            throw new StreamCorruptedException("Unknown dictionary entry " + id);
+        }
+
+        return dictionary.get(id - 1);
+    }
+
+    /**
+     * @return Code written by {@link BinaryOutput#writeCode(String)}
+     * @throws IOException if an I/O error occurs
+     */
+    public String readCode() throws IOException {
+
+        long packed = readVarLong();
+
+        if (packed == 0) {
+
+            return readString();
+        }
+
+        packed--;
+        int length = (int) (packed & 0xF);
+        String digits = Long.toString(packed >>> 4);
+
+        if (digits.length() >= length) {
+
+            return digits;
+        }
+
+        char[] code = new char[length];
+        Arrays.fill(code, 0, length - digits.length(), '0');
+        digits.getChars(0, digits.length(), code, length - digits.length());
+
+        return new String(code);
+    }
+
+    /**
+     * @return Date at midnight written by
+     * {@link BinaryOutput#writeEpochDay(Date)}
+     * @throws IOException if an I/O error occurs
+     */
+    public Date readEpochDay() throws IOException {
+
+        long epochDay = readVarLong();
+
+        if (epochDay != lastEpochDay) {
+
+            lastEpochDayMillis = LocalDate.ofEpochDay(epochDay)
+            .atStartOfDay(zone).toInstant().toEpochMilli();
+            lastEpochDay = epochDay;
+        }
+
+        return new Date(lastEpochDayMillis);
+    }
+
+    /**
+     * @return Time on January 1st, 1970 written by
+     * {@link BinaryOutput#writeMinuteOfDay(Date)}
+     * @throws IOException if an I/O error occurs
+     */
+    public Date readMinuteOfDay() throws IOException {
+
+        int minutes = readVarInt();
+
+        if (minutes != lastMinutes) {
+
+            lastMinutesMillis = EPOCH.atTime(minutes / 60, minutes % 60)
+            .atZone(zone).toInstant().toEpochMilli();
+            lastMinutes = minutes;
+        }
+
+        return new Date(lastMinutesMillis);
+    }
+
+    /**
+     * @return Date written by {@link BinaryOutput#writeTimestamp(Date)}
+     * @throws IOException if an I/O error occurs
+     */
+    public Date readTimestamp() throws IOException {
+
+        return new Date(readVarLong());
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+
+        in.close();
+    }
+}
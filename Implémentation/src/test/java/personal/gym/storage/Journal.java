@@ -0,0 +1,556 @@
+package personal.gym.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Collection;
+
+import java.util.function.Consumer;
+
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the mutations applied to the repositories since the last
+ * snapshot was written. Each record holds a log sequence number (LSN), an
+ * {@link Operation} and its arguments, and is protected by a CRC32 checksum so
+ * that a record torn by a crash is detected and discarded on replay.
+ * <p>
+ * Records covered by the snapshot are kept as long as the previous
+ * generation of a repository file may need them, should the file be
+ * restored from that generation. Once they make up most of the file, they
+ * are dropped by copying the remaining records onto a new file.
+ * <p>
+ * Appends use group commit: a record is buffered, then the first caller to
+ * reach the commit step writes and forces every buffered record at once. Other
+ * callers whose record was part of that batch return without forcing again.
+ * Mutations performed while the journal is being replayed are not recorded a
+ * second time.
+ * <p>
+ * The repositories append the record of a mutation before applying it, so
+ * that a mutation whose record cannot be written is not applied either and
+ * the repositories never hold a change that would not survive a crash.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class Journal {
+
+    // payload length + crc
+    private static final int FRAME_LENGTH = 8;
+    private static final int MAX_PAYLOAD_LENGTH = 1 << 20;
+
+    private final File file;
+    private FileChannel channel;
+    private final Object commitLock = new Object();
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long checkpointLsn;
+    private long lastLsn;
+    private long durableLsn;
+    private long discardedBytes;
+    private boolean replayed;
+    private boolean replaying;
+
+    /**
+     * Opens or creates the journal file. Records up to and including the given
+     * checkpoint LSN are already part of the snapshot and are skipped on
+     * replay.
+     *
+     * @param file Journal file
+     * @param checkpointLsn LSN of the last record covered by the snapshot
+     * @throws IOException if an I/O error occurs
+     */
+    public Journal(File file, long checkpointLsn) throws IOException {
+
+        File parent = file.getAbsoluteFile().getParentFile();
+
+        if (parent != null) {
+
+            parent.mkdirs();
+        }
+
+        this.file = file;
+        this.checkpointLsn = checkpointLsn;
+        lastLsn = checkpointLsn;
+        durableLsn = checkpointLsn;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return Journal file
+     */
+    public File getFile() {
+
+        return file;
+    }
+
+    /**
+     * @return LSN of the last record covered by the snapshot
+     */
+    public synchronized long getCheckpointLsn() {
+
+        return checkpointLsn;
+    }
+
+    /**
+     * @return LSN of the last record appended
+     */
+    public synchronized long getLastLsn() {
+
+        return lastLsn;
+    }
+
+    /**
+     * Numbers the following records after the given LSN, recorded by a file
+     * whose checkpoint was interrupted before the snapshot LSN was written.
+     * Must be called before the replay.
+     *
+     * @param lsn LSN of the last record held by a file
+     */
+    public synchronized void advanceTo(long lsn) {
+
+        lastLsn = Math.max(lastLsn, lsn);
+    }
+
+    /**
+     * @return Number of bytes of torn or corrupt records discarded on replay
+     */
+    public synchronized long getDiscardedBytes() {
+
+        return discardedBytes;
+    }
+
+    /**
+     * Reads every valid record of the journal and hands over those which are
+     * not yet covered by the snapshot. Reading stops at the first torn or
+     * corrupt record, which is truncated along with anything after it. This
+     * method must be called once before any append.
+     *
+     * @param consumer Receiver of the records to apply
+     * @return Number of records handed over
+     * @throws IOException if an I/O error occurs
+     */
+    public int replay(Consumer<JournalRecord> consumer) throws IOException {
+
+        return replay(getCheckpointLsn(), consumer);
+    }
+
+    /**
+     * Reads every valid record of the journal and hands over those following
+     * the given LSN, for repositories whose files were written before the
+     * snapshot. Reading stops at the first torn or corrupt record, which is
+     * truncated along with anything after it. This method must be called once
+     * before any append.
+     *
+     * @param fromLsn LSN of the last record held by every repository
+     * @param consumer Receiver of the records to apply
+     * @return Number of records handed over
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized int replay(long fromLsn,
+        Consumer<JournalRecord> consumer) throws IOException {
+
+        int applied;
+
+        replaying = true;
+
+        try {
+
+            applied = scan(fromLsn, consumer);
+        } finally {
+
+            replaying = false;
+        }
+
+        long position = channel.position();
+
+        if (position < channel.size()) {
+
+            discardedBytes = channel.size() - position;
+            channel.truncate(position);
+            channel.force(true);
+        }
+
+        durableLsn = lastLsn;
+        replayed = true;
+
+        return applied;
+    }
+
+    /**
+     * Reads the valid records of the journal up to the first torn or corrupt
+     * one and leaves the channel positioned right after the last valid record.
+     *
+     * @param fromLsn LSN of the last record not handed over
+     * @param consumer Receiver of the records following that LSN
+     * @return Number of records handed over
+     * @throws IOException if an I/O error occurs
+     */
+    private int scan(long fromLsn, Consumer<JournalRecord> consumer)
+        throws IOException {
+
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES);
+        long position = 0;
+        long size = channel.size();
+        int applied = 0;
+
+        while (position + FRAME_LENGTH <= size) {
+
+            frame.clear();
+            channel.read(frame, position);
+            int length = frame.getInt(0);
+
+            if (length <= 0 || length > MAX_PAYLOAD_LENGTH
+                || position + FRAME_LENGTH + length > size) {
+
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length + Integer.BYTES);
+            channel.read(payload, position + Integer.BYTES);
+            payload.flip();
+
+            CRC32 crc = new CRC32();
+            crc.update(payload.array(), 0, length);
+
+            if ((int) crc.getValue() != payload.getInt(length)) {
+
+                break;
+            }
+
+            JournalRecord record = decode(payload, length);
+
+            if (record == null) {
+
+                break;
+            }
+
+            if (record.getLsn() > fromLsn) {
+
+                consumer.accept(record);
+                applied++;
+            }
+
+            lastLsn = Math.max(lastLsn, record.getLsn());
+            position += FRAME_LENGTH + length;
+        }
+
+        channel.position(position);
+
+        return applied;
+    }
+
+    /**
+     * Appends a mutation onto the journal and returns once it is durable.
+     *
+     * @param operation Recorded operation
+     * @param args Arguments of the operation
+     * @throws UncheckedIOException if the record cannot be written
+     */
+    public void append(Operation operation, String... args) {
+
+        long lsn;
+
+        synchronized (this) {
+
+            if (replaying) {
+
+                return;
+            }
+
+            if (! replayed) {
+
+                throw new IllegalStateException("Journal not replayed");
+            }
+
+            lsn = ++lastLsn;
+            encode(lsn, operation, args);
+        }
+
+        commit(lsn);
+    }
+
+    /**
+     * Appends a batch of mutations of the same operation onto the journal and
+     * returns once they are all durable. The batch is encoded at once and
+     * forced by a single commit, rather than one per record.
+     *
+     * @param operation Recorded operation
+     * @param batch Arguments of each recorded mutation
+     * @throws UncheckedIOException if the records cannot be written
+     */
+    public void appendAll(Operation operation, Collection<String[]> batch) {
+
+        long lsn;
+
+        synchronized (this) {
+
+            if (replaying || batch.isEmpty()) {
+
+                return;
+            }
+
+            if (! replayed) {
+
+                throw new IllegalStateException("Journal not replayed");
+            }
+
+            for (String[] args : batch) {
+
+                encode(++lastLsn, operation, args);
+            }
+
+            lsn = lastLsn;
+        }
+
+        commit(lsn);
+    }
+
+    /**
+     * Discards the records covered by a freshly written snapshot. The file is
+     * only emptied if no record was appended after the given LSN; otherwise the
+     * records are kept and skipped on the next replay.
+     *
+     * @param snapshotLsn LSN of the last record covered by the snapshot
+     * @throws IOException if an I/O error occurs
+     */
+    public void checkpoint(long snapshotLsn) throws IOException {
+
+        checkpoint(snapshotLsn, snapshotLsn);
+    }
+
+    /**
+     * Records a freshly written snapshot and discards the records which no
+     * file generation still on disk needs. The file is emptied if no record
+     * follows them; otherwise they are only dropped once they make up half of
+     * the file, so that the remaining records are not copied on every
+     * checkpoint.
+     *
+     * @param snapshotLsn LSN of the last record covered by the snapshot
+     * @param retainedLsn LSN of the last record needed by no file generation
+     * @throws IOException if an I/O error occurs
+     */
+    public void checkpoint(long snapshotLsn, long retainedLsn)
+        throws IOException {
+
+        synchronized (commitLock) {
+
+            synchronized (this) {
+
+                checkpointLsn = snapshotLsn;
+
+                if (lastLsn == retainedLsn && pending.size() == 0) {
+
+                    channel.truncate(0);
+                    channel.position(0);
+                    channel.force(true);
+                } else {
+
+                    discardThrough(retainedLsn);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the durable records up to and including the given LSN once they
+     * make up half of the file. The following records are copied onto a
+     * temporary file which atomically replaces the journal; a crash in
+     * between leaves the former journal, whose extra records are skipped on
+     * replay. Must be called while holding both locks.
+     *
+     * @param lsn LSN of the last record to drop
+     * @throws IOException if an I/O error occurs
+     */
+    private void discardThrough(long lsn) throws IOException {
+
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+
+        while (position + header.capacity() <= size) {
+
+            header.clear();
+            channel.read(header, position);
+
+            if (header.getLong(Integer.BYTES) > lsn) {
+
+                break;
+            }
+
+            position += FRAME_LENGTH + header.getInt(0);
+        }
+
+        if (position == 0 || position * 2 < size) {
+
+            return;
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+
+        try (FileChannel out = FileChannel.open(temp.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            for (long copied = position; copied < size; ) {
+
+                copied += channel.transferTo(copied, size - copied, out);
+            }
+
+            out.force(true);
+        }
+
+        Files.move(temp.toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    /**
+     * Forces any buffered record and closes the journal.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void close() throws IOException {
+
+        commit(getLastLsn());
+        channel.close();
+    }
+
+    /**
+     * Writes and forces every buffered record if the record with the given LSN
+     * is not already durable.
+     *
+     * @param lsn LSN which must be durable on return
+     */
+    private void commit(long lsn) {
+
+        synchronized (commitLock) {
+
+            if (durableLsn >= lsn) {
+
+                return;
+            }
+
+            byte[] batch;
+            long batchLsn;
+
+            synchronized (this) {
+
+                batch = pending.toByteArray();
+                batchLsn = lastLsn;
+                pending = new ByteArrayOutputStream();
+            }
+
+            try {
+
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+
+                while (buffer.hasRemaining()) {
+
+                    channel.write(buffer);
+                }
+
+                channel.force(false);
+                durableLsn = batchLsn;
+            } catch(IOException e) {
+
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Encodes a record onto the pending buffer.
+     *
+     * @param lsn Record LSN
+     * @param operation Recorded operation
+     * @param args Arguments of the operation
+     */
+    private void encode(long lsn, Operation operation, String[] args) {
+
+        try {
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeLong(lsn);
+            out.writeByte(operation.getCode());
+            out.writeByte(args.length);
+
+            for (String arg : args) {
+
+                byte[] value = arg.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(value.length);
+                out.write(value);
+            }
+
+            byte[] payload = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            DataOutputStream frame = new DataOutputStream(pending);
+            frame.writeInt(payload.length);
+            frame.write(payload);
+            frame.writeInt((int) crc.getValue());
+        } catch(IOException e) {
+
+            // In-memory streams do not throw
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes a record from its payload.
+     *
+     * @param payload Record payload
+     * @param length Payload length
+     * @return Decoded record or null if the payload is malformed
+     */
+    private static JournalRecord decode(ByteBuffer payload, int length) {
+
+        try {
+
+            long lsn = payload.getLong();
+            Operation operation = Operation.fromCode(payload.get());
+
+            if (operation == null) {
+
+                return null;
+            }
+
+            String[] args = new String[payload.get() & 0xFF];
+
+            for (int i = 0; i < args.length; i++) {
+
+                byte[] value = new byte[payload.getShort() & 0xFFFF];
+                payload.get(value);
+                args[i] = new String(value, StandardCharsets.UTF_8);
+            }
+
+            return payload.position() == length ? new JournalRecord(lsn,
+            operation, args) : null;
+        } catch(RuntimeException e) {
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package personal.gym.storage;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes flat records onto a newline-delimited JSON or CSV file. Each record
+ * is written field by field onto a buffered writer as soon as it is given, so
+ * that exporting a repository never builds its text in memory.
+ * <p>
+ * Numbers and booleans are written as such, arrays as JSON arrays or as their
+ * elements separated by {@code |} in CSV, and any other value as its string
+ * form. Null values are written as {@code null} in JSON and left empty in CSV.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class RecordWriter implements Closeable {
+
+    /**
+     * Format of an export file.
+     */
+    public enum Format {
+
+        NDJSON(".ndjson"), CSV(".csv");
+
+        private final String extension;
+
+        /**
+         * @param extension Extension of the files
+         */
+        Format(String extension) {
+
+            this.extension = extension;
+        }
+
+        /**
+         * @return Extension of the files, dot included
+         */
+        public String getExtension() {
+
+            return extension;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+    private final Format format;
+    private final String[] columns;
+    private int count;
+
+    /**
+     * Creates or replaces an export file, writing the header of a CSV file.
+     *
+     * @param file Export file
+     * @param format Format of the file
+     * @param columns Names of the fields of each record
+     * @throws IOException if an I/O error occurs
+     */
+    public RecordWriter(File file, Format format, String... columns)
+        throws IOException {
+
+        this.out = new BufferedWriter(new OutputStreamWriter(
+        new FileOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.format = format;
+        this.columns = columns;
+
+        if (format == Format.CSV) {
+
+            for (int i = 0; i < columns.length; i++) {
+
+                if (i > 0) {
+
+                    out.write(',');
+                }
+
+                writeCsv(columns[i]);
+            }
+
+            out.write('\n');
+        }
+    }
+
+    /**
+     * @return Number of records written so far
+     */
+    public int getCount() {
+
+        return count;
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param values Values of the fields, in the order of the columns
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the number of values does not match
+     * the columns
+     */
+    public void write(Object... values) throws IOException {
+
+        if (values.length != columns.length) {
+
+            throw new IllegalArgumentException("Expected " + columns.length
+            + " values, found " + values.length);
+        }
+
+        if (format == Format.NDJSON) {
+
+            out.write('{');
+
+            for (int i = 0; i < values.length; i++) {
+
+                if (i > 0) {
+
+                    out.write(',');
+                }
+
+                writeJsonString(columns[i]);
+                out.write(':');
+                writeJson(values[i]);
+            }
+
+            out.write('}');
+        } else {
+
+            for (int i = 0; i < values.length; i++) {
+
+                if (i > 0) {
+
+                    out.write(',');
+                }
+
+                writeCsv(values[i]);
+            }
+        }
+
+        out.write('\n');
+        count++;
+    }
+
+    /**
+     * Flushes the records and closes the file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+
+        out.close();
+    }
+
+    /**
+     * @param value Field value
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeJson(Object value) throws IOException {
+
+        if (value == null || value instanceof Number
+            || value instanceof Boolean) {
+
+            out.write(String.valueOf(value));
+        } else if (value instanceof Object[]) {
+
+            Object[] elements = (Object[]) value;
+            out.write('[');
+
+            for (int i = 0; i < elements.length; i++) {
+
+                if (i > 0) {
+
+                    out.write(',');
+                }
+
+                writeJson(elements[i]);
+            }
+
+            out.write(']');
+        } else {
+
+            writeJsonString(value.toString());
+        }
+    }
+
+    /**
+     * @param value String to write as a JSON string
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeJsonString(String value) throws IOException {
+
+        out.write('"');
+
+        for (int i = 0; i < value.length(); i++) {
+
+            char c = value.charAt(i);
+
+            switch (c) {
+
+                case '"' : out.write("\\\""); break;
+                case '\\' : out.write("\\\\"); break;
+                case '\n' : out.write("\\n"); break;
+                case '\r' : out.write("\\r"); break;
+                case '\t' : out.write("\\t"); break;
+
+                default :
+
+                    if (c < ' ') {
+
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+
+                        out.write(c);
+                    }
+            }
+        }
+
+        out.write('"');
+    }
+
+    /**
+     * @param value Field value
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeCsv(Object value) throws IOException {
+
+        if (value == null) {
+
+            return;
+        }
+
+        String text;
+
+        if (value instanceof Object[]) {
+
+            StringBuilder joined = new StringBuilder();
+
+            for (Object element : (Object[]) value) {
+
+                if (joined.length() > 0) {
+
+                    joined.append('|');
+                }
+
+                joined.append(element);
+            }
+
+            text = joined.toString();
+        } else {
+
+            text = value.toString();
+        }
+
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length() && ! quoted; i++) {
+
+            char c = text.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (! quoted) {
+
+            out.write(text);
+            return;
+        }
+
+        out.write('"');
+
+        for (int i = 0; i < text.length(); i++) {
+
+            char c = text.charAt(i);
+
+            if (c == '"') {
+
+                out.write('"');
+            }
+
+            out.write(c);
+        }
+
+        out.write('"');
+    }
+}
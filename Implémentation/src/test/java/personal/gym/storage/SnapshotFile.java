@@ -0,0 +1,313 @@
+package personal.gym.storage;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reads and writes repository snapshots encoded with a {@link Codec}. A
+ * snapshot starts with a magic number, the format version, the codec
+ * identifier and the number of records. Files which do not start with the
+ * magic number are read as Java serialization streams, the format written
+ * before the codecs were introduced. Snapshots are written and read through
+ * {@link ChecksummedFile}.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class SnapshotFile {
+
+    // "GYMB"
+    public static final int MAGIC = 0x47594D42;
+    public static final int VERSION = 1;
+
+    private SnapshotFile() {}
+
+    /**
+     * Checks whether a file holds a snapshot written by this class.
+     *
+     * @param file File to check
+     * @return True if the file starts with the snapshot magic number
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isSnapshot(File file) throws IOException {
+
+        return isSnapshot(ChecksummedFile.open(file));
+    }
+
+    /**
+     * Checks whether a stream holds a snapshot, leaving it at its start.
+     *
+     * @param in Stream supporting marks
+     * @return True if the stream starts with the snapshot magic number
+     * @throws IOException if an I/O error occurs
+     */
+    private static boolean isSnapshot(InputStream in) throws IOException {
+
+        in.mark(Integer.BYTES);
+        DataInputStream data = new DataInputStream(in);
+        boolean snapshot;
+
+        try {
+
+            snapshot = data.readInt() == MAGIC;
+        } catch(EOFException e) {
+
+            snapshot = false;
+        }
+
+        in.reset();
+
+        return snapshot;
+    }
+
+    /**
+     * Atomically writes a collection of entities.
+     *
+     * @param <T> Type of the entities
+     * @param file Destination file
+     * @param codec Codec of the entities
+     * @param values Entities to write
+     * @return Number of bytes written
+     * @throws IOException if an I/O error occurs
+     */
+    public static <T> long write(File file, Codec<T> codec,
+        Collection<? extends T> values) throws IOException {
+
+        return ChecksummedFile.write(file, writer(codec, values));
+    }
+
+    /**
+     * Encodes a collection of entities onto a stream.
+     *
+     * @param <T> Type of the entities
+     * @param codec Codec of the entities
+     * @param values Entities to write
+     * @return Writer of the snapshot contents
+     */
+    public static <T> ChecksummedFile.Writer writer(Codec<T> codec,
+        Collection<? extends T> values) {
+
+        return stream -> {
+
+            try (BinaryOutput out = new BinaryOutput(stream)) {
+
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeVarInt(codec.getId());
+                out.writeVarInt(values.size());
+
+                for (T value : values) {
+
+                    codec.encode(out, value);
+                }
+            }
+        };
+    }
+
+    /**
+     * Copies a collection of entities and encodes the copy once written, so
+     * that the collection may keep changing in the meantime.
+     *
+     * @param <T> Type of the entities
+     * @param codec Codec of the entities, which copies them
+     * @param values Entities to capture
+     * @return Writer of the snapshot contents
+     */
+    public static <T> ChecksummedFile.Writer capture(Codec<T> codec,
+        Collection<? extends T> values) {
+
+        return writer(codec, copy(codec, values));
+    }
+
+    /**
+     * Copies a collection of entities, detaching it from later modifications.
+     *
+     * @param <T> Type of the entities
+     * @param codec Codec of the entities, which copies them
+     * @param values Entities to copy
+     * @return Copies of the entities, in the same order
+     */
+    public static <T> List<T> copy(Codec<T> codec,
+        Collection<? extends T> values) {
+
+        List<T> copies = new ArrayList<>(values.size());
+
+        for (T value : values) {
+
+            copies.add(codec.copy(value));
+        }
+
+        return copies;
+    }
+
+    /**
+     * Streams the entities of a snapshot one at a time.
+     *
+     * @param <T> Type of the entities
+     * @param file Source file
+     * @param codec Codec of the entities
+     * @param consumer Receiver of each entity
+     * @return Number of entities read
+     * @throws IOException if an I/O error occurs
+     */
+    public static <T> int forEach(File file, Codec<T> codec,
+        Consumer<? super T> consumer) throws IOException {
+
+        return forEach(ChecksummedFile.open(file), file, codec, consumer);
+    }
+
+    /**
+     * Streams the entities of a snapshot one at a time.
+     *
+     * @param <T> Type of the entities
+     * @param stream Contents of the snapshot
+     * @param file Source file, for error messages
+     * @param codec Codec of the entities
+     * @param consumer Receiver of each entity
+     * @return Number of entities read
+     * @throws IOException if an I/O error occurs
+     */
+    private static <T> int forEach(InputStream stream, File file,
+        Codec<T> codec, Consumer<? super T> consumer) throws IOException {
+
+        try (BinaryInput in = new BinaryInput(stream)) {
+
+            if (in.readInt() != MAGIC) {
+
+                throw new StreamCorruptedException(file + " is not a snapshot");
+            }
+
+            int version = in.readByte();
+
+            if (version != VERSION) {
+
+                throw new StreamCorruptedException("Unsupported snapshot version "
+                + version);
+            }
+
+            int id = in.readVarInt();
+
+            if (id != codec.getId()) {
+
+                throw new StreamCorruptedException(file + " holds codec " + id
+                + ", expected " + codec.getId());
+            }
+
+            int count = in.readVarInt();
+
+            for (int i = 0; i < count; i++) {
+
+                consumer.accept(codec.decode(in));
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Reads a repository keyed by an attribute of its entities.
+     *
+     * @param <T> Type of the entities
+     * @param file Source file
+     * @param codec Codec of the entities
+     * @param key Function returning the key of an entity
+     * @return Repository read
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Map<String, T> readMap(File file, Codec<T> codec,
+        Function<? super T, String> key) throws IOException,
+        ClassNotFoundException {
+
+        InputStream in = ChecksummedFile.open(file);
+
+        if (! isSnapshot(in)) {
+
+            return (Map<String, T>) readLegacy(in);
+        }
+
+        Map<String, T> map = new HashMap<>();
+        forEach(in, file, codec, value -> map.put(key.apply(value), value));
+
+        return map;
+    }
+
+    /**
+     * Reads a repository stored as a list.
+     *
+     * @param <T> Type of the entities
+     * @param file Source file
+     * @param codec Codec of the entities
+     * @return Repository read
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> readList(File file, Codec<T> codec)
+        throws IOException, ClassNotFoundException {
+
+        InputStream in = ChecksummedFile.open(file);
+
+        if (! isSnapshot(in)) {
+
+            return (List<T>) readLegacy(in);
+        }
+
+        List<T> list = new ArrayList<>();
+        forEach(in, file, codec, list::add);
+
+        return list;
+    }
+
+    /**
+     * Reads a file written with Java serialization.
+     *
+     * @param file Source file
+     * @return Object read
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    public static Object readLegacy(File file) throws IOException,
+        ClassNotFoundException {
+
+        return readLegacy(ChecksummedFile.open(file));
+    }
+
+    /**
+     * Reads a Java serialization stream.
+     *
+     * @param stream Source stream
+     * @return Object read
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if class of serialized object cannot be
+     * found
+     */
+    private static Object readLegacy(InputStream stream) throws IOException,
+        ClassNotFoundException {
+
+        try (ObjectInputStream in = new ObjectInputStream(stream)) {
+
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package personal.gym.storage;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TestCheckpointer {
+    private final Object lock = new Object();
+    private final AtomicLong pending = new AtomicLong();
+    private Checkpointer checkpointer;
+
+    @After
+    public void tearDown() {
+        if (checkpointer != null) {
+            checkpointer.stop();
+        }
+    }
+
+    @Test
+    public void testFlushRunsWithoutLock() throws IOException {
+        checkpointer = new Checkpointer(lock, () -> {
+            assertTrue(Thread.holdsLock(lock));
+            return () -> {
+                assertFalse(Thread.holdsLock(lock));
+                return 42;
+            };
+        }, pending::get, 60000, 10);
+
+        assertEquals(42, checkpointer.run());
+        assertTrue(checkpointer.report().contains("Checkpoints: 1, 42 bytes"));
+    }
+
+    @Test
+    public void testThresholdTriggersBackgroundCheckpoint()
+        throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        checkpointer = new Checkpointer(lock, () -> () -> {
+            pending.set(0);
+            flushed.countDown();
+            return 0;
+        }, pending::get, 60000, 10);
+        checkpointer.start(e -> fail(e.getMessage()));
+
+        pending.set(9);
+        assertFalse(flushed.await(1500, TimeUnit.MILLISECONDS));
+
+        pending.set(10);
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,93 @@
+package personal.gym.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class TestChecksummedFile {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("checksummed", ".dat");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+        ChecksummedFile.previous(file).delete();
+    }
+
+    @Test
+    public void testContentsReadBack() throws IOException {
+        ChecksummedFile.write(file, out -> out.write(new byte[]{1, 2, 3}));
+
+        try (InputStream in = ChecksummedFile.open(file)) {
+            assertEquals(1, in.read());
+            assertEquals(2, in.read());
+            assertEquals(3, in.read());
+            assertEquals(-1, in.read());
+        }
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void testJournalPositionReadBack() throws IOException {
+        ChecksummedFile.write(file, 42, out -> out.write(new byte[]{1, 2}));
+
+        assertEquals(42, ChecksummedFile.lsnOf(file));
+        try (InputStream in = ChecksummedFile.open(file)) {
+            assertEquals(1, in.read());
+            assertEquals(2, in.read());
+            assertEquals(-1, in.read());
+        }
+
+        ChecksummedFile.write(file, out -> out.write(new byte[]{3}));
+        assertEquals(-1, ChecksummedFile.lsnOf(file));
+        assertEquals(42, ChecksummedFile.lsnOf(ChecksummedFile.previous(file)));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testCorruptJournalPositionIsDetected() throws IOException {
+        ChecksummedFile.write(file, 42, out -> out.write(new byte[]{1, 2}));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(9);
+            raf.write(7);
+        }
+
+        ChecksummedFile.open(file);
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testCorruptionIsDetected() throws IOException {
+        ChecksummedFile.write(file, out -> out.write(new byte[]{1, 2, 3}));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(1);
+            raf.write(42);
+        }
+
+        ChecksummedFile.open(file);
+    }
+
+    @Test
+    public void testFileWithoutTrailerIsRead() throws IOException {
+        Files.write(file.toPath(), new byte[]{7});
+
+        try (InputStream in = ChecksummedFile.open(file)) {
+            assertEquals(7, in.read());
+            assertEquals(-1, in.read());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package personal.gym.storage;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestCompactor {
+    private final Object lock = new Object();
+    private Compactor compactor;
+
+    @After
+    public void tearDown() {
+        if (compactor != null) {
+            compactor.stop();
+        }
+    }
+
+    @Test
+    public void testPurgesInBoundedBatches() throws InterruptedException {
+        AtomicInteger left = new AtomicInteger(1000);
+        CountDownLatch done = new CountDownLatch(1);
+        compactor = new Compactor(lock, budget -> {
+            assertTrue(Thread.holdsLock(lock));
+            assertEquals(64, budget);
+            int purged = Math.min(budget, left.get());
+            if (left.addAndGet(-purged) == 0) {
+                done.countDown();
+            }
+            return purged;
+        }, 64);
+        compactor.start();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // The counters are updated once the batch returns
+        Thread.sleep(200);
+        assertEquals(1000, compactor.getPurged());
+        assertEquals(16, compactor.getBatches());
+    }
+
+    @Test
+    public void testReleasesLockBetweenBatches() throws InterruptedException {
+        AtomicInteger batches = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        compactor = new Compactor(lock, budget -> {
+            started.countDown();
+            return batches.incrementAndGet() < 1000000 ? 1 : 0;
+        }, 1);
+        compactor.start();
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // A command gets the lock while the purge is still running
+        synchronized (lock) {
+            assertTrue(batches.get() < 1000000);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package personal.gym.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestJournal {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("journal", ".log");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testReplayAfterReopen() throws IOException {
+        Journal journal = new Journal(file, 0);
+        journal.replay(r -> { });
+        journal.append(Operation.CREATE_MEMBER, "000000000", "Julien Thibeault");
+        journal.append(Operation.DELETE_MEMBER, "000000000");
+        journal.close();
+
+        List<JournalRecord> records = new ArrayList<>();
+        Journal reopened = new Journal(file, 0);
+        assertEquals(2, reopened.replay(records::add));
+
+        assertEquals(Operation.CREATE_MEMBER, records.get(0).getOperation());
+        assertEquals("Julien Thibeault", records.get(0).getArg(1));
+        assertEquals(2, reopened.getLastLsn());
+        reopened.close();
+    }
+
+    @Test
+    public void testTornTailIsDiscarded() throws IOException {
+        Journal journal = new Journal(file, 0);
+        journal.replay(r -> { });
+        journal.append(Operation.RESERVE_SEAT, "0005589");
+        journal.append(Operation.RESERVE_SEAT, "0005589");
+        journal.close();
+
+        // Simulates a crash in the middle of the second record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        Journal reopened = new Journal(file, 0);
+        assertEquals(1, reopened.replay(r -> { }));
+        reopened.append(Operation.RESERVE_SEAT, "0005589");
+        reopened.close();
+
+        assertEquals(2, new Journal(file, 0).replay(r -> { }));
+    }
+
+    @Test
+    public void testCheckpointSkipsCoveredRecords() throws IOException {
+        Journal journal = new Journal(file, 0);
+        journal.replay(r -> { });
+        journal.append(Operation.ADD_SESSION_FEE, "0005589", "2500");
+        journal.append(Operation.ADD_SESSION_FEE, "0005589", "2500");
+        journal.close();
+
+        assertEquals(1, new Journal(file, 1).replay(r -> { }));
+    }
+
+    @Test
+    public void testCheckpointKeepsRecordsOfPreviousGenerations()
+        throws IOException {
+        Journal journal = new Journal(file, 0);
+        journal.replay(r -> { });
+        for (int i = 0; i < 4; i++) {
+            journal.append(Operation.RESERVE_SEAT, "0005589");
+        }
+        long size = file.length();
+
+        // Too few records to be worth copying the others
+        journal.checkpoint(4, 1);
+        assertEquals(size, file.length());
+
+        journal.checkpoint(4, 3);
+        assertEquals(size / 4, file.length());
+        journal.append(Operation.RESERVE_SEAT, "0005589");
+        journal.close();
+
+        List<JournalRecord> records = new ArrayList<>();
+        assertEquals(2, new Journal(file, 4).replay(0, records::add));
+        assertEquals(4, records.get(0).getLsn());
+        assertEquals(5, records.get(1).getLsn());
+    }
+
+    @Test
+    public void testRecordWithoutArguments() throws IOException {
+        Journal journal = new Journal(file, 0);
+        journal.replay(r -> { });
+        journal.append(Operation.WEEKLY_RESET);
+        journal.close();
+
+        List<JournalRecord> records = new ArrayList<>();
+        assertEquals(1, new Journal(file, 0).replay(records::add));
+        assertEquals(Operation.WEEKLY_RESET, records.get(0).getOperation());
+    }
+
+    @Test
+    public void testReplayFromOlderFile() throws IOException {
+        Journal journal = new Journal(file, 0);
+        journal.replay(r -> { });
+        journal.append(Operation.RESERVE_SEAT, "0005589");
+        journal.append(Operation.RESERVE_SEAT, "0005589");
+        journal.append(Operation.RESERVE_SEAT, "0005589");
+        journal.close();
+
+        List<JournalRecord> records = new ArrayList<>();
+        assertEquals(2, new Journal(file, 3).replay(1, records::add));
+        assertEquals(2, records.get(0).getLsn());
+    }
+
+    @Test
+    public void testAdvancedNumbersFollowFiles() throws IOException {
+        Journal journal = new Journal(file, 2);
+        journal.advanceTo(7);
+        journal.advanceTo(-1);
+        journal.replay(r -> { });
+        journal.append(Operation.RESERVE_SEAT, "0005589");
+
+        assertEquals(8, journal.getLastLsn());
+        journal.close();
+    }
+
+    @Test
+    public void testAppendAllCommitsBatch() throws IOException {
+        Journal journal = new Journal(file, 0);
+        journal.replay(r -> { });
+        List<String[]> batch = new ArrayList<>();
+        batch.add(new String[]{"000000000", "Julien Thibeault"});
+        batch.add(new String[]{"000000001", "Yan Zhuang"});
+        journal.appendAll(Operation.CREATE_MEMBER, batch);
+        journal.appendAll(Operation.CREATE_MEMBER, new ArrayList<>());
+        assertEquals(2, journal.getLastLsn());
+        journal.close();
+
+        List<JournalRecord> records = new ArrayList<>();
+        assertEquals(2, new Journal(file, 0).replay(records::add));
+        assertEquals("Yan Zhuang", records.get(1).getArg(1));
+        assertEquals(2, records.get(1).getLsn());
+    }
+}
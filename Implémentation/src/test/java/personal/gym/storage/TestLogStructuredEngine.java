@@ -0,0 +1,164 @@
+package personal.gym.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestLogStructuredEngine {
+    private File folder;
+    private LogStructuredEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("engine").toFile();
+        engine = new LogStructuredEngine(folder);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        engine.close();
+        for (File f : folder.listFiles()) {
+            f.delete();
+        }
+        folder.delete();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static String key(int i) {
+        return String.format("%09d", i);
+    }
+
+    private void reopen() throws IOException {
+        engine.close();
+        engine = new LogStructuredEngine(folder);
+    }
+
+    private List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        Iterator<Map.Entry<String, byte[]>> it = engine.iterator();
+        while (it.hasNext()) {
+            keys.add(it.next().getKey());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testPutGetDelete() throws IOException {
+        assertNull(engine.put("000000001", bytes("Tom Sawyer")));
+        assertEquals("Tom Sawyer",
+        string(engine.put("000000001", bytes("Huck Finn"))));
+        assertEquals("Huck Finn", string(engine.get("000000001")));
+        assertEquals(1, engine.size());
+
+        assertEquals("Huck Finn", string(engine.delete("000000001")));
+        assertNull(engine.get("000000001"));
+        assertNull(engine.delete("000000001"));
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    public void testCheckpointedChangesReopened() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            engine.put(key(i), bytes("value" + i));
+        }
+        engine.capture(1).flush();
+        engine.delete(key(7));
+        engine.put(key(8), bytes("changed"));
+        engine.capture(2).flush();
+        engine.put(key(9), bytes("not captured"));
+        reopen();
+
+        assertEquals(2, engine.getLsn());
+        assertEquals(99, engine.size());
+        assertNull(engine.get(key(7)));
+        assertEquals("changed", string(engine.get(key(8))));
+        assertEquals("value9", string(engine.get(key(9))));
+        assertEquals("value99", string(engine.get(key(99))));
+        assertNull(engine.get(key(100)));
+        assertNull(engine.get(""));
+    }
+
+    @Test
+    public void testCompactionDropsRemovedEntities() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            engine.put(key(i), bytes("run0"));
+        }
+        for (int run = 0; run < 5; run++) {
+            engine.put(key(49), bytes("run" + run));
+            engine.delete(key(run));
+            engine.capture(-1).flush();
+        }
+        assertEquals(1, engine.getRunCount());
+        reopen();
+
+        assertEquals(1, engine.getRunCount());
+        assertEquals(45, engine.size());
+        assertEquals(45, keys().size());
+        assertNull(engine.get(key(4)));
+        assertEquals("run4", string(engine.get(key(49))));
+    }
+
+    @Test
+    public void testIterationMergesTablesAndRuns() throws IOException {
+        engine.put(key(3), bytes("a"));
+        engine.put(key(1), bytes("b"));
+        engine.capture(-1).flush();
+        engine.put(key(2), bytes("c"));
+        engine.delete(key(3));
+        Checkpointer.Flush flush = engine.capture(-1);
+        engine.put(key(0), bytes("d"));
+
+        List<String> expected = new ArrayList<>();
+        expected.add(key(0));
+        expected.add(key(1));
+        expected.add(key(2));
+        assertEquals(expected, keys());
+
+        flush.flush();
+        assertEquals(expected, keys());
+    }
+
+    @Test
+    public void testUnlistedRunDeletedOnOpening() throws IOException {
+        engine.put(key(1), bytes("a"));
+        engine.capture(-1).flush();
+        File orphan = new File(folder, "run-42.dat");
+        Files.write(orphan.toPath(), bytes("partial"));
+        reopen();
+
+        assertFalse(orphan.exists());
+        assertEquals("a", string(engine.get(key(1))));
+    }
+
+    @Test
+    public void testUnchangedEngineMovesItsJournalPosition() throws IOException {
+        assertEquals(0, engine.getLsn());
+        engine.put(key(1), bytes("a"));
+        engine.capture(3).flush();
+        engine.capture(5).flush();
+        assertEquals(0, engine.capture(4).flush());
+        reopen();
+
+        assertEquals(5, engine.getLsn());
+        assertEquals(1, engine.getRunCount());
+        assertEquals("a", string(engine.get(key(1))));
+    }
+}
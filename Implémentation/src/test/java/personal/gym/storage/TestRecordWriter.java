@@ -0,0 +1,66 @@
+package personal.gym.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TestRecordWriter {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("export", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testNdjson() throws IOException {
+        try (RecordWriter out = new RecordWriter(file,
+            RecordWriter.Format.NDJSON, "code", "name", "fee", "days")) {
+            out.write("000000001", "Jane \"JD\" Doe\n", 25,
+            new Object[] {"MONDAY", "FRIDAY"});
+            out.write("000000002", null, 0, new Object[0]);
+            assertEquals(2, out.getCount());
+        }
+
+        assertEquals(Arrays.asList(
+        "{\"code\":\"000000001\",\"name\":\"Jane \\\"JD\\\" Doe\\n\","
+        + "\"fee\":25,\"days\":[\"MONDAY\",\"FRIDAY\"]}",
+        "{\"code\":\"000000002\",\"name\":null,\"fee\":0,\"days\":[]}"),
+        Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCsv() throws IOException {
+        try (RecordWriter out = new RecordWriter(file, RecordWriter.Format.CSV,
+            "code", "address", "days")) {
+            out.write("000000001", "1 rue A, app \"2\"",
+            new Object[] {"MONDAY", "FRIDAY"});
+            out.write("000000002", null, new Object[0]);
+        }
+
+        assertEquals(Arrays.asList("code,address,days",
+        "000000001,\"1 rue A, app \"\"2\"\"\",MONDAY|FRIDAY", "000000002,,"),
+        Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongFieldCount() throws IOException {
+        try (RecordWriter out = new RecordWriter(file, RecordWriter.Format.CSV,
+            "code", "name")) {
+            out.write("000000001");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package personal.gym.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class TestRecovery {
+    private File folder;
+    private File file;
+    private Recovery recovery;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("recovery").toFile();
+        file = new File(folder, "repository.dat");
+        recovery = new Recovery();
+    }
+
+    @After
+    public void tearDown() {
+        for (File f : folder.listFiles()) {
+            f.delete();
+        }
+        folder.delete();
+    }
+
+    private static int readFirst(File file) throws IOException {
+        try (InputStream in = ChecksummedFile.open(file)) {
+            return in.read();
+        }
+    }
+
+    private void corrupt() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(0);
+            raf.write(0x7F);
+        }
+    }
+
+    @Test
+    public void testPreviousGenerationKept() throws IOException {
+        ChecksummedFile.write(file, out -> out.write(1));
+        assertFalse(ChecksummedFile.previous(file).exists());
+
+        ChecksummedFile.write(file, out -> out.write(2));
+        assertEquals(2, readFirst(file));
+        assertEquals(1, readFirst(ChecksummedFile.previous(file)));
+    }
+
+    @Test
+    public void testCorruptFileRestored() throws IOException,
+        ClassNotFoundException {
+        ChecksummedFile.write(file, out -> out.write(1));
+        ChecksummedFile.write(file, out -> out.write(2));
+        corrupt();
+
+        assertEquals(Integer.valueOf(1),
+        recovery.read(file, TestRecovery::readFirst));
+        assertEquals(1, readFirst(file));
+        assertTrue(new File(file.getPath() + ".corrupt").isFile());
+        assertEquals(1, recovery.getRestored().size());
+
+        recovery.endPhase("Snapshots loaded");
+        assertTrue(recovery.report().contains("Snapshots loaded"));
+        assertTrue(recovery.report().contains("repository.dat restored"));
+    }
+
+    @Test
+    public void testIntactFileRead() throws IOException,
+        ClassNotFoundException {
+        ChecksummedFile.write(file, out -> out.write(1));
+        ChecksummedFile.write(file, out -> out.write(2));
+
+        assertEquals(Integer.valueOf(2),
+        recovery.read(file, TestRecovery::readFirst));
+        assertTrue(recovery.getRestored().isEmpty());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testCorruptFileWithoutPreviousGeneration() throws IOException,
+        ClassNotFoundException {
+        ChecksummedFile.write(file, out -> out.write(1));
+        corrupt();
+
+        recovery.read(file, TestRecovery::readFirst);
+    }
+}
@@ -0,0 +1,98 @@
+package personal.gym.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class TestRepositoryLoader {
+    private RepositoryLoader loader;
+
+    @Before
+    public void setUp() {
+        loader = new RepositoryLoader(2);
+    }
+
+    @After
+    public void tearDown() {
+        loader.shutdown();
+    }
+
+    @Test
+    public void testReportKeepsSchedulingOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> members = loader.load("members", () -> {
+            release.await();
+            return "members";
+        });
+        CompletableFuture<String> services = loader.load("services", () -> "services");
+
+        // A slow repository does not hold back the others
+        assertEquals("services", RepositoryLoader.await(services));
+        String report = loader.report();
+        assertTrue(report, report.contains("members\tloading in background"));
+        assertTrue(report, report.indexOf("members") < report.indexOf("services\t"));
+        assertNotEquals(-1, loadTime(report, "services"));
+
+        release.countDown();
+        assertEquals("members", RepositoryLoader.await(members));
+        report = loader.report();
+        assertFalse(report, report.contains("loading in background"));
+        assertTrue(report, report.indexOf("members\t") < report.indexOf("services\t"));
+    }
+
+    @Test
+    public void testReportsLoadTime() throws Exception {
+        RepositoryLoader.await(loader.load("sessions", () -> {
+            Thread.sleep(50);
+            return null;
+        }));
+
+        assertTrue(loadTime(loader.report(), "sessions") >= 50);
+        assertTrue(loader.report().contains("Elapsed since startup: "));
+    }
+
+    @Test
+    public void testAwaitRethrowsLoadingFailure() throws Exception {
+        IOException io = new FileNotFoundException("members.dat");
+        ClassNotFoundException missing = new ClassNotFoundException("Member");
+        IllegalStateException state = new IllegalStateException("not replayed");
+
+        try {
+            RepositoryLoader.await(loader.load("members", () -> { throw io; }));
+            fail();
+        } catch (IOException e) {
+            assertSame(io, e);
+        }
+
+        try {
+            RepositoryLoader.await(loader.load("professionals", () -> { throw missing; }));
+            fail();
+        } catch (ClassNotFoundException e) {
+            assertSame(missing, e);
+        }
+
+        try {
+            RepositoryLoader.await(loader.load("services", () -> { throw state; }));
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(state, e);
+        }
+
+        // A failed repository still reports how long it took
+        assertNotEquals(-1, loadTime(loader.report(), "members"));
+    }
+
+    private static long loadTime(String report, String name) {
+        Matcher matcher = Pattern.compile("\t" + name + "\t(\\d+) ms").matcher(report);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+}
@@ -0,0 +1,123 @@
+package personal.gym.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import personal.gym.exception.InvalidFormatException;
+import personal.gym.person.Member;
+import personal.gym.person.PersonCodec;
+import personal.gym.person.Professional;
+import personal.gym.person.Status;
+import personal.gym.receipt.BillMember;
+import personal.gym.receipt.BillMemberCodec;
+import personal.gym.receipt.PaymentNoticeProf;
+import personal.gym.receipt.PaymentNoticeProfCodec;
+import personal.gym.service.Service;
+import personal.gym.service.ServiceCodec;
+import personal.gym.util.Day;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestSnapshotFile {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("snapshot", ".dat");
+        Member.setCurrentMemberId(0);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        ChecksummedFile.previous(file).delete();
+    }
+
+    @Test
+    public void testMemberRoundTrip() throws Exception {
+        Member member = new Member("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        member.setStatus(Status.SUSPENDED);
+        Member other = new Member("Philippe Gabriel", "987 Sherbrooke Ouest",
+                "Montréal", "QC", "B2B2B2", "philgab@facebook.com");
+
+        SnapshotFile.write(file, PersonCodec.MEMBER, Arrays.asList(member, other));
+        Map<String, Member> members = SnapshotFile.readMap(file, PersonCodec.MEMBER, Member::getCode);
+
+        Member read = members.get("000000000");
+        assertEquals(2, members.size());
+        assertEquals("Julien Thibeault", read.getName());
+        assertEquals("Montréal", read.getCity());
+        assertEquals(Status.SUSPENDED, read.getStatus());
+        assertEquals("Montréal", members.get("000000001").getCity());
+    }
+
+    @Test
+    public void testServiceRoundTrip() throws Exception {
+        SimpleDateFormat date = new SimpleDateFormat("dd-MM-yyyy");
+        Service service = new Service("Yoga", date.parse("01-01-2021"), date.parse("31-12-2021"),
+                new Day[]{Day.TUESDAY, Day.SATURDAY}, 20, "None", 2500,
+                new SimpleDateFormat("HH:mm").parse("12:30"), "000000000");
+
+        SnapshotFile.write(file, ServiceCodec.INSTANCE, Collections.singletonList(service));
+        Service read = SnapshotFile.readList(file, ServiceCodec.INSTANCE).get(0);
+
+        assertEquals(service.getCode(), read.getCode());
+        assertEquals(service.getStartDate(), read.getStartDate());
+        assertEquals(service.getEndDate(), read.getEndDate());
+        assertEquals(service.getServiceTime(), read.getServiceTime());
+        assertEquals(service.getDateNow(), read.getDateNow());
+        assertArrayEquals(service.getOccurrences(), read.getOccurrences());
+    }
+
+    @Test
+    public void testReceiptsRoundTrip() throws Exception {
+        SimpleDateFormat date = new SimpleDateFormat("dd-MM-yyyy");
+        Member member = new Member("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        Professional prof = new Professional("Yan Zhuang", "2900 Édouard-Montpetit",
+                "Montréal", "QC", "H3T1J4", "yanz@facebook.com");
+        BillMember bill = new BillMember(member);
+        bill.addSessionInfo(date.parse("02-03-2021"), "Yan Zhuang", "Yoga");
+        bill.addSessionInfo(date.parse("04-03-2021"), "Yan Zhuang", "Yoga");
+        PaymentNoticeProf notice = new PaymentNoticeProf(prof);
+        notice.addSessionInfo("1234567", date.parse("02-03-2021"), member.getCode(),
+                member.getName(), 2500);
+
+        SnapshotFile.write(file, BillMemberCodec.INSTANCE, Collections.singletonList(bill));
+        BillMember readBill = SnapshotFile.readList(file, BillMemberCodec.INSTANCE).get(0);
+        SnapshotFile.write(file, PaymentNoticeProfCodec.INSTANCE, Collections.singletonList(notice));
+        PaymentNoticeProf readNotice = SnapshotFile.readList(file, PaymentNoticeProfCodec.INSTANCE).get(0);
+
+        assertEquals(bill.toString(), readBill.toString());
+        assertEquals(notice.toString(), readNotice.toString());
+        assertEquals(notice.toString(), PaymentNoticeProfCodec.INSTANCE.copy(notice).toString());
+    }
+
+    @Test
+    public void testLegacyFormatIsRead() throws IOException, ClassNotFoundException,
+            InvalidFormatException {
+        Map<String, Member> members = new HashMap<>();
+        Member member = new Member("Julien Thibeault", "12345 Sherbrooke Est",
+                "Montréal", "QC", "A1A1A1", "thibeaultj@facebook.com");
+        members.put(member.getCode(), member);
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(members);
+        }
+
+        assertFalse(SnapshotFile.isSnapshot(file));
+        assertEquals("Julien Thibeault",
+                SnapshotFile.readMap(file, PersonCodec.MEMBER, Member::getCode).get("000000000").getName());
+    }
+}
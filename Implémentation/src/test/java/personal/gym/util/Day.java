@@ -1,6 +1,7 @@
 package personal.gym.util;
 
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 
 /**
  * Constants indicating days of the week.
@@ -53,4 +54,25 @@ public enum Day {
         
         return this.day;
     }
+
+    /**
+     * Retrieves the day constant of a day of the week, regardless of the
+     * locale.
+     *
+     * @param day Day of the week
+     * @return Day constant
+     */
+    public static Day of(DayOfWeek day) {
+        
+        // Both enumerations start on Monday
+        return values()[day.ordinal()];
+    }
+
+    /**
+     * @return Day constant of the current day, in the default time zone
+     */
+    public static Day today() {
+        
+        return of(LocalDate.now().getDayOfWeek());
+    }
 }
\ No newline at end of file
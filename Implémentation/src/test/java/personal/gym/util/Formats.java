@@ -0,0 +1,308 @@
+package personal.gym.util;
+
+import personal.gym.exception.InvalidFormatException;
+
+/**
+ * Validators of the fields entered for persons, services, registrations and
+ * validations. Each validator walks the characters of a field by hand instead
+ * of compiling a regular expression, and never allocates.
+ * <p>
+ * A {@code verifyFormat} method flags each failing field with
+ * {@link #flag(boolean, int)}, the index of the field in its array of field
+ * names being the bit set, then calls {@link #report(int, String[])} once
+ * every field was checked. All the failing fields are thus reported at once,
+ * while a successful verification neither allocates nor throws.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public final class Formats {
+
+    private static final String FACEBOOK_DOMAIN = "@facebook.com";
+
+    private Formats() {
+
+    }
+
+    /**
+     * @param valid Whether a field respects its format
+     * @param field Index of the field in the field names of its entity
+     * @return Bit of the field if it failed, or 0
+     */
+    public static int flag(boolean valid, int field) {
+
+        return valid ? 0 : 1 << field;
+    }
+
+    /**
+     * Reports the fields flagged as failing, if any.
+     *
+     * @param failed Bits of the failing fields
+     * @param fields Field names, by index
+     * @throws InvalidFormatException naming every failing field
+     */
+    public static void report(int failed, String[] fields)
+        throws InvalidFormatException {
+
+        if (failed == 0) {
+
+            return;
+        }
+
+        StringBuilder names = new StringBuilder();
+
+        for (int i = 0; i < fields.length; i++) {
+
+            if ((failed & 1 << i) != 0) {
+
+                names.append(names.length() == 0 ? "" : ", ").append(fields[i]);
+            }
+        }
+
+        throw new InvalidFormatException(names.toString());
+    }
+
+    /**
+     * @param value Field value
+     * @param length Required length
+     * @return Whether the field has the exact length
+     */
+    public static boolean hasLength(String value, int length) {
+
+        return value != null && value.length() == length;
+    }
+
+    /**
+     * @param value Field value
+     * @param maxLength Maximum length
+     * @return Whether the field is no longer than the maximum length
+     */
+    public static boolean fitsLength(String value, int maxLength) {
+
+        return value != null && value.length() <= maxLength;
+    }
+
+    /**
+     * Verifies a single capitalized word, such as a service name.
+     *
+     * @param value Field value
+     * @param maxLength Maximum length
+     * @return Whether the field is an uppercase letter followed by lowercase
+     * letters
+     */
+    public static boolean isWord(String value, int maxLength) {
+
+        return fitsLength(value, maxLength)
+            && isWord(value, 0, value.length());
+    }
+
+    /**
+     * Verifies a full name: two capitalized words separated by one whitespace
+     * character.
+     *
+     * @param value Field value
+     * @param maxLength Maximum length
+     * @return Whether the field is a full name
+     */
+    public static boolean isFullName(String value, int maxLength) {
+
+        if (! fitsLength(value, maxLength)) {
+
+            return false;
+        }
+
+        for (int i = 1; i < value.length(); i++) {
+
+            if (Character.isWhitespace(value.charAt(i))) {
+
+                return isSpace(value.charAt(i)) && isWord(value, 0, i)
+                    && isWord(value, i + 1, value.length());
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param value Field value
+     * @return Whether the field is a postal code, letters and digits
+     * alternating from an uppercase letter
+     */
+    public static boolean isPostalCode(String value) {
+
+        if (! hasLength(value, 6)) {
+
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+
+            char c = value.charAt(i);
+
+            if (i % 2 == 0 ? c < 'A' || c > 'Z' : c < '0' || c > '9') {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param value Searched value
+     * @return Whether the value is a forward sortation area or a postal code,
+     * letters and digits alternating from a letter of either case
+     */
+    public static boolean isPostalArea(String value) {
+
+        if (! hasLength(value, 3) && ! hasLength(value, 6)) {
+
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+
+            char c = Character.toUpperCase(value.charAt(i));
+
+            if (i % 2 == 0 ? c < 'A' || c > 'Z' : c < '0' || c > '9') {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Trims a value and replaces each run of whitespace characters with a
+     * single space.
+     *
+     * @param value Field value
+     * @return Value trimmed and with single spaces
+     */
+    public static String singleSpaced(String value) {
+
+        String trimmed = value.trim();
+        StringBuilder sb = new StringBuilder(trimmed.length());
+        boolean spaced = false;
+
+        for (int i = 0; i < trimmed.length(); i++) {
+
+            char c = trimmed.charAt(i);
+
+            if (! isSpace(c)) {
+
+                sb.append(c);
+                spaced = false;
+            } else if (! spaced) {
+
+                sb.append(' ');
+                spaced = true;
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @param value Field value
+     * @param maxLength Maximum length
+     * @return Whether the field is a Facebook account, an address on a single
+     * line ending with {@code @facebook.com}
+     */
+    public static boolean isFacebookEmail(String value, int maxLength) {
+
+        if (! fitsLength(value, maxLength)
+            || value.length() <= FACEBOOK_DOMAIN.length()
+            || ! value.endsWith(FACEBOOK_DOMAIN)) {
+
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+
+            if (isLineTerminator(value.charAt(i))) {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param values Values which must be distinct
+     * @return Whether no day occurs twice
+     */
+    public static boolean areDistinct(Day[] values) {
+
+        if (values == null) {
+
+            return false;
+        }
+
+        int seen = 0;
+
+        for (Day value : values) {
+
+            if ((seen & 1 << value.ordinal()) != 0) {
+
+                return false;
+            }
+
+            seen |= 1 << value.ordinal();
+        }
+
+        return true;
+    }
+
+    /**
+     * @param value Field value
+     * @param from Index of the first character of the word
+     * @param to Index past the last character of the word
+     * @return Whether the characters are an uppercase letter followed by
+     * lowercase letters
+     */
+    private static boolean isWord(String value, int from, int to) {
+
+        if (from >= to || value.charAt(from) < 'A'
+            || value.charAt(from) > 'Z') {
+
+            return false;
+        }
+
+        for (int i = from + 1; i < to; i++) {
+
+            if (value.charAt(i) < 'a' || value.charAt(i) > 'z') {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param c Character
+     * @return Whether the character is one of the whitespace characters of a
+     * regular expression
+     */
+    private static boolean isSpace(char c) {
+
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+            || c == '\f' || c == '\r';
+    }
+
+    /**
+     * @param c Character
+     * @return Whether the character ends a line for a regular expression
+     */
+    private static boolean isLineTerminator(char c) {
+
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028'
+            || c == '\u2029';
+    }
+}
@@ -0,0 +1,77 @@
+package personal.gym.util;
+
+import personal.gym.exception.InvalidFormatException;
+import personal.gym.person.Person;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares the verification of the fields of valid persons through the
+ * former regular expressions and through {@link Formats}, in time and in
+ * bytes allocated. Not a unit test: run with
+ * {@code java personal.gym.util.FormatsBenchmark [persons]}.
+ */
+public class FormatsBenchmark {
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        String[][] persons = new String[n][];
+        for (int i = 0; i < n; i++) {
+            persons[i] = new String[] {"Julien Thibeault", i + " Sherbrooke Est", "Montréal", "QC",
+                "A1A1A1", "member" + i + "@facebook.com"};
+        }
+
+        System.out.printf("%d persons%n%n", n);
+        System.out.printf("%-12s %12s %14s%n", "validator", "ns/person", "bytes/person");
+        run("regex", persons, FormatsBenchmark::verifyWithRegex);
+        run("Formats", persons, fields -> Person.verifyFormat(fields[0], fields[1], fields[2],
+                fields[3], fields[4], fields[5]));
+    }
+
+    private interface Verifier {
+        void verify(String[] fields) throws InvalidFormatException;
+    }
+
+    private static void run(String name, String[][] persons, Verifier verifier) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long best = Long.MAX_VALUE;
+        long allocated = 0;
+        // Best of several runs, the first ones warming up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            long bytes = threads.getThreadAllocatedBytes(id);
+            long t0 = System.nanoTime();
+            for (String[] fields : persons) {
+                verifier.verify(fields);
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+            allocated = threads.getThreadAllocatedBytes(id) - bytes;
+        }
+
+        System.out.printf("%-12s %12d %14d%n", name, best / persons.length, allocated / persons.length);
+    }
+
+    // Former Person.verifyFormat
+    private static void verifyWithRegex(String[] fields) throws InvalidFormatException {
+        if (fields[0].length() > 25 || !fields[0].matches("([A-Z][a-z]*\\s[A-Z][a-z]*)")) {
+            throw new InvalidFormatException("name");
+        }
+        if (fields[1].length() > 25) {
+            throw new InvalidFormatException("address");
+        }
+        if (fields[2].length() > 14) {
+            throw new InvalidFormatException("city");
+        }
+        if (fields[3].length() != 2) {
+            throw new InvalidFormatException("province");
+        }
+        if (fields[4].length() != 6 || !fields[4].matches("[A-Z][0-9][A-Z][0-9][A-Z][0-9]")) {
+            throw new InvalidFormatException("postalCode");
+        }
+        if (fields[5].length() > 64 || !fields[5].matches("(.)+@facebook\\.com")) {
+            throw new InvalidFormatException("email");
+        }
+    }
+}
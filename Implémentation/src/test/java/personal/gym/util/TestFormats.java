@@ -0,0 +1,74 @@
+package personal.gym.util;
+
+import org.junit.Test;
+import personal.gym.exception.InvalidFormatException;
+import personal.gym.person.Person;
+import personal.gym.service.Service;
+
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestFormats {
+    private static final String ALPHABET = "AZaz09 \t\n\u000B\r\u001C@.facebook.com -";
+
+    @Test
+    public void testMatchesFormerRegularExpressions() {
+        Random random = new Random(42);
+        String[] samples = {"Julien Thibeault", "A b", "Ab Cd", "Ab  Cd", "Ab\tCd", "AbCd", " Ab Cd",
+            "H1H1H1", "h1h1h1", "H1H1H", "h1H", "H1", " \t Ab \n\n Cd \f", "x@facebook.com",
+            "@facebook.com", "a\n@facebook.com", "a@facebookxcom", "Yoga", "yoga", "Y", ""};
+        for (int i = 0; i < 20000 + samples.length; i++) {
+            String value = i < samples.length ? samples[i] : randomString(random);
+            assertEquals(value, value.matches("([A-Z][a-z]*\\s[A-Z][a-z]*)"),
+                    Formats.isFullName(value, Integer.MAX_VALUE));
+            assertEquals(value, value.matches("[A-Z][0-9][A-Z][0-9][A-Z][0-9]"),
+                    Formats.isPostalCode(value));
+            assertEquals(value, value.matches("(.)+@facebook\\.com"),
+                    Formats.isFacebookEmail(value, Integer.MAX_VALUE));
+            assertEquals(value, value.matches("[A-Z][a-z]*"), Formats.isWord(value, Integer.MAX_VALUE));
+            assertEquals(value, value.matches("[A-Za-z][0-9][A-Za-z]([0-9][A-Za-z][0-9])?"),
+                    Formats.isPostalArea(value));
+            assertEquals(value, value.trim().replaceAll("\\s+", " "), Formats.singleSpaced(value));
+        }
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder value = new StringBuilder();
+        int length = random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            value.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        // Often ending like an email
+        return random.nextInt(4) == 0 ? value + "@facebook.com" : value.toString();
+    }
+
+    @Test
+    public void testReportsEveryFailingField() {
+        try {
+            Person.verifyFormat("julien", "12345 Sherbrooke Est", "Montréal", "QC", "1A1A1A",
+                    "thibeaultj@facebook.com");
+            fail();
+        } catch (InvalidFormatException e) {
+            assertEquals("name, postalCode", e.getMessage());
+        }
+
+        try {
+            Service.verifyFormat("yoga", new Date(1), new Date(0),
+                    new Day[] {Day.MONDAY, Day.FRIDAY, Day.MONDAY}, 30, "", 100, "000000000");
+            fail();
+        } catch (InvalidFormatException e) {
+            assertEquals("name, startDate, endDate, occurrences", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAcceptsValidFields() throws InvalidFormatException {
+        Person.verifyFormat("Julien Thibeault", "12345 Sherbrooke Est", "Montréal", "QC", "A1A1A1",
+                "thibeaultj@facebook.com");
+        Service.verifyFormat("Yoga", new Date(0), new Date(1), Day.values(), 30, "", 100, "000000000");
+        assertEquals(0, Formats.flag(true, 5));
+        assertEquals(1 << 5, Formats.flag(false, 5));
+    }
+}
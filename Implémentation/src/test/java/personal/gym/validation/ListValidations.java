@@ -7,6 +7,9 @@ import personal.gym.exception.InvalidFormatException;
 
 import personal.gym.receipt.ListReceipts;
 
+import personal.gym.storage.Journal;
+import personal.gym.storage.Operation;
+
 /**
  * Data structure holding all the registration validations accumulated.
  *
@@ -21,6 +24,8 @@ public class ListValidations {
 	private List<Validation> validations;
     
     private ListReceipts listReceipts;
+    private Journal journal;
+    private long epoch;
 
     /**
      * Initializes the list of validations.
@@ -43,6 +48,22 @@ public class ListValidations {
         this.listReceipts = listReceipts;
     }
 
+    /**
+     * @param journal Journal recording the mutations, or null to stop recording
+     */
+    public void setJournal(Journal journal) {
+        
+        this.journal = journal;
+    }
+
+    /**
+     * @return Modification epoch of the validations, increased on every change
+     */
+    public long getEpoch() {
+        
+        return epoch;
+    }
+
     /**
      * @return List of validations
      */
@@ -58,6 +79,7 @@ public class ListValidations {
     public void clear() {
         
         validations.clear();
+        epoch++;
     }
 
 	/**
@@ -77,11 +99,31 @@ public class ListValidations {
 		
         Validation validation = new Validation(profNo, memberNo, sessionNo,
         comment);
+        
+        if (journal != null) {
+            
+            journal.append(Operation.CREATE_VALIDATION, profNo, memberNo,
+            sessionNo, comment);
+        }
+        
         validations.add(validation);
+        epoch++;
         listReceipts.createBillMember(memberNo, validation);
         listReceipts.createPaymentNoticeProf(profNo, validation);
 	}
 
+    /**
+     * Adds a validation read back from the journal. The receipts are replayed
+     * on their own, their files being written apart from the validations.
+     *
+     * @param validation Replayed validation
+     */
+    public void addValidation(Validation validation) {
+        
+        validations.add(validation);
+        epoch++;
+    }
+
 	/**
      * Verifies whether a validation exists for a given session.
 	 * 
@@ -6,6 +6,8 @@ import java.util.Date;
 
 import personal.gym.exception.InvalidFormatException;
 
+import personal.gym.util.Formats;
+
 /**
  * Entity describing information relative to a registration validation generated
  * once a member participates at a session.
@@ -18,11 +20,15 @@ import personal.gym.exception.InvalidFormatException;
  */
 public class Validation implements Serializable {
 
+    private static final long serialVersionUID = 4579860729049221596L;
+
     private static final int PROF_NO_LENGTH = 9;
     private static final int MEMBER_NO_LENGTH = 9;
     private static final int SESSION_NO_LENGTH = 7;
     private static final int MAX_COMMENT_LENGTH = 100;
     private static final int SERVICE_NO_LENGTH = 3;
+    private static final String[] FIELDS = {"profNo", "memberNo", "sessionNo",
+        "comment"};
 
 	private String profNo;
 	private String memberNo;
@@ -38,31 +44,18 @@ public class Validation implements Serializable {
 	 * @param memberNo Validation session member number
 	 * @param sessionNo Validation session number
 	 * @param comment Validation comment
-     * @throws InvalidFormatException if a field does not respect the imposed
-     * format
+     * @throws InvalidFormatException naming every field which does not
+     * respect the imposed format
 	 */
 	public static void verifyFormat(String profNo, String memberNo,
         String sessionNo, String comment) throws InvalidFormatException {
 		
-        if (profNo.length() != PROF_NO_LENGTH) {
-            
-            throw new InvalidFormatException("profNo");
-        }
-        
-        if (memberNo.length() != MEMBER_NO_LENGTH) {
-            
-            throw new InvalidFormatException("profNo");
-        }
-        
-        if (sessionNo.length() != SESSION_NO_LENGTH) {
-            
-            throw new InvalidFormatException("profNo");
-        }
-        
-        if (comment.length() > MAX_COMMENT_LENGTH) {
-            
-            throw new InvalidFormatException("profNo");
-        }
+        Formats.report(
+        Formats.flag(Formats.hasLength(profNo, PROF_NO_LENGTH), 0)
+        | Formats.flag(Formats.hasLength(memberNo, MEMBER_NO_LENGTH), 1)
+        | Formats.flag(Formats.hasLength(sessionNo, SESSION_NO_LENGTH), 2)
+        | Formats.flag(Formats.fitsLength(comment, MAX_COMMENT_LENGTH), 3),
+        FIELDS);
 	}
 
 	/**
@@ -88,6 +81,25 @@ public class Validation implements Serializable {
         dateNow = new Date(System.currentTimeMillis());
 	}
 
+    /**
+     * Restores a validation read back from a snapshot.
+     *
+     * @param profNo Validation session professional number
+     * @param memberNo Validation session member number
+     * @param sessionNo Validation session number
+     * @param comment Validation comment
+     * @param dateNow Validation date of creation
+     */
+    Validation(String profNo, String memberNo, String sessionNo,
+        String comment, Date dateNow) {
+
+        this.profNo = profNo;
+        this.memberNo = memberNo;
+        this.sessionNo = sessionNo;
+        this.comment = comment;
+        this.dateNow = dateNow;
+    }
+
     /**
      * @return Validation session member number
      */
@@ -112,6 +124,14 @@ public class Validation implements Serializable {
 		return sessionNo;
 	}
 
+    /**
+     * @return Validation comment
+     */
+    public String getComment() {
+
+        return comment;
+    }
+
     /**
      * @return Validation date of creation
      */
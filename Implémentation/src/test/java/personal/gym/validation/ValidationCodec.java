@@ -0,0 +1,65 @@
+package personal.gym.validation;
+
+import java.io.IOException;
+
+import personal.gym.storage.BinaryInput;
+import personal.gym.storage.BinaryOutput;
+import personal.gym.storage.Codec;
+
+/**
+ * Compact binary encoding of validations. Professional, member and session
+ * numbers are written as integers.
+ *
+ * @version 1.0
+ * @author Yu Deng
+ * @author Philippe Gabriel
+ * @author Julien Thibeault
+ * @author Yan Zhuang
+ */
+public class ValidationCodec implements Codec<Validation> {
+
+    public static final ValidationCodec INSTANCE = new ValidationCodec();
+
+    private ValidationCodec() {}
+
+    /**
+     * @return Codec identifier
+     */
+    @Override
+    public int getId() {
+
+        return 6;
+    }
+
+    /**
+     * Writes a validation.
+     *
+     * @param out Destination
+     * @param validation Validation to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void encode(BinaryOutput out, Validation validation)
+        throws IOException {
+
+        out.writeCode(validation.getProfNo());
+        out.writeCode(validation.getMemberNo());
+        out.writeCode(validation.getSessionNo());
+        out.writeString(validation.getComment());
+        out.writeTimestamp(validation.getDateNow());
+    }
+
+    /**
+     * Reads back a validation.
+     *
+     * @param in Source
+     * @return Validation read
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public Validation decode(BinaryInput in) throws IOException {
+
+        return new Validation(in.readCode(), in.readCode(), in.readCode(),
+        in.readString(), in.readTimestamp());
+    }
+}